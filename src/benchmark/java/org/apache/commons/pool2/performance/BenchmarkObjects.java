@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+/**
+ * Pooled objects and factories shared by the JMH benchmarks. The factories do
+ * no work beyond allocating new objects so that the benchmarks measure the
+ * pool overhead only.
+ */
+public final class BenchmarkObjects {
+
+    /**
+     * The pooled type, an interface so that it can be proxied by JDK proxies.
+     */
+    public interface Counter {
+        int increment();
+    }
+
+    /**
+     * The pooled implementation, non-final with a default constructor so that
+     * it can be proxied by CGLIB.
+     */
+    public static class SimpleCounter implements Counter {
+
+        private int value;
+
+        @Override
+        public int increment() {
+            return ++value;
+        }
+    }
+
+    /**
+     * Factory for {@link Counter} instances.
+     */
+    public static class CounterFactory extends BasePooledObjectFactory<Counter> {
+
+        @Override
+        public Counter create() {
+            return new SimpleCounter();
+        }
+
+        @Override
+        public PooledObject<Counter> wrap(final Counter counter) {
+            return new DefaultPooledObject<>(counter);
+        }
+
+        @Override
+        public boolean validateObject(final PooledObject<Counter> p) {
+            return true;
+        }
+    }
+
+    /**
+     * Keyed factory for {@link Counter} instances.
+     */
+    public static class KeyedCounterFactory extends BaseKeyedPooledObjectFactory<Integer, Counter> {
+
+        @Override
+        public Counter create(final Integer key) {
+            return new SimpleCounter();
+        }
+
+        @Override
+        public PooledObject<Counter> wrap(final Counter counter) {
+            return new DefaultPooledObject<>(counter);
+        }
+    }
+
+    private BenchmarkObjects() {
+        // Holder class
+    }
+}
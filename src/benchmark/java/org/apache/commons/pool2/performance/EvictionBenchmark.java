@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.commons.pool2.performance.BenchmarkObjects.Counter;
+import org.apache.commons.pool2.performance.BenchmarkObjects.CounterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one eviction run of {@link GenericObjectPool} that examines every
+ * idle object of a large idle set. Nothing is old enough to be evicted, so the
+ * idle set is the same for every run and the measurement covers iteration,
+ * the eviction policy and, optionally, validation.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvictionBenchmark {
+
+    @Param({"1000", "100000"})
+    public int idleCount;
+
+    @Param({"false", "true"})
+    public boolean testWhileIdle;
+
+    private GenericObjectPool<Counter> pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        final GenericObjectPoolConfig<Counter> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(-1);
+        config.setMaxIdle(-1);
+        config.setMinEvictableIdleTimeMillis(Long.MAX_VALUE);
+        config.setNumTestsPerEvictionRun(idleCount);
+        config.setTestWhileIdle(testWhileIdle);
+        config.setJmxEnabled(false);
+        pool = new GenericObjectPool<>(new CounterFactory(), config);
+        pool.addObjects(idleCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public int evict() throws Exception {
+        pool.evict();
+        return pool.getNumIdle();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.ObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.commons.pool2.performance.BenchmarkObjects.Counter;
+import org.apache.commons.pool2.performance.BenchmarkObjects.CounterFactory;
+import org.apache.commons.pool2.performance.BenchmarkObjects.SimpleCounter;
+import org.apache.commons.pool2.proxy.CglibProxySource;
+import org.apache.commons.pool2.proxy.JdkProxySource;
+import org.apache.commons.pool2.proxy.ProxiedObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures borrowing a proxy from a {@link ProxiedObjectPool}, invoking a
+ * method through it and returning it, with a single thread and with one
+ * thread per available processor.
+ * <p>
+ * On Java 16 and later CGLIB needs
+ * {@code --add-opens java.base/java.lang=ALL-UNNAMED}, pass it with
+ * {@code -jvmArgsAppend}.
+ * </p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxiedObjectPoolBenchmark {
+
+    @Param({"JDK", "CGLIB"})
+    public String proxy;
+
+    private GenericObjectPool<Counter> innerPool;
+
+    private ObjectPool<Counter> pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        final int maxTotal = 2 * Runtime.getRuntime().availableProcessors();
+        final GenericObjectPoolConfig<Counter> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(maxTotal);
+        config.setMaxIdle(maxTotal);
+        config.setJmxEnabled(false);
+        innerPool = new GenericObjectPool<>(new CounterFactory(), config);
+        innerPool.addObjects(maxTotal);
+        if ("CGLIB".equals(proxy)) {
+            pool = new ProxiedObjectPool<>(innerPool, new CglibProxySource<>(SimpleCounter.class));
+        } else {
+            pool = new ProxiedObjectPool<>(innerPool,
+                    new JdkProxySource<>(getClass().getClassLoader(), new Class<?>[] {Counter.class}));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    private int borrowUseAndReturn() throws Exception {
+        final Counter counter = pool.borrowObject();
+        final int result = counter.increment();
+        pool.returnObject(counter);
+        return result;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int borrowUseReturn() throws Exception {
+        return borrowUseAndReturn();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int borrowUseReturnContended() throws Exception {
+        return borrowUseAndReturn();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.impl.SoftReferenceObjectPool;
+import org.apache.commons.pool2.performance.BenchmarkObjects.Counter;
+import org.apache.commons.pool2.performance.BenchmarkObjects.CounterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a borrow/return cycle of {@link SoftReferenceObjectPool} with a
+ * single thread and with one thread per available processor.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SoftReferenceObjectPoolBenchmark {
+
+    private SoftReferenceObjectPool<Counter> pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        pool = new SoftReferenceObjectPool<>(new CounterFactory());
+        pool.addObjects(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    private Counter borrowAndReturn() throws Exception {
+        final Counter counter = pool.borrowObject();
+        pool.returnObject(counter);
+        return counter;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Counter borrowReturn() throws Exception {
+        return borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Counter borrowReturnContended() throws Exception {
+        return borrowAndReturn();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A keyed object pool that can lend objects without blocking the borrowing
+ * thread.
+ * <p>
+ * Borrowers that cannot be served immediately are queued instead of parking
+ * their threads. The returned future is completed by whichever thread makes an
+ * object available, so dependent actions that must not run on pool threads
+ * should use the {@code *Async} methods of {@link CompletableFuture}.
+ * </p>
+ *
+ * @param <K> The type of keys maintained by this pool.
+ * @param <V> Type of element pooled in this pool.
+ *
+ * @see KeyedObjectPool
+ * @see AsyncObjectPool
+ *
+ * @since 2.9.1
+ */
+public interface AsyncKeyedObjectPool<K, V> extends KeyedObjectPool<K, V> {
+
+    /**
+     * Obtains an instance for the specified {@code key} from this pool
+     * without blocking, waiting for the pool's default maximum wait time.
+     *
+     * @param key the key used to obtain the object
+     * @return a future completed with an instance corresponding to the given
+     *         {@code key}
+     *
+     * @see #borrowObjectAsync(Object, Duration)
+     */
+    CompletableFuture<V> borrowObjectAsync(K key);
+
+    /**
+     * Obtains an instance for the specified {@code key} from this pool
+     * without blocking.
+     * <p>
+     * The returned future completes with an instance that has been activated
+     * and validated as by {@link #borrowObject(Object)}, as soon as one is
+     * idle or has been created. It completes exceptionally with a
+     * {@link NoSuchElementException} if no instance becomes available within
+     * {@code maxWait}, and with an {@link IllegalStateException} if the pool is
+     * closed. Cancelling the future withdraws the request.
+     * </p>
+     * <p>
+     * By contract, clients <strong>must</strong> return the borrowed instance
+     * using {@link #returnObject}, {@link #invalidateObject}, or a related
+     * method as defined in an implementation or sub-interface.
+     * </p>
+     *
+     * @param key the key used to obtain the object
+     * @param maxWait the maximum time to wait for an instance, {@code null}
+     *        or a negative duration waits indefinitely
+     * @return a future completed with an instance corresponding to the given
+     *         {@code key}
+     */
+    CompletableFuture<V> borrowObjectAsync(K key, Duration maxWait);
+}
@@ -17,8 +17,11 @@
 package org.apache.commons.pool2;
 
 import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -175,6 +178,99 @@ public interface KeyedObjectPool<K, V> extends Closeable {
      */
     V borrowObject(K key) throws Exception, NoSuchElementException, IllegalStateException;
 
+    /**
+     * Obtains {@code count} instances for the specified {@code key} from this
+     * pool, either all of them or none. This is equivalent to
+     * {@link #borrowObjects(Object, int, Duration, boolean)
+     * borrowObjects(key, count, maxWait, true)}.
+     *
+     * @param key the key used to obtain the objects
+     * @param count the number of instances to borrow
+     * @param maxWait the maximum time to wait for the instances to become
+     *        available, {@code null} or a negative duration waits indefinitely
+     * @return a list of {@code count} instances corresponding to the given
+     *         {@code key}
+     *
+     * @throws IllegalArgumentException
+     *              when {@code count} is negative or more than the pool can
+     *              ever provide at once.
+     * @throws IllegalStateException
+     *              after {@link #close close} has been called on this pool
+     * @throws Exception
+     *              when {@link KeyedPooledObjectFactory#makeObject
+     *              makeObject} throws an exception
+     * @throws NoSuchElementException
+     *              when the pool is exhausted and cannot or will not return
+     *              {@code count} instances
+     * @since 2.9.1
+     */
+    default List<V> borrowObjects(final K key, final int count, final Duration maxWait) throws Exception {
+        return borrowObjects(key, count, maxWait, true);
+    }
+
+    /**
+     * Obtains up to {@code count} instances for the specified {@code key}
+     * from this pool at once.
+     * <p>
+     * When {@code allOrNothing} is {@code true}, either exactly {@code count}
+     * instances are returned or an exception is thrown and no instance is kept
+     * from the pool. Otherwise, at least one and as many instances as are
+     * available are returned, waiting only until the first one is available.
+     * </p>
+     * <p>
+     * By contract, clients <strong>must</strong> return each borrowed
+     * instance, either one at a time or with {@link #returnObjects}.
+     * </p>
+     * <p>
+     * The default implementation calls {@link #borrowObject(Object)}
+     * repeatedly, ignoring {@code maxWait}. Implementations should override it
+     * to obtain the instances in bulk.
+     * </p>
+     *
+     * @param key the key used to obtain the objects
+     * @param count the number of instances to borrow
+     * @param maxWait the maximum time to wait for the instances to become
+     *        available, {@code null} or a negative duration waits indefinitely
+     * @param allOrNothing whether all {@code count} instances are required
+     * @return a list of instances corresponding to the given {@code key}
+     *
+     * @throws IllegalArgumentException
+     *              when {@code count} is negative or, in all-or-nothing mode,
+     *              more than the pool can ever provide at once.
+     * @throws IllegalStateException
+     *              after {@link #close close} has been called on this pool
+     * @throws Exception
+     *              when {@link KeyedPooledObjectFactory#makeObject
+     *              makeObject} throws an exception
+     * @throws NoSuchElementException
+     *              when the pool is exhausted and cannot or will not return
+     *              the instances
+     * @since 2.9.1
+     */
+    default List<V> borrowObjects(final K key, final int count, final Duration maxWait,
+            final boolean allOrNothing) throws Exception {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        final List<V> objs = new ArrayList<>(count);
+        try {
+            while (objs.size() < count) {
+                objs.add(borrowObject(key));
+            }
+        } catch (final Exception e) {
+            if (!allOrNothing && !objs.isEmpty()) {
+                return objs;
+            }
+            try {
+                returnObjects(key, objs);
+            } catch (final Exception e1) {
+                e.addSuppressed(e1);
+            }
+            throw e;
+        }
+        return objs;
+    }
+
     /**
      * Clears the pool, removing all pooled instances (optional operation).
      *
@@ -318,4 +414,42 @@ public interface KeyedObjectPool<K, V> extends Closeable {
      * @throws Exception if an instance cannot be returned to the pool
      */
     void returnObject(K key, V obj) throws Exception;
+
+    /**
+     * Returns a batch of instances to the pool. Every instance is returned
+     * even if returning one of them fails.
+     * <p>
+     * The default implementation calls {@link #returnObject} for each
+     * instance. Implementations should override it to return the instances in
+     * bulk.
+     * </p>
+     *
+     * @param key the key used to obtain the objects
+     * @param objs a collection of {@link #borrowObject borrowed} instances
+     *             returned by {@code borrowObject} using the same {@code key}
+     *
+     * @throws IllegalStateException
+     *              if an attempt is made to return an object to the pool that
+     *              is in any state other than allocated (i.e. borrowed).
+     * @throws Exception if an instance cannot be returned to the pool, further
+     *              failures are added as suppressed exceptions
+     * @since 2.9.1
+     */
+    default void returnObjects(final K key, final Collection<V> objs) throws Exception {
+        Exception failure = null;
+        for (final V obj : objs) {
+            try {
+                returnObject(key, obj);
+            } catch (final Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 }
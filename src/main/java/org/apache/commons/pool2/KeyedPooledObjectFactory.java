@@ -16,6 +16,11 @@
  */
 package org.apache.commons.pool2;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * An interface defining life-cycle methods for
  * instances to be served by a {@link KeyedObjectPool}.
@@ -90,6 +95,36 @@ public interface KeyedPooledObjectFactory<K, V> {
      */
     PooledObject<V> makeObject(K key) throws Exception;
 
+    /**
+     * Create an instance asynchronously. Pools call this method instead of
+     * {@link #makeObject(Object)} when they are configured to create objects
+     * in the background, see
+     * {@link org.apache.commons.pool2.impl.BaseObjectPoolConfig#setMaxPendingCreates(int)}.
+     * <p>
+     * The default implementation runs {@link #makeObject(Object)} on the
+     * given executor. Factories with a non-blocking way of creating instances
+     * should override this method and may ignore the executor.
+     * </p>
+     *
+     * @param key the key used when constructing the object
+     * @param executor the pool's executor for object creation
+     *
+     * @return a stage completed with a {@code PooledObject} wrapping an
+     * instance that can be served by the pool, or completed exceptionally if
+     * there is a problem creating a new instance
+     *
+     * @since 2.9.1
+     */
+    default CompletionStage<PooledObject<V>> makeObjectAsync(final K key, final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return makeObject(key);
+            } catch (final Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
     /**
      * Destroy an instance no longer needed by the pool.
      * <p>
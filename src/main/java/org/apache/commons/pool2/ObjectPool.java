@@ -17,6 +17,10 @@
 package org.apache.commons.pool2;
 
 import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -125,6 +129,94 @@ public interface ObjectPool<T> extends Closeable {
     T borrowObject() throws Exception, NoSuchElementException,
             IllegalStateException;
 
+    /**
+     * Obtains {@code count} instances from this pool, either all of them or
+     * none. This is equivalent to
+     * {@link #borrowObjects(int, Duration, boolean) borrowObjects(count, maxWait, true)}.
+     *
+     * @param count the number of instances to borrow
+     * @param maxWait the maximum time to wait for the instances to become
+     *        available, {@code null} or a negative duration waits indefinitely
+     * @return a list of {@code count} instances from this pool
+     *
+     * @throws IllegalArgumentException
+     *              when {@code count} is negative or more than the pool can
+     *              ever provide at once.
+     * @throws IllegalStateException
+     *              after {@link #close close} has been called on this pool.
+     * @throws Exception
+     *              when {@link PooledObjectFactory#makeObject} throws an
+     *              exception.
+     * @throws NoSuchElementException
+     *              when the pool is exhausted and cannot or will not return
+     *              {@code count} instances.
+     * @since 2.9.1
+     */
+    default List<T> borrowObjects(final int count, final Duration maxWait) throws Exception {
+        return borrowObjects(count, maxWait, true);
+    }
+
+    /**
+     * Obtains up to {@code count} instances from this pool at once.
+     * <p>
+     * When {@code allOrNothing} is {@code true}, either exactly {@code count}
+     * instances are returned or an exception is thrown and no instance is kept
+     * from the pool. Otherwise, at least one and as many instances as are
+     * available are returned, waiting only until the first one is available.
+     * </p>
+     * <p>
+     * By contract, clients <strong>must</strong> return each borrowed
+     * instance, either one at a time or with {@link #returnObjects}.
+     * </p>
+     * <p>
+     * The default implementation calls {@link #borrowObject()} repeatedly,
+     * ignoring {@code maxWait}. Implementations should override it to obtain
+     * the instances in bulk.
+     * </p>
+     *
+     * @param count the number of instances to borrow
+     * @param maxWait the maximum time to wait for the instances to become
+     *        available, {@code null} or a negative duration waits indefinitely
+     * @param allOrNothing whether all {@code count} instances are required
+     * @return a list of instances from this pool
+     *
+     * @throws IllegalArgumentException
+     *              when {@code count} is negative or, in all-or-nothing mode,
+     *              more than the pool can ever provide at once.
+     * @throws IllegalStateException
+     *              after {@link #close close} has been called on this pool.
+     * @throws Exception
+     *              when {@link PooledObjectFactory#makeObject} throws an
+     *              exception.
+     * @throws NoSuchElementException
+     *              when the pool is exhausted and cannot or will not return
+     *              the instances.
+     * @since 2.9.1
+     */
+    default List<T> borrowObjects(final int count, final Duration maxWait, final boolean allOrNothing)
+            throws Exception {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        final List<T> objs = new ArrayList<>(count);
+        try {
+            while (objs.size() < count) {
+                objs.add(borrowObject());
+            }
+        } catch (final Exception e) {
+            if (!allOrNothing && !objs.isEmpty()) {
+                return objs;
+            }
+            try {
+                returnObjects(objs);
+            } catch (final Exception e1) {
+                e.addSuppressed(e1);
+            }
+            throw e;
+        }
+        return objs;
+    }
+
     /**
      * Clears any objects sitting idle in the pool, releasing any associated
      * resources (optional operation). Idle objects cleared must be
@@ -225,4 +317,40 @@ public interface ObjectPool<T> extends Closeable {
      */
     void returnObject(T obj) throws Exception;
 
+    /**
+     * Returns a batch of instances to the pool. Every instance is returned
+     * even if returning one of them fails.
+     * <p>
+     * The default implementation calls {@link #returnObject} for each
+     * instance. Implementations should override it to return the instances in
+     * bulk.
+     * </p>
+     *
+     * @param objs a collection of {@link #borrowObject borrowed} instances
+     *
+     * @throws IllegalStateException
+     *              if an attempt is made to return an object to the pool that
+     *              is in any state other than allocated (i.e. borrowed).
+     * @throws Exception if an instance cannot be returned to the pool, further
+     *              failures are added as suppressed exceptions
+     * @since 2.9.1
+     */
+    default void returnObjects(final Collection<T> objs) throws Exception {
+        Exception failure = null;
+        for (final T obj : objs) {
+            try {
+                returnObject(obj);
+            } catch (final Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2;
+
+/**
+ * Pools may be configured with an instance of this listener so the user may
+ * receive notification of the events of the pool as they happen, for example
+ * to feed a metrics pipeline without polling the pool's statistics.
+ * <p>
+ * Listeners are called on the thread that causes the event, often while a
+ * borrower waits, so they should return quickly and must not call back into
+ * the pool. Wrap slow listeners in an
+ * {@link org.apache.commons.pool2.impl.AsyncPoolListener AsyncPoolListener}.
+ * Pools do not allocate to notify listeners; exceptions thrown by a listener
+ * are passed to the pool's {@link SwallowedExceptionListener}.
+ * </p>
+ * <p>
+ * All methods have empty default implementations. The {@code key} of the
+ * events of pools that are not keyed is {@code null}.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+public interface PoolListener {
+
+    /**
+     * The reasons for which a pool destroys an object.
+     */
+    enum DestroyCause {
+
+        /** The user invalidated the object, or the pool found it abandoned. */
+        INVALIDATED,
+
+        /** The object failed validation. */
+        VALIDATION_FAILED,
+
+        /** Activating or passivating the object failed. */
+        FACTORY_FAILURE,
+
+        /** The eviction policy evicted the idle object. */
+        EVICTED,
+
+        /** The idle objects exceeded the maximum number of idle objects. */
+        MAX_IDLE,
+
+        /** The pool was cleared or closed. */
+        CLEARED
+    }
+
+    /**
+     * Called every time an object is borrowed.
+     *
+     * @param key the key of the object
+     * @param pooledObject the object borrowed
+     * @param waitTimeNanos the time in nanoseconds the borrower waited
+     */
+    default void onBorrow(final Object key, final PooledObject<?> pooledObject, final long waitTimeNanos) {
+        // empty
+    }
+
+    /**
+     * Called every time an object is returned, whether it is kept or
+     * destroyed.
+     *
+     * @param key the key of the object
+     * @param pooledObject the object returned
+     * @param activeTimeNanos the time in nanoseconds the object was borrowed
+     */
+    default void onReturn(final Object key, final PooledObject<?> pooledObject, final long activeTimeNanos) {
+        // empty
+    }
+
+    /**
+     * Called every time the pool adds an object created by the factory.
+     *
+     * @param key the key of the object
+     * @param pooledObject the object created
+     */
+    default void onCreate(final Object key, final PooledObject<?> pooledObject) {
+        // empty
+    }
+
+    /**
+     * Called every time the pool destroys an object, after the factory
+     * destroyed it.
+     *
+     * @param key the key of the object
+     * @param pooledObject the object destroyed
+     * @param destroyMode the mode passed to the factory
+     * @param cause the reason the object was destroyed
+     */
+    default void onDestroy(final Object key, final PooledObject<?> pooledObject, final DestroyMode destroyMode,
+            final DestroyCause cause) {
+        // empty
+    }
+
+    /**
+     * Called every time the eviction policy evicts an idle object, before the
+     * object is destroyed.
+     *
+     * @param key the key of the object
+     * @param pooledObject the object evicted
+     */
+    default void onEvict(final Object key, final PooledObject<?> pooledObject) {
+        // empty
+    }
+
+    /**
+     * Called every time an object fails validation, on creation, borrow,
+     * return or while idle.
+     *
+     * @param key the key of the object
+     * @param pooledObject the object that failed validation
+     */
+    default void onValidationFailure(final Object key, final PooledObject<?> pooledObject) {
+        // empty
+    }
+}
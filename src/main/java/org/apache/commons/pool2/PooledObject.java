@@ -18,6 +18,7 @@ package org.apache.commons.pool2;
 
 import java.io.PrintWriter;
 import java.util.Deque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Defines the wrapper that is used to track the additional information, such as
@@ -57,6 +58,19 @@ public interface PooledObject<T> extends Comparable<PooledObject<T>> {
      */
     long getActiveTimeMillis();
 
+    /**
+     * Obtains the time in nanoseconds that this object last spent in the
+     * active state (it may still be active in which case subsequent calls will
+     * return an increased value).
+     *
+     * @return The time in nanoseconds last spent in the active state, by
+     *         default {@link #getActiveTimeMillis()} converted to nanoseconds
+     * @since 2.9.1
+     */
+    default long getActiveTimeNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(getActiveTimeMillis());
+    }
+
     /**
      * Gets the number of times this object has been borrowed.
      *
@@ -76,6 +90,19 @@ public interface PooledObject<T> extends Comparable<PooledObject<T>> {
      */
     long getIdleTimeMillis();
 
+    /**
+     * Obtains the time in nanoseconds that this object last spent in the
+     * idle state (it may still be idle in which case subsequent calls will
+     * return an increased value).
+     *
+     * @return The time in nanoseconds last spent in the idle state, by
+     *         default {@link #getIdleTimeMillis()} converted to nanoseconds
+     * @since 2.9.1
+     */
+    default long getIdleTimeNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(getIdleTimeMillis());
+    }
+
     /**
      * Obtains the time the wrapped object was last borrowed.
      *
@@ -101,6 +128,18 @@ public interface PooledObject<T> extends Comparable<PooledObject<T>> {
      */
     long getLastUsedTime();
 
+    /**
+     * Obtains the time in nanoseconds that has passed since this object was
+     * last used, see {@link #getLastUsedTime()}.
+     *
+     * @return The time in nanoseconds since the last use, by default based on
+     *         {@link #getLastUsedTime()} and {@link System#currentTimeMillis()}
+     * @since 2.9.1
+     */
+    default long getUnusedTimeNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - getLastUsedTime()));
+    }
+
     /**
      * Orders instances based on idle time - i.e. the length of time since the
      * instance was returned to the pool. Used by the GKOP idle object evictor.
@@ -192,6 +231,24 @@ public interface PooledObject<T> extends Comparable<PooledObject<T>> {
         // noop
     }
 
+    /**
+     * Bounds the cost of the stack traces recorded for abandoned object logging,
+     * so that logging can stay enabled under load. The stack trace of a borrow
+     * cannot be taken later, so only the stack traces of uses can be limited to
+     * objects that have been borrowed for a long time.
+     *
+     * @param maxDepth          the maximum number of frames recorded, zero or
+     *                          negative for all frames
+     * @param sampleInterval    record the stack trace of one borrow or use in
+     *                          this many on average, one or less for all
+     * @param useThresholdNanos only record the stack trace of a use once the
+     *                          object has been borrowed for this long
+     * @since 2.9.1
+     */
+    default void setStackTraceLimits(final int maxDepth, final int sampleInterval, final long useThresholdNanos) {
+        // noop
+    }
+
     /**
      * Record the current stack trace as the last time the object was used.
      */
@@ -206,6 +263,18 @@ public interface PooledObject<T> extends Comparable<PooledObject<T>> {
      */
     void printStackTrace(PrintWriter writer);
 
+    /**
+     * Prints the stack trace of the code that borrowed this pooled object, if
+     * available, to the supplied writer.
+     *
+     * @param writer The destination for the debug output
+     * @return {@code true} if a stack trace was printed
+     * @since 2.9.1
+     */
+    default boolean printBorrowStackTrace(final PrintWriter writer) {
+        return false;
+    }
+
     /**
      * Returns the state of this object.
      * @return state
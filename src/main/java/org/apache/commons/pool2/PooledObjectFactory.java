@@ -16,6 +16,11 @@
  */
 package org.apache.commons.pool2;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * An interface defining life-cycle methods for instances to be served by an
  * {@link ObjectPool}.
@@ -83,6 +88,35 @@ public interface PooledObjectFactory<T> {
    */
   PooledObject<T> makeObject() throws Exception;
 
+  /**
+   * Creates an instance asynchronously. Pools call this method instead of
+   * {@link #makeObject()} when they are configured to create objects in the
+   * background, see
+   * {@link org.apache.commons.pool2.impl.BaseObjectPoolConfig#setMaxPendingCreates(int)}.
+   * <p>
+   * The default implementation runs {@link #makeObject()} on the given
+   * executor. Factories with a non-blocking way of creating instances, for
+   * example a connection handshake driven by an event loop, should override
+   * this method and may ignore the executor.
+   * </p>
+   *
+   * @param executor the pool's executor for object creation
+   * @return a stage completed with a {@code PooledObject} wrapping an
+   *    instance that can be served by the pool, or completed exceptionally
+   *    if there is a problem creating a new instance
+   *
+   * @since 2.9.1
+   */
+  default CompletionStage<PooledObject<T>> makeObjectAsync(final Executor executor) {
+      return CompletableFuture.supplyAsync(() -> {
+          try {
+              return makeObject();
+          } catch (final Exception e) {
+              throw new CompletionException(e);
+          }
+      }, executor);
+  }
+
   /**
    * Destroys an instance no longer needed by the pool, using the default (NORMAL)
    * DestroyMode.
@@ -208,6 +208,180 @@ public class AbandonedConfig {
         this.requireFullStackTrace = requireFullStackTrace;
     }
 
+    /**
+     * The maximum number of frames of the stack traces recorded when
+     * logAbandoned is true, zero or negative for all frames.
+     */
+    private int maxStackTraceDepth = 0;
+
+    /**
+     * Returns the maximum number of frames of the stack traces recorded when
+     * {@link #getLogAbandoned() logAbandoned} is true. Bounding the depth
+     * makes recording a stack trace much cheaper on Java 9 and later, where
+     * stack traces are taken with a {@link StackWalkerCallStack}. Defaults to
+     * zero, meaning all frames.
+     *
+     * @return the maximum stack trace depth, zero or negative for no limit
+     * @see CallStackUtils#newCallStack(String, boolean, boolean, int)
+     * @since 2.9.1
+     */
+    public int getMaxStackTraceDepth() {
+        return maxStackTraceDepth;
+    }
+
+    /**
+     * Sets the maximum number of frames of the stack traces recorded when
+     * {@link #getLogAbandoned() logAbandoned} is true.
+     *
+     * @param maxStackTraceDepth the maximum stack trace depth, zero or
+     *                           negative for no limit
+     * @see #getMaxStackTraceDepth()
+     * @since 2.9.1
+     */
+    public void setMaxStackTraceDepth(final int maxStackTraceDepth) {
+        this.maxStackTraceDepth = maxStackTraceDepth;
+    }
+
+    /**
+     * The average number of borrows, or uses, per recorded stack trace when
+     * logAbandoned is true.
+     */
+    private int stackTraceSampleInterval = 1;
+
+    /**
+     * Returns the average number of borrows per stack trace recorded when
+     * {@link #getLogAbandoned() logAbandoned} is true; uses tracked with
+     * {@link #getUseUsageTracking() useUsageTracking} are sampled the same
+     * way. The borrows and uses recorded are chosen at random, so a leak that
+     * happens repeatedly is still reported with its stack trace, at a fraction
+     * of the cost of recording every borrow. Defaults to 1, recording every
+     * borrow.
+     *
+     * @return the stack trace sample interval, one or less to record every
+     *         borrow
+     * @since 2.9.1
+     */
+    public int getStackTraceSampleInterval() {
+        return stackTraceSampleInterval;
+    }
+
+    /**
+     * Sets the average number of borrows, or uses, per stack trace recorded
+     * when {@link #getLogAbandoned() logAbandoned} is true.
+     *
+     * @param stackTraceSampleInterval the stack trace sample interval, one or
+     *                                 less to record every borrow
+     * @see #getStackTraceSampleInterval()
+     * @since 2.9.1
+     */
+    public void setStackTraceSampleInterval(final int stackTraceSampleInterval) {
+        this.stackTraceSampleInterval = stackTraceSampleInterval;
+    }
+
+    /**
+     * The time in milliseconds an object must have been borrowed for before
+     * the stack traces of its uses are recorded.
+     */
+    private long useStackTraceThresholdMillis = 0;
+
+    /**
+     * Returns the time in milliseconds an object must have been borrowed for
+     * before the stack traces of its uses are recorded, when
+     * {@link #getLogAbandoned() logAbandoned} and
+     * {@link #getUseUsageTracking() useUsageTracking} are true. Objects
+     * returned promptly then never pay for recording their uses, while the
+     * objects held long enough to be suspect report their last use. Defaults
+     * to zero, recording every use.
+     *
+     * @return the use stack trace threshold in milliseconds
+     * @since 2.9.1
+     */
+    public long getUseStackTraceThresholdMillis() {
+        return useStackTraceThresholdMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds an object must have been borrowed for
+     * before the stack traces of its uses are recorded.
+     *
+     * @param useStackTraceThresholdMillis the use stack trace threshold in
+     *                                     milliseconds
+     * @see #getUseStackTraceThresholdMillis()
+     * @since 2.9.1
+     */
+    public void setUseStackTraceThresholdMillis(final long useStackTraceThresholdMillis) {
+        this.useStackTraceThresholdMillis = useStackTraceThresholdMillis;
+    }
+
+    /**
+     * Whether abandoned objects are only reported, rather than removed.
+     */
+    private boolean reportAbandonedOnly = false;
+
+    /**
+     * Returns whether abandoned objects are only reported instead of being
+     * removed. When true, the objects that {@link #getRemoveAbandonedOnBorrow()
+     * removeAbandonedOnBorrow} or {@link #getRemoveAbandonedOnMaintenance()
+     * removeAbandonedOnMaintenance} would remove stay allocated to their
+     * borrower; each is counted once per borrow in the pool's abandoned object
+     * report, by the stack trace of the borrow, and logged if
+     * {@link #getLogAbandoned() logAbandoned} is true. Borrow stack traces are
+     * only recorded when logAbandoned is true, so the objects are counted under
+     * an unknown origin otherwise. Defaults to false.
+     *
+     * @return true if abandoned objects are reported but not removed
+     * @see GenericObjectPool#getAbandonedObjectReport()
+     * @since 2.9.1
+     */
+    public boolean getReportAbandonedOnly() {
+        return reportAbandonedOnly;
+    }
+
+    /**
+     * Sets whether abandoned objects are only reported instead of being
+     * removed.
+     *
+     * @param reportAbandonedOnly true to report abandoned objects without
+     *                            removing them
+     * @see #getReportAbandonedOnly()
+     * @since 2.9.1
+     */
+    public void setReportAbandonedOnly(final boolean reportAbandonedOnly) {
+        this.reportAbandonedOnly = reportAbandonedOnly;
+    }
+
+    /**
+     * The maximum number of borrow stack traces counted by the abandoned
+     * object report.
+     */
+    private int abandonedReportSize = 20;
+
+    /**
+     * Returns the maximum number of distinct borrow stack traces the pool's
+     * abandoned object report counts objects for. Once the report is full, the
+     * least counted stack trace makes way for a new one, so the report keeps
+     * the stack traces that leak most. Defaults to 20.
+     *
+     * @return the maximum number of stack traces in the abandoned object report
+     * @since 2.9.1
+     */
+    public int getAbandonedReportSize() {
+        return abandonedReportSize;
+    }
+
+    /**
+     * Sets the maximum number of distinct borrow stack traces the pool's
+     * abandoned object report counts objects for.
+     *
+     * @param abandonedReportSize the maximum number of stack traces in the
+     *                            abandoned object report, at least one
+     * @see #getAbandonedReportSize()
+     * @since 2.9.1
+     */
+    public void setAbandonedReportSize(final int abandonedReportSize) {
+        this.abandonedReportSize = abandonedReportSize;
+    }
+
     /**
      * PrintWriter to use to log information on abandoned objects.
      * Use of default system encoding is deliberate.
@@ -285,6 +459,16 @@ public class AbandonedConfig {
         builder.append(logWriter);
         builder.append(", useUsageTracking=");
         builder.append(useUsageTracking);
+        builder.append(", maxStackTraceDepth=");
+        builder.append(maxStackTraceDepth);
+        builder.append(", stackTraceSampleInterval=");
+        builder.append(stackTraceSampleInterval);
+        builder.append(", useStackTraceThresholdMillis=");
+        builder.append(useStackTraceThresholdMillis);
+        builder.append(", reportAbandonedOnly=");
+        builder.append(reportAbandonedOnly);
+        builder.append(", abandonedReportSize=");
+        builder.append(abandonedReportSize);
         builder.append("]");
         return builder.toString();
     }
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.pool2.PooledObject;
+
+/**
+ * Counts of the abandoned objects of a pool by the stack trace of the code
+ * that borrowed them, keeping the stack traces counted most.
+ * <p>
+ * The report holds a bounded number of stack traces. Once it is full, an
+ * object borrowed from a new stack trace replaces the least counted stack
+ * trace and is counted from that count plus one, so that stack traces which
+ * keep leaking rise to the top while the memory and the time taken by each
+ * object stay bounded by the size of the report. The counts of stack traces
+ * that entered a full report may therefore be overestimated, by at most the
+ * count they replaced.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+final class AbandonedObjectReport {
+
+    /** Origin of the objects borrowed without a recorded stack trace. */
+    static final String UNKNOWN_ORIGIN = "<unknown>";
+
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<String, Long> counts; // @GuardedBy("lock")
+
+    private long total; // @GuardedBy("lock")
+
+    /**
+     * Creates an empty report.
+     *
+     * @param capacity the maximum number of stack traces counted
+     */
+    AbandonedObjectReport(final int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.counts = new HashMap<>();
+    }
+
+    /**
+     * Counts an abandoned object under the stack trace of its borrow.
+     *
+     * @param pooledObject the abandoned object
+     */
+    void add(final PooledObject<?> pooledObject) {
+        final String origin = getOrigin(pooledObject);
+        lock.lock();
+        try {
+            total++;
+            final Long count = counts.get(origin);
+            if (count != null) {
+                counts.put(origin, Long.valueOf(count.longValue() + 1));
+                return;
+            }
+            long minCount = 0;
+            if (counts.size() >= capacity) {
+                String minOrigin = null;
+                for (final Map.Entry<String, Long> entry : counts.entrySet()) {
+                    if (minOrigin == null || entry.getValue().longValue() < minCount) {
+                        minOrigin = entry.getKey();
+                        minCount = entry.getValue().longValue();
+                    }
+                }
+                counts.remove(minOrigin);
+            }
+            counts.put(origin, Long.valueOf(minCount + 1));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the counts by stack trace, most counted first.
+     *
+     * @return the counts by stack trace
+     */
+    Map<String, Long> getCounts() {
+        final List<Map.Entry<String, Long>> entries;
+        lock.lock();
+        try {
+            entries = new ArrayList<>(counts.entrySet());
+        } finally {
+            lock.unlock();
+        }
+        entries.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, Long> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of abandoned objects counted, including those whose
+     * stack trace has left the report.
+     *
+     * @return the number of abandoned objects counted
+     */
+    long getTotal() {
+        lock.lock();
+        try {
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the stack trace of the borrow of an object without its first
+     * line, which holds the message and possibly the time of the borrow.
+     *
+     * @param pooledObject the abandoned object
+     * @return the frames of the borrow stack trace or {@link #UNKNOWN_ORIGIN}
+     */
+    private static String getOrigin(final PooledObject<?> pooledObject) {
+        final StringWriter stringWriter = new StringWriter();
+        final PrintWriter printWriter = new PrintWriter(stringWriter);
+        if (!pooledObject.printBorrowStackTrace(printWriter)) {
+            return UNKNOWN_ORIGIN;
+        }
+        printWriter.flush();
+        final String stackTrace = stringWriter.toString();
+        final int start = stackTrace.indexOf('\n') + 1;
+        int end = stackTrace.length();
+        while (end > start && Character.isWhitespace(stackTrace.charAt(end - 1))) {
+            end--;
+        }
+        return end > start ? stackTrace.substring(start, end) : UNKNOWN_ORIGIN;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("AbandonedObjectReport [capacity=");
+        builder.append(capacity);
+        builder.append(", total=");
+        builder.append(getTotal());
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectState;
+
+/**
+ * Borrowed objects of a pool, bucketed by the time they become abandoned, so
+ * that finding the abandoned objects costs time proportional to the number
+ * of objects whose abandoned timeout has passed rather than to the number of
+ * objects in the pool.
+ * <p>
+ * An entry is added each time an object is borrowed, in the slot of the
+ * wheel for the time the object will have been unused for the timeout. When
+ * that time comes and the object has been used since, it is moved to the
+ * slot for its new deadline. Entries are not removed when their object is
+ * returned or destroyed. Instead an entry is <em>stale</em> once its object
+ * has left the allocated state or has been borrowed again since, and stale
+ * entries are dropped when their slot comes up. Once stale entries outnumber
+ * the live ones all entries are swept, so the wheel stays proportional to the
+ * number of objects in the pool.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <T> Type of element pooled.
+ *
+ * @since 2.9.1
+ */
+final class AbandonedTimingWheel<T> {
+
+    /**
+     * An object borrowed from the pool.
+     *
+     * @param <T> Type of element pooled.
+     */
+    private static final class Entry<T> {
+
+        private final PooledObject<T> pooledObject;
+        private final long borrowedCount;
+        /** Tick at which the object is abandoned unless used meanwhile. */
+        private long deadlineTick;
+
+        Entry(final PooledObject<T> pooledObject, final long deadlineTick) {
+            this.pooledObject = pooledObject;
+            this.borrowedCount = pooledObject.getBorrowedCount();
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Tests whether the object is still allocated by the borrow this
+         * entry was added for.
+         *
+         * @return {@code false} if this entry is stale
+         */
+        boolean isCurrent() {
+            return pooledObject.getState() == PooledObjectState.ALLOCATED &&
+                    pooledObject.getBorrowedCount() == borrowedCount;
+        }
+    }
+
+    /** Number of slots, a power of two. */
+    private static final int WHEEL_SIZE = 256;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /** Shortest duration of a tick. */
+    private static final long MIN_TICK_NANOS = 1_000_000L;
+
+    /** Minimum number of entries before a sweep. */
+    private static final int MIN_SWEEP_SIZE = 64;
+
+    private final NanoClock clock;
+
+    private final long timeoutNanos;
+
+    private final long tickNanos;
+
+    /** Time of tick zero. */
+    private final long originNanos;
+
+    private final ConcurrentLinkedQueue<Entry<T>>[] slots;
+
+    /** Number of entries, live or stale, approximate while entries are swept. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** Whether a thread is sweeping the entries. */
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /** Size that triggers the next sweep. */
+    private volatile int sweepSize = MIN_SWEEP_SIZE;
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    /** First tick not yet fully processed. */
+    private volatile long cursorTick; // @GuardedBy("pollLock") for writes
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param clock the clock of the pool
+     * @param timeoutNanos the time after which an unused object is abandoned
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    AbandonedTimingWheel(final NanoClock clock, final long timeoutNanos) {
+        this.clock = clock;
+        this.timeoutNanos = timeoutNanos;
+        // One turn of the wheel spans the timeout
+        this.tickNanos = Math.max(MIN_TICK_NANOS, timeoutNanos / WHEEL_SIZE);
+        this.originNanos = clock.nanoTime();
+        this.slots = new ConcurrentLinkedQueue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Records that an object has been borrowed.
+     *
+     * @param pooledObject the allocated object
+     */
+    void add(final PooledObject<T> pooledObject) {
+        final long nowNanos = clock.nanoTime();
+        schedule(new Entry<>(pooledObject, tick(nowNanos + timeoutNanos - pooledObject.getUnusedTimeNanos())));
+        if (size.incrementAndGet() > sweepSize && sweeping.compareAndSet(false, true)) {
+            try {
+                sweep();
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the objects that are allocated and have not been
+     * used for the timeout. Objects used since they were indexed are moved to
+     * the slot of their new deadline. The caller must mark the returned objects
+     * abandoned under their state lock, checking their state again.
+     *
+     * @return the abandoned objects, possibly empty
+     */
+    List<PooledObject<T>> pollAbandoned() {
+        final List<PooledObject<T>> abandoned = new ArrayList<>();
+        final List<Entry<T>> rescheduled = new ArrayList<>();
+        pollLock.lock();
+        try {
+            final long nowNanos = clock.nanoTime();
+            final long nowTick = tick(nowNanos);
+            // Visit each slot at most once
+            final long fromTick = Math.max(cursorTick, nowTick - WHEEL_MASK);
+            for (long t = fromTick; t <= nowTick; t++) {
+                final Iterator<Entry<T>> iter = slots[(int) (t & WHEEL_MASK)].iterator();
+                while (iter.hasNext()) {
+                    final Entry<T> entry = iter.next();
+                    if (entry.deadlineTick > nowTick) {
+                        // Due on a later turn of the wheel
+                        continue;
+                    }
+                    iter.remove();
+                    size.decrementAndGet();
+                    if (!entry.isCurrent()) {
+                        continue;
+                    }
+                    final long remainingNanos = timeoutNanos - entry.pooledObject.getUnusedTimeNanos();
+                    if (remainingNanos <= 0) {
+                        abandoned.add(entry.pooledObject);
+                    } else {
+                        entry.deadlineTick = tick(nowNanos + remainingNanos);
+                        rescheduled.add(entry);
+                    }
+                }
+            }
+            // The current tick is visited again by the next poll
+            cursorTick = nowTick;
+        } finally {
+            pollLock.unlock();
+        }
+        for (final Entry<T> entry : rescheduled) {
+            size.incrementAndGet();
+            schedule(entry);
+        }
+        return abandoned;
+    }
+
+    /**
+     * Adds an entry to the slot of its deadline, never to a slot the wheel has
+     * already passed.
+     *
+     * @param entry the entry to add
+     */
+    private void schedule(final Entry<T> entry) {
+        entry.deadlineTick = Math.max(entry.deadlineTick, cursorTick);
+        slots[(int) (entry.deadlineTick & WHEEL_MASK)].add(entry);
+    }
+
+    /**
+     * Removes the entries of objects that are no longer allocated.
+     */
+    private void sweep() {
+        int live = 0;
+        for (final ConcurrentLinkedQueue<Entry<T>> slot : slots) {
+            final Iterator<Entry<T>> iter = slot.iterator();
+            while (iter.hasNext()) {
+                if (iter.next().isCurrent()) {
+                    live++;
+                } else {
+                    iter.remove();
+                }
+            }
+        }
+        size.set(live);
+        sweepSize = Math.max(MIN_SWEEP_SIZE, 2 * live);
+    }
+
+    /**
+     * Converts a time of the pool's clock to a tick of the wheel.
+     *
+     * @param nanos the time to convert
+     * @return the tick containing the time
+     */
+    private long tick(final long nanos) {
+        return Math.max(0, nanos - originNanos) / tickNanos;
+    }
+
+    /**
+     * Returns the number of entries, including stale ones.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("AbandonedTimingWheel [size=");
+        builder.append(size.get());
+        builder.append(", tickNanos=");
+        builder.append(tickNanos);
+        builder.append("]");
+        return builder.toString();
+    }
+}
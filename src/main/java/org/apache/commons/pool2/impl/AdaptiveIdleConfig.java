@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * Configuration settings for adaptive sizing of the idle objects of a pool.
+ * <p>
+ * When a pool has an adaptive idle configuration, each run of the idle
+ * object evictor estimates the number of objects the pool needs from the
+ * observed borrow rate and the mean time objects are checked out for, and
+ * computes targets for the minimum and maximum numbers of idle objects within
+ * the bounds configured here. The pool keeps idle objects according to these
+ * targets, without going above the configured {@code maxIdle} (or
+ * {@code maxIdlePerKey}) or below the configured {@code minIdle} (or
+ * {@code minIdlePerKey}), which are left unchanged. See
+ * {@link GenericObjectPool#setAdaptiveIdleConfig(AdaptiveIdleConfig)} and
+ * {@link GenericKeyedObjectPool#setAdaptiveIdleConfig(AdaptiveIdleConfig)}.
+ * </p>
+ * <p>
+ * The estimate grows as soon as demand rises, so idle objects are created
+ * ahead of it, and shrinks only after it has stayed lower for
+ * {@link #getShrinkDelayRuns()} evictor runs, so short lulls do not cause
+ * objects to be destroyed and created again.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+public class AdaptiveIdleConfig {
+
+    /**
+     * The default value for the {@code minIdleFloor} attribute.
+     */
+    public static final int DEFAULT_MIN_IDLE_FLOOR = 0;
+
+    /**
+     * The default value for the {@code minIdleCeiling} attribute.
+     */
+    public static final int DEFAULT_MIN_IDLE_CEILING = GenericObjectPoolConfig.DEFAULT_MAX_IDLE;
+
+    /**
+     * The default value for the {@code maxIdleCeiling} attribute.
+     */
+    public static final int DEFAULT_MAX_IDLE_CEILING = GenericObjectPoolConfig.DEFAULT_MAX_IDLE;
+
+    /**
+     * The default value for the {@code headroom} attribute.
+     */
+    public static final double DEFAULT_HEADROOM = 1.25;
+
+    /**
+     * The default value for the {@code shrinkDelayRuns} attribute.
+     */
+    public static final int DEFAULT_SHRINK_DELAY_RUNS = 5;
+
+    /**
+     * The default value for the {@code maxMeanBorrowWaitMillis} attribute.
+     */
+    public static final long DEFAULT_MAX_MEAN_BORROW_WAIT_MILLIS = 1L;
+
+    private int minIdleFloor = DEFAULT_MIN_IDLE_FLOOR;
+
+    private int minIdleCeiling = DEFAULT_MIN_IDLE_CEILING;
+
+    private int maxIdleCeiling = DEFAULT_MAX_IDLE_CEILING;
+
+    private double headroom = DEFAULT_HEADROOM;
+
+    private int shrinkDelayRuns = DEFAULT_SHRINK_DELAY_RUNS;
+
+    private long maxMeanBorrowWaitMillis = DEFAULT_MAX_MEAN_BORROW_WAIT_MILLIS;
+
+    /**
+     * Creates a configuration with the default settings.
+     */
+    public AdaptiveIdleConfig() {
+        // empty
+    }
+
+    /**
+     * Creates a copy of the given configuration.
+     *
+     * @param config the configuration to copy
+     */
+    AdaptiveIdleConfig(final AdaptiveIdleConfig config) {
+        this.minIdleFloor = config.minIdleFloor;
+        this.minIdleCeiling = config.minIdleCeiling;
+        this.maxIdleCeiling = config.maxIdleCeiling;
+        this.headroom = config.headroom;
+        this.shrinkDelayRuns = config.shrinkDelayRuns;
+        this.maxMeanBorrowWaitMillis = config.maxMeanBorrowWaitMillis;
+    }
+
+    /**
+     * Gets the smallest value the controller sets {@code minIdle} to.
+     *
+     * @return the lower bound of {@code minIdle}
+     */
+    public int getMinIdleFloor() {
+        return minIdleFloor;
+    }
+
+    /**
+     * Sets the smallest value the controller sets {@code minIdle} to.
+     *
+     * @param minIdleFloor the lower bound of {@code minIdle}
+     * @see #getMinIdleFloor()
+     */
+    public void setMinIdleFloor(final int minIdleFloor) {
+        this.minIdleFloor = minIdleFloor;
+    }
+
+    /**
+     * Gets the largest value the controller sets {@code minIdle} to.
+     *
+     * @return the upper bound of {@code minIdle}
+     */
+    public int getMinIdleCeiling() {
+        return minIdleCeiling;
+    }
+
+    /**
+     * Sets the largest value the controller sets {@code minIdle} to.
+     *
+     * @param minIdleCeiling the upper bound of {@code minIdle}
+     * @see #getMinIdleCeiling()
+     */
+    public void setMinIdleCeiling(final int minIdleCeiling) {
+        this.minIdleCeiling = minIdleCeiling;
+    }
+
+    /**
+     * Gets the largest value the controller sets {@code maxIdle} to. The
+     * controller never sets {@code maxIdle} below {@code minIdle}.
+     *
+     * @return the upper bound of {@code maxIdle}
+     */
+    public int getMaxIdleCeiling() {
+        return maxIdleCeiling;
+    }
+
+    /**
+     * Sets the largest value the controller sets {@code maxIdle} to.
+     *
+     * @param maxIdleCeiling the upper bound of {@code maxIdle}
+     * @see #getMaxIdleCeiling()
+     */
+    public void setMaxIdleCeiling(final int maxIdleCeiling) {
+        this.maxIdleCeiling = maxIdleCeiling;
+    }
+
+    /**
+     * Gets the number of objects the pool keeps ready as a multiple of the
+     * estimated number of objects in use. The default is 1.25, which keeps a
+     * quarter more objects than are needed on average.
+     *
+     * @return the headroom factor, at least 1
+     */
+    public double getHeadroom() {
+        return headroom;
+    }
+
+    /**
+     * Sets the number of objects the pool keeps ready as a multiple of the
+     * estimated number of objects in use.
+     *
+     * @param headroom the headroom factor, values below 1 are treated as 1
+     * @see #getHeadroom()
+     */
+    public void setHeadroom(final double headroom) {
+        this.headroom = headroom;
+    }
+
+    /**
+     * Gets the number of consecutive evictor runs the estimated demand must
+     * stay lower before the controller reduces the number of objects kept.
+     *
+     * @return the number of evictor runs before shrinking
+     */
+    public int getShrinkDelayRuns() {
+        return shrinkDelayRuns;
+    }
+
+    /**
+     * Sets the number of consecutive evictor runs the estimated demand must
+     * stay lower before the controller reduces the number of objects kept.
+     *
+     * @param shrinkDelayRuns the number of evictor runs before shrinking
+     * @see #getShrinkDelayRuns()
+     */
+    public void setShrinkDelayRuns(final int shrinkDelayRuns) {
+        this.shrinkDelayRuns = shrinkDelayRuns;
+    }
+
+    /**
+     * Gets the mean time borrowers may wait for an object between two evictor
+     * runs. When borrowers waited longer on average, the controller keeps at
+     * least one more object than in the previous run, whatever the estimate.
+     *
+     * @return the borrow wait time threshold in milliseconds
+     */
+    public long getMaxMeanBorrowWaitMillis() {
+        return maxMeanBorrowWaitMillis;
+    }
+
+    /**
+     * Sets the mean time borrowers may wait for an object between two evictor
+     * runs.
+     *
+     * @param maxMeanBorrowWaitMillis the borrow wait time threshold in
+     *        milliseconds
+     * @see #getMaxMeanBorrowWaitMillis()
+     */
+    public void setMaxMeanBorrowWaitMillis(final long maxMeanBorrowWaitMillis) {
+        this.maxMeanBorrowWaitMillis = maxMeanBorrowWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("AdaptiveIdleConfig [minIdleFloor=");
+        builder.append(minIdleFloor);
+        builder.append(", minIdleCeiling=");
+        builder.append(minIdleCeiling);
+        builder.append(", maxIdleCeiling=");
+        builder.append(maxIdleCeiling);
+        builder.append(", headroom=");
+        builder.append(headroom);
+        builder.append(", shrinkDelayRuns=");
+        builder.append(shrinkDelayRuns);
+        builder.append(", maxMeanBorrowWaitMillis=");
+        builder.append(maxMeanBorrowWaitMillis);
+        builder.append("]");
+        return builder.toString();
+    }
+}
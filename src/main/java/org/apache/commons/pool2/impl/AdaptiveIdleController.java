@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjusts the idle object limits of a pool to the observed demand, see
+ * {@link AdaptiveIdleConfig}.
+ * <p>
+ * Each update estimates the number of objects in use with Little's law, the
+ * borrow rate since the previous update times the mean time objects are
+ * checked out for, and takes the larger of the estimate and the number of
+ * objects in use or waited for right now. The capacity the pool keeps ready
+ * is the estimate times the headroom factor. It grows as soon as the
+ * estimate is higher, or by one object when borrowers waited too long, and
+ * only shrinks, halving the difference at each update, once the estimate has
+ * been lower for a number of consecutive updates.
+ * </p>
+ * <p>
+ * The {@code minIdle} target is the part of the capacity that is not in use,
+ * so the evictor creates objects ahead of demand, and the {@code maxIdle}
+ * target the capacity plus the number of objects both created and destroyed
+ * since the previous update, so that objects returned during a burst are kept
+ * rather than destroyed and created again. The pool applies the targets
+ * within its configured limits, which the controller leaves unchanged.
+ * </p>
+ * <p>
+ * Updates are made by the evictor thread only, the targets may be read by
+ * any thread.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+final class AdaptiveIdleController {
+
+    private final AdaptiveIdleConfig config;
+
+    private boolean started;
+    private long lastNanos;
+    private long lastBorrowedCount;
+    private long lastCreatedCount;
+    private long lastDestroyedCount;
+    private long lastWaitCount;
+    private double lastWaitSumNanos;
+
+    /** The number of objects to keep ready, in total or per key */
+    private double capacity;
+    private int shrinkRuns;
+
+    /** The targets, -1 until the first update computed them */
+    private volatile int minIdle = -1;
+    private volatile int maxIdle = -1;
+
+    /**
+     * Creates a controller.
+     *
+     * @param config the bounds and settings of the controller
+     */
+    AdaptiveIdleController(final AdaptiveIdleConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Gets the capacity the pool keeps ready, in total or per key.
+     *
+     * @return the capacity after the last update
+     */
+    double getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the {@code minIdle} target computed by the last update.
+     *
+     * @return the {@code minIdle} target, or -1 before the first update
+     */
+    int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Gets the {@code maxIdle} target computed by the last update.
+     *
+     * @return the {@code maxIdle} target, or -1 before the first update
+     */
+    int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Updates the idle object targets from the pool statistics. The first
+     * update only records the statistics.
+     *
+     * @param nowNanos the current time in nanoseconds
+     * @param borrowedCount the number of objects borrowed since the pool was created
+     * @param createdCount the number of objects created since the pool was created
+     * @param destroyedCount the number of objects destroyed since the pool was created
+     * @param activeTimes the times objects have been checked out for
+     * @param waitTimes the times borrowers have waited for an object
+     * @param demand the number of objects in use or waited for
+     * @param partitions the number of keys the limits apply to, 1 for a pool without keys
+     * @return {@code true} if {@link #getMinIdle()} and {@link #getMaxIdle()}
+     *         were updated
+     */
+    boolean update(final long nowNanos, final long borrowedCount, final long createdCount,
+            final long destroyedCount, final TimingStatistics activeTimes, final TimingStatistics waitTimes,
+            final int demand, final int partitions) {
+        final long waitCount = waitTimes.getCount();
+        final double waitSumNanos = waitTimes.getMean() * waitCount;
+        if (!started) {
+            started = true;
+            record(nowNanos, borrowedCount, createdCount, destroyedCount, waitCount, waitSumNanos);
+            return false;
+        }
+        final long elapsedNanos = nowNanos - lastNanos;
+        if (elapsedNanos <= 0) {
+            return false;
+        }
+        final double borrowRate = (double) (borrowedCount - lastBorrowedCount) / elapsedNanos;
+        final int parts = Math.max(1, partitions);
+        final double inUse = Math.max(borrowRate * activeTimes.getMean(), demand) / parts;
+        final double target = inUse * Math.max(1, config.getHeadroom());
+
+        final long waits = waitCount - lastWaitCount;
+        final boolean waited = waits > 0 && (waitSumNanos - lastWaitSumNanos) / waits >
+                TimeUnit.MILLISECONDS.toNanos(config.getMaxMeanBorrowWaitMillis());
+        if (waited || target >= capacity) {
+            capacity = Math.max(target, waited ? Math.ceil(capacity) + 1 : 0);
+            shrinkRuns = 0;
+        } else if (++shrinkRuns >= config.getShrinkDelayRuns()) {
+            capacity = capacity - target < 1 ? target : target + (capacity - target) / 2;
+        }
+
+        final int ready = (int) Math.ceil(capacity);
+        final int churn = (int) Math.min(createdCount - lastCreatedCount, destroyedCount - lastDestroyedCount);
+        final int newMinIdle = clamp(ready - (int) Math.ceil((double) demand / parts),
+                config.getMinIdleFloor(), config.getMinIdleCeiling());
+        maxIdle = clamp(ready + churn / parts, newMinIdle, Math.max(newMinIdle, config.getMaxIdleCeiling()));
+        minIdle = newMinIdle;
+        record(nowNanos, borrowedCount, createdCount, destroyedCount, waitCount, waitSumNanos);
+        return true;
+    }
+
+    private void record(final long nowNanos, final long borrowedCount, final long createdCount,
+            final long destroyedCount, final long waitCount, final double waitSumNanos) {
+        lastNanos = nowNanos;
+        lastBorrowedCount = borrowedCount;
+        lastCreatedCount = createdCount;
+        lastDestroyedCount = destroyedCount;
+        lastWaitCount = waitCount;
+        lastWaitSumNanos = waitSumNanos;
+    }
+
+    private static int clamp(final int value, final int min, final int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("AdaptiveIdleController [config=");
+        builder.append(config);
+        builder.append(", capacity=");
+        builder.append(capacity);
+        builder.append(", minIdle=");
+        builder.append(minIdle);
+        builder.append(", maxIdle=");
+        builder.append(maxIdle);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of asynchronous borrowers waiting for an object.
+ * <p>
+ * Each waiter is a {@link CompletableFuture} rather than a parked thread. The
+ * pool completes the oldest waiter when an object becomes idle. A waiter that
+ * times out, is cancelled or is otherwise completed by its caller removes
+ * itself from the queue. Timeouts of all pools share a single scheduler thread
+ * that terminates when no timeout is pending.
+ * </p>
+ * <p>
+ * This class has package scope to prevent its inclusion in the pool public
+ * API.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <T> Type of element pooled.
+ *
+ * @since 2.9.1
+ */
+final class AsyncBorrowWaiters<T> {
+
+    /**
+     * An asynchronous borrower.
+     *
+     * @param <T> Type of element pooled.
+     */
+    static final class Waiter<T> {
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private final long startNanos;
+
+        private volatile ScheduledFuture<?> timeout;
+
+        private Waiter(final long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Gets the future handed to the borrower.
+         *
+         * @return the future
+         */
+        CompletableFuture<T> getFuture() {
+            return future;
+        }
+
+        /**
+         * Gets the time the borrower started waiting.
+         *
+         * @return the start time in nanoseconds
+         */
+        long getStartNanos() {
+            return startNanos;
+        }
+    }
+
+    /**
+     * Lazily started scheduler for waiter timeouts.
+     */
+    private static final class TimeoutScheduler {
+
+        private static final ScheduledThreadPoolExecutor EXECUTOR;
+
+        static {
+            EXECUTOR = new ScheduledThreadPoolExecutor(1, runnable -> {
+                final Thread thread = new Thread(null, runnable, "commons-pool-borrow-timeout-thread");
+                thread.setDaemon(true);
+                thread.setContextClassLoader(TimeoutScheduler.class.getClassLoader());
+                return thread;
+            });
+            EXECUTOR.setRemoveOnCancelPolicy(true);
+            EXECUTOR.setKeepAliveTime(1, TimeUnit.SECONDS);
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private final ConcurrentLinkedDeque<Waiter<T>> waiters = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Enqueues a new waiter.
+     *
+     * @param startNanos the time the borrower started waiting
+     * @param timeoutNanos the time after which the waiter fails with a
+     *        {@link NoSuchElementException}, negative to wait indefinitely
+     * @return the new waiter
+     */
+    Waiter<T> add(final long startNanos, final long timeoutNanos) {
+        final Waiter<T> waiter = new Waiter<>(startNanos);
+        waiters.addLast(waiter);
+        waiter.future.whenComplete((obj, e) -> {
+            waiters.remove(waiter);
+            final ScheduledFuture<?> timeout = waiter.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        });
+        if (timeoutNanos >= 0 && !waiter.future.isDone()) {
+            waiter.timeout = TimeoutScheduler.EXECUTOR.schedule(
+                    () -> waiter.future.completeExceptionally(
+                            new NoSuchElementException("Timeout waiting for idle object")),
+                    timeoutNanos, TimeUnit.NANOSECONDS);
+            if (waiter.future.isDone()) {
+                // Completed while the timeout was being scheduled
+                waiter.timeout.cancel(false);
+            }
+        }
+        return waiter;
+    }
+
+    /**
+     * Removes the oldest waiter that is still waiting.
+     *
+     * @return the oldest waiter or {@code null} if there is none
+     */
+    Waiter<T> poll() {
+        Waiter<T> waiter;
+        while ((waiter = waiters.pollFirst()) != null) {
+            if (!waiter.future.isDone()) {
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the given waiter if it is still queued.
+     *
+     * @param waiter the waiter
+     * @return {@code true} if the waiter was removed while still waiting
+     */
+    boolean remove(final Waiter<T> waiter) {
+        return waiters.remove(waiter) && !waiter.future.isDone();
+    }
+
+    /**
+     * Puts a waiter taken with {@link #poll()} back at the head of the queue.
+     *
+     * @param waiter the waiter
+     */
+    void addFirst(final Waiter<T> waiter) {
+        waiters.addFirst(waiter);
+        if (waiter.future.isDone()) {
+            // Completed concurrently, its own removal may have run already
+            waiters.remove(waiter);
+        }
+    }
+
+    /**
+     * Completes all waiters exceptionally.
+     *
+     * @param e the exception
+     */
+    void failAll(final Exception e) {
+        Waiter<T> waiter;
+        while ((waiter = waiters.pollFirst()) != null) {
+            waiter.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Tests whether there are waiters.
+     *
+     * @return {@code true} if at least one borrower is waiting
+     */
+    boolean isEmpty() {
+        return waiters.isEmpty();
+    }
+
+    /**
+     * Returns the number of waiters. This is a linear time operation.
+     *
+     * @return the number of waiting borrowers
+     */
+    int size() {
+        return waiters.size();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("AsyncBorrowWaiters [size=");
+        builder.append(size());
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.pool2.DestroyMode;
+import org.apache.commons.pool2.PoolListener;
+import org.apache.commons.pool2.PooledObject;
+
+/**
+ * A {@link PoolListener} that hands the events of a pool to another listener
+ * on a dedicated thread, so that slow listeners do not delay borrowers.
+ * <p>
+ * Events are copied into a ring buffer of preallocated slots and never
+ * allocate. When the buffer is full, because the listener does not keep up,
+ * new events are dropped rather than waiting for room, and counted by
+ * {@link #getDroppedCount()}. Exceptions thrown by the listener are ignored.
+ * </p>
+ * <p>
+ * The pooled objects passed to the listener are those of the pool, which may
+ * have changed state by the time the listener receives the event.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+public final class AsyncPoolListener implements PoolListener, AutoCloseable {
+
+    /**
+     * The default number of events the buffer holds.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** How long the dispatcher thread parks when there are no events. */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private enum EventType {
+        BORROW, RETURN, CREATE, DESTROY, EVICT, VALIDATION_FAILURE
+    }
+
+    /**
+     * A preallocated event, written by the thread that claimed its sequence
+     * and read by the dispatcher thread once published.
+     */
+    private static final class Event {
+        EventType type;
+        Object key;
+        PooledObject<?> pooledObject;
+        long timeNanos;
+        DestroyMode destroyMode;
+        DestroyCause cause;
+    }
+
+    private final PoolListener listener;
+    private final Event[] events;
+    private final int mask;
+    /** The sequence + 1 of the event published in each slot. */
+    private final AtomicLongArray published;
+    /** The next sequence to claim. */
+    private final AtomicLong tail = new AtomicLong();
+    /** The next sequence to dispatch, only written by the dispatcher thread. */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance holding up to {@link #DEFAULT_CAPACITY} events.
+     *
+     * @param listener the listener to notify on the dispatcher thread
+     */
+    public AsyncPoolListener(final PoolListener listener) {
+        this(listener, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param listener the listener to notify on the dispatcher thread
+     * @param capacity the number of events the buffer holds, rounded up to a
+     *        power of two
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public AsyncPoolListener(final PoolListener listener, final int capacity) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        this.listener = listener;
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.events = new Event[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event();
+        }
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        this.thread = new Thread(this::dispatch, "commons-pool-listener-thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the dispatcher thread once the events already published have
+     * been handed to the listener. Later events are dropped.
+     *
+     * @throws InterruptedException if interrupted while waiting for the
+     *         dispatcher thread
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full or this
+     * instance was closed.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Gets the number of events waiting to be handed to the listener.
+     *
+     * @return the number of pending events
+     */
+    public int getPendingCount() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * Hands events to the listener until closed, then drains the buffer.
+     */
+    private void dispatch() {
+        for (;;) {
+            final long sequence = head.get();
+            final int index = (int) sequence & mask;
+            if (published.get(index) != sequence + 1) {
+                if (closed && tail.get() == sequence) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            final Event event = events[index];
+            try {
+                switch (event.type) {
+                case BORROW:
+                    listener.onBorrow(event.key, event.pooledObject, event.timeNanos);
+                    break;
+                case RETURN:
+                    listener.onReturn(event.key, event.pooledObject, event.timeNanos);
+                    break;
+                case CREATE:
+                    listener.onCreate(event.key, event.pooledObject);
+                    break;
+                case DESTROY:
+                    listener.onDestroy(event.key, event.pooledObject, event.destroyMode, event.cause);
+                    break;
+                case EVICT:
+                    listener.onEvict(event.key, event.pooledObject);
+                    break;
+                default:
+                    listener.onValidationFailure(event.key, event.pooledObject);
+                    break;
+                }
+            } catch (final RuntimeException e) {
+                // Ignore, as for the pool's listener
+            }
+            // Release the references so the pool's objects can be collected
+            event.key = null;
+            event.pooledObject = null;
+            head.lazySet(sequence + 1);
+        }
+    }
+
+    /**
+     * Claims a slot for an event, unless the buffer is full.
+     *
+     * @return the sequence of the claimed slot or -1 if the event is dropped
+     */
+    private long claim() {
+        if (!closed) {
+            for (;;) {
+                final long sequence = tail.get();
+                if (sequence - head.get() >= events.length) {
+                    break;
+                }
+                if (tail.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+            }
+        }
+        droppedCount.incrementAndGet();
+        return -1;
+    }
+
+    /**
+     * Writes an event into a claimed slot and publishes it.
+     */
+    private void publish(final long sequence, final EventType type, final Object key,
+            final PooledObject<?> pooledObject, final long timeNanos, final DestroyMode destroyMode,
+            final DestroyCause cause) {
+        final Event event = events[(int) sequence & mask];
+        event.type = type;
+        event.key = key;
+        event.pooledObject = pooledObject;
+        event.timeNanos = timeNanos;
+        event.destroyMode = destroyMode;
+        event.cause = cause;
+        published.lazySet((int) sequence & mask, sequence + 1);
+    }
+
+    @Override
+    public void onBorrow(final Object key, final PooledObject<?> pooledObject, final long waitTimeNanos) {
+        final long sequence = claim();
+        if (sequence >= 0) {
+            publish(sequence, EventType.BORROW, key, pooledObject, waitTimeNanos, null, null);
+        }
+    }
+
+    @Override
+    public void onReturn(final Object key, final PooledObject<?> pooledObject, final long activeTimeNanos) {
+        final long sequence = claim();
+        if (sequence >= 0) {
+            publish(sequence, EventType.RETURN, key, pooledObject, activeTimeNanos, null, null);
+        }
+    }
+
+    @Override
+    public void onCreate(final Object key, final PooledObject<?> pooledObject) {
+        final long sequence = claim();
+        if (sequence >= 0) {
+            publish(sequence, EventType.CREATE, key, pooledObject, 0, null, null);
+        }
+    }
+
+    @Override
+    public void onDestroy(final Object key, final PooledObject<?> pooledObject, final DestroyMode destroyMode,
+            final DestroyCause cause) {
+        final long sequence = claim();
+        if (sequence >= 0) {
+            publish(sequence, EventType.DESTROY, key, pooledObject, 0, destroyMode, cause);
+        }
+    }
+
+    @Override
+    public void onEvict(final Object key, final PooledObject<?> pooledObject) {
+        final long sequence = claim();
+        if (sequence >= 0) {
+            publish(sequence, EventType.EVICT, key, pooledObject, 0, null, null);
+        }
+    }
+
+    @Override
+    public void onValidationFailure(final Object key, final PooledObject<?> pooledObject) {
+        final long sequence = claim();
+        if (sequence >= 0) {
+            publish(sequence, EventType.VALIDATION_FAILURE, key, pooledObject, 0, null, null);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("AsyncPoolListener [listener=");
+        builder.append(listener);
+        builder.append(", capacity=");
+        builder.append(events.length);
+        builder.append(", droppedCount=");
+        builder.append(droppedCount);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -22,13 +22,38 @@ import java.io.Writer;
 import java.lang.management.ManagementFactory;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
@@ -39,6 +64,9 @@ import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 
 import org.apache.commons.pool2.BaseObject;
+import org.apache.commons.pool2.DestroyMode;
+import org.apache.commons.pool2.PoolListener;
+import org.apache.commons.pool2.PoolListener.DestroyCause;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectState;
 import org.apache.commons.pool2.SwallowedExceptionListener;
@@ -60,11 +88,24 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     /**
      * The size of the caches used to store historical data for some attributes
      * so that rolling means may be calculated.
+     *
+     * @deprecated Timing statistics are recorded in histograms covering all
+     *             objects since the pool was created or
+     *             {@link #resetStatistics() reset}; this value is not used.
      */
+    @Deprecated
     public static final int MEAN_TIMING_STATS_CACHE_SIZE = 100;
 
     private static final String EVICTION_POLICY_TYPE_NAME = EvictionPolicy.class.getName();
 
+    private static final long POOL_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Number of threads of the dedicated create executor of a pool that
+     * creates objects synchronously.
+     */
+    private static final int BACKGROUND_CREATE_THREADS = Runtime.getRuntime().availableProcessors();
+
     // Configuration attributes
     private volatile int maxTotal =
             GenericKeyedObjectPoolConfig.DEFAULT_MAX_TOTAL;
@@ -74,6 +115,15 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
             BaseObjectPoolConfig.DEFAULT_MAX_WAIT_MILLIS;
     private volatile boolean lifo = BaseObjectPoolConfig.DEFAULT_LIFO;
     private final boolean fairness;
+    private final boolean lockFreeIdleObjects;
+    private final NanoClock clock;
+    private final int maxPendingCreates;
+    private final Executor createExecutor;
+    private final int maxEvictionValidations;
+    private final Executor evictionValidationExecutor;
+    private final int maxEvictionValidationsPerSecond;
+    private final ScheduledExecutorService evictorExecutor;
+    private final boolean dedicatedEvictor;
     private volatile boolean testOnCreate =
             BaseObjectPoolConfig.DEFAULT_TEST_ON_CREATE;
     private volatile boolean testOnBorrow =
@@ -82,6 +132,10 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
             BaseObjectPoolConfig.DEFAULT_TEST_ON_RETURN;
     private volatile boolean testWhileIdle =
             BaseObjectPoolConfig.DEFAULT_TEST_WHILE_IDLE;
+    private volatile boolean evictExpiredOnly =
+            BaseObjectPoolConfig.DEFAULT_EVICT_EXPIRED_ONLY;
+    private volatile long maxIdleGracePeriodMillis =
+            BaseObjectPoolConfig.DEFAULT_MAX_IDLE_GRACE_PERIOD_MILLIS;
     private volatile long timeBetweenEvictionRunsMillis =
             BaseObjectPoolConfig.DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS;
     private volatile int numTestsPerEvictionRun =
@@ -96,10 +150,13 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
 
 
     // Internal (primarily state) attributes
-    final Object closeLock = new Object();
+    // j.u.c. locks rather than monitors so that blocked threads do not pin
+    // virtual threads to their carrier threads
+    final ReentrantLock closeLock = new ReentrantLock();
     volatile boolean closed = false;
-    final Object evictionLock = new Object();
+    final ReentrantLock evictionLock = new ReentrantLock();
     private Evictor evictor = null; // @GuardedBy("evictionLock")
+    private ScheduledThreadPoolExecutor dedicatedEvictorExecutor; // @GuardedBy("evictionLock")
     EvictionIterator evictionIterator = null; // @GuardedBy("evictionLock")
     /*
      * Class loader for evictor thread to use since, in a JavaEE or similar
@@ -119,11 +176,23 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     final AtomicLong destroyedCount = new AtomicLong(0);
     final AtomicLong destroyedByEvictorCount = new AtomicLong(0);
     final AtomicLong destroyedByBorrowValidationCount = new AtomicLong(0);
-    private final StatsStore activeTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
-    private final StatsStore idleTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
-    private final StatsStore waitTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
-    private final AtomicLong maxBorrowWaitTimeMillis = new AtomicLong(0L);
+    final AtomicLong returnedOverMaxIdleCount = new AtomicLong(0);
+    final AtomicLong destroyedByMaxIdleCount = new AtomicLong(0);
+    private final AtomicInteger pendingCreates = new AtomicInteger(0);
+    private final Semaphore evictionValidations;
+    // Validation budget, guarded by evictionLock
+    private double evictionValidationTokens;
+    private long evictionValidationTokensNanos;
+    private final TimingHistogram activeTimes = new TimingHistogram();
+    private final TimingHistogram idleTimes = new TimingHistogram();
+    private final TimingHistogram waitTimes = new TimingHistogram();
+    private final TimingHistogram evictorLagTimes = new TimingHistogram();
+    private final TimingHistogram evictorRunTimes = new TimingHistogram();
     private volatile SwallowedExceptionListener swallowedExceptionListener = null;
+    private volatile PoolListener poolListener = null;
+
+    // Adaptive idle sizing
+    private volatile AdaptiveIdleController adaptiveIdleController;
 
 
     /**
@@ -155,6 +224,30 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         }
 
         fairness = config.getFairness();
+        lockFreeIdleObjects = config.getLockFreeIdleObjects();
+        clock = config.getClock();
+        maxPendingCreates = config.getMaxPendingCreates();
+        if (config.getCreateExecutor() == null) {
+            createExecutor = newPoolExecutor(maxPendingCreates > 0 ? maxPendingCreates : BACKGROUND_CREATE_THREADS,
+                    "commons-pool-create-thread");
+        } else {
+            createExecutor = config.getCreateExecutor();
+        }
+        maxEvictionValidations = config.getMaxEvictionValidations();
+        if (maxEvictionValidations > 0) {
+            evictionValidations = new Semaphore(maxEvictionValidations);
+            evictionValidationExecutor = config.getEvictionValidationExecutor() == null ?
+                    newPoolExecutor(maxEvictionValidations, "commons-pool-validation-thread") :
+                    config.getEvictionValidationExecutor();
+        } else {
+            evictionValidations = null;
+            evictionValidationExecutor = null;
+        }
+        maxEvictionValidationsPerSecond = config.getMaxEvictionValidationsPerSecond();
+        evictionValidationTokens = maxEvictionValidationsPerSecond;
+        evictionValidationTokensNanos = clock.nanoTime();
+        evictorExecutor = config.getEvictorExecutor();
+        dedicatedEvictor = config.getDedicatedEvictor();
     }
 
 
@@ -230,6 +323,8 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         setTestOnBorrow(config.getTestOnBorrow());
         setTestOnReturn(config.getTestOnReturn());
         setTestWhileIdle(config.getTestWhileIdle());
+        setEvictExpiredOnly(config.getEvictExpiredOnly());
+        setMaxIdleGracePeriodMillis(config.getMaxIdleGracePeriodMillis());
         setNumTestsPerEvictionRun(config.getNumTestsPerEvictionRun());
         setMinEvictableIdleTimeMillis(config.getMinEvictableIdleTimeMillis());
         setTimeBetweenEvictionRunsMillis(config.getTimeBetweenEvictionRunsMillis());
@@ -307,6 +402,330 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         return fairness;
     }
 
+    /**
+     * Returns whether or not the idle objects of this pool are held in a
+     * lock-free deque. When {@code true}, borrowing an idle object and
+     * returning an object do not take a lock; only threads that have to wait
+     * for an object are parked. When {@code false}, all access to the idle
+     * objects is guarded by a single lock.
+     *
+     * @return {@code true} if idle objects are held in a lock-free deque
+     *
+     * @since 2.9.1
+     */
+    public final boolean getLockFreeIdleObjects() {
+        return lockFreeIdleObjects;
+    }
+
+    /**
+     * Returns the monotonic clock this pool uses to measure durations such as
+     * the time threads wait to borrow an object. Objects the factory wraps in
+     * a {@link DefaultPooledObject} measure their idle and active times with
+     * it too, unless the factory gives them another clock.
+     *
+     * @return the clock of this pool
+     *
+     * @see BaseObjectPoolConfig#setClock(NanoClock)
+     * @since 2.9.1
+     */
+    public final NanoClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Makes a new object measure durations with the clock of this pool, if its
+     * factory wrapped it in a {@link DefaultPooledObject} without a clock.
+     *
+     * @param p the new object
+     */
+    final void applyClock(final PooledObject<T> p) {
+        if (p instanceof DefaultPooledObject) {
+            ((DefaultPooledObject<T>) p).setPoolClock(clock);
+        }
+    }
+
+    /**
+     * Returns the maximum number of objects this pool creates asynchronously
+     * at the same time. When positive, borrowers that find no idle object do
+     * not create one themselves; the object is made with
+     * {@link org.apache.commons.pool2.PooledObjectFactory#makeObjectAsync
+     * makeObjectAsync} on the {@link #getCreateExecutor() create executor}
+     * and handed to the longest waiting borrower. When zero or negative,
+     * objects are created synchronously by the borrowing thread.
+     *
+     * @return the maximum number of pending asynchronous creations
+     *
+     * @see BaseObjectPoolConfig#setMaxPendingCreates(int)
+     * @since 2.9.1
+     */
+    public final int getMaxPendingCreates() {
+        return maxPendingCreates;
+    }
+
+    /**
+     * Returns the number of objects currently being created asynchronously.
+     *
+     * @return the number of pending asynchronous creations
+     *
+     * @see #getMaxPendingCreates()
+     * @since 2.9.1
+     */
+    public final int getNumPendingCreates() {
+        return pendingCreates.get();
+    }
+
+    /**
+     * Returns the executor on which objects are created in the background:
+     * the asynchronous creations, the creations on behalf of asynchronous
+     * borrowers and the additional creations of batch borrows. Unless one is
+     * configured, this is an executor dedicated to this pool with
+     * {@link #getMaxPendingCreates()} threads, or one thread per available
+     * processor if objects are created synchronously, that is shut down when
+     * the pool is closed.
+     *
+     * @return the create executor
+     *
+     * @see BaseObjectPoolConfig#setCreateExecutor(Executor)
+     * @since 2.9.1
+     */
+    public final Executor getCreateExecutor() {
+        return createExecutor;
+    }
+
+    /**
+     * Tests whether objects are created asynchronously.
+     *
+     * @return {@code true} if {@link #getMaxPendingCreates()} is positive
+     */
+    final boolean isAsyncCreate() {
+        return maxPendingCreates > 0;
+    }
+
+    /**
+     * Reserves one of the {@link #getMaxPendingCreates()} asynchronous
+     * creations. A successful reservation must be released with
+     * {@link #releasePendingCreate()}.
+     *
+     * @return {@code true} if the reservation succeeded
+     */
+    final boolean reservePendingCreate() {
+        int current;
+        do {
+            current = pendingCreates.get();
+            if (current >= maxPendingCreates) {
+                return false;
+            }
+        } while (!pendingCreates.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Releases a reservation made with {@link #reservePendingCreate()}.
+     */
+    final void releasePendingCreate() {
+        pendingCreates.decrementAndGet();
+    }
+
+    /**
+     * Shuts down the create executor if it is dedicated to this pool.
+     * Creations already started complete.
+     */
+    final void shutdownCreateExecutor() {
+        if (createExecutor instanceof PoolExecutor) {
+            ((PoolExecutor) createExecutor).shutdown();
+        }
+    }
+
+    /**
+     * Returns the maximum number of idle objects this pool validates at the
+     * same time when {@link #getTestWhileIdle()} is set. When positive, the
+     * evictor hands each idle object to the
+     * {@link #getEvictionValidationExecutor() eviction validation executor}
+     * and moves on, so a slow {@code validateObject} does not hold up the
+     * evictor thread shared by all pools. Objects stay in the
+     * {@link PooledObjectState#EVICTION EVICTION} state until their validation
+     * completes. Once this many validations are in progress, the run ends and
+     * the remaining objects are examined by later runs. When zero or negative,
+     * objects are validated one at a time by the evictor thread.
+     *
+     * @return the maximum number of concurrent eviction validations
+     *
+     * @see BaseObjectPoolConfig#setMaxEvictionValidations(int)
+     * @since 2.9.1
+     */
+    public final int getMaxEvictionValidations() {
+        return maxEvictionValidations;
+    }
+
+    /**
+     * Returns the executor on which idle objects are validated for the
+     * evictor. Unless one is configured, this is an executor dedicated to this
+     * pool with {@link #getMaxEvictionValidations()} threads that is shut down
+     * when the pool is closed.
+     *
+     * @return the eviction validation executor, {@code null} if objects are
+     *         validated by the evictor thread
+     *
+     * @see BaseObjectPoolConfig#setEvictionValidationExecutor(Executor)
+     * @since 2.9.1
+     */
+    public final Executor getEvictionValidationExecutor() {
+        return evictionValidationExecutor;
+    }
+
+    /**
+     * Returns the maximum number of idle objects the evictor validates per
+     * second when {@link #getTestWhileIdle()} is set. Once the budget is used
+     * up, the run ends and the remaining objects are examined by later runs.
+     * Unused budget accumulates for up to one second. When zero or negative,
+     * validations are not rate limited.
+     *
+     * @return the maximum number of eviction validations per second
+     *
+     * @see BaseObjectPoolConfig#setMaxEvictionValidationsPerSecond(int)
+     * @since 2.9.1
+     */
+    public final int getMaxEvictionValidationsPerSecond() {
+        return maxEvictionValidationsPerSecond;
+    }
+
+    /**
+     * Returns the executor on which the idle object evictor of this pool runs.
+     * The pool does not shut it down. When {@code null}, the evictor runs on
+     * a thread dedicated to this pool if {@link #getDedicatedEvictor()} is
+     * set, otherwise on the timer shared by all pools in the JVM.
+     *
+     * @return the evictor executor, {@code null} if none is configured
+     *
+     * @see BaseObjectPoolConfig#setEvictorExecutor(ScheduledExecutorService)
+     * @since 2.9.1
+     */
+    public final ScheduledExecutorService getEvictorExecutor() {
+        return evictorExecutor;
+    }
+
+    /**
+     * Returns whether the idle object evictor of this pool runs on a thread
+     * dedicated to this pool, started with the evictor and stopped when the
+     * pool is closed, rather than on the timer shared by all pools. A slow
+     * eviction run then does not delay the evictors of other pools. Ignored
+     * when an {@link #getEvictorExecutor() evictor executor} is configured.
+     *
+     * @return {@code true} if the evictor runs on a dedicated thread
+     *
+     * @see BaseObjectPoolConfig#setDedicatedEvictor(boolean)
+     * @since 2.9.1
+     */
+    public final boolean getDedicatedEvictor() {
+        return dedicatedEvictor;
+    }
+
+    /**
+     * Tests whether the evictor validates idle objects on the eviction
+     * validation executor.
+     *
+     * @return {@code true} if {@link #getMaxEvictionValidations()} is positive
+     */
+    final boolean isAsyncEvictionValidation() {
+        return evictionValidations != null;
+    }
+
+    /**
+     * Reserves the validation of an idle object by the evictor against the
+     * validations per second budget and, for asynchronous validation, one of
+     * the {@link #getMaxEvictionValidations()} concurrent validations, which
+     * is released by {@link #executeEvictionValidation(Runnable)}. Must be
+     * called with the eviction lock held.
+     *
+     * @return {@code true} if the reservation succeeded, {@code false} if the
+     *         eviction run should end
+     */
+    final boolean reserveEvictionValidation() {
+        if (maxEvictionValidationsPerSecond > 0) {
+            final long now = clock.nanoTime();
+            evictionValidationTokens = Math.min(maxEvictionValidationsPerSecond,
+                    evictionValidationTokens + (now - evictionValidationTokensNanos) *
+                    (double) maxEvictionValidationsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            evictionValidationTokensNanos = now;
+            if (evictionValidationTokens < 1) {
+                return false;
+            }
+        }
+        if (evictionValidations != null && !evictionValidations.tryAcquire()) {
+            return false;
+        }
+        if (maxEvictionValidationsPerSecond > 0) {
+            evictionValidationTokens--;
+        }
+        return true;
+    }
+
+    /**
+     * Runs the validation of an idle object reserved with
+     * {@link #reserveEvictionValidation()} on the eviction validation
+     * executor, or on the calling thread if the executor rejects it.
+     *
+     * @param validation validates the object and ends its eviction test
+     */
+    final void executeEvictionValidation(final Runnable validation) {
+        final Runnable task = () -> {
+            try {
+                validation.run();
+            } finally {
+                evictionValidations.release();
+            }
+        };
+        try {
+            evictionValidationExecutor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Shuts down the eviction validation executor if it is dedicated to this
+     * pool. Validations already started complete.
+     */
+    final void shutdownEvictionValidationExecutor() {
+        if (evictionValidationExecutor instanceof PoolExecutor) {
+            ((PoolExecutor) evictionValidationExecutor).shutdown();
+        }
+    }
+
+    /**
+     * Creates a single thread executor dedicated to this pool for background
+     * maintenance. Its thread terminates when idle; the caller shuts the
+     * executor down when the pool is closed.
+     *
+     * @param threadName the name of the thread
+     * @return a new executor
+     */
+    final ExecutorService newMaintenanceExecutor(final String threadName) {
+        return newPoolExecutor(1, threadName);
+    }
+
+    /**
+     * Creates an executor dedicated to this pool for asynchronous creation or
+     * validation.
+     *
+     * @param threads the maximum number of threads
+     * @param threadName the name of the threads
+     * @return a new executor whose threads terminate when idle
+     */
+    private PoolExecutor newPoolExecutor(final int threads, final String threadName) {
+        final PoolExecutor executor = new PoolExecutor(threads, runnable -> {
+            final Thread thread = new Thread(null, runnable, threadName);
+            thread.setDaemon(true);
+            final ClassLoader cl = factoryClassLoader == null ? null : factoryClassLoader.get();
+            if (cl != null) {
+                thread.setContextClassLoader(cl);
+            }
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Sets whether the pool has LIFO (last in, first out) behavior with
      * respect to idle objects - always returning the most recently used object
@@ -465,6 +884,82 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         this.testWhileIdle = testWhileIdle;
     }
 
+    /**
+     * Returns whether the idle object evictor only examines the idle objects
+     * that have been idle for longer than {@link #getMinEvictableIdleTimeMillis()}
+     * or {@link #getSoftMinEvictableIdleTimeMillis()}, oldest first. Each run
+     * then stops at the first object that is kept rather than examining
+     * {@link #getNumTestsPerEvictionRun()} objects in turn, so the cost of a
+     * run is proportional to the number of expired objects. This only applies
+     * with the {@link DefaultEvictionPolicy} when {@link #getTestWhileIdle()}
+     * is {@code false}; otherwise every run examines objects in turn.
+     *
+     * @return {@code true} if the evictor only examines expired objects
+     *
+     * @see #setEvictExpiredOnly
+     * @since 2.9.1
+     */
+    public final boolean getEvictExpiredOnly() {
+        return evictExpiredOnly;
+    }
+
+    /**
+     * Sets whether the idle object evictor only examines the idle objects
+     * that have expired, oldest first.
+     *
+     * @param evictExpiredOnly
+     *            {@code true} so the evictor only examines expired objects
+     *
+     * @see #getEvictExpiredOnly
+     * @since 2.9.1
+     */
+    public final void setEvictExpiredOnly(final boolean evictExpiredOnly) {
+        this.evictExpiredOnly = evictExpiredOnly;
+    }
+
+    /**
+     * Returns the minimum amount of time an object returned when the idle
+     * objects have already reached the maximum number of idle objects is kept
+     * before the idle object evictor (if any - see
+     * {@link #setTimeBetweenEvictionRunsMillis(long)}) destroys it. When this
+     * is positive, returned objects are always added to the idle objects and
+     * each evictor run destroys the oldest idle objects in excess of the
+     * maximum that have been idle for at least this long, so that bursts of
+     * load no longer destroy objects only for them to be created again. When
+     * this is not positive, or no evictor is scheduled, objects returned in
+     * excess of the maximum are destroyed immediately.
+     *
+     * @return the grace period for idle objects in excess of the maximum, in
+     *         milliseconds
+     *
+     * @see #setMaxIdleGracePeriodMillis
+     * @see #getReturnedOverMaxIdleCount()
+     * @see #getDestroyedByMaxIdleCount()
+     * @since 2.9.1
+     */
+    public final long getMaxIdleGracePeriodMillis() {
+        return maxIdleGracePeriodMillis;
+    }
+
+    /**
+     * Sets the minimum amount of time an object returned when the idle
+     * objects have already reached the maximum number of idle objects is kept
+     * before the idle object evictor destroys it. Use a value that is not
+     * positive to destroy such objects immediately. The grace period only
+     * applies while {@link #getTimeBetweenEvictionRunsMillis()} is positive;
+     * without an evictor to trim them, such objects are destroyed on return.
+     *
+     * @param maxIdleGracePeriodMillis
+     *            the grace period for idle objects in excess of the maximum,
+     *            in milliseconds
+     *
+     * @see #getMaxIdleGracePeriodMillis
+     * @since 2.9.1
+     */
+    public final void setMaxIdleGracePeriodMillis(final long maxIdleGracePeriodMillis) {
+        this.maxIdleGracePeriodMillis = maxIdleGracePeriodMillis;
+    }
+
     /**
      * Returns the number of milliseconds to sleep between runs of the idle
      * object evictor thread. When non-positive, no idle object evictor thread
@@ -782,26 +1277,161 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      * @param delay time in milliseconds before start and between eviction runs
      */
     final void startEvictor(final long delay) {
-        synchronized (evictionLock) {
+        evictionLock.lock();
+        try {
             if (evictor == null) { // Starting evictor for the first time or after a cancel
                 if (delay > 0) {   // Starting new evictor
-                    evictor = new Evictor();
-                    EvictionTimer.schedule(evictor, delay, delay);
+                    scheduleEvictor(delay);
                 }
             } else {  // Stop or restart of existing evictor
                 if (delay > 0) { // Restart
-                    synchronized (EvictionTimer.class) { // Ensure no cancel can happen between cancel / schedule calls
-                        EvictionTimer.cancel(evictor, evictorShutdownTimeoutMillis, TimeUnit.MILLISECONDS, true);
-                        evictor = null;
-                        evictionIterator = null;
-                        evictor = new Evictor();
-                        EvictionTimer.schedule(evictor, delay, delay);
-                    }
+                    // The shared timer is kept while no task is scheduled
+                    cancelEvictor(true);
+                    evictor = null;
+                    evictionIterator = null;
+                    scheduleEvictor(delay);
                 } else { // Stopping evictor
-                    EvictionTimer.cancel(evictor, evictorShutdownTimeoutMillis, TimeUnit.MILLISECONDS, false);
+                    cancelEvictor(false);
                 }
             }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Schedules a new evictor on the configured executor, the dedicated
+     * evictor thread or the shared timer. Called with the eviction lock held.
+     *
+     * @param delay time in milliseconds before start and between eviction runs
+     */
+    private void scheduleEvictor(final long delay) {
+        evictor = new Evictor();
+        evictor.setPeriod(delay);
+        if (evictorExecutor != null) {
+            evictor.setScheduledFuture(
+                    evictorExecutor.scheduleWithFixedDelay(evictor, delay, delay, TimeUnit.MILLISECONDS));
+        } else if (dedicatedEvictor) {
+            if (dedicatedEvictorExecutor == null) {
+                dedicatedEvictorExecutor = EvictionTimer.newExecutor();
+            }
+            evictor.setScheduledFuture(
+                    dedicatedEvictorExecutor.scheduleWithFixedDelay(evictor, delay, delay, TimeUnit.MILLISECONDS));
+        } else {
+            EvictionTimer.schedule(evictor, delay, delay);
+        }
+    }
+
+    /**
+     * Cancels the evictor. Called with the eviction lock held.
+     *
+     * @param restarting whether a new evictor is scheduled next
+     */
+    private void cancelEvictor(final boolean restarting) {
+        if (evictorExecutor != null) {
+            evictor.cancel();
+        } else if (dedicatedEvictor) {
+            evictor.cancel();
+            if (!restarting && dedicatedEvictorExecutor != null) {
+                dedicatedEvictorExecutor.shutdown();
+                try {
+                    dedicatedEvictorExecutor.awaitTermination(evictorShutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    // Swallow, as for the shared timer
+                }
+                dedicatedEvictorExecutor = null;
+            }
+        } else {
+            EvictionTimer.cancel(evictor, evictorShutdownTimeoutMillis, TimeUnit.MILLISECONDS, restarting);
+        }
+    }
+
+    /**
+     * Returns whether idle objects in excess of the maximum number of idle
+     * objects are kept for a grace period rather than destroyed on return.
+     * They are only kept while an evictor is scheduled to trim them.
+     *
+     * @return {@code true} if {@link #getMaxIdleGracePeriodMillis()} and
+     *         {@link #getTimeBetweenEvictionRunsMillis()} are positive
+     */
+    final boolean isMaxIdleGracePeriod() {
+        return maxIdleGracePeriodMillis > 0 && timeBetweenEvictionRunsMillis > 0;
+    }
+
+    /**
+     * Starts the eviction test of the oldest idle objects in excess of
+     * {@code maxIdle} that have been idle for at least
+     * {@link #getMaxIdleGracePeriodMillis()}, so that the caller can destroy
+     * them.
+     *
+     * @param idleObjects the idle objects, in the order they were returned
+     * @param maxIdle the maximum number of idle objects
+     * @return the idle objects to destroy, possibly empty
+     */
+    final List<PooledObject<T>> startExcessIdleTest(final Deque<PooledObject<T>> idleObjects, final int maxIdle) {
+        final long gracePeriodMillis = maxIdleGracePeriodMillis;
+        int excess = maxIdle < 0 || gracePeriodMillis <= 0 ? 0 : idleObjects.size() - maxIdle;
+        if (excess <= 0) {
+            return Collections.emptyList();
+        }
+        final List<PooledObject<T>> excessObjects = new ArrayList<>(excess);
+        final Iterator<PooledObject<T>> iter = getLifo() ? idleObjects.descendingIterator() : idleObjects.iterator();
+        while (excess > 0 && iter.hasNext()) {
+            final PooledObject<T> p = iter.next();
+            if (p.getIdleTimeMillis() < gracePeriodMillis) {
+                // Younger objects are still within their grace period too
+                break;
+            }
+            if (p.startEvictionTest()) {
+                excessObjects.add(p);
+                excess--;
+            }
+        }
+        return excessObjects;
+    }
+
+    /**
+     * Tests whether an eviction run only needs to examine the idle objects that
+     * have expired, oldest first, stopping at the first object that is kept.
+     * This holds when {@link #getEvictExpiredOnly()} is set for the
+     * {@link DefaultEvictionPolicy}, which never evicts an object that has been
+     * idle for less time than one it keeps, and idle objects are not tested
+     * while idle.
+     *
+     * @param evictionPolicy the eviction policy in use
+     * @param testWhileIdle whether idle objects are tested
+     * @return {@code true} if only expired objects need to be examined
+     */
+    final boolean isEvictExpiredOnly(final EvictionPolicy<T> evictionPolicy, final boolean testWhileIdle) {
+        return evictExpiredOnly && !testWhileIdle && evictionPolicy != null && evictionPolicy.getClass() == DefaultEvictionPolicy.class;
+    }
+
+    /**
+     * Creates a deque to hold idle objects using the configured fairness and
+     * lock-free settings.
+     *
+     * @param <E> the type of elements held in the deque
+     * @return a new, empty deque for idle objects
+     */
+    final <E> BlockingIdleDeque<E> createIdleObjects() {
+        return createIdleObjects(null);
+    }
+
+    /**
+     * Creates a deque to hold idle objects using the configured fairness and
+     * lock-free settings, that counts the idle objects it holds together with
+     * other deques.
+     *
+     * @param <E> the type of elements held in the deque
+     * @param sharedCount the count of idle objects in this and other deques,
+     *        {@code null} if not shared
+     * @return a new, empty deque for idle objects
+     */
+    final <E> BlockingIdleDeque<E> createIdleObjects(final LongAdder sharedCount) {
+        if (lockFreeIdleObjects) {
+            return new LockFreeBlockingDeque<>(fairness, sharedCount);
         }
+        return new LinkedBlockingDeque<>(fairness, sharedCount);
     }
 
     /**
@@ -817,6 +1447,96 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      */
     abstract void ensureMinIdle() throws Exception;
 
+    /**
+     * Adjusts the idle object targets to the observed demand when the pool has
+     * an adaptive idle configuration. Called by the evictor before
+     * {@link #ensureMinIdle()}.
+     */
+    abstract void adaptIdle();
+
+    /**
+     * Sets the adaptive idle configuration. When not {@code null}, each run of
+     * the idle object evictor computes idle object targets within the bounds of
+     * the configuration, and the pool keeps idle objects according to these
+     * targets, clamped so that it never keeps more idle objects than the
+     * configured {@code maxIdle} nor fewer than the configured {@code minIdle}.
+     * The configured values themselves are not changed. This has no effect
+     * unless the evictor is enabled by setting
+     * {@code timeBetweenEvictionRunsMillis} to a positive value.
+     *
+     * @param adaptiveIdleConfig the new configuration to use, used by value,
+     *        or {@code null} to go back to the configured limits
+     *
+     * @see AdaptiveIdleConfig
+     * @since 2.9.1
+     */
+    public final void setAdaptiveIdleConfig(final AdaptiveIdleConfig adaptiveIdleConfig) {
+        this.adaptiveIdleController = adaptiveIdleConfig == null ? null :
+                new AdaptiveIdleController(new AdaptiveIdleConfig(adaptiveIdleConfig));
+    }
+
+    /**
+     * Tests whether the pool adapts its idle object limits to the demand.
+     *
+     * @return {@code true} if the pool has an adaptive idle configuration
+     *
+     * @see #setAdaptiveIdleConfig(AdaptiveIdleConfig)
+     * @since 2.9.1
+     */
+    public final boolean isAdaptiveIdleConfig() {
+        return adaptiveIdleController != null;
+    }
+
+    /**
+     * Updates the adaptive idle controller, if any, from the pool statistics.
+     *
+     * @param demand the number of objects in use or waited for
+     * @param partitions the number of keys the idle limits apply to
+     */
+    final void updateAdaptiveIdle(final int demand, final int partitions) {
+        final AdaptiveIdleController controller = adaptiveIdleController;
+        if (controller != null) {
+            controller.update(clock.nanoTime(), getBorrowedCount(), createdCount.get(), destroyedCount.get(),
+                    activeTimes.snapshot(), waitTimes.snapshot(), demand, partitions);
+        }
+    }
+
+    /**
+     * Gets the maximum number of idle objects the pool keeps, in total or per
+     * key: the {@code maxIdle} target of the adaptive idle controller clamped
+     * to the configured limits, or {@code maxIdle} when there is no target.
+     *
+     * @param maxIdle the configured maximum, negative for no limit
+     * @param minIdle the configured minimum
+     * @return the maximum in effect, negative for no limit
+     */
+    final int getAdaptiveMaxIdle(final int maxIdle, final int minIdle) {
+        final AdaptiveIdleController controller = adaptiveIdleController;
+        final int target = controller == null ? -1 : controller.getMaxIdle();
+        if (target < 0) {
+            return maxIdle;
+        }
+        return Math.max(minIdle, maxIdle < 0 ? target : Math.min(maxIdle, target));
+    }
+
+    /**
+     * Gets the minimum number of idle objects the pool keeps, in total or per
+     * key: the {@code minIdle} target of the adaptive idle controller clamped
+     * to the configured limits, or {@code minIdle} when there is no target.
+     *
+     * @param maxIdle the configured maximum, negative for no limit
+     * @param minIdle the configured minimum
+     * @return the minimum in effect
+     */
+    final int getAdaptiveMinIdle(final int maxIdle, final int minIdle) {
+        final AdaptiveIdleController controller = adaptiveIdleController;
+        final int target = controller == null ? -1 : controller.getMinIdle();
+        if (target < 0) {
+            return minIdle;
+        }
+        return Math.max(minIdle, Math.min(getAdaptiveMaxIdle(maxIdle, minIdle), target));
+    }
+
 
     // Monitoring (primarily JMX) related methods
 
@@ -888,6 +1608,36 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         return destroyedByEvictorCount.get();
     }
 
+    /**
+     * The total number of objects returned to this pool when the idle objects
+     * had already reached the maximum number of idle objects over the lifetime
+     * of the pool. The difference between this and
+     * {@link #getDestroyedByMaxIdleCount()} is the number of such objects
+     * reused rather than destroyed thanks to
+     * {@link #getMaxIdleGracePeriodMillis()}.
+     *
+     * @return the count of objects returned in excess of the maximum number
+     *         of idle objects
+     * @since 2.9.1
+     */
+    public final long getReturnedOverMaxIdleCount() {
+        return returnedOverMaxIdleCount.get();
+    }
+
+    /**
+     * The total number of objects destroyed by this pool because the idle
+     * objects exceeded the maximum number of idle objects, either when they
+     * were returned or by the evictor once their grace period elapsed, over
+     * the lifetime of the pool.
+     *
+     * @return the count of objects destroyed in excess of the maximum number
+     *         of idle objects
+     * @since 2.9.1
+     */
+    public final long getDestroyedByMaxIdleCount() {
+        return destroyedByMaxIdleCount.get();
+    }
+
     /**
      * The total number of objects destroyed by this pool as a result of failing
      * validation during {@code borrowObject()} over the lifetime of the
@@ -899,41 +1649,153 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     }
 
     /**
-     * The mean time objects are active for based on the last {@link
-     * #MEAN_TIMING_STATS_CACHE_SIZE} objects returned to the pool.
+     * The mean time objects are active for based on the objects returned to
+     * the pool since it was created or its statistics were reset.
      * @return mean time an object has been checked out from the pool among
-     * recently returned objects
+     * returned objects
+     * @see #getActiveTimeStatistics()
      */
     public final long getMeanActiveTimeMillis() {
-        return activeTimes.getMean();
+        return toMillis(activeTimes.snapshot().getMean());
     }
 
     /**
-     * The mean time objects are idle for based on the last {@link
-     * #MEAN_TIMING_STATS_CACHE_SIZE} objects borrowed from the pool.
-     * @return mean time an object has been idle in the pool among recently
-     * borrowed objects
+     * The mean time objects are idle for based on the objects borrowed from
+     * the pool since it was created or its statistics were reset.
+     * @return mean time an object has been idle in the pool among borrowed
+     * objects
+     * @see #getIdleTimeStatistics()
      */
     public final long getMeanIdleTimeMillis() {
-        return idleTimes.getMean();
+        return toMillis(idleTimes.snapshot().getMean());
     }
 
     /**
-     * The mean time threads wait to borrow an object based on the last {@link
-     * #MEAN_TIMING_STATS_CACHE_SIZE} objects borrowed from the pool.
-     * @return mean time in milliseconds that a recently served thread has had
+     * The mean time threads wait to borrow an object based on the objects
+     * borrowed from the pool since it was created or its statistics were
+     * reset.
+     * @return mean time in milliseconds that a served thread has had
      * to wait to borrow an object from the pool
+     * @see #getBorrowWaitTimeStatistics()
      */
     public final long getMeanBorrowWaitTimeMillis() {
-        return waitTimes.getMean();
+        return toMillis(waitTimes.snapshot().getMean());
     }
 
     /**
      * The maximum time a thread has waited to borrow objects from the pool.
-     * @return maximum wait time in milliseconds since the pool was created
+     * @return maximum wait time in milliseconds since the pool was created or
+     * its statistics were reset
      */
     public final long getMaxBorrowWaitTimeMillis() {
-        return maxBorrowWaitTimeMillis.get();
+        return TimeUnit.NANOSECONDS.toMillis(waitTimes.getMax());
+    }
+
+    /**
+     * The distribution of the times objects have been checked out for, based
+     * on the objects returned to the pool since it was created or its
+     * statistics were reset.
+     * @return active time statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getActiveTimeStatistics() {
+        return activeTimes.snapshot();
+    }
+
+    /**
+     * The distribution of the times objects have been idle for, based on the
+     * objects borrowed from the pool since it was created or its statistics
+     * were reset.
+     * @return idle time statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getIdleTimeStatistics() {
+        return idleTimes.snapshot();
+    }
+
+    /**
+     * The distribution of the times threads have waited to borrow an object,
+     * based on the objects borrowed from the pool since it was created or its
+     * statistics were reset.
+     * @return borrow wait time statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getBorrowWaitTimeStatistics() {
+        return waitTimes.snapshot();
+    }
+
+    /**
+     * The distribution of the times objects have been checked out for, based
+     * on the objects returned to the pool since the previous call of this
+     * method. Intended for a single periodic reporter.
+     * @return active time statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getActiveTimeIntervalStatistics() {
+        return activeTimes.intervalSnapshot();
+    }
+
+    /**
+     * The distribution of the times objects have been idle for, based on the
+     * objects borrowed from the pool since the previous call of this method.
+     * Intended for a single periodic reporter.
+     * @return idle time statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getIdleTimeIntervalStatistics() {
+        return idleTimes.intervalSnapshot();
+    }
+
+    /**
+     * The distribution of the times threads have waited to borrow an object,
+     * based on the objects borrowed from the pool since the previous call of
+     * this method. Intended for a single periodic reporter.
+     * @return borrow wait time statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getBorrowWaitTimeIntervalStatistics() {
+        return waitTimes.intervalSnapshot();
+    }
+
+    /**
+     * The distribution of the delays between the times the idle object
+     * evictor was due to run and the times it started, since the pool was
+     * created or its statistics were reset. Evictors that share a thread, or
+     * slow eviction runs, delay each other.
+     * @return evictor lag statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getEvictorLagStatistics() {
+        return evictorLagTimes.snapshot();
+    }
+
+    /**
+     * The distribution of the durations of the idle object evictor runs,
+     * including ensuring the minimum number of idle objects, since the pool
+     * was created or its statistics were reset.
+     * @return evictor run time statistics in nanoseconds
+     * @since 2.9.1
+     */
+    public final TimingStatistics getEvictorRunTimeStatistics() {
+        return evictorRunTimes.snapshot();
+    }
+
+    /**
+     * Discards the recorded active, idle and borrow wait times and the
+     * evictor lag and run times. Counters such as {@link #getBorrowedCount()}
+     * are not affected.
+     * @since 2.9.1
+     */
+    public final void resetStatistics() {
+        activeTimes.reset();
+        idleTimes.reset();
+        waitTimes.reset();
+        evictorLagTimes.reset();
+        evictorRunTimes.reset();
+    }
+
+    private static long toMillis(final double nanos) {
+        return (long) (nanos / TimeUnit.MILLISECONDS.toNanos(1));
     }
 
     /**
@@ -964,6 +1826,28 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         this.swallowedExceptionListener = swallowedExceptionListener;
     }
 
+    /**
+     * The listener used (if any) to receive notifications of the events of
+     * the pool.
+     *
+     * @return The listener or {@code null} for no listener
+     * @since 2.9.1
+     */
+    public final PoolListener getPoolListener() {
+        return poolListener;
+    }
+
+    /**
+     * The listener used (if any) to receive notifications of the events of
+     * the pool.
+     *
+     * @param poolListener    The listener or {@code null} for no listener
+     * @since 2.9.1
+     */
+    public final void setPoolListener(final PoolListener poolListener) {
+        this.poolListener = poolListener;
+    }
+
     /**
      * Swallows an exception and notifies the configured listener for swallowed
      * exceptions queue.
@@ -989,31 +1873,368 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     /**
      * Updates statistics after an object is borrowed from the pool.
      * @param p object borrowed from the pool
-     * @param waitTime time (in milliseconds) that the borrowing thread had to wait
+     * @param waitTimeNanos time (in nanoseconds) that the borrowing thread had to wait
      */
-    final void updateStatsBorrow(final PooledObject<T> p, final long waitTime) {
+    final void updateStatsBorrow(final PooledObject<T> p, final long waitTimeNanos) {
+        updateStatsBorrow(null, p, waitTimeNanos);
+    }
+
+    /**
+     * Updates statistics after an object is borrowed from the pool and
+     * notifies the pool listener.
+     * @param key the key of the object, {@code null} if the pool is not keyed
+     * @param p object borrowed from the pool
+     * @param waitTimeNanos time (in nanoseconds) that the borrowing thread had to wait
+     */
+    final void updateStatsBorrow(final Object key, final PooledObject<T> p, final long waitTimeNanos) {
         borrowedCount.incrementAndGet();
-        idleTimes.add(p.getIdleTimeMillis());
-        waitTimes.add(waitTime);
+        idleTimes.record(p.getIdleTimeNanos());
+        waitTimes.record(waitTimeNanos);
+        final PoolListener listener = poolListener;
+        if (listener != null) {
+            try {
+                listener.onBorrow(key, p, waitTimeNanos);
+            } catch (final RuntimeException e) {
+                swallowException(e);
+            }
+        }
+    }
 
-        // lock-free optimistic-locking maximum
-        long currentMax;
-        do {
-            currentMax = maxBorrowWaitTimeMillis.get();
-            if (currentMax >= waitTime) {
-                break;
+    /**
+     * Converts the maximum wait time of a batch borrow to nanoseconds.
+     *
+     * @param maxWait the maximum wait time, {@code null} or negative to wait
+     *        indefinitely
+     * @return the maximum wait time in nanoseconds or -1 to wait indefinitely
+     */
+    static long toWaitNanos(final Duration maxWait) {
+        if (maxWait == null || maxWait.isNegative()) {
+            return -1;
+        }
+        try {
+            return maxWait.toNanos();
+        } catch (final ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the time a borrower that started waiting at the given time may
+     * still wait.
+     *
+     * @param maxWaitMillis the maximum wait time in milliseconds, negative to
+     *        wait indefinitely
+     * @param startNanos the time the borrower started waiting
+     * @return the remaining wait time in nanoseconds or -1 to wait
+     *         indefinitely
+     */
+    final long remainingWaitNanos(final long maxWaitMillis, final long startNanos) {
+        if (maxWaitMillis < 0) {
+            return -1;
+        }
+        return Math.max(0, TimeUnit.MILLISECONDS.toNanos(maxWaitMillis) - (clock.nanoTime() - startNanos));
+    }
+
+    /**
+     * Waits for the future of a blocking borrower that waits as an
+     * asynchronous borrower, so that it is handed the object created on its
+     * behalf or the failure to create it.
+     *
+     * @param future the future of the borrower
+     * @return the borrowed object
+     * @throws Exception the exception the future failed with
+     */
+    final T awaitBorrow(final CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            if (future.cancel(false) || future.isCompletedExceptionally()) {
+                throw e;
+            }
+            // Served while being interrupted, keep the object and the interrupt
+            Thread.currentThread().interrupt();
+            return future.join();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
             }
-        } while (!maxBorrowWaitTimeMillis.compareAndSet(currentMax, waitTime));
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates up to {@code count} objects for a batch borrow. One object is
+     * created by the calling thread and the others in parallel on the
+     * {@link #getCreateExecutor() create executor}, which bounds the number of
+     * creations running at the same time. Fewer objects are created if the
+     * executor rejects a creation. Every object created is added to
+     * {@code created}, even if another creation fails.
+     *
+     * @param count the number of objects to create
+     * @param create creates one object, or returns {@code null} when the pool
+     *        is at capacity
+     * @param created receives the objects created
+     * @throws Exception the first failure of {@code create}
+     */
+    final void createBatch(final int count, final Callable<PooledObject<T>> create,
+            final List<PooledObject<T>> created) throws Exception {
+        if (count <= 0) {
+            return;
+        }
+        final List<CompletableFuture<PooledObject<T>>> futures = new ArrayList<>(count - 1);
+        try {
+            for (int i = 1; i < count; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return create.call();
+                    } catch (final Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, createExecutor));
+            }
+        } catch (final RejectedExecutionException e) {
+            // Closed meanwhile, or the configured executor is saturated
+        }
+        Exception failure = null;
+        try {
+            final PooledObject<T> p = create.call();
+            if (p != null) {
+                created.add(p);
+            }
+        } catch (final Exception e) {
+            failure = e;
+        }
+        for (final CompletableFuture<PooledObject<T>> future : futures) {
+            try {
+                final PooledObject<T> p = future.join();
+                if (p != null) {
+                    created.add(p);
+                }
+            } catch (final CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Runs the creations of a parallel warm-up on up to {@code concurrency}
+     * threads dedicated to it, which terminate once the warm-up completes. No
+     * creation starts once the deadline has passed, but the creations already
+     * started are awaited. Failures are passed to
+     * {@link #swallowException(Exception)}.
+     *
+     * @param creations the creations in the order they should start, each
+     *        returning whether it created an object
+     * @param concurrency the maximum number of concurrent creations
+     * @param deadline the time after which no creation starts, {@code null}
+     *        or negative for no deadline
+     * @return a future completed with the outcome once no creation is running
+     * @throws IllegalArgumentException if {@code concurrency} is not positive
+     */
+    final CompletableFuture<PreparePoolResult> prepareAsync(final Queue<Callable<Boolean>> creations,
+            final int concurrency, final Duration deadline) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        final long startNanos = clock.nanoTime();
+        final long deadlineNanos = toWaitNanos(deadline);
+        final CompletableFuture<PreparePoolResult> future = new CompletableFuture<>();
+        final int workers = Math.min(concurrency, creations.size());
+        if (workers == 0) {
+            future.complete(new PreparePoolResult(0, 0, 0, false));
+            return future;
+        }
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicBoolean deadlineExceeded = new AtomicBoolean();
+        final AtomicInteger running = new AtomicInteger(workers);
+        final PoolExecutor executor = newPoolExecutor(workers, "commons-pool-prepare-thread");
+        final Runnable worker = () -> {
+            Callable<Boolean> creation;
+            while ((creation = creations.poll()) != null) {
+                if (isClosed()) {
+                    skipped.incrementAndGet();
+                } else if (deadlineNanos >= 0 && clock.nanoTime() - startNanos >= deadlineNanos) {
+                    deadlineExceeded.set(true);
+                    skipped.incrementAndGet();
+                } else {
+                    try {
+                        if (creation.call().booleanValue()) {
+                            created.incrementAndGet();
+                        } else {
+                            skipped.incrementAndGet();
+                        }
+                    } catch (final Exception e) {
+                        failed.incrementAndGet();
+                        swallowException(e);
+                    }
+                }
+            }
+            if (running.decrementAndGet() == 0) {
+                executor.shutdown();
+                future.complete(new PreparePoolResult(created.get(), failed.get(), skipped.get(),
+                        deadlineExceeded.get()));
+            }
+        };
+        for (int i = 0; i < workers; i++) {
+            executor.execute(worker);
+        }
+        return future;
+    }
+
+    /**
+     * Updates statistics after a batch of objects is borrowed from the pool.
+     * @param key the key of the objects, {@code null} if the pool is not keyed
+     * @param batch the objects borrowed
+     * @param waitTimeNanos the time (in nanoseconds) the borrowing thread had to wait
+     */
+    final void updateStatsBorrow(final Object key, final Collection<PooledObject<T>> batch,
+            final long waitTimeNanos) {
+        borrowedCount.addAndGet(batch.size());
+        final PoolListener listener = poolListener;
+        for (final PooledObject<T> p : batch) {
+            idleTimes.record(p.getIdleTimeNanos());
+            if (listener != null) {
+                try {
+                    listener.onBorrow(key, p, waitTimeNanos);
+                } catch (final RuntimeException e) {
+                    swallowException(e);
+                }
+            }
+        }
+        waitTimes.record(waitTimeNanos, batch.size());
     }
 
     /**
      * Updates statistics after an object is returned to the pool.
-     * @param activeTime the amount of time (in milliseconds) that the returning
+     * @param activeTimeNanos the amount of time (in nanoseconds) that the returning
      * object was checked out
      */
-    final void updateStatsReturn(final long activeTime) {
+    final void updateStatsReturn(final long activeTimeNanos) {
         returnedCount.incrementAndGet();
-        activeTimes.add(activeTime);
+        activeTimes.record(activeTimeNanos);
+    }
+
+    /**
+     * Updates statistics after an object is returned to the pool and notifies
+     * the pool listener.
+     * @param key the key of the object, {@code null} if the pool is not keyed
+     * @param p the object returned
+     * @param activeTimeNanos the amount of time (in nanoseconds) that the returning
+     * object was checked out
+     */
+    final void updateStatsReturn(final Object key, final PooledObject<T> p, final long activeTimeNanos) {
+        updateStatsReturn(activeTimeNanos);
+        fireReturn(key, p, activeTimeNanos);
+    }
+
+    /**
+     * Notifies the pool listener, if any, that an object was returned. The
+     * statistics of a batch of returned objects are updated separately.
+     * @param key the key of the object, {@code null} if the pool is not keyed
+     * @param p the object returned
+     * @param activeTimeNanos the amount of time (in nanoseconds) that the returning
+     * object was checked out
+     */
+    final void fireReturn(final Object key, final PooledObject<T> p, final long activeTimeNanos) {
+        final PoolListener listener = poolListener;
+        if (listener != null) {
+            try {
+                listener.onReturn(key, p, activeTimeNanos);
+            } catch (final RuntimeException e) {
+                swallowException(e);
+            }
+        }
+    }
+
+    /**
+     * Notifies the pool listener, if any, that an object was created.
+     * @param key the key of the object, {@code null} if the pool is not keyed
+     * @param p the object created
+     */
+    final void fireCreate(final Object key, final PooledObject<T> p) {
+        final PoolListener listener = poolListener;
+        if (listener != null) {
+            try {
+                listener.onCreate(key, p);
+            } catch (final RuntimeException e) {
+                swallowException(e);
+            }
+        }
+    }
+
+    /**
+     * Notifies the pool listener, if any, that an object was destroyed.
+     * @param key the key of the object, {@code null} if the pool is not keyed
+     * @param p the object destroyed
+     * @param mode the mode passed to the factory
+     * @param cause the reason the object was destroyed
+     */
+    final void fireDestroy(final Object key, final PooledObject<T> p, final DestroyMode mode,
+            final DestroyCause cause) {
+        final PoolListener listener = poolListener;
+        if (listener != null) {
+            try {
+                listener.onDestroy(key, p, mode, cause);
+            } catch (final RuntimeException e) {
+                swallowException(e);
+            }
+        }
+    }
+
+    /**
+     * Notifies the pool listener, if any, that the eviction policy evicted an
+     * idle object.
+     * @param key the key of the object, {@code null} if the pool is not keyed
+     * @param p the object evicted
+     */
+    final void fireEvict(final Object key, final PooledObject<T> p) {
+        final PoolListener listener = poolListener;
+        if (listener != null) {
+            try {
+                listener.onEvict(key, p);
+            } catch (final RuntimeException e) {
+                swallowException(e);
+            }
+        }
+    }
+
+    /**
+     * Notifies the pool listener, if any, that an object failed validation.
+     * @param key the key of the object, {@code null} if the pool is not keyed
+     * @param p the object that failed validation
+     */
+    final void fireValidationFailure(final Object key, final PooledObject<T> p) {
+        final PoolListener listener = poolListener;
+        if (listener != null) {
+            try {
+                listener.onValidationFailure(key, p);
+            } catch (final RuntimeException e) {
+                swallowException(e);
+            }
+        }
+    }
+
+    /**
+     * Updates statistics after a batch of objects is returned to the pool.
+     * @param activeTimesNanos the amount of time (in nanoseconds) that each
+     * returning object was checked out
+     */
+    final void updateStatsReturn(final long[] activeTimesNanos) {
+        returnedCount.addAndGet(activeTimesNanos.length);
+        for (final long activeTimeNanos : activeTimesNanos) {
+            activeTimes.record(activeTimeNanos);
+        }
     }
 
     /**
@@ -1021,13 +2242,38 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      * @param pooledObject instance to return to the keyed pool
      */
     protected void markReturningState(final PooledObject<T> pooledObject) {
-        synchronized(pooledObject) {
+        withStateLock(pooledObject, () -> {
             final PooledObjectState state = pooledObject.getState();
             if (state != PooledObjectState.ALLOCATED) {
                 throw new IllegalStateException(
                         "Object has already been returned to this pool or is invalid");
             }
             pooledObject.markReturning(); // Keep from being marked abandoned
+            return true;
+        });
+    }
+
+    /**
+     * Tests and changes the state of a pooled object in one step. The action
+     * runs while holding the state lock of a {@link DefaultPooledObject}, which
+     * does not pin virtual threads, or else the monitor of the pooled object.
+     *
+     * @param pooledObject the pooled object
+     * @param action tests and changes the state of the pooled object
+     * @return the result of the action
+     */
+    static boolean withStateLock(final PooledObject<?> pooledObject, final BooleanSupplier action) {
+        if (pooledObject instanceof DefaultPooledObject) {
+            final Lock lock = ((DefaultPooledObject<?>) pooledObject).getStateLock();
+            lock.lock();
+            try {
+                return action.getAsBoolean();
+            } finally {
+                lock.unlock();
+            }
+        }
+        synchronized (pooledObject) {
+            return action.getAsBoolean();
         }
     }
 
@@ -1120,6 +2366,19 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
 
     // Inner classes
 
+    /**
+     * Executor dedicated to a pool for asynchronous object creation or
+     * validation. The pool never has more tasks pending than threads, so the
+     * queue stays short.
+     */
+    private static final class PoolExecutor extends ThreadPoolExecutor {
+
+        PoolExecutor(final int threads, final ThreadFactory threadFactory) {
+            super(threads, threads, POOL_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+        }
+    }
+
     /**
      * The idle object evictor {@link TimerTask}.
      *
@@ -1129,6 +2388,12 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
 
         private ScheduledFuture<?> scheduledFuture;
 
+        /** Time between runs, zero if not scheduled by the pool */
+        private long periodNanos;
+
+        /** Time the next run is due */
+        private long dueNanos;
+
         /**
          * Run pool maintenance.  Evict objects qualifying for eviction and then
          * ensure that the minimum number of idle instances are available.
@@ -1139,6 +2404,10 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
          */
         @Override
         public void run() {
+            final long startNanos = clock.nanoTime();
+            if (periodNanos > 0) {
+                evictorLagTimes.record(Math.max(0, startNanos - dueNanos));
+            }
             final ClassLoader savedClassLoader =
                     Thread.currentThread().getContextClassLoader();
             try {
@@ -1165,6 +2434,12 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
                     // in case error is recoverable
                     oome.printStackTrace(System.err);
                 }
+                // Adapt the idle limits to the demand
+                try {
+                    adaptIdle();
+                } catch (final RuntimeException e) {
+                    swallowException(e);
+                }
                 // Re-create idle instances.
                 try {
                     ensureMinIdle();
@@ -1174,9 +2449,24 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
             } finally {
                 // Restore the previous CCL
                 Thread.currentThread().setContextClassLoader(savedClassLoader);
+                final long endNanos = clock.nanoTime();
+                evictorRunTimes.record(endNanos - startNanos);
+                // Runs are scheduled with a fixed delay
+                dueNanos = endNanos + periodNanos;
             }
         }
 
+        /**
+         * Sets the time between runs, starting the lag measurement with the
+         * first run due one period from now.
+         *
+         * @param periodMillis time in milliseconds before start and between runs
+         */
+        void setPeriod(final long periodMillis) {
+            periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+            dueNanos = clock.nanoTime() + periodNanos;
+        }
+
 
         /**
          * Sets the scheduled future.
@@ -1197,76 +2487,6 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
 
     }
 
-    /**
-     * Maintains a cache of values for a single metric and reports
-     * statistics on the cached values.
-     */
-    private class StatsStore {
-
-        private final AtomicLong values[];
-        private final int size;
-        private int index;
-
-        /**
-         * Create a StatsStore with the given cache size.
-         *
-         * @param size number of values to maintain in the cache.
-         */
-        public StatsStore(final int size) {
-            this.size = size;
-            values = new AtomicLong[size];
-            for (int i = 0; i < size; i++) {
-                values[i] = new AtomicLong(-1);
-            }
-        }
-
-        /**
-         * Adds a value to the cache.  If the cache is full, one of the
-         * existing values is replaced by the new value.
-         *
-         * @param value new value to add to the cache.
-         */
-        public synchronized void add(final long value) {
-            values[index].set(value);
-            index++;
-            if (index == size) {
-                index = 0;
-            }
-        }
-
-        /**
-         * Returns the mean of the cached values.
-         *
-         * @return the mean of the cache, truncated to long
-         */
-        public long getMean() {
-            double result = 0;
-            int counter = 0;
-            for (int i = 0; i < size; i++) {
-                final long value = values[i].get();
-                if (value != -1) {
-                    counter++;
-                    result = result * ((counter - 1) / (double) counter) +
-                            value/(double) counter;
-                }
-            }
-            return (long) result;
-        }
-
-        @Override
-        public String toString() {
-            final StringBuilder builder = new StringBuilder();
-            builder.append("StatsStore [values=");
-            builder.append(Arrays.toString(values));
-            builder.append(", size=");
-            builder.append(size);
-            builder.append(", index=");
-            builder.append(index);
-            builder.append("]");
-            return builder.toString();
-        }
-    }
-
     /**
      * The idle object eviction iterator. Holds a reference to the idle objects.
      */
@@ -1323,10 +2543,46 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      * GenericObjectPool and GenericKeyedObjectPool maintain references to all
      * objects under management using maps keyed on the objects. This wrapper
      * class ensures that objects can work as hash keys.
+     * <p>
+     * Lookups and removals should use {@link #get(Map, Object)} and
+     * {@link #remove(Map, Object)}, whose wrapper never leaves the call, so
+     * that the JIT compiler can eliminate its allocation. A per-thread
+     * wrapper would instead stay allocated for every thread that ever used
+     * the pool, which adds up with virtual threads.
+     * </p>
      *
      * @param <T> type of objects in the pool
      */
     static class IdentityWrapper<T> {
+
+        /**
+         * Gets the value mapped to the given object through a wrapper local to
+         * the call.
+         *
+         * @param <T> type of objects in the pool
+         * @param <V> type of the mapped values
+         * @param map the map to search
+         * @param instance the object to look up
+         * @return the mapped value or {@code null}
+         */
+        static <T, V> V get(final Map<IdentityWrapper<T>, V> map, final T instance) {
+            return map.get(new IdentityWrapper<>(instance));
+        }
+
+        /**
+         * Removes the mapping for the given object through a wrapper local to
+         * the call.
+         *
+         * @param <T> type of objects in the pool
+         * @param <V> type of the mapped values
+         * @param map the map to update
+         * @param instance the object to remove
+         * @return the previously mapped value or {@code null}
+         */
+        static <T, V> V remove(final Map<IdentityWrapper<T>, V> map, final T instance) {
+            return map.remove(new IdentityWrapper<>(instance));
+        }
+
         /** Wrapped object */
         private final T instance;
 
@@ -1380,6 +2636,18 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(lifo);
         builder.append(", fairness=");
         builder.append(fairness);
+        builder.append(", lockFreeIdleObjects=");
+        builder.append(lockFreeIdleObjects);
+        builder.append(", clock=");
+        builder.append(clock);
+        builder.append(", maxPendingCreates=");
+        builder.append(maxPendingCreates);
+        builder.append(", maxEvictionValidations=");
+        builder.append(maxEvictionValidations);
+        builder.append(", maxEvictionValidationsPerSecond=");
+        builder.append(maxEvictionValidationsPerSecond);
+        builder.append(", pendingCreates=");
+        builder.append(pendingCreates);
         builder.append(", testOnCreate=");
         builder.append(testOnCreate);
         builder.append(", testOnBorrow=");
@@ -1388,6 +2656,10 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(testOnReturn);
         builder.append(", testWhileIdle=");
         builder.append(testWhileIdle);
+        builder.append(", evictExpiredOnly=");
+        builder.append(evictExpiredOnly);
+        builder.append(", maxIdleGracePeriodMillis=");
+        builder.append(maxIdleGracePeriodMillis);
         builder.append(", timeBetweenEvictionRunsMillis=");
         builder.append(timeBetweenEvictionRunsMillis);
         builder.append(", numTestsPerEvictionRun=");
@@ -1404,6 +2676,10 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(closed);
         builder.append(", evictionLock=");
         builder.append(evictionLock);
+        builder.append(", evictorExecutor=");
+        builder.append(evictorExecutor);
+        builder.append(", dedicatedEvictor=");
+        builder.append(dedicatedEvictor);
         builder.append(", evictor=");
         builder.append(evictor);
         builder.append(", evictionIterator=");
@@ -1426,16 +2702,20 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(destroyedByEvictorCount);
         builder.append(", destroyedByBorrowValidationCount=");
         builder.append(destroyedByBorrowValidationCount);
+        builder.append(", returnedOverMaxIdleCount=");
+        builder.append(returnedOverMaxIdleCount);
+        builder.append(", destroyedByMaxIdleCount=");
+        builder.append(destroyedByMaxIdleCount);
         builder.append(", activeTimes=");
         builder.append(activeTimes);
         builder.append(", idleTimes=");
         builder.append(idleTimes);
         builder.append(", waitTimes=");
         builder.append(waitTimes);
-        builder.append(", maxBorrowWaitTimeMillis=");
-        builder.append(maxBorrowWaitTimeMillis);
         builder.append(", swallowedExceptionListener=");
         builder.append(swallowedExceptionListener);
+        builder.append(", poolListener=");
+        builder.append(poolListener);
     }
 
 
@@ -16,6 +16,9 @@
  */
 package org.apache.commons.pool2.impl;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
 import org.apache.commons.pool2.BaseObject;
 
 /**
@@ -45,6 +48,88 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
      */
     public static final boolean DEFAULT_FAIRNESS = false;
 
+    /**
+     * The default value for the {@code lockFreeIdleObjects} configuration
+     * attribute.
+     * @see GenericObjectPool#getLockFreeIdleObjects()
+     * @see GenericKeyedObjectPool#getLockFreeIdleObjects()
+     * @since 2.9.1
+     */
+    public static final boolean DEFAULT_LOCK_FREE_IDLE_OBJECTS = false;
+
+    /**
+     * The default value for the {@code clock} configuration attribute.
+     * @see GenericObjectPool#getClock()
+     * @see GenericKeyedObjectPool#getClock()
+     * @since 2.9.1
+     */
+    public static final NanoClock DEFAULT_CLOCK = NanoClock.SYSTEM;
+
+    /**
+     * The default value for the {@code maxPendingCreates} configuration
+     * attribute, objects are created synchronously.
+     * @see GenericObjectPool#getMaxPendingCreates()
+     * @see GenericKeyedObjectPool#getMaxPendingCreates()
+     * @since 2.9.1
+     */
+    public static final int DEFAULT_MAX_PENDING_CREATES = 0;
+
+    /**
+     * The default value for the {@code createExecutor} configuration
+     * attribute, a dedicated executor with a bounded number of threads per
+     * pool.
+     * @see GenericObjectPool#getCreateExecutor()
+     * @see GenericKeyedObjectPool#getCreateExecutor()
+     * @since 2.9.1
+     */
+    public static final Executor DEFAULT_CREATE_EXECUTOR = null;
+
+    /**
+     * The default value for the {@code maxEvictionValidations} configuration
+     * attribute, idle objects are validated by the evictor thread.
+     * @see GenericObjectPool#getMaxEvictionValidations()
+     * @see GenericKeyedObjectPool#getMaxEvictionValidations()
+     * @since 2.9.1
+     */
+    public static final int DEFAULT_MAX_EVICTION_VALIDATIONS = 0;
+
+    /**
+     * The default value for the {@code evictionValidationExecutor}
+     * configuration attribute, a dedicated executor per pool.
+     * @see GenericObjectPool#getEvictionValidationExecutor()
+     * @see GenericKeyedObjectPool#getEvictionValidationExecutor()
+     * @since 2.9.1
+     */
+    public static final Executor DEFAULT_EVICTION_VALIDATION_EXECUTOR = null;
+
+    /**
+     * The default value for the {@code maxEvictionValidationsPerSecond}
+     * configuration attribute, validations are not rate limited.
+     * @see GenericObjectPool#getMaxEvictionValidationsPerSecond()
+     * @see GenericKeyedObjectPool#getMaxEvictionValidationsPerSecond()
+     * @since 2.9.1
+     */
+    public static final int DEFAULT_MAX_EVICTION_VALIDATIONS_PER_SECOND = -1;
+
+    /**
+     * The default value for the {@code evictorExecutor} configuration
+     * attribute, evictors run on the timer shared by all pools or on a
+     * dedicated thread.
+     * @see GenericObjectPool#getEvictorExecutor()
+     * @see GenericKeyedObjectPool#getEvictorExecutor()
+     * @since 2.9.1
+     */
+    public static final ScheduledExecutorService DEFAULT_EVICTOR_EXECUTOR = null;
+
+    /**
+     * The default value for the {@code dedicatedEvictor} configuration
+     * attribute, evictors run on the timer shared by all pools.
+     * @see GenericObjectPool#getDedicatedEvictor()
+     * @see GenericKeyedObjectPool#getDedicatedEvictor()
+     * @since 2.9.1
+     */
+    public static final boolean DEFAULT_DEDICATED_EVICTOR = false;
+
     /**
      * The default value for the {@code maxWait} configuration attribute.
      * @see GenericObjectPool#getMaxWaitMillis()
@@ -116,6 +201,23 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
      */
     public static final boolean DEFAULT_TEST_WHILE_IDLE = false;
 
+    /**
+     * The default value for the {@code evictExpiredOnly} configuration attribute.
+     * @see GenericObjectPool#getEvictExpiredOnly()
+     * @see GenericKeyedObjectPool#getEvictExpiredOnly()
+     * @since 2.9.1
+     */
+    public static final boolean DEFAULT_EVICT_EXPIRED_ONLY = false;
+
+    /**
+     * The default value for the {@code maxIdleGracePeriodMillis}
+     * configuration attribute.
+     * @see GenericObjectPool#getMaxIdleGracePeriodMillis()
+     * @see GenericKeyedObjectPool#getMaxIdleGracePeriodMillis()
+     * @since 2.9.1
+     */
+    public static final long DEFAULT_MAX_IDLE_GRACE_PERIOD_MILLIS = -1L;
+
     /**
      * The default value for the {@code timeBetweenEvictionRunsMillis}
      * configuration attribute.
@@ -167,6 +269,24 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
 
     private boolean fairness = DEFAULT_FAIRNESS;
 
+    private boolean lockFreeIdleObjects = DEFAULT_LOCK_FREE_IDLE_OBJECTS;
+
+    private NanoClock clock = DEFAULT_CLOCK;
+
+    private int maxPendingCreates = DEFAULT_MAX_PENDING_CREATES;
+
+    private Executor createExecutor = DEFAULT_CREATE_EXECUTOR;
+
+    private int maxEvictionValidations = DEFAULT_MAX_EVICTION_VALIDATIONS;
+
+    private Executor evictionValidationExecutor = DEFAULT_EVICTION_VALIDATION_EXECUTOR;
+
+    private int maxEvictionValidationsPerSecond = DEFAULT_MAX_EVICTION_VALIDATIONS_PER_SECOND;
+
+    private ScheduledExecutorService evictorExecutor = DEFAULT_EVICTOR_EXECUTOR;
+
+    private boolean dedicatedEvictor = DEFAULT_DEDICATED_EVICTOR;
+
     private long maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
 
     private long minEvictableIdleTimeMillis =
@@ -193,6 +313,11 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
 
     private boolean testWhileIdle = DEFAULT_TEST_WHILE_IDLE;
 
+    private boolean evictExpiredOnly = DEFAULT_EVICT_EXPIRED_ONLY;
+
+    private long maxIdleGracePeriodMillis =
+            DEFAULT_MAX_IDLE_GRACE_PERIOD_MILLIS;
+
     private long timeBetweenEvictionRunsMillis =
             DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS;
 
@@ -262,6 +387,276 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.fairness = fairness;
     }
 
+    /**
+     * Get the value for the {@code lockFreeIdleObjects} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code lockFreeIdleObjects} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getLockFreeIdleObjects()
+     * @see GenericKeyedObjectPool#getLockFreeIdleObjects()
+     * @since 2.9.1
+     */
+    public boolean getLockFreeIdleObjects() {
+        return lockFreeIdleObjects;
+    }
+
+    /**
+     * Set the value for the {@code lockFreeIdleObjects} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param lockFreeIdleObjects The new setting of
+     *        {@code lockFreeIdleObjects} for this configuration instance
+     *
+     * @see GenericObjectPool#getLockFreeIdleObjects()
+     * @see GenericKeyedObjectPool#getLockFreeIdleObjects()
+     * @since 2.9.1
+     */
+    public void setLockFreeIdleObjects(final boolean lockFreeIdleObjects) {
+        this.lockFreeIdleObjects = lockFreeIdleObjects;
+    }
+
+    /**
+     * Get the value for the {@code clock} configuration attribute for pools
+     * created with this configuration instance.
+     *
+     * @return  The current setting of {@code clock} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getClock()
+     * @see GenericKeyedObjectPool#getClock()
+     * @since 2.9.1
+     */
+    public NanoClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Set the value for the {@code clock} configuration attribute for pools
+     * created with this configuration instance.
+     *
+     * @param clock The new setting of {@code clock} for this configuration
+     *        instance, {@code null} restores the default
+     *
+     * @see GenericObjectPool#getClock()
+     * @see GenericKeyedObjectPool#getClock()
+     * @since 2.9.1
+     */
+    public void setClock(final NanoClock clock) {
+        this.clock = clock == null ? DEFAULT_CLOCK : clock;
+    }
+
+    /**
+     * Get the value for the {@code maxPendingCreates} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxPendingCreates} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getMaxPendingCreates()
+     * @see GenericKeyedObjectPool#getMaxPendingCreates()
+     * @since 2.9.1
+     */
+    public int getMaxPendingCreates() {
+        return maxPendingCreates;
+    }
+
+    /**
+     * Set the value for the {@code maxPendingCreates} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param maxPendingCreates The new setting of {@code maxPendingCreates}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getMaxPendingCreates()
+     * @see GenericKeyedObjectPool#getMaxPendingCreates()
+     * @since 2.9.1
+     */
+    public void setMaxPendingCreates(final int maxPendingCreates) {
+        this.maxPendingCreates = maxPendingCreates;
+    }
+
+    /**
+     * Get the value for the {@code createExecutor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code createExecutor} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getCreateExecutor()
+     * @see GenericKeyedObjectPool#getCreateExecutor()
+     * @since 2.9.1
+     */
+    public Executor getCreateExecutor() {
+        return createExecutor;
+    }
+
+    /**
+     * Set the value for the {@code createExecutor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param createExecutor The new setting of {@code createExecutor} for
+     *        this configuration instance
+     *
+     * @see GenericObjectPool#getCreateExecutor()
+     * @see GenericKeyedObjectPool#getCreateExecutor()
+     * @since 2.9.1
+     */
+    public void setCreateExecutor(final Executor createExecutor) {
+        this.createExecutor = createExecutor;
+    }
+
+    /**
+     * Get the value for the {@code maxEvictionValidations} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxEvictionValidations} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getMaxEvictionValidations()
+     * @see GenericKeyedObjectPool#getMaxEvictionValidations()
+     * @since 2.9.1
+     */
+    public int getMaxEvictionValidations() {
+        return maxEvictionValidations;
+    }
+
+    /**
+     * Set the value for the {@code maxEvictionValidations} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param maxEvictionValidations The new setting of {@code maxEvictionValidations}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getMaxEvictionValidations()
+     * @see GenericKeyedObjectPool#getMaxEvictionValidations()
+     * @since 2.9.1
+     */
+    public void setMaxEvictionValidations(final int maxEvictionValidations) {
+        this.maxEvictionValidations = maxEvictionValidations;
+    }
+
+    /**
+     * Get the value for the {@code evictionValidationExecutor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code evictionValidationExecutor} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getEvictionValidationExecutor()
+     * @see GenericKeyedObjectPool#getEvictionValidationExecutor()
+     * @since 2.9.1
+     */
+    public Executor getEvictionValidationExecutor() {
+        return evictionValidationExecutor;
+    }
+
+    /**
+     * Set the value for the {@code evictionValidationExecutor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param evictionValidationExecutor The new setting of {@code evictionValidationExecutor}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getEvictionValidationExecutor()
+     * @see GenericKeyedObjectPool#getEvictionValidationExecutor()
+     * @since 2.9.1
+     */
+    public void setEvictionValidationExecutor(final Executor evictionValidationExecutor) {
+        this.evictionValidationExecutor = evictionValidationExecutor;
+    }
+
+    /**
+     * Get the value for the {@code maxEvictionValidationsPerSecond} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxEvictionValidationsPerSecond} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getMaxEvictionValidationsPerSecond()
+     * @see GenericKeyedObjectPool#getMaxEvictionValidationsPerSecond()
+     * @since 2.9.1
+     */
+    public int getMaxEvictionValidationsPerSecond() {
+        return maxEvictionValidationsPerSecond;
+    }
+
+    /**
+     * Set the value for the {@code maxEvictionValidationsPerSecond} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param maxEvictionValidationsPerSecond The new setting of {@code maxEvictionValidationsPerSecond}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getMaxEvictionValidationsPerSecond()
+     * @see GenericKeyedObjectPool#getMaxEvictionValidationsPerSecond()
+     * @since 2.9.1
+     */
+    public void setMaxEvictionValidationsPerSecond(final int maxEvictionValidationsPerSecond) {
+        this.maxEvictionValidationsPerSecond = maxEvictionValidationsPerSecond;
+    }
+
+    /**
+     * Get the value for the {@code evictorExecutor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code evictorExecutor} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getEvictorExecutor()
+     * @see GenericKeyedObjectPool#getEvictorExecutor()
+     * @since 2.9.1
+     */
+    public ScheduledExecutorService getEvictorExecutor() {
+        return evictorExecutor;
+    }
+
+    /**
+     * Set the value for the {@code evictorExecutor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param evictorExecutor The new setting of {@code evictorExecutor}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getEvictorExecutor()
+     * @see GenericKeyedObjectPool#getEvictorExecutor()
+     * @since 2.9.1
+     */
+    public void setEvictorExecutor(final ScheduledExecutorService evictorExecutor) {
+        this.evictorExecutor = evictorExecutor;
+    }
+
+    /**
+     * Get the value for the {@code dedicatedEvictor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code dedicatedEvictor} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getDedicatedEvictor()
+     * @see GenericKeyedObjectPool#getDedicatedEvictor()
+     * @since 2.9.1
+     */
+    public boolean getDedicatedEvictor() {
+        return dedicatedEvictor;
+    }
+
+    /**
+     * Set the value for the {@code dedicatedEvictor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param dedicatedEvictor The new setting of {@code dedicatedEvictor}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getDedicatedEvictor()
+     * @see GenericKeyedObjectPool#getDedicatedEvictor()
+     * @since 2.9.1
+     */
+    public void setDedicatedEvictor(final boolean dedicatedEvictor) {
+        this.dedicatedEvictor = dedicatedEvictor;
+    }
+
     /**
      * Get the value for the {@code maxWait} configuration attribute for pools
      * created with this configuration instance.
@@ -524,6 +919,66 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.testWhileIdle = testWhileIdle;
     }
 
+    /**
+     * Get the value for the {@code evictExpiredOnly} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code evictExpiredOnly} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getEvictExpiredOnly()
+     * @see GenericKeyedObjectPool#getEvictExpiredOnly()
+     * @since 2.9.1
+     */
+    public boolean getEvictExpiredOnly() {
+        return evictExpiredOnly;
+    }
+
+    /**
+     * Set the value for the {@code evictExpiredOnly} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param evictExpiredOnly The new setting of {@code evictExpiredOnly}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getEvictExpiredOnly()
+     * @see GenericKeyedObjectPool#getEvictExpiredOnly()
+     * @since 2.9.1
+     */
+    public void setEvictExpiredOnly(final boolean evictExpiredOnly) {
+        this.evictExpiredOnly = evictExpiredOnly;
+    }
+
+    /**
+     * Get the value for the {@code maxIdleGracePeriodMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxIdleGracePeriodMillis} for
+     *          this configuration instance
+     *
+     * @see GenericObjectPool#getMaxIdleGracePeriodMillis()
+     * @see GenericKeyedObjectPool#getMaxIdleGracePeriodMillis()
+     * @since 2.9.1
+     */
+    public long getMaxIdleGracePeriodMillis() {
+        return maxIdleGracePeriodMillis;
+    }
+
+    /**
+     * Set the value for the {@code maxIdleGracePeriodMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param maxIdleGracePeriodMillis The new setting of
+     *        {@code maxIdleGracePeriodMillis} for this configuration instance
+     *
+     * @see GenericObjectPool#getMaxIdleGracePeriodMillis()
+     * @see GenericKeyedObjectPool#getMaxIdleGracePeriodMillis()
+     * @since 2.9.1
+     */
+    public void setMaxIdleGracePeriodMillis(final long maxIdleGracePeriodMillis) {
+        this.maxIdleGracePeriodMillis = maxIdleGracePeriodMillis;
+    }
+
     /**
      * Get the value for the {@code timeBetweenEvictionRunsMillis} configuration
      * attribute for pools created with this configuration instance.
@@ -718,6 +1173,24 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         builder.append(lifo);
         builder.append(", fairness=");
         builder.append(fairness);
+        builder.append(", lockFreeIdleObjects=");
+        builder.append(lockFreeIdleObjects);
+        builder.append(", clock=");
+        builder.append(clock);
+        builder.append(", maxPendingCreates=");
+        builder.append(maxPendingCreates);
+        builder.append(", createExecutor=");
+        builder.append(createExecutor);
+        builder.append(", maxEvictionValidations=");
+        builder.append(maxEvictionValidations);
+        builder.append(", evictionValidationExecutor=");
+        builder.append(evictionValidationExecutor);
+        builder.append(", maxEvictionValidationsPerSecond=");
+        builder.append(maxEvictionValidationsPerSecond);
+        builder.append(", evictorExecutor=");
+        builder.append(evictorExecutor);
+        builder.append(", dedicatedEvictor=");
+        builder.append(dedicatedEvictor);
         builder.append(", maxWaitMillis=");
         builder.append(maxWaitMillis);
         builder.append(", minEvictableIdleTimeMillis=");
@@ -736,6 +1209,10 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         builder.append(testOnReturn);
         builder.append(", testWhileIdle=");
         builder.append(testWhileIdle);
+        builder.append(", evictExpiredOnly=");
+        builder.append(evictExpiredOnly);
+        builder.append(", maxIdleGracePeriodMillis=");
+        builder.append(maxIdleGracePeriodMillis);
         builder.append(", timeBetweenEvictionRunsMillis=");
         builder.append(timeBetweenEvictionRunsMillis);
         builder.append(", blockWhenExhausted=");
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The subset of blocking deque operations that {@link GenericObjectPool} and
+ * {@link GenericKeyedObjectPool} use to store idle objects and to park threads
+ * waiting for one.
+ * <p>
+ * This interface has package scope to prevent its inclusion in the pool public
+ * API.
+ * </p>
+ *
+ * @param <E> the type of elements held in this collection
+ *
+ * @see LinkedBlockingDeque
+ * @see LockFreeBlockingDeque
+ * @since 2.9.1
+ */
+interface BlockingIdleDeque<E> extends Deque<E> {
+
+    /**
+     * Retrieves and removes the first element of this deque, waiting
+     * if necessary until an element becomes available.
+     *
+     * @return the head of this deque
+     * @throws InterruptedException if interrupted while waiting
+     */
+    E takeFirst() throws InterruptedException;
+
+    /**
+     * Retrieves and removes the first element of this deque, waiting
+     * up to the specified wait time if necessary for an element to
+     * become available.
+     *
+     * @param timeout length of time to wait
+     * @param unit units that timeout is expressed in
+     * @return the head of this deque, or {@code null} if the specified
+     *         waiting time elapses before an element is available
+     * @throws InterruptedException if interrupted while waiting
+     */
+    E pollFirst(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Removes up to the given number of elements from the front of this deque
+     * and adds them to the given collection.
+     *
+     * @param c collection to add the elements to
+     * @param maxElements maximum number of elements to remove
+     * @return number of elements added to the collection
+     */
+    int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * Inserts all elements of the given collection at the front of this
+     * deque.
+     *
+     * @param c the elements to add
+     */
+    void addAllFirst(Collection<? extends E> c);
+
+    /**
+     * Inserts all elements of the given collection at the end of this deque.
+     *
+     * @param c the elements to add
+     */
+    void addAllLast(Collection<? extends E> c);
+
+    /**
+     * Returns true if there are threads waiting to take instances from this
+     * deque.
+     *
+     * @return true if there is at least one thread waiting on this deque
+     */
+    boolean hasTakeWaiters();
+
+    /**
+     * Returns an estimate of the number of threads waiting to take instances
+     * from this deque.
+     *
+     * @return number of threads waiting on this deque
+     */
+    int getTakeQueueLength();
+
+    /**
+     * Interrupts the threads currently waiting to take an object from the
+     * pool.
+     */
+    void interuptTakeWaiters();
+}
@@ -77,6 +77,59 @@ public final class CallStackUtils {
             new ThrowableCallStack(messageFormat, useTimestamp);
     }
 
+    /**
+     * Constructs a new {@link CallStack} using the fastest allowed strategy, recording at most the given number of
+     * frames if possible. Bounded stack traces are taken with a {@link StackWalkerCallStack} on Java 9 and later;
+     * without a bound this method behaves as {@link #newCallStack(String, boolean, boolean)}.
+     *
+     * @param messageFormat         message (or format) to print first in stack traces
+     * @param useTimestamp          if true, interpret message as a SimpleDateFormat and print the created timestamp;
+     *                              otherwise, print message format literally
+     * @param requireFullStackTrace if true, forces the use of a stack walking mechanism that includes full stack trace
+     *                              information; otherwise, uses a faster implementation if possible
+     * @param maxDepth              the maximum number of frames to record, zero or negative for all frames
+     * @return a new CallStack
+     * @since 2.9.1
+     */
+    public static CallStack newCallStack(final String messageFormat,
+                                         final boolean useTimestamp,
+                                         final boolean requireFullStackTrace,
+                                         final int maxDepth) {
+        if (maxDepth > 0 && StackWalkerCallStack.isAvailable()) {
+            return new StackWalkerCallStack(messageFormat, useTimestamp, maxDepth);
+        }
+        return newCallStack(messageFormat, useTimestamp, requireFullStackTrace);
+    }
+
+    /**
+     * Constructs a new {@link CallStack} as {@link #newCallStack(String, boolean, boolean, int)} does, that only takes
+     * a snapshot for one call of {@link CallStack#fillInStackTrace()} in {@code sampleInterval} on average. Sampled
+     * stack traces are taken with a {@link StackWalkerCallStack} on Java 9 and later.
+     *
+     * @param messageFormat         message (or format) to print first in stack traces
+     * @param useTimestamp          if true, interpret message as a SimpleDateFormat and print the created timestamp;
+     *                              otherwise, print message format literally
+     * @param requireFullStackTrace if true, forces the use of a stack walking mechanism that includes full stack trace
+     *                              information; otherwise, uses a faster implementation if possible
+     * @param maxDepth              the maximum number of frames to record, zero or negative for all frames
+     * @param sampleInterval        the average number of calls per snapshot, one or less to take every snapshot
+     * @return a new CallStack
+     * @since 2.9.1
+     */
+    public static CallStack newCallStack(final String messageFormat,
+                                         final boolean useTimestamp,
+                                         final boolean requireFullStackTrace,
+                                         final int maxDepth,
+                                         final int sampleInterval) {
+        if (sampleInterval <= 1) {
+            return newCallStack(messageFormat, useTimestamp, requireFullStackTrace, maxDepth);
+        }
+        final CallStack callStack = StackWalkerCallStack.isAvailable() ?
+            new StackWalkerCallStack(messageFormat, useTimestamp, maxDepth) :
+            newCallStack(messageFormat, useTimestamp, requireFullStackTrace);
+        return new SamplingCallStack(callStack, sampleInterval);
+    }
+
     /**
      * Hidden constructor.
      */
@@ -22,6 +22,9 @@ import org.apache.commons.pool2.TrackedUse;
 
 import java.io.PrintWriter;
 import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This wrapper is used to track the additional information, such as state, for
@@ -29,6 +32,14 @@ import java.util.Deque;
  * <p>
  * This class is intended to be thread-safe.
  * </p>
+ * <p>
+ * Since 2.9.1, state transitions hold the {@link #getStateLock() state lock}
+ * rather than the monitor of this object, so that threads blocked on a
+ * transition do not pin virtual threads. The pools hold the same lock when
+ * they test and change the state in one step. Subclasses that synchronized on
+ * this object to make their own actions atomic with state transitions must
+ * hold the state lock instead.
+ * </p>
  *
  * @param <T> the type of object in the pool
  *
@@ -37,24 +48,90 @@ import java.util.Deque;
 public class DefaultPooledObject<T> implements PooledObject<T> {
 
     private final T object;
-    private PooledObjectState state = PooledObjectState.IDLE; // @GuardedBy("this") to ensure transitions are valid
+    // Transitions are made while holding stateLock rather than this object's
+    // monitor so that threads blocked on it do not pin virtual threads
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private volatile PooledObjectState state = PooledObjectState.IDLE; // @GuardedBy("stateLock") to ensure transitions are valid
+    // Replaced by the clock of the pool if no clock was given
+    private volatile NanoClock clock;
+    private final boolean defaultClock;
+    // Wall clock time of creation, other wall clock times are derived from it
     private final long createTimeMillis = System.currentTimeMillis();
-    private volatile long lastBorrowTimeMillis = createTimeMillis;
-    private volatile long lastUseTimeMillis = createTimeMillis;
-    private volatile long lastReturnTimeMillis = createTimeMillis;
+    private volatile long createTimeNanos;
+    private volatile long lastBorrowTimeNanos;
+    private volatile long lastUseTimeNanos;
+    private volatile long lastReturnTimeNanos;
     private volatile boolean logAbandoned = false;
     private volatile CallStack borrowedBy = NoOpCallStack.INSTANCE;
     private volatile CallStack usedBy = NoOpCallStack.INSTANCE;
+    private volatile boolean requireFullStackTrace = true;
+    private volatile int maxStackTraceDepth = 0;
+    private volatile int stackTraceSampleInterval = 1;
+    private volatile long useStackTraceThresholdNanos = 0;
     private volatile long borrowedCount = 0;
 
     /**
      * Creates a new instance that wraps the provided object so that the pool can
-     * track the state of the pooled object.
+     * track the state of the pooled object. Durations are measured with the
+     * clock of the {@link GenericObjectPool} or {@link GenericKeyedObjectPool}
+     * that creates the object, or else with {@link NanoClock#SYSTEM}.
      *
      * @param object The object to wrap
      */
     public DefaultPooledObject(final T object) {
+        this(object, NanoClock.SYSTEM, true);
+    }
+
+    /**
+     * Creates a new instance that wraps the provided object so that the pool can
+     * track the state of the pooled object, measuring durations with the given
+     * clock.
+     *
+     * @param object The object to wrap
+     * @param clock The clock used to measure durations, it should be the
+     *              clock of the pool that holds this object
+     * @since 2.9.1
+     */
+    public DefaultPooledObject(final T object, final NanoClock clock) {
+        this(object, clock, false);
+    }
+
+    private DefaultPooledObject(final T object, final NanoClock clock, final boolean defaultClock) {
         this.object = object;
+        this.clock = clock;
+        this.defaultClock = defaultClock;
+        this.createTimeNanos = clock.nanoTime();
+        this.lastBorrowTimeNanos = createTimeNanos;
+        this.lastUseTimeNanos = createTimeNanos;
+        this.lastReturnTimeNanos = createTimeNanos;
+    }
+
+    /**
+     * Makes this new object measure durations with the clock of the pool that
+     * created it, unless a clock was given to the constructor. The times of
+     * the object restart from the current time of the pool's clock.
+     *
+     * @param poolClock the clock of the pool
+     */
+    void setPoolClock(final NanoClock poolClock) {
+        if (defaultClock && poolClock != clock) {
+            final long nowNanos = poolClock.nanoTime();
+            clock = poolClock;
+            createTimeNanos = nowNanos;
+            lastBorrowTimeNanos = nowNanos;
+            lastUseTimeNanos = nowNanos;
+            lastReturnTimeNanos = nowNanos;
+        }
+    }
+
+    /**
+     * Converts a time of this object's clock to wall clock time.
+     *
+     * @param timeNanos a time of this object's clock
+     * @return the wall clock time in milliseconds
+     */
+    private long toTimeMillis(final long timeNanos) {
+        return createTimeMillis + TimeUnit.NANOSECONDS.toMillis(timeNanos - createTimeNanos);
     }
 
     @Override
@@ -69,33 +146,42 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
 
     @Override
     public long getActiveTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getActiveTimeNanos());
+    }
+
+    @Override
+    public long getActiveTimeNanos() {
         // Take copies to avoid threading issues
-        final long rTime = lastReturnTimeMillis;
-        final long bTime = lastBorrowTimeMillis;
+        final long rTime = lastReturnTimeNanos;
+        final long bTime = lastBorrowTimeNanos;
 
-        if (rTime > bTime) {
+        if (rTime - bTime > 0) {
             return rTime - bTime;
         }
-        return System.currentTimeMillis() - bTime;
+        return clock.nanoTime() - bTime;
     }
 
     @Override
     public long getIdleTimeMillis() {
-        final long elapsed = System.currentTimeMillis() - lastReturnTimeMillis;
-        // elapsed may be negative if:
-        // - another thread updates lastReturnTime during the calculation window
-        // - System.currentTimeMillis() is not monotonic (e.g. system time is set back)
+        return TimeUnit.NANOSECONDS.toMillis(getIdleTimeNanos());
+    }
+
+    @Override
+    public long getIdleTimeNanos() {
+        final long elapsed = clock.nanoTime() - lastReturnTimeNanos;
+        // elapsed may be negative if another thread updates lastReturnTime
+        // during the calculation window
         return elapsed >= 0 ? elapsed : 0;
     }
 
     @Override
     public long getLastBorrowTime() {
-        return lastBorrowTimeMillis;
+        return toTimeMillis(lastBorrowTimeNanos);
     }
 
     @Override
     public long getLastReturnTime() {
-        return lastReturnTimeMillis;
+        return toTimeMillis(lastReturnTimeNanos);
     }
 
     /**
@@ -119,12 +205,33 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
      */
     @Override
     public long getLastUsedTime() {
+        final long lastUseTimeMillis = toTimeMillis(lastUseTimeNanos);
         if (object instanceof TrackedUse) {
             return Math.max(((TrackedUse) object).getLastUsed(), lastUseTimeMillis);
         }
         return lastUseTimeMillis;
     }
 
+    /**
+     * Returns the time since this object was last used, measured with this
+     * object's clock. If the class of the pooled object implements
+     * {@link TrackedUse}, the time since {@link TrackedUse#getLastUsed()} is
+     * taken into account using the wall clock.
+     *
+     * @return the time in nanoseconds since the last use
+     * @since 2.9.1
+     */
+    @Override
+    public long getUnusedTimeNanos() {
+        final long unused = Math.max(0, clock.nanoTime() - lastUseTimeNanos);
+        if (object instanceof TrackedUse) {
+            final long trackedUnused = TimeUnit.MILLISECONDS.toNanos(
+                    Math.max(0, System.currentTimeMillis() - ((TrackedUse) object).getLastUsed()));
+            return Math.min(unused, trackedUnused);
+        }
+        return unused;
+    }
+
     @Override
     public int compareTo(final PooledObject<T> other) {
         final long lastActiveDiff = this.getLastReturnTime() - other.getLastReturnTime();
@@ -145,37 +252,45 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
         result.append("Object: ");
         result.append(object.toString());
         result.append(", State: ");
-        synchronized (this) {
-            result.append(state.toString());
-        }
+        result.append(state.toString());
         return result.toString();
         // TODO add other attributes
     }
 
     @Override
-    public synchronized boolean startEvictionTest() {
-        if (state == PooledObjectState.IDLE) {
-            state = PooledObjectState.EVICTION;
-            return true;
-        }
+    public boolean startEvictionTest() {
+        stateLock.lock();
+        try {
+            if (state == PooledObjectState.IDLE) {
+                state = PooledObjectState.EVICTION;
+                return true;
+            }
 
-        return false;
+            return false;
+        } finally {
+            stateLock.unlock();
+        }
     }
 
     @Override
-    public synchronized boolean endEvictionTest(
+    public boolean endEvictionTest(
             final Deque<PooledObject<T>> idleQueue) {
-        if (state == PooledObjectState.EVICTION) {
-            state = PooledObjectState.IDLE;
-            return true;
-        } else if (state == PooledObjectState.EVICTION_RETURN_TO_HEAD) {
-            state = PooledObjectState.IDLE;
-            if (!idleQueue.offerFirst(this)) {
-                // TODO - Should never happen
+        stateLock.lock();
+        try {
+            if (state == PooledObjectState.EVICTION) {
+                state = PooledObjectState.IDLE;
+                return true;
+            } else if (state == PooledObjectState.EVICTION_RETURN_TO_HEAD) {
+                state = PooledObjectState.IDLE;
+                if (!idleQueue.offerFirst(this)) {
+                    // TODO - Should never happen
+                }
             }
-        }
 
-        return false;
+            return false;
+        } finally {
+            stateLock.unlock();
+        }
     }
 
     /**
@@ -184,23 +299,28 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
      * @return {@code true} if the original state was {@link PooledObjectState#IDLE IDLE}
      */
     @Override
-    public synchronized boolean allocate() {
-        if (state == PooledObjectState.IDLE) {
-            state = PooledObjectState.ALLOCATED;
-            lastBorrowTimeMillis = System.currentTimeMillis();
-            lastUseTimeMillis = lastBorrowTimeMillis;
-            borrowedCount++;
-            if (logAbandoned) {
-                borrowedBy.fillInStackTrace();
+    public boolean allocate() {
+        stateLock.lock();
+        try {
+            if (state == PooledObjectState.IDLE) {
+                state = PooledObjectState.ALLOCATED;
+                lastBorrowTimeNanos = clock.nanoTime();
+                lastUseTimeNanos = lastBorrowTimeNanos;
+                borrowedCount++;
+                if (logAbandoned) {
+                    borrowedBy.fillInStackTrace();
+                }
+                return true;
+            } else if (state == PooledObjectState.EVICTION) {
+                // TODO Allocate anyway and ignore eviction test
+                state = PooledObjectState.EVICTION_RETURN_TO_HEAD;
             }
-            return true;
-        } else if (state == PooledObjectState.EVICTION) {
-            // TODO Allocate anyway and ignore eviction test
-            state = PooledObjectState.EVICTION_RETURN_TO_HEAD;
+            // TODO if validating and testOnBorrow == true then pre-allocate for
+            // performance
+            return false;
+        } finally {
+            stateLock.unlock();
         }
-        // TODO if validating and testOnBorrow == true then pre-allocate for
-        // performance
-        return false;
     }
 
     /**
@@ -212,30 +332,49 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
      *         or {@link PooledObjectState#RETURNING RETURNING}.
      */
     @Override
-    public synchronized boolean deallocate() {
-        if (state == PooledObjectState.ALLOCATED ||
-                state == PooledObjectState.RETURNING) {
-            state = PooledObjectState.IDLE;
-            lastReturnTimeMillis = System.currentTimeMillis();
-            borrowedBy.clear();
-            return true;
-        }
+    public boolean deallocate() {
+        stateLock.lock();
+        try {
+            if (state == PooledObjectState.ALLOCATED ||
+                    state == PooledObjectState.RETURNING) {
+                state = PooledObjectState.IDLE;
+                lastReturnTimeNanos = clock.nanoTime();
+                borrowedBy.clear();
+                return true;
+            }
 
-        return false;
+            return false;
+        } finally {
+            stateLock.unlock();
+        }
     }
 
     /**
      * Sets the state to {@link PooledObjectState#INVALID INVALID}
      */
     @Override
-    public synchronized void invalidate() {
-        state = PooledObjectState.INVALID;
+    public void invalidate() {
+        stateLock.lock();
+        try {
+            state = PooledObjectState.INVALID;
+        } finally {
+            stateLock.unlock();
+        }
     }
 
+    /**
+     * Records the time of use and, unless the object has been borrowed for
+     * less than the threshold configured with
+     * {@link #setStackTraceLimits(int, int, long)}, the current stack trace.
+     */
     @Override
     public void use() {
-        lastUseTimeMillis = System.currentTimeMillis();
-        usedBy.fillInStackTrace();
+        final long nowNanos = clock.nanoTime();
+        lastUseTimeNanos = nowNanos;
+        final long thresholdNanos = useStackTraceThresholdNanos;
+        if (thresholdNanos <= 0 || nowNanos - lastBorrowTimeNanos >= thresholdNanos) {
+            usedBy.fillInStackTrace();
+        }
     }
 
     @Override
@@ -247,12 +386,21 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
         }
     }
 
+    @Override
+    public boolean printBorrowStackTrace(final PrintWriter writer) {
+        if (borrowedBy.printStackTrace(writer)) {
+            writer.flush();
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Returns the state of this object.
      * @return state
      */
     @Override
-    public synchronized PooledObjectState getState() {
+    public PooledObjectState getState() {
         return state;
     }
 
@@ -260,16 +408,39 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
      * Marks the pooled object as abandoned.
      */
     @Override
-    public synchronized void markAbandoned() {
-        state = PooledObjectState.ABANDONED;
+    public void markAbandoned() {
+        stateLock.lock();
+        try {
+            state = PooledObjectState.ABANDONED;
+        } finally {
+            stateLock.unlock();
+        }
     }
 
     /**
      * Marks the object as returning to the pool.
      */
     @Override
-    public synchronized void markReturning() {
-        state = PooledObjectState.RETURNING;
+    public void markReturning() {
+        stateLock.lock();
+        try {
+            state = PooledObjectState.RETURNING;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the lock held while the state of this object changes. Pools hold it
+     * to test and change the state in one step, and subclasses hold it to make
+     * their own actions atomic with state transitions. The lock is reentrant,
+     * so the state transition methods may be called while holding it.
+     *
+     * @return the state lock
+     * @since 2.9.1
+     */
+    protected Lock getStateLock() {
+        return stateLock;
     }
 
     @Override
@@ -289,11 +460,35 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
      */
     @Override
     public void setRequireFullStackTrace(final boolean requireFullStackTrace) {
+        this.requireFullStackTrace = requireFullStackTrace;
+        newCallStacks();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Call stacks already configured with
+     * {@link #setRequireFullStackTrace(boolean)} are replaced.
+     * </p>
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public void setStackTraceLimits(final int maxDepth, final int sampleInterval, final long useThresholdNanos) {
+        this.maxStackTraceDepth = maxDepth;
+        this.stackTraceSampleInterval = sampleInterval;
+        this.useStackTraceThresholdNanos = useThresholdNanos;
+        if (borrowedBy != NoOpCallStack.INSTANCE) {
+            newCallStacks();
+        }
+    }
+
+    private void newCallStacks() {
         borrowedBy = CallStackUtils.newCallStack("'Pooled object created' " +
             "yyyy-MM-dd HH:mm:ss Z 'by the following code has not been returned to the pool:'",
-            true, requireFullStackTrace);
+            true, requireFullStackTrace, maxStackTraceDepth, stackTraceSampleInterval);
         usedBy = CallStackUtils.newCallStack("The last code to use this object was:",
-            false, requireFullStackTrace);
+            false, requireFullStackTrace, maxStackTraceDepth, stackTraceSampleInterval);
     }
 
 }
@@ -19,12 +19,13 @@ package org.apache.commons.pool2.impl;
 import java.lang.ref.WeakReference;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.HashMap;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -36,6 +37,11 @@ import java.util.concurrent.TimeUnit;
  * leads and/or prevent applications from shutting down or reloading cleanly.
  * </p>
  * <p>
+ * The task bookkeeping is lock-free. Only starting and shutting down the
+ * executor are serialized, so pools starting and stopping their evictors do
+ * not contend with each other or with running evictors.
+ * </p>
+ * <p>
  * This class has package scope to prevent its inclusion in the pool public API. The class declaration below should
  * *not* be changed to public.
  * </p>
@@ -48,10 +54,13 @@ import java.util.concurrent.TimeUnit;
 class EvictionTimer {
 
     /** Executor instance */
-    private static ScheduledThreadPoolExecutor executor; //@GuardedBy("EvictionTimer.class")
+    private static volatile ScheduledThreadPoolExecutor executor; //@GuardedBy("lifecycleLock") for writes
 
     /** Keys are weak references to tasks, values are runners managed by executor. */
-    private static final HashMap<WeakReference<Runnable>, WeakRunner> taskMap = new HashMap<>(); // @GuardedBy("EvictionTimer.class")
+    private static final ConcurrentHashMap<WeakReference<Runnable>, WeakRunner> taskMap = new ConcurrentHashMap<>();
+
+    /** Serializes starting and shutting down the executor. */
+    private static final ReentrantLock lifecycleLock = new ReentrantLock();
 
     /** Prevents instantiation */
     private EvictionTimer() {
@@ -80,19 +89,38 @@ class EvictionTimer {
      * @param delay     Delay in milliseconds before task is executed.
      * @param period    Time in milliseconds between executions.
      */
-    static synchronized void schedule(
+    static void schedule(
             final BaseGenericObjectPool<?>.Evictor task, final long delay, final long period) {
-        if (null == executor) {
-            executor = new ScheduledThreadPoolExecutor(1, new EvictorThreadFactory());
-            executor.setRemoveOnCancelPolicy(true);
-            executor.scheduleAtFixedRate(new Reaper(), delay, period, TimeUnit.MILLISECONDS);
+        lifecycleLock.lock();
+        try {
+            if (null == executor) {
+                executor = newExecutor();
+                executor.scheduleAtFixedRate(new Reaper(), delay, period, TimeUnit.MILLISECONDS);
+            }
+            final WeakReference<Runnable> ref = new WeakReference<>(task);
+            final WeakRunner runner = new WeakRunner(ref);
+            // Registered before the first run so that the runner can remove itself
+            taskMap.put(ref, runner);
+            final ScheduledFuture<?> scheduledFuture =
+                    executor.scheduleWithFixedDelay(runner, delay, period, TimeUnit.MILLISECONDS);
+            task.setScheduledFuture(scheduledFuture);
+        } finally {
+            lifecycleLock.unlock();
         }
-        final WeakReference<Runnable> ref = new WeakReference<>(task);
-        final WeakRunner runner = new WeakRunner(ref);
-        final ScheduledFuture<?> scheduledFuture =
-                executor.scheduleWithFixedDelay(runner, delay, period, TimeUnit.MILLISECONDS);
-        task.setScheduledFuture(scheduledFuture);
-        taskMap.put(ref, runner);
+    }
+
+    /**
+     * Creates an executor with a single daemon thread for running evictors.
+     * Used for the shared timer as well as for pools configured with a
+     * dedicated evictor.
+     *
+     * @return a new executor that removes cancelled tasks
+     */
+    static ScheduledThreadPoolExecutor newExecutor() {
+        final ScheduledThreadPoolExecutor newExecutor =
+                new ScheduledThreadPoolExecutor(1, new EvictorThreadFactory());
+        newExecutor.setRemoveOnCancelPolicy(true);
+        return newExecutor;
     }
 
     /**
@@ -105,7 +133,7 @@ class EvictionTimer {
      * @param unit      The units for the specified timeout.
      * @param restarting The state of the evictor.
      */
-    static synchronized void cancel(
+    static void cancel(
             final BaseGenericObjectPool<?>.Evictor evictor, final long timeout, final TimeUnit unit,
             final boolean restarting) {
         if (evictor != null) {
@@ -113,38 +141,59 @@ class EvictionTimer {
             remove(evictor);
         }
         if (!restarting && executor != null && taskMap.isEmpty()) {
-            executor.shutdown();
+            lifecycleLock.lock();
             try {
-                executor.awaitTermination(timeout, unit);
-            } catch (final InterruptedException e) {
-                // Swallow
-                // Significant API changes would be required to propagate this
+                final ScheduledThreadPoolExecutor current = executor;
+                if (current != null && taskMap.isEmpty()) {
+                    current.shutdown();
+                    try {
+                        current.awaitTermination(timeout, unit);
+                    } catch (final InterruptedException e) {
+                        // Swallow
+                        // Significant API changes would be required to propagate this
+                    }
+                    current.setCorePoolSize(0);
+                    executor = null;
+                }
+            } finally {
+                lifecycleLock.unlock();
             }
-            executor.setCorePoolSize(0);
-            executor = null;
         }
     }
 
     /**
-     * Removes evictor from the task set and executor.
-     * Only called when holding the class lock.
+     * Removes evictor from the task set and executor. The task was cancelled,
+     * so removing it from the executor is only housekeeping.
      *
      * @param evictor Eviction task to remove
      */
     private static void remove(final BaseGenericObjectPool<?>.Evictor evictor) {
         for (final Entry<WeakReference<Runnable>, WeakRunner> entry : taskMap.entrySet()) {
             if (entry.getKey().get() == evictor) {
-                executor.remove(entry.getValue());
-                taskMap.remove(entry.getKey());
+                removeTask(entry.getKey(), entry.getValue());
                 break;
             }
         }
     }
 
+    /**
+     * Removes a task from the task set and executor.
+     *
+     * @param ref the weak reference to the task
+     * @param runner the runner of the task
+     */
+    private static void removeTask(final WeakReference<Runnable> ref, final WeakRunner runner) {
+        taskMap.remove(ref);
+        final ScheduledThreadPoolExecutor current = executor;
+        if (current != null) {
+            current.remove(runner);
+        }
+    }
+
     /**
      * @return the number of eviction tasks under management.
      */
-    static synchronized int getNumTasks() {
+    static int getNumTasks() {
         return taskMap.size();
     }
 
@@ -173,17 +222,22 @@ class EvictionTimer {
     private static class Reaper implements Runnable {
         @Override
         public void run() {
-            synchronized (EvictionTimer.class) {
-                for (final Entry<WeakReference<Runnable>, WeakRunner> entry : taskMap.entrySet()) {
-                    if (entry.getKey().get() == null) {
-                        executor.remove(entry.getValue());
-                        taskMap.remove(entry.getKey());
-                    }
+            for (final Entry<WeakReference<Runnable>, WeakRunner> entry : taskMap.entrySet()) {
+                if (entry.getKey().get() == null) {
+                    removeTask(entry.getKey(), entry.getValue());
                 }
-                if (taskMap.isEmpty() && executor != null) {
-                    executor.shutdown();
-                    executor.setCorePoolSize(0);
-                    executor = null;
+            }
+            if (taskMap.isEmpty()) {
+                lifecycleLock.lock();
+                try {
+                    final ScheduledThreadPoolExecutor current = executor;
+                    if (taskMap.isEmpty() && current != null) {
+                        current.shutdown();
+                        current.setCorePoolSize(0);
+                        executor = null;
+                    }
+                } finally {
+                    lifecycleLock.unlock();
                 }
             }
         }
@@ -212,8 +266,7 @@ class EvictionTimer {
             if (task != null) {
                 task.run();
             } else {
-                executor.remove(this);
-                taskMap.remove(ref);
+                removeTask(ref, this);
             }
         }
     }
@@ -16,7 +16,11 @@
  */
 package org.apache.commons.pool2.impl;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -24,18 +28,26 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
-import java.util.TreeMap;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.commons.pool2.AsyncKeyedObjectPool;
 import org.apache.commons.pool2.DestroyMode;
 import org.apache.commons.pool2.KeyedObjectPool;
 import org.apache.commons.pool2.KeyedPooledObjectFactory;
+import org.apache.commons.pool2.PoolListener.DestroyCause;
 import org.apache.commons.pool2.PoolUtils;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectState;
@@ -84,7 +96,7 @@ import org.apache.commons.pool2.SwallowedExceptionListener;
  * @since 2.0
  */
 public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
-        implements KeyedObjectPool<K, T>, GenericKeyedObjectPoolMXBean<K> {
+        implements AsyncKeyedObjectPool<K, T>, GenericKeyedObjectPoolMXBean<K> {
 
     /**
      * Create a new {@code GenericKeyedObjectPool} using defaults from
@@ -157,6 +169,9 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
      * number of idle objects to rise above maxIdlePerKey. The best value for
      * maxIdlePerKey for heavily loaded system will vary but the default is a
      * good starting point.
+     * Setting {@link #setMaxIdleGracePeriodMillis(long) maxIdleGracePeriodMillis}
+     * avoids this churn by keeping the excess objects until the evictor finds
+     * they have been idle for the grace period.
      *
      * @return the maximum number of "idle" instances that can be held in a
      *         given keyed sub-pool or a negative value if there is no limit
@@ -235,6 +250,32 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         return minIdlePerKey;
     }
 
+    /**
+     * Gets the maximum number of idle objects the pool keeps per key, which
+     * differs from {@link #getMaxIdlePerKey()} when the pool has an adaptive
+     * idle configuration.
+     *
+     * @return the maximum in effect, negative for no limit
+     *
+     * @see #setAdaptiveIdleConfig(AdaptiveIdleConfig)
+     */
+    int getEffectiveMaxIdlePerKey() {
+        return getAdaptiveMaxIdle(getMaxIdlePerKey(), getMinIdlePerKey());
+    }
+
+    /**
+     * Gets the minimum number of idle objects the evictor maintains per key,
+     * which differs from {@link #getMinIdlePerKey()} when the pool has an
+     * adaptive idle configuration.
+     *
+     * @return the minimum in effect
+     *
+     * @see #setAdaptiveIdleConfig(AdaptiveIdleConfig)
+     */
+    int getEffectiveMinIdlePerKey() {
+        return getAdaptiveMinIdle(getMaxIdlePerKey(), getMinIdlePerKey());
+    }
+
     /**
      * Sets the configuration.
      *
@@ -337,7 +378,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         final boolean blockWhenExhausted = getBlockWhenExhausted();
 
         boolean create;
-        final long waitTimeMillis = System.currentTimeMillis();
+        final long waitTimeNanos = getClock().nanoTime();
         final ObjectDeque<T> objectDeque = register(key);
 
         try {
@@ -345,6 +386,12 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
                 create = false;
                 p = objectDeque.getIdleObjects().pollFirst();
                 if (p == null) {
+                    if (blockWhenExhausted && isAsyncCreate()) {
+                        // Wait as an asynchronous borrower, which is handed the
+                        // object created on its behalf or the failure to create it
+                        return awaitBorrow(borrowAsync(key, waitTimeNanos,
+                                remainingWaitNanos(borrowMaxWaitMillis, waitTimeNanos), true));
+                    }
                     p = create(key);
                     if (p != null) {
                         create = true;
@@ -352,11 +399,16 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
                 }
                 if (blockWhenExhausted) {
                     if (p == null) {
-                        if (borrowMaxWaitMillis < 0) {
-                            p = objectDeque.getIdleObjects().takeFirst();
-                        } else {
-                            p = objectDeque.getIdleObjects().pollFirst(
-                                    borrowMaxWaitMillis, TimeUnit.MILLISECONDS);
+                        startWaiting(key, objectDeque);
+                        try {
+                            if (borrowMaxWaitMillis < 0) {
+                                p = objectDeque.getIdleObjects().takeFirst();
+                            } else {
+                                p = objectDeque.getIdleObjects().pollFirst(
+                                        borrowMaxWaitMillis, TimeUnit.MILLISECONDS);
+                            }
+                        } finally {
+                            stopWaiting(key, objectDeque);
                         }
                     }
                     if (p == null) {
@@ -368,63 +420,444 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
                         throw new NoSuchElementException("Pool exhausted");
                     }
                 }
-                if (!p.allocate()) {
+                if (!p.allocate() || !activateAndValidate(key, p, create)) {
                     p = null;
                 }
+            }
+        } finally {
+            deregister(key);
+        }
 
-                if (p != null) {
-                    try {
-                        factory.activateObject(key, p);
-                    } catch (final Exception e) {
-                        try {
-                            destroy(key, p, true, DestroyMode.NORMAL);
-                        } catch (final Exception e1) {
-                            // Ignore - activation failure is more important
-                        }
-                        p = null;
-                        if (create) {
-                            final NoSuchElementException nsee = new NoSuchElementException(
-                                    "Unable to activate object");
-                            nsee.initCause(e);
-                            throw nsee;
+        updateStatsBorrow(key, p, getClock().nanoTime() - waitTimeNanos);
+
+        return p.getObject();
+    }
+
+
+    /**
+     * Equivalent to <code>{@link #borrowObjectAsync(Object, Duration)
+     * borrowObjectAsync}(key, {@link #getMaxWaitMillis()})</code>.
+     * <p>
+     * {@inheritDoc}
+     * </p>
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public CompletableFuture<T> borrowObjectAsync(final K key) {
+        return borrowObjectAsync(key, Duration.ofMillis(getMaxWaitMillis()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The borrower is queued behind earlier asynchronous borrowers for the
+     * same key and is served from the idle objects of the sub-pool in arrival
+     * order. If there are no idle objects, an object is created in the
+     * background, subject to {@link #getMaxTotalPerKey() maxTotalPerKey} and
+     * {@link #getMaxTotal() maxTotal}. If {@link #getBlockWhenExhausted()} is
+     * false, the future fails as soon as the sub-pool turns out to be
+     * exhausted.
+     * </p>
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public CompletableFuture<T> borrowObjectAsync(final K key, final Duration maxWait) {
+        if (isClosed()) {
+            final CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Pool not open"));
+            return future;
+        }
+
+        final boolean blockWhenExhausted = getBlockWhenExhausted();
+        return borrowAsync(key, getClock().nanoTime(), blockWhenExhausted ? toWaitNanos(maxWait) : -1,
+                blockWhenExhausted);
+    }
+
+    /**
+     * Adds an asynchronous borrower for the given key, serves it if an object
+     * is idle and otherwise creates an object on its behalf.
+     *
+     * @param key pool key
+     * @param startNanos the time the borrower started waiting
+     * @param timeoutNanos the time after which the borrower fails with a
+     *        {@link NoSuchElementException}, negative to wait indefinitely
+     * @param blockWhenExhausted whether the borrower waits if the sub-pool is
+     *        at capacity, rather than failing
+     * @return the future of the borrower
+     */
+    private CompletableFuture<T> borrowAsync(final K key, final long startNanos, final long timeoutNanos,
+            final boolean blockWhenExhausted) {
+        // The key stays registered for as long as the borrower waits
+        final ObjectDeque<T> objectDeque = register(key);
+        startWaiting(key, objectDeque);
+        final AsyncBorrowWaiters.Waiter<T> waiter = objectDeque.getAsyncWaiters().add(startNanos, timeoutNanos);
+        waiter.getFuture().whenComplete((obj, e) -> {
+            stopWaiting(key, objectDeque);
+            deregister(key);
+        });
+        if (isClosed()) {
+            // Pool closed while the waiter was being added
+            objectDeque.getAsyncWaiters().failAll(new IllegalStateException("Pool not open"));
+        }
+        dispatchAsyncWaiters(key, objectDeque);
+        if (!waiter.getFuture().isDone()) {
+            createForAsyncWaiter(key, waiter, blockWhenExhausted);
+        }
+        return waiter.getFuture();
+    }
+
+    /**
+     * Hands idle objects of a sub-pool to its asynchronous borrowers, oldest
+     * first, until either runs out.
+     *
+     * @param key pool key
+     * @param objectDeque the sub-pool
+     */
+    private void dispatchAsyncWaiters(final K key, final ObjectDeque<T> objectDeque) {
+        final AsyncBorrowWaiters<T> asyncWaiters = objectDeque.getAsyncWaiters();
+        final BlockingIdleDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+        AsyncBorrowWaiters.Waiter<T> destroyedFor = null;
+        while (!asyncWaiters.isEmpty()) {
+            final PooledObject<T> p = idleObjects.pollFirst();
+            if (p == null) {
+                break;
+            }
+            final AsyncBorrowWaiters.Waiter<T> waiter = asyncWaiters.poll();
+            if (waiter == null) {
+                // Waiters completed concurrently, re-check once the object is back
+                idleObjects.addFirst(p);
+                continue;
+            }
+            if (!p.allocate()) {
+                // Under eviction test, the evictor puts it back
+                asyncWaiters.addFirst(waiter);
+                continue;
+            }
+            if (!activateAndValidate(key, p, false)) {
+                destroyedFor = waiter;
+                asyncWaiters.addFirst(waiter);
+                continue;
+            }
+            // Accounted before the borrower can see, and return, the object, so a
+            // borrower giving up meanwhile still counts as a borrow
+            updateStatsBorrow(key, p, getClock().nanoTime() - waiter.getStartNanos());
+            if (!waiter.getFuture().complete(p.getObject())) {
+                // Timed out or cancelled meanwhile
+                releaseBatch(key, objectDeque, Collections.singletonList(p));
+            }
+        }
+        if (destroyedFor != null && !destroyedFor.getFuture().isDone()) {
+            createForAsyncWaiter(key, destroyedFor, true);
+        }
+    }
+
+    /**
+     * Creates an object on the {@link #getCreateExecutor() create executor}
+     * for asynchronous borrowers and adds it to the idle objects of the
+     * sub-pool, from where it is dispatched.
+     *
+     * @param key pool key
+     * @param waiter the borrower on whose behalf the object is created
+     * @param blockWhenExhausted whether the borrower waits if the sub-pool is
+     *        at capacity, rather than failing
+     */
+    private void createForAsyncWaiter(final K key, final AsyncBorrowWaiters.Waiter<T> waiter,
+            final boolean blockWhenExhausted) {
+        if (isAsyncCreate()) {
+            if (blockWhenExhausted) {
+                requestAsyncCreate(key, waiter);
+            } else if (!startAsyncCreate(key, waiter)) {
+                waiter.getFuture().completeExceptionally(new NoSuchElementException("Pool exhausted"));
+            }
+            return;
+        }
+        try {
+            getCreateExecutor().execute(() -> {
+                if (waiter.getFuture().isDone()) {
+                    return;
+                }
+                final ObjectDeque<T> objectDeque = register(key);
+                try {
+                    final PooledObject<T> p = create(key);
+                    if (p != null) {
+                        addIdleObject(key, p);
+                        if (isClosed()) {
+                            clear(key);
                         }
+                    } else if (!blockWhenExhausted) {
+                        waiter.getFuture().completeExceptionally(new NoSuchElementException("Pool exhausted"));
                     }
-                    if (p != null && getTestOnBorrow()) {
-                        boolean validate = false;
-                        Throwable validationThrowable = null;
-                        try {
-                            validate = factory.validateObject(key, p);
-                        } catch (final Throwable t) {
-                            PoolUtils.checkRethrow(t);
-                            validationThrowable = t;
+                } catch (final Exception e) {
+                    waiter.getFuture().completeExceptionally(e);
+                } finally {
+                    deregister(key);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // Closed meanwhile, or the configured executor is saturated
+            waiter.getFuture().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Activates and, if {@link #getTestOnBorrow() testOnBorrow} is set,
+     * validates an allocated object. The object is destroyed if either fails.
+     *
+     * @param key pool key
+     * @param p the allocated object
+     * @param create whether the object has just been created
+     * @return {@code true} if the object is ready to be handed out,
+     *         {@code false} if it has been destroyed
+     * @throws NoSuchElementException if a newly created object fails
+     *         activation or validation
+     */
+    private boolean activateAndValidate(final K key, final PooledObject<T> p, final boolean create) {
+        try {
+            factory.activateObject(key, p);
+        } catch (final Exception e) {
+            try {
+                destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+            } catch (final Exception e1) {
+                // Ignore - activation failure is more important
+            }
+            if (create) {
+                final NoSuchElementException nsee = new NoSuchElementException(
+                        "Unable to activate object");
+                nsee.initCause(e);
+                throw nsee;
+            }
+            return false;
+        }
+        if (getTestOnBorrow()) {
+            boolean validate = false;
+            Throwable validationThrowable = null;
+            try {
+                validate = factory.validateObject(key, p);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                validationThrowable = t;
+            }
+            if (!validate) {
+                fireValidationFailure(key, p);
+                try {
+                    destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.VALIDATION_FAILED);
+                    destroyedByBorrowValidationCount.incrementAndGet();
+                } catch (final Exception e) {
+                    // Ignore - validation failure is more important
+                }
+                if (create) {
+                    final NoSuchElementException nsee = new NoSuchElementException(
+                            "Unable to validate object");
+                    nsee.initCause(validationThrowable);
+                    throw nsee;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The idle objects under the given key are taken from the pool in one
+     * operation and, if they do not suffice, the shortfall is created in
+     * parallel up to {@link #getMaxTotalPerKey() maxTotalPerKey}. The objects
+     * are then activated and validated as by
+     * {@link #borrowObject(Object, long)}. If the sub-pool is exhausted and
+     * {@link #getBlockWhenExhausted()} is true, this method waits for objects
+     * to be returned, at most for {@code maxWait}.
+     * </p>
+     * <p>
+     * Batch borrows in all-or-nothing mode are served one at a time, across
+     * all keys, and hold on to the objects they have obtained while they wait
+     * for the remainder, so that concurrent batches cannot deadlock by each
+     * holding part of the pool. If the batch cannot be completed, the objects
+     * obtained so far are returned to the pool before the exception is
+     * thrown.
+     * </p>
+     *
+     * @throws IllegalArgumentException if {@code count} is negative or, in
+     *         all-or-nothing mode, greater than {@link #getMaxTotalPerKey()
+     *         maxTotalPerKey} or {@link #getMaxTotal() maxTotal}
+     * @since 2.9.1
+     */
+    @Override
+    public List<T> borrowObjects(final K key, final int count, final Duration maxWait,
+            final boolean allOrNothing) throws Exception {
+        assertOpen();
+        final int maxTotalPerKeySave = getMaxTotalPerKey();
+        final int maxTotalSave = getMaxTotal();
+        if (count < 0 || allOrNothing &&
+                (maxTotalPerKeySave > -1 && count > maxTotalPerKeySave ||
+                 maxTotalSave > -1 && count > maxTotalSave)) {
+            throw new IllegalArgumentException("Cannot borrow a batch of " + count +
+                    " objects from a pool with maxTotalPerKey " + maxTotalPerKeySave +
+                    " and maxTotal " + maxTotalSave);
+        }
+        if (count == 0) {
+            return new ArrayList<>(0);
+        }
+
+        // Get local copy of current config so it is consistent for entire
+        // method execution
+        final boolean blockWhenExhausted = getBlockWhenExhausted();
+        final long maxWaitNanos = blockWhenExhausted ? toWaitNanos(maxWait) : 0;
+        final long waitTimeNanos = getClock().nanoTime();
+
+        final List<PooledObject<T>> batch = new ArrayList<>(count);
+        if (allOrNothing && !awaitBatchLock(maxWaitNanos)) {
+            throw new NoSuchElementException("Timeout waiting for idle object");
+        }
+        final ObjectDeque<T> objectDeque = register(key);
+        try {
+            final BlockingIdleDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+            while (batch.size() < count) {
+                final int shortfall = count - batch.size();
+                final List<PooledObject<T>> idle = new ArrayList<>(shortfall);
+                final List<PooledObject<T>> created = new ArrayList<>(shortfall);
+                idleObjects.drainTo(idle, shortfall);
+                Exception failure = null;
+                try {
+                    final long capacity = maxTotalPerKeySave < 0 ? Integer.MAX_VALUE :
+                            Math.max(0, maxTotalPerKeySave - objectDeque.getCreateCount().get());
+                    createBatch((int) Math.min(shortfall - idle.size(), capacity),
+                            () -> create(key), created);
+                } catch (final Exception e) {
+                    failure = e;
+                }
+                if (failure == null && idle.isEmpty() && created.isEmpty()) {
+                    if (!allOrNothing && !batch.isEmpty()) {
+                        break;
+                    }
+                    idle.add(waitForIdleObject(idleObjects, blockWhenExhausted, maxWaitNanos,
+                            waitTimeNanos));
+                }
+                // Every object taken must end up in the batch or be destroyed
+                for (final PooledObject<T> p : idle) {
+                    if (p.allocate() && activateAndValidate(key, p, false)) {
+                        batch.add(p);
+                    }
+                }
+                for (final PooledObject<T> p : created) {
+                    try {
+                        if (p.allocate() && activateAndValidate(key, p, true)) {
+                            batch.add(p);
                         }
-                        if (!validate) {
-                            try {
-                                destroy(key, p, true, DestroyMode.NORMAL);
-                                destroyedByBorrowValidationCount.incrementAndGet();
-                            } catch (final Exception e) {
-                                // Ignore - validation failure is more important
-                            }
-                            p = null;
-                            if (create) {
-                                final NoSuchElementException nsee = new NoSuchElementException(
-                                        "Unable to validate object");
-                                nsee.initCause(validationThrowable);
-                                throw nsee;
-                            }
+                    } catch (final NoSuchElementException e) {
+                        if (failure == null) {
+                            failure = e;
                         }
                     }
                 }
+                if (failure != null) {
+                    throw failure;
+                }
             }
+        } catch (final Exception e) {
+            releaseBatch(key, objectDeque, batch);
+            throw e;
         } finally {
             deregister(key);
+            if (allOrNothing) {
+                batchLock.unlock();
+            }
         }
 
-        updateStatsBorrow(p, System.currentTimeMillis() - waitTimeMillis);
+        updateStatsBorrow(key, batch, getClock().nanoTime() - waitTimeNanos);
 
-        return p.getObject();
+        final List<T> objs = new ArrayList<>(batch.size());
+        for (final PooledObject<T> p : batch) {
+            objs.add(p.getObject());
+        }
+        return objs;
     }
 
+    /**
+     * Acquires the lock that serializes all-or-nothing batch borrows.
+     *
+     * @param maxWaitNanos the maximum time to wait, negative to wait
+     *        indefinitely
+     * @return {@code true} if the lock was acquired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private boolean awaitBatchLock(final long maxWaitNanos) throws InterruptedException {
+        if (maxWaitNanos < 0) {
+            batchLock.lockInterruptibly();
+            return true;
+        }
+        return batchLock.tryLock(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits for an object to be returned to a sub-pool for a batch borrow.
+     *
+     * @param idleObjects the idle objects of the sub-pool
+     * @param blockWhenExhausted the value of {@link #getBlockWhenExhausted()}
+     * @param maxWaitNanos the maximum wait time of the batch, negative to wait
+     *        indefinitely
+     * @param startNanos the time the batch borrow started
+     * @return an idle object
+     * @throws NoSuchElementException if no object became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private PooledObject<T> waitForIdleObject(final BlockingIdleDeque<PooledObject<T>> idleObjects,
+            final boolean blockWhenExhausted, final long maxWaitNanos, final long startNanos)
+            throws InterruptedException {
+        if (!blockWhenExhausted) {
+            throw new NoSuchElementException("Pool exhausted");
+        }
+        final PooledObject<T> p;
+        if (maxWaitNanos < 0) {
+            p = idleObjects.takeFirst();
+        } else {
+            p = idleObjects.pollFirst(
+                    Math.max(0, maxWaitNanos - (getClock().nanoTime() - startNanos)),
+                    TimeUnit.NANOSECONDS);
+        }
+        if (p == null) {
+            throw new NoSuchElementException("Timeout waiting for idle object");
+        }
+        return p;
+    }
+
+    /**
+     * Puts the objects of a batch borrow that could not be completed back
+     * into the sub-pool, without updating the borrow and return statistics.
+     *
+     * @param key pool key
+     * @param objectDeque the sub-pool
+     * @param batch the allocated and activated objects
+     */
+    private void releaseBatch(final K key, final ObjectDeque<T> objectDeque,
+            final List<PooledObject<T>> batch) {
+        for (final PooledObject<T> p : batch) {
+            try {
+                factory.passivateObject(key, p);
+            } catch (final Exception e) {
+                swallowException(e);
+                try {
+                    destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+                } catch (final Exception e1) {
+                    swallowException(e1);
+                }
+                continue;
+            }
+            p.deallocate();
+            if (getLifo()) {
+                objectDeque.getIdleObjects().addFirst(p);
+            } else {
+                objectDeque.getIdleObjects().addLast(p);
+            }
+            idleAgeIndex.add(key, p);
+        }
+        if (isClosed()) {
+            clear(key);
+        }
+        dispatchAsyncWaiters(key, objectDeque);
+    }
 
     /**
      * Returns an object to a keyed sub-pool.
@@ -458,7 +891,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
                     "No keyed pool found under the given key.");
         }
 
-        final PooledObject<T> p = objectDeque.getAllObjects().get(new IdentityWrapper<>(obj));
+        final PooledObject<T> p = IdentityWrapper.get(objectDeque.getAllObjects(), obj);
 
         if (p == null) {
             throw new IllegalStateException(
@@ -467,16 +900,17 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
         markReturningState(p);
 
-        final long activeTime = p.getActiveTimeMillis();
+        final long activeTimeNanos = p.getActiveTimeNanos();
 
         try {
             if (getTestOnReturn() && !factory.validateObject(key, p)) {
+                fireValidationFailure(key, p);
                 try {
-                    destroy(key, p, true, DestroyMode.NORMAL);
+                    destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.VALIDATION_FAILED);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
-                whenWaitersAddObject(key, objectDeque.idleObjects);
+                whenWaitersAddObject(key, objectDeque);
                 return;
             }
 
@@ -485,11 +919,11 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
             } catch (final Exception e1) {
                 swallowException(e1);
                 try {
-                    destroy(key, p, true, DestroyMode.NORMAL);
+                    destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
-                whenWaitersAddObject(key, objectDeque.idleObjects);
+                whenWaitersAddObject(key, objectDeque);
                 return;
             }
 
@@ -498,44 +932,182 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
                         "Object has already been returned to this pool");
             }
 
-            final int maxIdle = getMaxIdlePerKey();
-            final LinkedBlockingDeque<PooledObject<T>> idleObjects =
+            final int maxIdle = getEffectiveMaxIdlePerKey();
+            final BlockingIdleDeque<PooledObject<T>> idleObjects =
                     objectDeque.getIdleObjects();
+            final boolean overMaxIdle = maxIdle > -1 && maxIdle <= idleObjects.size();
+            if (overMaxIdle) {
+                returnedOverMaxIdleCount.incrementAndGet();
+            }
 
-            if (isClosed() || maxIdle > -1 && maxIdle <= idleObjects.size()) {
+            if (isClosed() || overMaxIdle && !isMaxIdleGracePeriod()) {
                 try {
-                    destroy(key, p, true, DestroyMode.NORMAL);
+                    destroy(key, p, true, DestroyMode.NORMAL,
+                            isClosed() ? DestroyCause.CLEARED : DestroyCause.MAX_IDLE);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
+                if (overMaxIdle && !isClosed()) {
+                    destroyedByMaxIdleCount.incrementAndGet();
+                }
             } else {
+                if (overMaxIdle) {
+                    overIdleKeys.put(key, objectDeque);
+                }
                 if (getLifo()) {
                     idleObjects.addFirst(p);
                 } else {
                     idleObjects.addLast(p);
                 }
+                idleAgeIndex.add(key, p);
                 if (isClosed()) {
                     // Pool closed while object was being added to idle objects.
                     // Make sure the returned object is destroyed rather than left
                     // in the idle object pool (which would effectively be a leak)
                     clear(key);
                 }
+                dispatchAsyncWaiters(key, objectDeque);
             }
         } finally {
             if (hasBorrowWaiters()) {
                 reuseCapacity();
             }
-            updateStatsReturn(activeTime);
+            updateStatsReturn(key, p, activeTimeNanos);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each object is validated and passivated as by
+     * {@link #returnObject(Object, Object)}, then the objects that are kept
+     * are added to the idle objects of the sub-pool in one operation, honoring
+     * {@link #getMaxIdlePerKey() maxIdlePerKey}.
+     * </p>
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public void returnObjects(final K key, final Collection<T> objs) {
+
+        final ObjectDeque<T> objectDeque = poolMap.get(key);
+
+        if (objectDeque == null) {
+            throw new IllegalStateException(
+                    "No keyed pool found under the given key.");
+        }
+
+        final List<PooledObject<T>> pooled = new ArrayList<>(objs.size());
+        for (final T obj : objs) {
+            final PooledObject<T> p = IdentityWrapper.get(objectDeque.getAllObjects(), obj);
+            if (p == null) {
+                throw new IllegalStateException(
+                        "Returned object not currently part of this pool");
+            }
+            pooled.add(p);
+        }
+
+        final long[] activeTimesNanos = new long[pooled.size()];
+        final List<PooledObject<T>> toIdle = new ArrayList<>(pooled.size());
+        final BlockingIdleDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+        int returned = 0;
+        IllegalStateException failure = null;
+        try {
+            for (final PooledObject<T> p : pooled) {
+                try {
+                    markReturningState(p);
+                } catch (final IllegalStateException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    continue;
+                }
+                activeTimesNanos[returned] = p.getActiveTimeNanos();
+                fireReturn(key, p, activeTimesNanos[returned++]);
+                DestroyCause cause = null;
+                try {
+                    if (getTestOnReturn() && !factory.validateObject(key, p)) {
+                        fireValidationFailure(key, p);
+                        cause = DestroyCause.VALIDATION_FAILED;
+                    } else {
+                        factory.passivateObject(key, p);
+                    }
+                } catch (final Exception e) {
+                    swallowException(e);
+                    cause = DestroyCause.FACTORY_FAILURE;
+                }
+                if (cause != null) {
+                    try {
+                        destroy(key, p, true, DestroyMode.NORMAL, cause);
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
+                    whenWaitersAddObject(key, objectDeque);
+                } else if (!p.deallocate()) {
+                    if (failure == null) {
+                        failure = new IllegalStateException(
+                                "Object has already been returned to this pool");
+                    }
+                } else {
+                    toIdle.add(p);
+                }
+            }
+
+            final int maxIdle = getEffectiveMaxIdlePerKey();
+            final int idleRoom = maxIdle < 0 ? toIdle.size() :
+                    Math.max(0, Math.min(toIdle.size(), maxIdle - idleObjects.size()));
+            returnedOverMaxIdleCount.addAndGet(toIdle.size() - idleRoom);
+            final int room = isClosed() ? 0 : isMaxIdleGracePeriod() ? toIdle.size() : idleRoom;
+            for (final PooledObject<T> p : toIdle.subList(room, toIdle.size())) {
+                try {
+                    destroy(key, p, true, DestroyMode.NORMAL,
+                            isClosed() ? DestroyCause.CLEARED : DestroyCause.MAX_IDLE);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+            }
+            if (!isClosed()) {
+                destroyedByMaxIdleCount.addAndGet(toIdle.size() - room);
+            }
+            if (room > idleRoom) {
+                overIdleKeys.put(key, objectDeque);
+            }
+            if (room > 0) {
+                if (getLifo()) {
+                    idleObjects.addAllFirst(toIdle.subList(0, room));
+                } else {
+                    idleObjects.addAllLast(toIdle.subList(0, room));
+                }
+                for (final PooledObject<T> p : toIdle.subList(0, room)) {
+                    idleAgeIndex.add(key, p);
+                }
+                if (isClosed()) {
+                    // Pool closed while objects were being added to idle objects.
+                    // Make sure the returned objects are destroyed rather than
+                    // left in the idle object pool (which would effectively be a leak)
+                    clear(key);
+                }
+                dispatchAsyncWaiters(key, objectDeque);
+            }
+        } finally {
+            if (hasBorrowWaiters()) {
+                reuseCapacity();
+            }
+            updateStatsReturn(returned == activeTimesNanos.length ? activeTimesNanos :
+                    Arrays.copyOf(activeTimesNanos, returned));
+        }
+        if (failure != null) {
+            throw failure;
         }
     }
 
     /**
      * Whether there is at least one thread waiting on this deque, add an pool object.
      * @param key pool key.
-     * @param idleObjects list of idle pool objects.
+     * @param objectDeque the sub-pool.
      */
-    private void whenWaitersAddObject(final K key, final LinkedBlockingDeque<PooledObject<T>> idleObjects) {
-        if (idleObjects.hasTakeWaiters()) {
+    private void whenWaitersAddObject(final K key, final ObjectDeque<T> objectDeque) {
+        if (objectDeque.getIdleObjects().hasTakeWaiters() || !objectDeque.getAsyncWaiters().isEmpty()) {
             try {
                 addObject(key);
             } catch (final Exception e) {
@@ -584,15 +1156,20 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
         final ObjectDeque<T> objectDeque = poolMap.get(key);
 
-        final PooledObject<T> p = objectDeque.getAllObjects().get(new IdentityWrapper<>(obj));
+        final PooledObject<T> p = IdentityWrapper.get(objectDeque.getAllObjects(), obj);
         if (p == null) {
             throw new IllegalStateException(
                     "Object not currently part of this pool");
         }
-        synchronized (p) {
-            if (p.getState() != PooledObjectState.INVALID) {
-                destroy(key, p, true, mode);
+        final boolean invalidated = withStateLock(p, () -> {
+            if (p.getState() == PooledObjectState.INVALID) {
+                return false;
             }
+            p.invalidate();
+            return true;
+        });
+        if (invalidated) {
+            destroy(key, p, true, mode, DestroyCause.INVALIDATED);
         }
         if (objectDeque.idleObjects.hasTakeWaiters()) {
             addObject(key);
@@ -642,14 +1219,14 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         final ObjectDeque<T> objectDeque = register(key);
 
         try {
-            final LinkedBlockingDeque<PooledObject<T>> idleObjects =
+            final BlockingIdleDeque<PooledObject<T>> idleObjects =
                     objectDeque.getIdleObjects();
 
             PooledObject<T> p = idleObjects.poll();
 
             while (p != null) {
                 try {
-                    destroy(key, p, true, DestroyMode.NORMAL);
+                    destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.CLEARED);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
@@ -669,14 +1246,8 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
     @Override
     public int getNumIdle() {
-        final Iterator<ObjectDeque<T>> iter = poolMap.values().iterator();
-        int result = 0;
-
-        while (iter.hasNext()) {
-            result += iter.next().getIdleObjects().size();
-        }
-
-        return result;
+        // The sum may briefly miss an addition while seeing the removal
+        return (int) Math.max(0, numIdle.sum());
     }
 
 
@@ -713,7 +1284,8 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
             return;
         }
 
-        synchronized (closeLock) {
+        closeLock.lock();
+        try {
             if (isClosed()) {
                 return;
             }
@@ -731,58 +1303,39 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
             // Release any threads that were waiting for an object
             final Iterator<ObjectDeque<T>> iter = poolMap.values().iterator();
             while (iter.hasNext()) {
-                iter.next().getIdleObjects().interuptTakeWaiters();
+                final ObjectDeque<T> objectDeque = iter.next();
+                objectDeque.getIdleObjects().interuptTakeWaiters();
+                objectDeque.getAsyncWaiters().failAll(new IllegalStateException("Pool not open"));
             }
             // This clear cleans up the keys now any waiting threads have been
             // interrupted
             clear();
+            shutdownCreateExecutor();
+            shutdownEvictionValidationExecutor();
+        } finally {
+            closeLock.unlock();
         }
     }
 
 
     /**
-     * Clears oldest 15% of objects in pool.  The method sorts the objects into
-     * a TreeMap and then iterates the first 15% for removal.
+     * Clears oldest 15% of objects in pool.  The method takes the objects that
+     * have been idle the longest, across all keys, from an index of the idle
+     * objects kept in the order they were returned to the pool.
      */
     public void clearOldest() {
-
-        // build sorted map of idle objects
-        final Map<PooledObject<T>, K> map = new TreeMap<>();
-
-        for (final Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
-            final K k = entry.getKey();
-            final ObjectDeque<T> deque = entry.getValue();
-            // Protect against possible NPE if key has been removed in another
-            // thread. Not worth locking the keys while this loop completes.
-            if (deque != null) {
-                final LinkedBlockingDeque<PooledObject<T>> idleObjects =
-                        deque.getIdleObjects();
-                for (final PooledObject<T> p : idleObjects) {
-                    // each item into the map using the PooledObject object as the
-                    // key. It then gets sorted based on the idle time
-                    map.put(p, k);
-                }
+        // Kill the oldest 15% of the idle objects plus one to account for zero
+        int itemsToRemove = ((int) (getNumIdle() * 0.15)) + 1;
+        while (itemsToRemove > 0) {
+            final IdleAgeIndex.Entry<K, T> entry = idleAgeIndex.pollOldest();
+            if (entry == null) {
+                return;
             }
-        }
-
-        // Now iterate created map and kill the first 15% plus one to account
-        // for zero
-        int itemsToRemove = ((int) (map.size() * 0.15)) + 1;
-        final Iterator<Map.Entry<PooledObject<T>, K>> iter =
-                map.entrySet().iterator();
-
-        while (iter.hasNext() && itemsToRemove > 0) {
-            final Map.Entry<PooledObject<T>, K> entry = iter.next();
-            // kind of backwards on naming.  In the map, each key is the
-            // PooledObject because it has the ordering with the timestamp
-            // value.  Each value that the key references is the key of the
-            // list it belongs to.
-            final K key = entry.getValue();
-            final PooledObject<T> p = entry.getKey();
             // Assume the destruction succeeds
             boolean destroyed = true;
             try {
-                destroyed = destroy(key, p, false, DestroyMode.NORMAL);
+                destroyed = destroy(entry.getKey(), entry.getPooledObject(), false, DestroyMode.NORMAL,
+                        DestroyCause.CLEARED);
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -810,19 +1363,20 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
         // Find the most loaded pool that could take a new instance
         int maxQueueLength = 0;
-        LinkedBlockingDeque<PooledObject<T>> mostLoaded = null;
+        ObjectDeque<T> mostLoaded = null;
         K loadedKey = null;
-        for (final Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
+        for (final Map.Entry<K, ObjectDeque<T>> entry : starvedKeys.entrySet()) {
             final K k = entry.getKey();
             final ObjectDeque<T> deque = entry.getValue();
-            if (deque != null) {
-                final LinkedBlockingDeque<PooledObject<T>> pool = deque.getIdleObjects();
-                final int queueLength = pool.getTakeQueueLength();
-                if (getNumActive(k) < maxTotalPerKeySave && queueLength > maxQueueLength) {
-                    maxQueueLength = queueLength;
-                    mostLoaded = pool;
-                    loadedKey = k;
-                }
+            final int queueLength = deque.getIdleObjects().getTakeQueueLength() + deque.getAsyncWaiters().size();
+            if (deque.getWaiterCount().get() == 0) {
+                // Waiters left meanwhile
+                removeStarvedKey(k, deque);
+            } else if (getNumActive(k) < maxTotalPerKeySave &&
+                    queueLength > maxQueueLength) {
+                maxQueueLength = queueLength;
+                mostLoaded = deque;
+                loadedKey = k;
             }
         }
 
@@ -845,31 +1399,68 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
     /**
      * Checks to see if there are any threads currently waiting to borrow
      * objects but are blocked waiting for more objects to become available.
+     * Only the keys with waiting borrowers are examined.
      *
      * @return {@code true} if there is at least one thread waiting otherwise
      *         {@code false}
      */
     private boolean hasBorrowWaiters() {
-        for (final Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
-            final ObjectDeque<T> deque = entry.getValue();
-            if (deque != null) {
-                final LinkedBlockingDeque<PooledObject<T>> pool =
-                        deque.getIdleObjects();
-                if(pool.hasTakeWaiters()) {
-                    return true;
-                }
+        for (final ObjectDeque<T> deque : starvedKeys.values()) {
+            if (deque.getIdleObjects().hasTakeWaiters() || !deque.getAsyncWaiters().isEmpty()) {
+                return true;
             }
         }
         return false;
     }
 
+    /**
+     * Records that a borrower of the given key starts waiting for an object.
+     * Keys with waiters are indexed so that capacity can be moved to them
+     * without examining every key.
+     *
+     * @param key pool key
+     * @param objectDeque the sub-pool, registered for as long as the borrower waits
+     */
+    private void startWaiting(final K key, final ObjectDeque<T> objectDeque) {
+        if (objectDeque.getWaiterCount().incrementAndGet() == 1) {
+            starvedKeys.put(key, objectDeque);
+        }
+    }
+
+    /**
+     * Records that a borrower of the given key stopped waiting.
+     *
+     * @param key pool key
+     * @param objectDeque the sub-pool
+     */
+    private void stopWaiting(final K key, final ObjectDeque<T> objectDeque) {
+        if (objectDeque.getWaiterCount().decrementAndGet() == 0) {
+            removeStarvedKey(key, objectDeque);
+        }
+    }
+
+    /**
+     * Removes a key without waiters from the keys with waiters, unless a
+     * borrower started waiting meanwhile.
+     *
+     * @param key pool key
+     * @param objectDeque the sub-pool
+     */
+    private void removeStarvedKey(final K key, final ObjectDeque<T> objectDeque) {
+        if (starvedKeys.remove(key, objectDeque) && objectDeque.getWaiterCount().get() > 0) {
+            starvedKeys.putIfAbsent(key, objectDeque);
+        }
+    }
+
 
     /**
      * {@inheritDoc}
      * <p>
      * Successive activations of this method examine objects in keyed sub-pools
      * in sequence, cycling through the keys and examining objects in
-     * oldest-to-youngest order within the keyed sub-pools.
+     * oldest-to-youngest order within the keyed sub-pools. When
+     * {@link #getEvictExpiredOnly()} applies, each activation instead examines
+     * the expired objects of all keys, oldest first.
      */
     @Override
     public void evict() throws Exception {
@@ -879,121 +1470,280 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
             return;
         }
 
+        trimIdleObjects();
+
         PooledObject<T> underTest = null;
         final EvictionPolicy<T> evictionPolicy = getEvictionPolicy();
+        // Keys of the objects tested, which asynchronous borrowers may have skipped
+        final Map<K, ObjectDeque<T>> testedKeys = new HashMap<>();
 
-        synchronized (evictionLock) {
+        evictionLock.lock();
+        try {
             final EvictionConfig evictionConfig = new EvictionConfig(
                     getMinEvictableIdleTimeMillis(),
                     getSoftMinEvictableIdleTimeMillis(),
-                    getMinIdlePerKey());
+                    getEffectiveMinIdlePerKey());
 
             final boolean testWhileIdle = getTestWhileIdle();
 
-            for (int i = 0, m = getNumTests(); i < m; i++) {
-                if(evictionIterator == null || !evictionIterator.hasNext()) {
-                    if (evictionKeyIterator == null ||
-                            !evictionKeyIterator.hasNext()) {
-                        final List<K> keyCopy = new ArrayList<>();
-                        final Lock readLock = keyLock.readLock();
-                        readLock.lock();
-                        try {
-                            keyCopy.addAll(poolKeyList);
-                        } finally {
-                            readLock.unlock();
+            if (isEvictExpiredOnly(evictionPolicy, testWhileIdle)) {
+                evictExpired(evictionPolicy, evictionConfig, testedKeys);
+            } else {
+                for (int i = 0, m = getNumTests(); i < m; i++) {
+                    if(evictionIterator == null || !evictionIterator.hasNext()) {
+                        if (evictionKeyIterator == null ||
+                                !evictionKeyIterator.hasNext()) {
+                            // Weakly consistent, so no copy of the keys is needed
+                            evictionKeyIterator = poolMap.keySet().iterator();
+                        }
+                        while (evictionKeyIterator.hasNext()) {
+                            evictionKey = evictionKeyIterator.next();
+                            final ObjectDeque<T> objectDeque = poolMap.get(evictionKey);
+                            if (objectDeque == null) {
+                                continue;
+                            }
+
+                            final Deque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+                            evictionIterator = new EvictionIterator(idleObjects);
+                            if (evictionIterator.hasNext()) {
+                                break;
+                            }
+                            evictionIterator = null;
                         }
-                        evictionKeyIterator = keyCopy.iterator();
                     }
-                    while (evictionKeyIterator.hasNext()) {
-                        evictionKey = evictionKeyIterator.next();
-                        final ObjectDeque<T> objectDeque = poolMap.get(evictionKey);
-                        if (objectDeque == null) {
-                            continue;
-                        }
+                    if (evictionIterator == null) {
+                        // Pools exhausted
+                        return;
+                    }
+                    final Deque<PooledObject<T>> idleObjects;
+                    try {
+                        underTest = evictionIterator.next();
+                        idleObjects = evictionIterator.getIdleObjects();
+                    } catch (final NoSuchElementException nsee) {
+                        // Object was borrowed in another thread
+                        // Don't count this as an eviction test so reduce i;
+                        i--;
+                        evictionIterator = null;
+                        continue;
+                    }
+
+                    if (!underTest.startEvictionTest()) {
+                        // Object was borrowed in another thread
+                        // Don't count this as an eviction test so reduce i;
+                        i--;
+                        continue;
+                    }
+                    final ObjectDeque<T> objectDeque = poolMap.get(evictionKey);
+                    if (objectDeque != null) {
+                        testedKeys.put(evictionKey, objectDeque);
+                    }
+
+                    // User provided eviction policy could throw all sorts of
+                    // crazy exceptions. Protect against such an exception
+                    // killing the eviction thread.
+                    boolean evict;
+                    try {
+                        evict = evictionPolicy.evict(evictionConfig, underTest, idleObjects.size());
+                    } catch (final Throwable t) {
+                        // Slightly convoluted as SwallowedExceptionListener
+                        // uses Exception rather than Throwable
+                        PoolUtils.checkRethrow(t);
+                        swallowException(new Exception(t));
+                        // Don't evict on error conditions
+                        evict = false;
+                    }
 
-                        final Deque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
-                        evictionIterator = new EvictionIterator(idleObjects);
-                        if (evictionIterator.hasNext()) {
-                            break;
+                    if (evict) {
+                        fireEvict(evictionKey, underTest);
+                        destroy(evictionKey, underTest, true, DestroyMode.NORMAL, DestroyCause.EVICTED);
+                        destroyedByEvictorCount.incrementAndGet();
+                    } else {
+                        if (testWhileIdle) {
+                            if (!reserveEvictionValidation()) {
+                                // Validation budget used up, later runs
+                                // examine the remaining objects
+                                underTest.endEvictionTest(idleObjects);
+                                break;
+                            }
+                            if (isAsyncEvictionValidation()) {
+                                final K validatingKey = evictionKey;
+                                final PooledObject<T> validating = underTest;
+                                executeEvictionValidation(() ->
+                                        validateIdleObjectAsync(validatingKey, validating, idleObjects));
+                                continue;
+                            }
+                            validateIdleObject(evictionKey, underTest);
+                        }
+                        if (!underTest.endEvictionTest(idleObjects)) {
+                            // TODO - May need to add code here once additional
+                            // states are used
                         }
-                        evictionIterator = null;
                     }
                 }
-                if (evictionIterator == null) {
-                    // Pools exhausted
-                    return;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        // Objects under test may have been skipped by asynchronous borrowers
+        for (final Map.Entry<K, ObjectDeque<T>> entry : testedKeys.entrySet()) {
+            dispatchAsyncWaiters(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Destroys the oldest idle objects in excess of
+     * {@link #getMaxIdlePerKey()} once they have been idle for
+     * {@link #getMaxIdleGracePeriodMillis()}, examining only the keys that
+     * exceeded the limit when objects were returned.
+     */
+    private void trimIdleObjects() {
+        if (overIdleKeys.isEmpty()) {
+            return;
+        }
+        final int maxIdle = getEffectiveMaxIdlePerKey();
+        evictionLock.lock();
+        try {
+            for (final Map.Entry<K, ObjectDeque<T>> entry : overIdleKeys.entrySet()) {
+                final K key = entry.getKey();
+                final ObjectDeque<T> objectDeque = entry.getValue();
+                final BlockingIdleDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+                for (final PooledObject<T> p : startExcessIdleTest(idleObjects, maxIdle)) {
+                    try {
+                        destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.MAX_IDLE);
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
+                    destroyedByEvictorCount.incrementAndGet();
+                    destroyedByMaxIdleCount.incrementAndGet();
                 }
-                final Deque<PooledObject<T>> idleObjects;
-                try {
-                    underTest = evictionIterator.next();
-                    idleObjects = evictionIterator.getIdleObjects();
-                } catch (final NoSuchElementException nsee) {
-                    // Object was borrowed in another thread
-                    // Don't count this as an eviction test so reduce i;
-                    i--;
-                    evictionIterator = null;
-                    continue;
+                final boolean gracePeriod = getMaxIdleGracePeriodMillis() > 0;
+                if (!gracePeriod || maxIdle < 0 || idleObjects.size() <= maxIdle) {
+                    overIdleKeys.remove(key, objectDeque);
+                    if (gracePeriod && maxIdle > -1 && idleObjects.size() > maxIdle) {
+                        // Objects returned meanwhile
+                        overIdleKeys.putIfAbsent(key, objectDeque);
+                    }
                 }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
 
-                if (!underTest.startEvictionTest()) {
-                    // Object was borrowed in another thread
-                    // Don't count this as an eviction test so reduce i;
-                    i--;
-                    continue;
-                }
+    /**
+     * Evicts expired idle objects across all keys, oldest first, using the
+     * index of idle objects rather than cycling through the keys. The run ends
+     * at the first object that has been idle for less than the eviction
+     * thresholds, since younger objects have not expired either, or after
+     * {@link #getNumTests()} objects.
+     *
+     * @param evictionPolicy the eviction policy
+     * @param evictionConfig the eviction configuration
+     * @param testedKeys receives the keys of the objects tested
+     * @throws Exception if an object cannot be destroyed
+     */
+    private void evictExpired(final EvictionPolicy<T> evictionPolicy, final EvictionConfig evictionConfig,
+            final Map<K, ObjectDeque<T>> testedKeys) throws Exception {
+        final long minEvictTime = Math.min(evictionConfig.getIdleEvictTime(),
+                evictionConfig.getIdleSoftEvictTime());
+        final Iterator<IdleAgeIndex.Entry<K, T>> iter = idleAgeIndex.iterator();
+        for (int i = 0, m = getNumTests(); i < m && iter.hasNext();) {
+            final IdleAgeIndex.Entry<K, T> entry = iter.next();
+            final K key = entry.getKey();
+            final PooledObject<T> underTest = entry.getPooledObject();
+            final ObjectDeque<T> objectDeque = poolMap.get(key);
+            if (objectDeque == null || !entry.isCurrent() || !underTest.startEvictionTest()) {
+                // Stale entry or object borrowed in another thread
+                continue;
+            }
+            testedKeys.put(key, objectDeque);
+            i++;
 
-                // User provided eviction policy could throw all sorts of
-                // crazy exceptions. Protect against such an exception
-                // killing the eviction thread.
-                boolean evict;
-                try {
-                    evict = evictionPolicy.evict(evictionConfig, underTest,
-                            poolMap.get(evictionKey).getIdleObjects().size());
-                } catch (final Throwable t) {
-                    // Slightly convoluted as SwallowedExceptionListener
-                    // uses Exception rather than Throwable
-                    PoolUtils.checkRethrow(t);
-                    swallowException(new Exception(t));
-                    // Don't evict on error conditions
-                    evict = false;
+            boolean evict;
+            try {
+                evict = evictionPolicy.evict(evictionConfig, underTest,
+                        objectDeque.getIdleObjects().size());
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                swallowException(new Exception(t));
+                evict = false;
+            }
+
+            if (evict) {
+                fireEvict(key, underTest);
+                destroy(key, underTest, true, DestroyMode.NORMAL, DestroyCause.EVICTED);
+                destroyedByEvictorCount.incrementAndGet();
+            } else {
+                underTest.endEvictionTest(objectDeque.getIdleObjects());
+                if (underTest.getIdleTimeMillis() <= minEvictTime) {
+                    // Younger objects have not expired either
+                    return;
                 }
+                // Kept for the minimum idle objects of its key
+            }
+        }
+    }
 
-                if (evict) {
-                    destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
+    /**
+     * Activates, validates and passivates an idle object under eviction test,
+     * destroying it if any of these steps fail.
+     *
+     * @param key the key of the object
+     * @param underTest the idle object
+     * @throws Exception if the object cannot be destroyed
+     */
+    private void validateIdleObject(final K key, final PooledObject<T> underTest) throws Exception {
+        boolean active = false;
+        try {
+            factory.activateObject(key, underTest);
+            active = true;
+        } catch (final Exception e) {
+            destroy(key, underTest, true, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+            destroyedByEvictorCount.incrementAndGet();
+        }
+        if (active) {
+            if (!factory.validateObject(key, underTest)) {
+                fireValidationFailure(key, underTest);
+                destroy(key, underTest, true, DestroyMode.NORMAL, DestroyCause.VALIDATION_FAILED);
+                destroyedByEvictorCount.incrementAndGet();
+            } else {
+                try {
+                    factory.passivateObject(key, underTest);
+                } catch (final Exception e) {
+                    destroy(key, underTest, true, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
                     destroyedByEvictorCount.incrementAndGet();
-                } else {
-                    if (testWhileIdle) {
-                        boolean active = false;
-                        try {
-                            factory.activateObject(evictionKey, underTest);
-                            active = true;
-                        } catch (final Exception e) {
-                            destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
-                            destroyedByEvictorCount.incrementAndGet();
-                        }
-                        if (active) {
-                            if (!factory.validateObject(evictionKey, underTest)) {
-                                destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
-                                destroyedByEvictorCount.incrementAndGet();
-                            } else {
-                                try {
-                                    factory.passivateObject(evictionKey, underTest);
-                                } catch (final Exception e) {
-                                    destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
-                                    destroyedByEvictorCount.incrementAndGet();
-                                }
-                            }
-                        }
-                    }
-                    if (!underTest.endEvictionTest(idleObjects)) {
-                        // TODO - May need to add code here once additional
-                        // states are used
-                    }
                 }
             }
         }
     }
 
+    /**
+     * Validates an idle object under eviction test on the eviction validation
+     * executor and ends its eviction test.
+     *
+     * @param key the key of the object
+     * @param underTest the idle object
+     * @param idleObjects the idle objects of the key
+     */
+    private void validateIdleObjectAsync(final K key, final PooledObject<T> underTest,
+            final Deque<PooledObject<T>> idleObjects) {
+        try {
+            validateIdleObject(key, underTest);
+            underTest.endEvictionTest(idleObjects);
+            if (isClosed()) {
+                // Missed by clear() while under test
+                destroy(key, underTest, false, DestroyMode.NORMAL, DestroyCause.CLEARED);
+                return;
+            }
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+        final ObjectDeque<T> objectDeque = poolMap.get(key);
+        if (objectDeque != null) {
+            dispatchAsyncWaiters(key, objectDeque);
+        }
+    }
+
     /**
      * Create a new pooled object.
      *
@@ -1019,7 +1769,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
             final int newNumTotal = numTotal.incrementAndGet();
             if (maxTotal > -1 && newNumTotal > maxTotal) {
                 numTotal.decrementAndGet();
-                if (getNumIdle() == 0) {
+                if (!idleAgeIndex.hasIdleObjects()) {
                     return null;
                 }
                 clearOldest();
@@ -1035,7 +1785,8 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         //          call the factory
         Boolean create = null;
         while (create == null) {
-            synchronized (objectDeque.makeObjectCountLock) {
+            objectDeque.makeObjectCountLock.lock();
+            try {
                 final long newCreateCount = objectDeque.getCreateCount().incrementAndGet();
                 // Check against the per key limit
                 if (newCreateCount > maxTotalPerKeySave) {
@@ -1053,13 +1804,15 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
                         // bring the pool to capacity. Those calls might also
                         // fail so wait until they complete and then re-test if
                         // the pool is at capacity or not.
-                        objectDeque.makeObjectCountLock.wait();
+                        objectDeque.makeObjectCountChanged.await();
                     }
                 } else {
                     // The pool is not at capacity. Create a new object.
                     objectDeque.makeObjectCount++;
                     create = Boolean.TRUE;
                 }
+            } finally {
+                objectDeque.makeObjectCountLock.unlock();
             }
         }
 
@@ -1071,7 +1824,9 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         PooledObject<T> p = null;
         try {
             p = factory.makeObject(key);
+            applyClock(p);
             if (getTestOnCreate() && !factory.validateObject(key, p)) {
+                fireValidationFailure(key, p);
                 numTotal.decrementAndGet();
                 objectDeque.getCreateCount().decrementAndGet();
                 return null;
@@ -1081,17 +1836,212 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
             objectDeque.getCreateCount().decrementAndGet();
             throw e;
         } finally {
-            synchronized (objectDeque.makeObjectCountLock) {
+            objectDeque.makeObjectCountLock.lock();
+            try {
                 objectDeque.makeObjectCount--;
-                objectDeque.makeObjectCountLock.notifyAll();
+                objectDeque.makeObjectCountChanged.signalAll();
+            } finally {
+                objectDeque.makeObjectCountLock.unlock();
             }
         }
 
         createdCount.incrementAndGet();
         objectDeque.getAllObjects().put(new IdentityWrapper<>(p.getObject()), p);
+        fireCreate(key, p);
         return p;
     }
 
+    /**
+     * Starts creating an object for the given key asynchronously with
+     * {@link KeyedPooledObjectFactory#makeObjectAsync} on behalf of a
+     * borrower, if the pool and the sub-pool have the capacity and fewer than
+     * {@link #getMaxPendingCreates()} creations are pending.
+     *
+     * @param key pool key
+     * @param waiter the borrower on whose behalf the object is created
+     * @return {@code true} if a creation was started
+     */
+    private boolean startAsyncCreate(final K key, final AsyncBorrowWaiters.Waiter<T> waiter) {
+        return reservePendingCreate() && startReservedCreate(key, waiter);
+    }
+
+    /**
+     * Requests an asynchronous creation on behalf of a borrower of the given
+     * key that waits for it. The request is queued while
+     * {@link #getMaxPendingCreates()} creations are pending and started when
+     * one of them completes. A request that has not been started is cancelled
+     * when its borrower stops waiting, so it never makes room by clearing the
+     * oldest idle objects of other keys.
+     *
+     * @param key pool key
+     * @param waiter the borrower on whose behalf the object is created
+     */
+    private void requestAsyncCreate(final K key, final AsyncBorrowWaiters.Waiter<T> waiter) {
+        final CreateRequest<K, T> request = new CreateRequest<>(key, waiter);
+        createRequests.add(request);
+        waiter.getFuture().whenComplete((obj, e) -> createRequests.remove(request));
+        startQueuedCreates();
+    }
+
+    /**
+     * Starts queued creation requests of borrowers that are still waiting
+     * while fewer than {@link #getMaxPendingCreates()} creations are pending.
+     * Called whenever a request is queued or a creation completes, so no
+     * request is left behind.
+     */
+    private void startQueuedCreates() {
+        while (!createRequests.isEmpty() && reservePendingCreate()) {
+            CreateRequest<K, T> request;
+            do {
+                request = createRequests.poll();
+            } while (request != null && request.waiter.getFuture().isDone());
+            if (request == null) {
+                releasePendingCreate();
+            } else {
+                startReservedCreate(request.key, request.waiter);
+            }
+        }
+    }
+
+    /**
+     * Starts an asynchronous creation for the given key for which a pending
+     * creation has been reserved, if the pool and the sub-pool have the
+     * capacity.
+     *
+     * @param key pool key
+     * @param waiter the borrower on whose behalf the object is created
+     * @return {@code true} if a creation was started
+     */
+    private boolean startReservedCreate(final K key, final AsyncBorrowWaiters.Waiter<T> waiter) {
+        final int maxTotal = getMaxTotal();
+        while (numTotal.incrementAndGet() > maxTotal && maxTotal > -1) {
+            numTotal.decrementAndGet();
+            if (!idleAgeIndex.hasIdleObjects()) {
+                releasePendingCreate();
+                return false;
+            }
+            clearOldest();
+        }
+        // The key stays registered until the creation completes
+        final ObjectDeque<T> objectDeque = register(key);
+        final int maxTotalPerKeySave = getMaxTotalPerKey();
+        if (objectDeque.getCreateCount().incrementAndGet() > maxTotalPerKeySave &&
+                maxTotalPerKeySave > -1) {
+            objectDeque.getCreateCount().decrementAndGet();
+            numTotal.decrementAndGet();
+            deregister(key);
+            releasePendingCreate();
+            return false;
+        }
+        try {
+            factory.makeObjectAsync(key, getCreateExecutor()).whenComplete(
+                    (p, failure) -> asyncCreated(key, objectDeque, waiter, p, failure));
+        } catch (final Throwable t) {
+            asyncCreated(key, objectDeque, waiter, null, t);
+        }
+        return true;
+    }
+
+    /**
+     * Completes an asynchronous creation. A new object goes directly to the
+     * borrower on whose behalf it was created, or else to the oldest
+     * asynchronous borrower of the key or the idle objects of the sub-pool. A
+     * failure is reported to the borrower on whose behalf the object was
+     * created.
+     *
+     * @param key pool key
+     * @param objectDeque the sub-pool
+     * @param waiter the borrower on whose behalf the object was created
+     * @param p the new object, {@code null} if the creation failed
+     * @param failure the failure, {@code null} if the creation succeeded
+     */
+    private void asyncCreated(final K key, final ObjectDeque<T> objectDeque,
+            final AsyncBorrowWaiters.Waiter<T> waiter, final PooledObject<T> p, final Throwable failure) {
+        releasePendingCreate();
+        try {
+            deliverAsyncCreated(key, objectDeque, waiter, p, failure);
+            if (!isClosed()) {
+                startQueuedCreates();
+            }
+        } finally {
+            deregister(key);
+        }
+    }
+
+    /**
+     * Delivers the result of an asynchronous creation for the given key.
+     *
+     * @param key pool key
+     * @param objectDeque the sub-pool
+     * @param requester the borrower on whose behalf the object was created
+     * @param p the new object, {@code null} if the creation failed
+     * @param failure the failure, {@code null} if the creation succeeded
+     */
+    private void deliverAsyncCreated(final K key, final ObjectDeque<T> objectDeque,
+            final AsyncBorrowWaiters.Waiter<T> requester, final PooledObject<T> p, final Throwable failure) {
+        if (failure != null || p == null) {
+            numTotal.decrementAndGet();
+            objectDeque.getCreateCount().decrementAndGet();
+            final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ?
+                    failure.getCause() : failure;
+            if (!requester.getFuture().completeExceptionally(cause != null ? cause :
+                    new NoSuchElementException("Unable to create object")) && cause instanceof Exception) {
+                // The borrower stopped waiting meanwhile
+                swallowException((Exception) cause);
+            }
+            return;
+        }
+        applyClock(p);
+        if (getTestOnCreate() && !factory.validateObject(key, p)) {
+            fireValidationFailure(key, p);
+            numTotal.decrementAndGet();
+            objectDeque.getCreateCount().decrementAndGet();
+            // No object is on its way to the borrower, so it must not wait
+            requester.getFuture().completeExceptionally(new NoSuchElementException("Unable to validate object"));
+            return;
+        }
+        createdCount.incrementAndGet();
+        objectDeque.getAllObjects().put(new IdentityWrapper<>(p.getObject()), p);
+        fireCreate(key, p);
+        if (isClosed()) {
+            try {
+                destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.CLEARED);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            return;
+        }
+        // A new object is never under eviction test, so it can be allocated
+        final AsyncBorrowWaiters<T> asyncWaiters = objectDeque.getAsyncWaiters();
+        final AsyncBorrowWaiters.Waiter<T> waiter = asyncWaiters.remove(requester) ? requester : asyncWaiters.poll();
+        if (waiter != null && p.allocate()) {
+            try {
+                activateAndValidate(key, p, true);
+            } catch (final NoSuchElementException e) {
+                waiter.getFuture().completeExceptionally(e);
+                return;
+            }
+            // Accounted before the borrower can see, and return, the object, so a
+            // borrower giving up meanwhile still counts as a borrow
+            updateStatsBorrow(key, p, getClock().nanoTime() - waiter.getStartNanos());
+            if (!waiter.getFuture().complete(p.getObject())) {
+                // Timed out or cancelled meanwhile
+                releaseBatch(key, objectDeque, Collections.singletonList(p));
+            }
+            return;
+        }
+        try {
+            addIdleObject(key, p);
+        } catch (final Exception e) {
+            swallowException(e);
+            try {
+                destroy(key, p, true, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+            } catch (final Exception e1) {
+                swallowException(e1);
+            }
+        }
+    }
+
     /**
      * Destroy the wrapped, pooled object.
      *
@@ -1100,28 +2050,29 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
      * @param always Should the object be destroyed even if it is not currently
      *               in the set of idle objects for the given key
      * @param mode DestroyMode context provided to the factory
+     * @param cause the reason the object is destroyed, for the pool listener
      *
      * @return {@code true} if the object was destroyed, otherwise {@code false}
      * @throws Exception If the object destruction failed
      */
-    private boolean destroy(final K key, final PooledObject<T> toDestroy, final boolean always, final DestroyMode mode)
-            throws Exception {
+    private boolean destroy(final K key, final PooledObject<T> toDestroy, final boolean always, final DestroyMode mode,
+            final DestroyCause cause) throws Exception {
 
         final ObjectDeque<T> objectDeque = register(key);
 
         try {
-            boolean isIdle;
-            synchronized(toDestroy) {
+            final boolean isIdle = withStateLock(toDestroy, () -> {
                 // Check idle state directly
-                isIdle = toDestroy.getState().equals(PooledObjectState.IDLE);
+                final boolean idle = toDestroy.getState().equals(PooledObjectState.IDLE);
                 // If idle, not under eviction test, or always is true, remove instance,
                 // updating isIdle if instance is found in idle objects
-                if (isIdle || always) {
-                    isIdle = objectDeque.getIdleObjects().remove(toDestroy);
+                if (idle || always) {
+                    return objectDeque.getIdleObjects().remove(toDestroy);
                 }
-            }
+                return false;
+            });
             if (isIdle || always) {
-                objectDeque.getAllObjects().remove(new IdentityWrapper<>(toDestroy.getObject()));
+                IdentityWrapper.remove(objectDeque.getAllObjects(), toDestroy.getObject());
                 toDestroy.invalidate();
 
                 try {
@@ -1130,6 +2081,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
                     objectDeque.getCreateCount().decrementAndGet();
                     destroyedCount.incrementAndGet();
                     numTotal.decrementAndGet();
+                    fireDestroy(key, toDestroy, mode, cause);
                 }
                 return true;
             }
@@ -1152,35 +2104,25 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
      *         return null.
      */
     private ObjectDeque<T> register(final K k) {
-        Lock lock = keyLock.readLock();
-        ObjectDeque<T> objectDeque = null;
-        try {
-            lock.lock();
-            objectDeque = poolMap.get(k);
+        for (;;) {
+            ObjectDeque<T> objectDeque = poolMap.get(k);
             if (objectDeque == null) {
-                // Upgrade to write lock
-                lock.unlock();
-                lock = keyLock.writeLock();
-                lock.lock();
-                objectDeque = poolMap.get(k);
+                final ObjectDeque<T> newDeque = new ObjectDeque<>();
+                newDeque.getNumInterested().set(1);
+                objectDeque = poolMap.putIfAbsent(k, newDeque);
                 if (objectDeque == null) {
-                    objectDeque = new ObjectDeque<>(fairness);
-                    objectDeque.getNumInterested().incrementAndGet();
-                    // NOTE: Keys must always be added to both poolMap and
-                    //       poolKeyList at the same time while protected by
-                    //       keyLock.writeLock()
-                    poolMap.put(k, objectDeque);
-                    poolKeyList.add(k);
-                } else {
-                    objectDeque.getNumInterested().incrementAndGet();
+                    return newDeque;
                 }
-            } else {
-                objectDeque.getNumInterested().incrementAndGet();
             }
-        } finally {
-            lock.unlock();
+            final AtomicLong numInterested = objectDeque.getNumInterested();
+            for (long n = numInterested.get(); n >= 0; n = numInterested.get()) {
+                if (numInterested.compareAndSet(n, n + 1)) {
+                    return objectDeque;
+                }
+            }
+            // The sub-pool is being removed, retry with a new one
+            Thread.yield();
         }
-        return objectDeque;
     }
 
     /**
@@ -1191,33 +2133,24 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
      * @param k The key to de-register
      */
     private void deregister(final K k) {
-        Lock lock = keyLock.readLock();
-        try {
-            lock.lock();
-            final ObjectDeque<T> objectDeque = poolMap.get(k);
-            final long numInterested = objectDeque.getNumInterested().decrementAndGet();
-            if (numInterested == 0 && objectDeque.getCreateCount().get() == 0) {
-                // Potential to remove key
-                // Upgrade to write lock
-                lock.unlock();
-                lock = keyLock.writeLock();
-                lock.lock();
-                if (objectDeque.getCreateCount().get() == 0 && objectDeque.getNumInterested().get() == 0) {
-                    // NOTE: Keys must always be removed from both poolMap and
-                    //       poolKeyList at the same time while protected by
-                    //       keyLock.writeLock()
-                    poolMap.remove(k);
-                    poolKeyList.remove(k);
-                }
+        final ObjectDeque<T> objectDeque = poolMap.get(k);
+        final AtomicLong numInterested = objectDeque.getNumInterested();
+        if (numInterested.decrementAndGet() == 0 && objectDeque.getCreateCount().get() == 0 &&
+                numInterested.compareAndSet(0, RETIRED)) {
+            // Nobody can register now. The create count only changes while a
+            // key is registered but may have changed before the sub-pool was
+            // retired.
+            if (objectDeque.getCreateCount().get() == 0) {
+                poolMap.remove(k, objectDeque);
+            } else {
+                numInterested.set(0);
             }
-        } finally {
-            lock.unlock();
         }
     }
 
     @Override
     void ensureMinIdle() throws Exception {
-        final int minIdlePerKeySave = getMinIdlePerKey();
+        final int minIdlePerKeySave = getEffectiveMinIdlePerKey();
         if (minIdlePerKeySave < 1) {
             return;
         }
@@ -1227,6 +2160,18 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The demand is spread evenly over the keys, since the idle object limits
+     * apply to every key.
+     * </p>
+     */
+    @Override
+    void adaptIdle() {
+        updateAdaptiveIdle(getNumActive() + getNumWaiters(), poolMap.size());
+    }
+
     /**
      * Ensure that the configured number of minimum idle objects is available in
      * the pool for the given key.
@@ -1295,13 +2240,15 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
         if (p != null) {
             factory.passivateObject(key, p);
-            final LinkedBlockingDeque<PooledObject<T>> idleObjects =
-                    poolMap.get(key).getIdleObjects();
+            final ObjectDeque<T> objectDeque = poolMap.get(key);
+            final BlockingIdleDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
             if (getLifo()) {
                 idleObjects.addFirst(p);
             } else {
                 idleObjects.addLast(p);
             }
+            idleAgeIndex.add(key, p);
+            dispatchAsyncWaiters(key, objectDeque);
         }
     }
 
@@ -1321,6 +2268,63 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         ensureMinIdle(key);
     }
 
+    /**
+     * Registers keys for pool control and tries to ensure that
+     * {@link #getMinIdlePerKey()} idle instances are available for each of
+     * them, creating up to {@code concurrency} instances in parallel on
+     * threads dedicated to this warm-up. The creations for the different keys
+     * are interleaved so that all keys are warmed up concurrently. Unlike
+     * {@link #preparePool(Object)}, the calling thread does not wait for the
+     * instances to be created.
+     * <p>
+     * No creation starts once {@code deadline} has passed, but creations
+     * already started are awaited before the returned future completes.
+     * Failures do not stop the warm-up; they are counted and passed to the
+     * {@link #getSwallowedExceptionListener() swallowed exception listener}.
+     * </p>
+     *
+     * @param keys the keys to register for pool control
+     * @param concurrency the maximum number of instances created in parallel
+     * @param deadline the time after which no creation starts, {@code null} or
+     *        negative for no deadline
+     * @return a future completed with the numbers of instances created, failed
+     *         and not attempted, for all keys
+     * @throws IllegalArgumentException if {@code concurrency} is not positive
+     * @throws IllegalStateException if the pool is closed
+     * @since 2.9.1
+     */
+    public CompletableFuture<PreparePoolResult> preparePoolAsync(final Collection<K> keys, final int concurrency,
+            final Duration deadline) {
+        assertOpen();
+        final List<K> prepareKeys = new ArrayList<>(keys);
+        final int[] deficits = new int[prepareKeys.size()];
+        int rounds = 0;
+        for (int i = 0; i < deficits.length; i++) {
+            deficits[i] = calculateDeficit(poolMap.get(prepareKeys.get(i)));
+            rounds = Math.max(rounds, deficits[i]);
+        }
+        final Queue<Callable<Boolean>> creations = new ConcurrentLinkedQueue<>();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < deficits.length; i++) {
+                if (deficits[i] <= round) {
+                    continue;
+                }
+                final K key = prepareKeys.get(i);
+                creations.add(() -> {
+                    register(key);
+                    try {
+                        final PooledObject<T> p = create(key);
+                        addIdleObject(key, p);
+                        return Boolean.valueOf(p != null);
+                    } finally {
+                        deregister(key);
+                    }
+                });
+            }
+        }
+        return prepareAsync(creations, concurrency, deadline);
+    }
+
     /**
      * Calculate the number of objects to test in a run of the idle object
      * evictor.
@@ -1348,7 +2352,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
     private int calculateDeficit(final ObjectDeque<T> objectDeque) {
 
         if (objectDeque == null) {
-            return getMinIdlePerKey();
+            return getEffectiveMinIdlePerKey();
         }
 
         // Used more than once so keep a local copy so the value is consistent
@@ -1357,7 +2361,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
         // Calculate no of objects needed to be created, in order to have
         // the number of pooled objects < maxTotalPerKey();
-        int objectDefecit = getMinIdlePerKey() - objectDeque.getIdleObjects().size();
+        int objectDefecit = getEffectiveMinIdlePerKey() - objectDeque.getIdleObjects().size();
         if (maxTotalPerKeySave > 0) {
             final int growLimit = Math.max(0,
                     maxTotalPerKeySave - objectDeque.getIdleObjects().size());
@@ -1398,8 +2402,8 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
     /**
      * Return an estimate of the number of threads currently blocked waiting for
-     * an object from the pool. This is intended for monitoring only, not for
-     * synchronization control.
+     * an object from the pool, including asynchronous borrowers. This is
+     * intended for monitoring only, not for synchronization control.
      *
      * @return The estimate of the number of threads currently blocked waiting
      *         for an object from the pool
@@ -1413,13 +2417,46 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
             while (iter.hasNext()) {
                 // Assume no overflow
-                result += iter.next().getIdleObjects().getTakeQueueLength();
+                final ObjectDeque<T> deque = iter.next();
+                result += deque.getIdleObjects().getTakeQueueLength() + deque.getAsyncWaiters().size();
             }
         }
 
         return result;
     }
 
+    /**
+     * Return an estimate of the number of threads currently blocked waiting for
+     * an object from the pool under the given key, including asynchronous
+     * borrowers. This is intended for monitoring only, not for synchronization
+     * control.
+     *
+     * @param key The key to query
+     * @return The estimate of the number of threads currently blocked waiting
+     *         for an object from the pool under the given key
+     * @since 2.9.1
+     */
+    public int getNumWaiters(final K key) {
+        if (getBlockWhenExhausted()) {
+            final ObjectDeque<T> objectDeque = poolMap.get(key);
+            if (objectDeque != null) {
+                return objectDeque.getIdleObjects().getTakeQueueLength() + objectDeque.getAsyncWaiters().size();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a copy of the keys the pool currently holds objects or waiters
+     * for.
+     *
+     * @return A new list of the keys of the pool
+     * @since 2.9.1
+     */
+    public List<K> getKeys() {
+        return new ArrayList<>(poolMap.keySet());
+    }
+
     /**
      * Return an estimate of the number of threads currently blocked waiting for
      * an object from the pool for each key. This is intended for
@@ -1438,7 +2475,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
             if (deque != null) {
                 if (getBlockWhenExhausted()) {
                     result.put(k.toString(), Integer.valueOf(
-                            deque.getIdleObjects().getTakeQueueLength()));
+                            deque.getIdleObjects().getTakeQueueLength() + deque.getAsyncWaiters().size()));
                 } else {
                     result.put(k.toString(), Integer.valueOf(0));
                 }
@@ -1481,6 +2518,24 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
 
     //--- inner classes ----------------------------------------------
 
+    /**
+     * An asynchronous creation requested on behalf of a waiting borrower.
+     *
+     * @param <K> The type of keys maintained by the pool.
+     * @param <S> type of objects in the pool
+     */
+    private static final class CreateRequest<K, S> {
+
+        private final K key;
+
+        private final AsyncBorrowWaiters.Waiter<S> waiter;
+
+        CreateRequest(final K key, final AsyncBorrowWaiters.Waiter<S> waiter) {
+            this.key = key;
+            this.waiter = waiter;
+        }
+    }
+
     /**
      * Maintains information on the per key queue for a given key.
      *
@@ -1488,7 +2543,7 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
      */
     private class ObjectDeque<S> {
 
-        private final LinkedBlockingDeque<PooledObject<S>> idleObjects;
+        private final BlockingIdleDeque<PooledObject<S>> idleObjects;
 
         /*
          * Number of instances created - number destroyed.
@@ -1497,7 +2552,8 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         private final AtomicInteger createCount = new AtomicInteger(0);
 
         private long makeObjectCount = 0;
-        private final Object makeObjectCountLock = new Object();
+        private final ReentrantLock makeObjectCountLock = new ReentrantLock();
+        private final Condition makeObjectCountChanged = makeObjectCountLock.newCondition();
 
         /*
          * The map is keyed on pooled instances, wrapped to ensure that
@@ -1510,17 +2566,28 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
          * Number of threads with registered interest in this key.
          * register(K) increments this counter and deRegister(K) decrements it.
          * Invariant: empty keyed pool will not be dropped unless numInterested
-         *            is 0.
+         *            is 0. It is set to RETIRED while the keyed pool is dropped
+         *            and is never incremented from that value.
          */
         private final AtomicLong numInterested = new AtomicLong(0);
 
+        /*
+         * Asynchronous borrowers waiting for an idle object under this key.
+         */
+        private final AsyncBorrowWaiters<S> asyncWaiters = new AsyncBorrowWaiters<>();
+
+        /*
+         * Number of borrowers, blocked or asynchronous, waiting for an object
+         * under this key.
+         */
+        private final AtomicInteger waiterCount = new AtomicInteger();
+
         /**
-         * Create a new ObjecDeque with the given fairness policy.
-         * @param fairness true means client threads waiting to borrow / return instances
-         * will be served as if waiting in a FIFO queue.
+         * Create a new ObjecDeque using the pool's fairness policy and idle
+         * object deque implementation.
          */
-        public ObjectDeque(final boolean fairness) {
-            idleObjects = new LinkedBlockingDeque<>(fairness);
+        public ObjectDeque() {
+            idleObjects = createIdleObjects(numIdle);
         }
 
         /**
@@ -1528,10 +2595,30 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
          *
          * @return The idle objects
          */
-        public LinkedBlockingDeque<PooledObject<S>> getIdleObjects() {
+        public BlockingIdleDeque<PooledObject<S>> getIdleObjects() {
             return idleObjects;
         }
 
+        /**
+         * Obtain the asynchronous borrowers waiting for an object under the
+         * current key.
+         *
+         * @return The asynchronous borrowers
+         */
+        public AsyncBorrowWaiters<S> getAsyncWaiters() {
+            return asyncWaiters;
+        }
+
+        /**
+         * Obtain the number of borrowers waiting for an object under the
+         * current key.
+         *
+         * @return The number of waiting borrowers
+         */
+        public AtomicInteger getWaiterCount() {
+            return waiterCount;
+        }
+
         /**
          * Obtain the count of the number of objects created for the current
          * key.
@@ -1591,20 +2678,34 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
     //--- internal attributes --------------------------------------------------
 
     /*
-     * My hash of sub-pools (ObjectQueue). The list of keys <b>must</b> be kept
-     * in step with {@link #poolKeyList} using {@link #keyLock} to ensure any
-     * changes to the list of current keys is made in a thread-safe manner.
+     * My hash of sub-pools (ObjectQueue). Sub-pools are added and removed with
+     * atomic putIfAbsent and remove(key, value) calls, see register(K) and
+     * deregister(K). The eviction order follows the iteration order of the map.
+     */
+    private final ConcurrentMap<K, ObjectDeque<T>> poolMap = new ConcurrentHashMap<>();
+    /*
+     * Asynchronous creations requested by waiting borrowers but not started
+     * because getMaxPendingCreates() creations were pending.
+     */
+    private final Queue<CreateRequest<K, T>> createRequests = new ConcurrentLinkedQueue<>();
+    /*
+     * Idle objects of all keys, oldest first, used by clearOldest().
+     */
+    private final IdleAgeIndex<K, T> idleAgeIndex = new IdleAgeIndex<>();
+    /*
+     * Sub-pools with waiting borrowers, used by reuseCapacity().
+     */
+    private final ConcurrentMap<K, ObjectDeque<T>> starvedKeys = new ConcurrentHashMap<>();
+    /*
+     * Sub-pools holding idle objects in excess of maxIdlePerKey during their
+     * grace period, used by trimIdleObjects().
      */
-    private final Map<K, ObjectDeque<T>> poolMap =
-            new ConcurrentHashMap<>(); // @GuardedBy("keyLock") for write access (and some read access)
+    private final ConcurrentMap<K, ObjectDeque<T>> overIdleKeys = new ConcurrentHashMap<>();
     /*
-     * List of pool keys - used to control eviction order. The list of keys
-     * <b>must</b> be kept in step with {@link #poolMap} using {@link #keyLock}
-     * to ensure any changes to the list of current keys is made in a
-     * thread-safe manner.
+     * Serializes all-or-nothing batch borrows so that two batches never wait
+     * while each holds part of the pool.
      */
-    private final List<K> poolKeyList = new ArrayList<>(); // @GuardedBy("keyLock")
-    private final ReadWriteLock keyLock = new ReentrantReadWriteLock(true);
+    private final ReentrantLock batchLock = new ReentrantLock(true);
     /*
      * The combined count of the currently active objects for all keys and those
      * in the process of being created. Under load, it may exceed
@@ -1612,9 +2713,19 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
      * created at any one time.
      */
     private final AtomicInteger numTotal = new AtomicInteger(0);
+    /*
+     * The number of idle objects of all keys, kept by the idle object deques
+     * of the sub-pools so that it is not summed over the keys.
+     */
+    private final LongAdder numIdle = new LongAdder();
     private Iterator<K> evictionKeyIterator = null; // @GuardedBy("evictionLock")
     private K evictionKey = null; // @GuardedBy("evictionLock")
 
+    /*
+     * Value of ObjectDeque.numInterested while the sub-pool is being removed.
+     */
+    private static final long RETIRED = -1;
+
     // JMX specific attributes
     private static final String ONAME_BASE =
             "org.apache.commons.pool2:type=GenericKeyedObjectPool,name=";
@@ -1634,10 +2745,6 @@ public class GenericKeyedObjectPool<K, T> extends BaseGenericObjectPool<T>
         builder.append(fairness);
         builder.append(", poolMap=");
         builder.append(poolMap);
-        builder.append(", poolKeyList=");
-        builder.append(poolKeyList);
-        builder.append(", keyLock=");
-        builder.append(keyLock);
         builder.append(", numTotal=");
         builder.append(numTotal);
         builder.append(", evictionKeyIterator=");
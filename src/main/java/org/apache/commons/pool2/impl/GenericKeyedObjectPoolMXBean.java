@@ -61,6 +61,27 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     int getMaxIdlePerKey();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxPendingCreates()}
+     * @return See {@link GenericKeyedObjectPool#getMaxPendingCreates()}
+     * @since 2.9.1
+     */
+    int getMaxPendingCreates();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxEvictionValidations()}
+     * @return See {@link GenericKeyedObjectPool#getMaxEvictionValidations()}
+     * @since 2.9.1
+     */
+    int getMaxEvictionValidations();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxEvictionValidationsPerSecond()}
+     * @return See {@link GenericKeyedObjectPool#getMaxEvictionValidationsPerSecond()}
+     * @since 2.9.1
+     */
+    int getMaxEvictionValidationsPerSecond();
+
     /**
      * See {@link GenericKeyedObjectPool#getMaxTotal()}
      * @return See {@link GenericKeyedObjectPool#getMaxTotal()}
@@ -134,6 +155,20 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     boolean getTestWhileIdle();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictExpiredOnly()}
+     * @return See {@link GenericKeyedObjectPool#getEvictExpiredOnly()}
+     * @since 2.9.1
+     */
+    boolean getEvictExpiredOnly();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxIdleGracePeriodMillis()}
+     * @return See {@link GenericKeyedObjectPool#getMaxIdleGracePeriodMillis()}
+     * @since 2.9.1
+     */
+    long getMaxIdleGracePeriodMillis();
+
     /**
      * See {@link GenericKeyedObjectPool#getTimeBetweenEvictionRunsMillis()}
      * @return See {@link GenericKeyedObjectPool#getTimeBetweenEvictionRunsMillis()}
@@ -184,6 +219,20 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getDestroyedByEvictorCount();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getReturnedOverMaxIdleCount()}
+     * @return See {@link GenericKeyedObjectPool#getReturnedOverMaxIdleCount()}
+     * @since 2.9.1
+     */
+    long getReturnedOverMaxIdleCount();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getDestroyedByMaxIdleCount()}
+     * @return See {@link GenericKeyedObjectPool#getDestroyedByMaxIdleCount()}
+     * @since 2.9.1
+     */
+    long getDestroyedByMaxIdleCount();
+
     /**
      * See {@link GenericKeyedObjectPool#getDestroyedByBorrowValidationCount()}
      * @return See {@link GenericKeyedObjectPool#getDestroyedByBorrowValidationCount()}
@@ -214,6 +263,47 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getMaxBorrowWaitTimeMillis();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getActiveTimeStatistics()}
+     * @return See {@link GenericKeyedObjectPool#getActiveTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getActiveTimeStatistics();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getIdleTimeStatistics()}
+     * @return See {@link GenericKeyedObjectPool#getIdleTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getIdleTimeStatistics();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowWaitTimeStatistics()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowWaitTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getBorrowWaitTimeStatistics();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictorLagStatistics()}
+     * @return See {@link GenericKeyedObjectPool#getEvictorLagStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getEvictorLagStatistics();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictorRunTimeStatistics()}
+     * @return See {@link GenericKeyedObjectPool#getEvictorRunTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getEvictorRunTimeStatistics();
+
+    /**
+     * See {@link GenericKeyedObjectPool#resetStatistics()}
+     * @since 2.9.1
+     */
+    void resetStatistics();
+
     /**
      * See {@link GenericKeyedObjectPool#getCreationStackTrace()}
      * @return See {@link GenericKeyedObjectPool#getCreationStackTrace()}
@@ -226,6 +316,13 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     int getNumWaiters();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getNumPendingCreates()}
+     * @return See {@link GenericKeyedObjectPool#getNumPendingCreates()}
+     * @since 2.9.1
+     */
+    int getNumPendingCreates();
+
     /**
      * See {@link GenericKeyedObjectPool#getNumWaitersByKey()}
      * @return See {@link GenericKeyedObjectPool#getNumWaitersByKey()}
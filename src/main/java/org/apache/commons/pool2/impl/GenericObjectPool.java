@@ -16,8 +16,10 @@
  */
 package org.apache.commons.pool2.impl;
 
+import org.apache.commons.pool2.AsyncObjectPool;
 import org.apache.commons.pool2.DestroyMode;
 import org.apache.commons.pool2.ObjectPool;
+import org.apache.commons.pool2.PoolListener.DestroyCause;
 import org.apache.commons.pool2.PoolUtils;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectFactory;
@@ -26,15 +28,32 @@ import org.apache.commons.pool2.SwallowedExceptionListener;
 import org.apache.commons.pool2.TrackedUse;
 import org.apache.commons.pool2.UsageTracking;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A configurable {@link ObjectPool} implementation.
@@ -81,7 +100,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * @since 2.0
  */
 public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
-        implements ObjectPool<T>, GenericObjectPoolMXBean, UsageTracking<T> {
+        implements AsyncObjectPool<T>, GenericObjectPoolMXBean, UsageTracking<T> {
 
     /**
      * Creates a new {@code GenericObjectPool} using defaults from
@@ -116,7 +135,9 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         }
         this.factory = factory;
 
-        idleObjects = new LinkedBlockingDeque<>(config.getFairness());
+        idleObjects = createIdleObjects();
+        threadCacheSize = Math.max(0, config.getThreadCacheSize());
+        threadCache = threadCacheSize > 0 ? new ThreadAffineIdleCache<>(threadCacheSize) : null;
 
         setConfig(config);
     }
@@ -148,6 +169,9 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      * faster than they are requesting them, causing the number of idle
      * objects to rise above maxIdle. The best value for maxIdle for heavily
      * loaded system will vary but the default is a good starting point.
+     * Setting {@link #setMaxIdleGracePeriodMillis(long) maxIdleGracePeriodMillis}
+     * avoids this churn by keeping the excess objects until the evictor finds
+     * they have been idle for the grace period.
      *
      * @return the maximum number of "idle" instances that can be held in the
      *         pool or a negative value if there is no limit
@@ -201,6 +225,28 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         this.minIdle = minIdle;
     }
 
+    /**
+     * Returns the maximum number of idle objects each thread keeps for itself.
+     * When positive, an object returned by a thread is cached for that thread
+     * and handed back to it by its next borrow without going through the
+     * shared idle objects. Cached objects count as idle, may be taken by other
+     * threads when the pool is exhausted and are moved back to the shared idle
+     * objects by the evictor once they have not been reused for
+     * {@link #getTimeBetweenEvictionRunsMillis()}. Objects are not cached while
+     * other threads are waiting for an idle object or while the evictor is not
+     * running, in which case cached objects are moved back when an object is
+     * returned. Cached objects are not limited by {@link #getMaxIdle()}. The
+     * value is fixed when the pool is created.
+     *
+     * @return the number of objects cached per thread, {@code 0} if disabled
+     *
+     * @see GenericObjectPoolConfig#setThreadCacheSize(int)
+     * @since 2.9.1
+     */
+    public int getThreadCacheSize() {
+        return threadCacheSize;
+    }
+
     /**
      * Returns the target for the minimum number of idle objects to maintain in
      * the pool. This setting only has an effect if it is positive and
@@ -227,6 +273,32 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         return minIdle;
     }
 
+    /**
+     * Gets the maximum number of idle objects the pool keeps, which differs
+     * from {@link #getMaxIdle()} when the pool has an adaptive idle
+     * configuration.
+     *
+     * @return the maximum in effect, negative for no limit
+     *
+     * @see #setAdaptiveIdleConfig(AdaptiveIdleConfig)
+     */
+    int getEffectiveMaxIdle() {
+        return getAdaptiveMaxIdle(getMaxIdle(), getMinIdle());
+    }
+
+    /**
+     * Gets the minimum number of idle objects the evictor maintains, which
+     * differs from {@link #getMinIdle()} when the pool has an adaptive idle
+     * configuration.
+     *
+     * @return the minimum in effect
+     *
+     * @see #setAdaptiveIdleConfig(AdaptiveIdleConfig)
+     */
+    int getEffectiveMinIdle() {
+        return getAdaptiveMinIdle(getMaxIdle(), getMinIdle());
+    }
+
     /**
      * Gets whether or not abandoned object removal is configured for this pool.
      *
@@ -296,6 +368,60 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         return ac != null ? ac.getRemoveAbandonedTimeout() : Integer.MAX_VALUE;
     }
 
+    /**
+     * Gets whether abandoned objects are only reported instead of being
+     * removed.
+     *
+     * @return {@code true} if abandoned object removal is configured for this
+     *         pool to report abandoned objects without removing them
+     *         otherwise {@code false}
+     *
+     * @see AbandonedConfig#getReportAbandonedOnly()
+     * @since 2.9.1
+     */
+    @Override
+    public boolean getReportAbandonedOnly() {
+        final AbandonedConfig ac = this.abandonedConfig;
+        return ac != null && ac.getReportAbandonedOnly();
+    }
+
+    /**
+     * Gets the number of objects found abandoned by this pool, removed or
+     * reported, since abandoned object removal was last configured.
+     *
+     * @return the number of abandoned objects found
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public long getAbandonedCount() {
+        final AbandonedObjectReport report = abandonedReport;
+        return report != null ? report.getTotal() : 0;
+    }
+
+    /**
+     * Gets the number of objects found abandoned by this pool since abandoned
+     * object removal was last configured, by the stack trace of the code that
+     * borrowed them, most frequent first. At most
+     * {@link AbandonedConfig#getAbandonedReportSize() abandonedReportSize}
+     * stack traces are kept. Borrow stack traces are only recorded when
+     * {@link AbandonedConfig#getLogAbandoned() logAbandoned} is true; objects
+     * borrowed without one are counted under {@code "<unknown>"}.
+     * <p>
+     * Building the report does not touch the objects of the pool.
+     * </p>
+     *
+     * @return the number of abandoned objects by borrow stack trace
+     *
+     * @see AbandonedConfig#getReportAbandonedOnly()
+     * @since 2.9.1
+     */
+    @Override
+    public Map<String, Long> getAbandonedObjectReport() {
+        final AbandonedObjectReport report = abandonedReport;
+        return report != null ? report.getCounts() : Collections.<String, Long>emptyMap();
+    }
+
 
     /**
      * Sets the base pool configuration.
@@ -322,15 +448,43 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     public void setAbandonedConfig(final AbandonedConfig abandonedConfig) {
         if (abandonedConfig == null) {
             this.abandonedConfig = null;
+            this.abandonedObjects = null;
+            this.abandonedReport = null;
         } else {
-            this.abandonedConfig = new AbandonedConfig();
-            this.abandonedConfig.setLogAbandoned(abandonedConfig.getLogAbandoned());
-            this.abandonedConfig.setLogWriter(abandonedConfig.getLogWriter());
-            this.abandonedConfig.setRemoveAbandonedOnBorrow(abandonedConfig.getRemoveAbandonedOnBorrow());
-            this.abandonedConfig.setRemoveAbandonedOnMaintenance(abandonedConfig.getRemoveAbandonedOnMaintenance());
-            this.abandonedConfig.setRemoveAbandonedTimeout(abandonedConfig.getRemoveAbandonedTimeout());
-            this.abandonedConfig.setUseUsageTracking(abandonedConfig.getUseUsageTracking());
-            this.abandonedConfig.setRequireFullStackTrace(abandonedConfig.getRequireFullStackTrace());
+            final AbandonedConfig ac = new AbandonedConfig();
+            ac.setLogAbandoned(abandonedConfig.getLogAbandoned());
+            ac.setLogWriter(abandonedConfig.getLogWriter());
+            ac.setRemoveAbandonedOnBorrow(abandonedConfig.getRemoveAbandonedOnBorrow());
+            ac.setRemoveAbandonedOnMaintenance(abandonedConfig.getRemoveAbandonedOnMaintenance());
+            ac.setRemoveAbandonedTimeout(abandonedConfig.getRemoveAbandonedTimeout());
+            ac.setUseUsageTracking(abandonedConfig.getUseUsageTracking());
+            ac.setRequireFullStackTrace(abandonedConfig.getRequireFullStackTrace());
+            ac.setMaxStackTraceDepth(abandonedConfig.getMaxStackTraceDepth());
+            ac.setStackTraceSampleInterval(abandonedConfig.getStackTraceSampleInterval());
+            ac.setUseStackTraceThresholdMillis(abandonedConfig.getUseStackTraceThresholdMillis());
+            ac.setReportAbandonedOnly(abandonedConfig.getReportAbandonedOnly());
+            ac.setAbandonedReportSize(abandonedConfig.getAbandonedReportSize());
+            this.abandonedReport = new AbandonedObjectReport(ac.getAbandonedReportSize());
+            // Index the objects already borrowed
+            final AbandonedTimingWheel<T> wheel = new AbandonedTimingWheel<>(getClock(),
+                    TimeUnit.SECONDS.toNanos(ac.getRemoveAbandonedTimeout()));
+            this.abandonedObjects = wheel;
+            for (final PooledObject<T> p : allObjects.values()) {
+                if (p.getState() == PooledObjectState.ALLOCATED) {
+                    wheel.add(p);
+                }
+            }
+            if (ac.getRemoveAbandonedOnBorrow()) {
+                closeLock.lock();
+                try {
+                    if (abandonedExecutor == null && !isClosed()) {
+                        abandonedExecutor = newMaintenanceExecutor("commons-pool-abandoned-thread");
+                    }
+                } finally {
+                    closeLock.unlock();
+                }
+            }
+            this.abandonedConfig = ac;
         }
     }
 
@@ -407,13 +561,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      */
     public T borrowObject(final long borrowMaxWaitMillis) throws Exception {
         assertOpen();
-
-        final AbandonedConfig ac = this.abandonedConfig;
-        if (ac != null && ac.getRemoveAbandonedOnBorrow() &&
-                (getNumIdle() < 2) &&
-                (getNumActive() > getMaxTotal() - 3) ) {
-            removeAbandoned(ac);
-        }
+        removeAbandonedOnBorrow();
 
         PooledObject<T> p = null;
 
@@ -422,20 +570,39 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         final boolean blockWhenExhausted = getBlockWhenExhausted();
 
         boolean create;
-        final long waitTimeMillis = System.currentTimeMillis();
+        final long waitTimeNanos = getClock().nanoTime();
 
         while (p == null) {
             create = false;
-            p = idleObjects.pollFirst();
+            if (threadCache != null) {
+                p = threadCache.take();
+            }
             if (p == null) {
+                p = idleObjects.pollFirst();
+            }
+            if (p == null && threadCache != null) {
+                // Objects cached for other threads are reused before the
+                // pool grows
+                p = threadCache.steal();
+            }
+            final boolean asyncCreate = blockWhenExhausted && isAsyncCreate();
+            if (p == null && !asyncCreate) {
                 p = create();
                 if (p != null) {
                     create = true;
                 }
             }
+            if (p == null && asyncCreate) {
+                // Wait as an asynchronous borrower, which is handed the
+                // object created on its behalf or the failure to create it
+                return awaitBorrow(borrowAsync(waitTimeNanos,
+                        remainingWaitNanos(borrowMaxWaitMillis, waitTimeNanos), true));
+            }
             if (blockWhenExhausted) {
                 if (p == null) {
-                    if (borrowMaxWaitMillis < 0) {
+                    if (threadCache != null) {
+                        p = pollIdleObjects(borrowMaxWaitMillis);
+                    } else if (borrowMaxWaitMillis < 0) {
                         p = idleObjects.takeFirst();
                     } else {
                         p = idleObjects.pollFirst(borrowMaxWaitMillis,
@@ -451,58 +618,631 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                     throw new NoSuchElementException("Pool exhausted");
                 }
             }
-            if (!p.allocate()) {
+            if (!p.allocate() || !activateAndValidate(p, create)) {
                 p = null;
             }
+        }
 
-            if (p != null) {
+        trackAbandoned(p);
+        updateStatsBorrow(p, getClock().nanoTime() - waitTimeNanos);
+
+        return p.getObject();
+    }
+
+    /**
+     * Equivalent to <code>{@link #borrowObjectAsync(Duration)
+     * borrowObjectAsync}({@link #getMaxWaitMillis()})</code>.
+     * <p>
+     * {@inheritDoc}
+     * </p>
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public CompletableFuture<T> borrowObjectAsync() {
+        return borrowObjectAsync(Duration.ofMillis(getMaxWaitMillis()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The borrower is queued behind earlier asynchronous borrowers and is
+     * served from the idle objects in arrival order. If there are no idle
+     * objects, an object is created in the background, subject to
+     * {@link #getMaxTotal() maxTotal}. If {@link #getBlockWhenExhausted()} is
+     * false, the future fails as soon as the pool turns out to be exhausted.
+     * </p>
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public CompletableFuture<T> borrowObjectAsync(final Duration maxWait) {
+        if (isClosed()) {
+            final CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Pool not open"));
+            return future;
+        }
+        removeAbandonedOnBorrow();
+
+        final boolean blockWhenExhausted = getBlockWhenExhausted();
+        return borrowAsync(getClock().nanoTime(), blockWhenExhausted ? toWaitNanos(maxWait) : -1,
+                blockWhenExhausted);
+    }
+
+    /**
+     * Adds an asynchronous borrower, serves it if an object is idle and
+     * otherwise creates an object on its behalf.
+     *
+     * @param startNanos the time the borrower started waiting
+     * @param timeoutNanos the time after which the borrower fails with a
+     *        {@link NoSuchElementException}, negative to wait indefinitely
+     * @param blockWhenExhausted whether the borrower waits if the pool is at
+     *        capacity, rather than failing
+     * @return the future of the borrower
+     */
+    private CompletableFuture<T> borrowAsync(final long startNanos, final long timeoutNanos,
+            final boolean blockWhenExhausted) {
+        final AsyncBorrowWaiters.Waiter<T> waiter = asyncWaiters.add(startNanos, timeoutNanos);
+        if (isClosed()) {
+            // Pool closed while the waiter was being added
+            asyncWaiters.failAll(new IllegalStateException("Pool not open"));
+        }
+        dispatchAsyncWaiters();
+        if (!waiter.getFuture().isDone()) {
+            createForAsyncWaiter(waiter, blockWhenExhausted);
+        }
+        return waiter.getFuture();
+    }
+
+    /**
+     * Hands idle objects to asynchronous borrowers, oldest first, until
+     * either runs out.
+     */
+    private void dispatchAsyncWaiters() {
+        AsyncBorrowWaiters.Waiter<T> destroyedFor = null;
+        while (!asyncWaiters.isEmpty()) {
+            PooledObject<T> p = idleObjects.pollFirst();
+            if (p == null && threadCache != null) {
+                p = threadCache.steal();
+            }
+            if (p == null) {
+                break;
+            }
+            final AsyncBorrowWaiters.Waiter<T> waiter = asyncWaiters.poll();
+            if (waiter == null) {
+                // Waiters completed concurrently, re-check once the object is back
+                idleObjects.addFirst(p);
+                continue;
+            }
+            if (!p.allocate()) {
+                // Under eviction test, the evictor puts it back
+                asyncWaiters.addFirst(waiter);
+                continue;
+            }
+            if (!activateAndValidate(p, false)) {
+                destroyedFor = waiter;
+                asyncWaiters.addFirst(waiter);
+                continue;
+            }
+            // Accounted before the borrower can see, and return, the object, so a
+            // borrower giving up meanwhile still counts as a borrow
+            trackAbandoned(p);
+            updateStatsBorrow(p, getClock().nanoTime() - waiter.getStartNanos());
+            if (!waiter.getFuture().complete(p.getObject())) {
+                // Timed out or cancelled meanwhile
+                releaseBatch(Collections.singletonList(p));
+            }
+        }
+        if (destroyedFor != null && !destroyedFor.getFuture().isDone()) {
+            createForAsyncWaiter(destroyedFor, true);
+        }
+    }
+
+    /**
+     * Creates an object on the {@link #getCreateExecutor() create executor}
+     * for asynchronous borrowers and adds it to the idle objects, from where
+     * it is dispatched.
+     *
+     * @param waiter the borrower on whose behalf the object is created
+     * @param blockWhenExhausted whether the borrower waits if the pool is at
+     *        capacity, rather than failing
+     */
+    private void createForAsyncWaiter(final AsyncBorrowWaiters.Waiter<T> waiter,
+            final boolean blockWhenExhausted) {
+        if (isAsyncCreate()) {
+            if (blockWhenExhausted) {
+                requestAsyncCreate(waiter);
+            } else if (!startAsyncCreate(waiter)) {
+                waiter.getFuture().completeExceptionally(new NoSuchElementException("Pool exhausted"));
+            }
+            return;
+        }
+        try {
+            getCreateExecutor().execute(() -> {
+                if (waiter.getFuture().isDone()) {
+                    return;
+                }
                 try {
-                    factory.activateObject(p);
+                    final PooledObject<T> p = create();
+                    if (p != null) {
+                        addIdleObject(p);
+                        if (isClosed()) {
+                            clear();
+                        }
+                    } else if (!blockWhenExhausted) {
+                        waiter.getFuture().completeExceptionally(new NoSuchElementException("Pool exhausted"));
+                    }
                 } catch (final Exception e) {
+                    waiter.getFuture().completeExceptionally(e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // Closed meanwhile, or the configured executor is saturated
+            waiter.getFuture().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Removes abandoned objects if the pool is configured to do so on borrow
+     * and is close to being exhausted. While the pool still has room and the
+     * borrower may block, the objects are removed in the background, so the
+     * borrowing thread does not wait for them to be destroyed; borrowers
+     * blocked on the exhausted pool are served as they are. Otherwise the
+     * borrower can only be served by the objects it removes, so it removes
+     * them itself.
+     */
+    private void removeAbandonedOnBorrow() {
+        final AbandonedConfig ac = this.abandonedConfig;
+        if (ac != null && ac.getRemoveAbandonedOnBorrow() &&
+                (getNumIdle() < 2) &&
+                (getNumActive() > getMaxTotal() - 3) ) {
+            final Executor executor = abandonedExecutor;
+            final int maxTotal = getMaxTotal();
+            if (executor == null || !getBlockWhenExhausted() ||
+                    maxTotal > -1 && getNumActive() >= maxTotal) {
+                removeAbandoned(ac);
+                return;
+            }
+            if (!abandonedRemovalPending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(() -> {
                     try {
-                        destroy(p, DestroyMode.NORMAL);
-                    } catch (final Exception e1) {
-                        // Ignore - activation failure is more important
+                        removeAbandoned(ac);
+                    } finally {
+                        abandonedRemovalPending.set(false);
                     }
-                    p = null;
-                    if (create) {
-                        final NoSuchElementException nsee = new NoSuchElementException(
-                                "Unable to activate object");
-                        nsee.initCause(e);
-                        throw nsee;
+                });
+            } catch (final RejectedExecutionException e) {
+                // Closed meanwhile
+                abandonedRemovalPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Indexes a borrowed object for abandoned object removal, if configured.
+     *
+     * @param p the allocated object
+     */
+    private void trackAbandoned(final PooledObject<T> p) {
+        final AbandonedTimingWheel<T> wheel = abandonedObjects;
+        if (wheel != null) {
+            wheel.add(p);
+        }
+    }
+
+    /**
+     * Activates and, if {@link #getTestOnBorrow() testOnBorrow} is set,
+     * validates an allocated object. The object is destroyed if either fails.
+     *
+     * @param p the allocated object
+     * @param create whether the object has just been created
+     * @return {@code true} if the object is ready to be handed out,
+     *         {@code false} if it has been destroyed
+     * @throws NoSuchElementException if a newly created object fails
+     *         activation or validation
+     */
+    private boolean activateAndValidate(final PooledObject<T> p, final boolean create) {
+        try {
+            factory.activateObject(p);
+        } catch (final Exception e) {
+            try {
+                destroy(p, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+            } catch (final Exception e1) {
+                // Ignore - activation failure is more important
+            }
+            if (create) {
+                final NoSuchElementException nsee = new NoSuchElementException(
+                        "Unable to activate object");
+                nsee.initCause(e);
+                throw nsee;
+            }
+            return false;
+        }
+        if (getTestOnBorrow()) {
+            boolean validate = false;
+            Throwable validationThrowable = null;
+            try {
+                validate = factory.validateObject(p);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                validationThrowable = t;
+            }
+            if (!validate) {
+                fireValidationFailure(null, p);
+                try {
+                    destroy(p, DestroyMode.NORMAL, DestroyCause.VALIDATION_FAILED);
+                    destroyedByBorrowValidationCount.incrementAndGet();
+                } catch (final Exception e) {
+                    // Ignore - validation failure is more important
+                }
+                if (create) {
+                    final NoSuchElementException nsee = new NoSuchElementException(
+                            "Unable to validate object");
+                    nsee.initCause(validationThrowable);
+                    throw nsee;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The idle objects are taken from the pool in one operation and, if the
+     * idle objects do not suffice, the shortfall is created in parallel up to
+     * {@link #getMaxTotal() maxTotal}. The objects are then activated and
+     * validated as by {@link #borrowObject(long)}. If the pool is exhausted and
+     * {@link #getBlockWhenExhausted()} is true, this method waits for objects
+     * to be returned, at most for {@code maxWait}.
+     * </p>
+     * <p>
+     * Batch borrows in all-or-nothing mode are served one at a time and hold
+     * on to the objects they have obtained while they wait for the remainder,
+     * so that concurrent batches cannot deadlock by each holding part of the
+     * pool. If the batch cannot be completed, the objects obtained so far are
+     * returned to the pool before the exception is thrown.
+     * </p>
+     *
+     * @throws IllegalArgumentException if {@code count} is negative or, in
+     *         all-or-nothing mode, greater than {@link #getMaxTotal() maxTotal}
+     * @since 2.9.1
+     */
+    @Override
+    public List<T> borrowObjects(final int count, final Duration maxWait, final boolean allOrNothing)
+            throws Exception {
+        assertOpen();
+        final int maxTotalSave = getMaxTotal();
+        if (count < 0 || allOrNothing && maxTotalSave > -1 && count > maxTotalSave) {
+            throw new IllegalArgumentException("Cannot borrow a batch of " + count +
+                    " objects from a pool with maxTotal " + maxTotalSave);
+        }
+        if (count == 0) {
+            return new ArrayList<>(0);
+        }
+        removeAbandonedOnBorrow();
+
+        // Get local copy of current config so it is consistent for entire
+        // method execution
+        final boolean blockWhenExhausted = getBlockWhenExhausted();
+        final long maxWaitNanos = blockWhenExhausted ? toWaitNanos(maxWait) : 0;
+        final long waitTimeNanos = getClock().nanoTime();
+
+        final List<PooledObject<T>> batch = new ArrayList<>(count);
+        if (allOrNothing && !awaitBatchLock(maxWaitNanos)) {
+            throw new NoSuchElementException("Timeout waiting for idle object");
+        }
+        try {
+            while (batch.size() < count) {
+                final int shortfall = count - batch.size();
+                final List<PooledObject<T>> idle = new ArrayList<>(shortfall);
+                final List<PooledObject<T>> created = new ArrayList<>(shortfall);
+                if (threadCache != null) {
+                    PooledObject<T> p;
+                    while (idle.size() < shortfall && (p = threadCache.take()) != null) {
+                        idle.add(p);
                     }
                 }
-                if (p != null && getTestOnBorrow()) {
-                    boolean validate = false;
-                    Throwable validationThrowable = null;
-                    try {
-                        validate = factory.validateObject(p);
-                    } catch (final Throwable t) {
-                        PoolUtils.checkRethrow(t);
-                        validationThrowable = t;
+                idleObjects.drainTo(idle, shortfall - idle.size());
+                if (threadCache != null) {
+                    PooledObject<T> p;
+                    while (idle.size() < shortfall && (p = threadCache.steal()) != null) {
+                        idle.add(p);
+                    }
+                }
+                Exception failure = null;
+                try {
+                    createBatch(Math.min(shortfall - idle.size(), getCreateCapacity(maxTotalSave)),
+                            this::create, created);
+                } catch (final Exception e) {
+                    failure = e;
+                }
+                if (failure == null && idle.isEmpty() && created.isEmpty()) {
+                    if (!allOrNothing && !batch.isEmpty()) {
+                        break;
+                    }
+                    idle.add(waitForIdleObject(blockWhenExhausted, maxWaitNanos, waitTimeNanos));
+                }
+                // Every object taken must end up in the batch or be destroyed
+                for (final PooledObject<T> p : idle) {
+                    if (p.allocate() && activateAndValidate(p, false)) {
+                        batch.add(p);
                     }
-                    if (!validate) {
-                        try {
-                            destroy(p, DestroyMode.NORMAL);
-                            destroyedByBorrowValidationCount.incrementAndGet();
-                        } catch (final Exception e) {
-                            // Ignore - validation failure is more important
+                }
+                for (final PooledObject<T> p : created) {
+                    try {
+                        if (p.allocate() && activateAndValidate(p, true)) {
+                            batch.add(p);
                         }
-                        p = null;
-                        if (create) {
-                            final NoSuchElementException nsee = new NoSuchElementException(
-                                    "Unable to validate object");
-                            nsee.initCause(validationThrowable);
-                            throw nsee;
+                    } catch (final NoSuchElementException e) {
+                        if (failure == null) {
+                            failure = e;
                         }
                     }
                 }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        } catch (final Exception e) {
+            releaseBatch(batch);
+            throw e;
+        } finally {
+            if (allOrNothing) {
+                batchLock.unlock();
             }
         }
 
-        updateStatsBorrow(p, System.currentTimeMillis() - waitTimeMillis);
+        for (final PooledObject<T> p : batch) {
+            trackAbandoned(p);
+        }
+        updateStatsBorrow(null, batch, getClock().nanoTime() - waitTimeNanos);
 
-        return p.getObject();
+        final List<T> objs = new ArrayList<>(batch.size());
+        for (final PooledObject<T> p : batch) {
+            objs.add(p.getObject());
+        }
+        return objs;
+    }
+
+    /**
+     * Acquires the lock that serializes all-or-nothing batch borrows.
+     *
+     * @param maxWaitNanos the maximum time to wait, negative to wait
+     *        indefinitely
+     * @return {@code true} if the lock was acquired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private boolean awaitBatchLock(final long maxWaitNanos) throws InterruptedException {
+        if (maxWaitNanos < 0) {
+            batchLock.lockInterruptibly();
+            return true;
+        }
+        return batchLock.tryLock(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns an estimate of the number of objects that can still be created
+     * before the pool reaches {@code maxTotal}.
+     *
+     * @param maxTotalSave the value of {@link #getMaxTotal()}
+     * @return the number of objects that can be created
+     */
+    private int getCreateCapacity(final int maxTotalSave) {
+        if (maxTotalSave < 0) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.max(0, maxTotalSave - createCount.get());
+    }
+
+    /**
+     * Waits for an object to be returned to the pool for a batch borrow.
+     *
+     * @param blockWhenExhausted the value of {@link #getBlockWhenExhausted()}
+     * @param maxWaitNanos the maximum wait time of the batch, negative to wait
+     *        indefinitely
+     * @param startNanos the time the batch borrow started
+     * @return an idle object
+     * @throws NoSuchElementException if no object became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private PooledObject<T> waitForIdleObject(final boolean blockWhenExhausted,
+            final long maxWaitNanos, final long startNanos) throws InterruptedException {
+        if (!blockWhenExhausted) {
+            throw new NoSuchElementException("Pool exhausted");
+        }
+        final PooledObject<T> p;
+        if (maxWaitNanos < 0) {
+            p = threadCache != null ? pollIdleObjects(-1) : idleObjects.takeFirst();
+        } else {
+            final long remaining = Math.max(0, maxWaitNanos - (getClock().nanoTime() - startNanos));
+            p = threadCache != null ? pollIdleObjects(TimeUnit.NANOSECONDS.toMillis(remaining)) :
+                    idleObjects.pollFirst(remaining, TimeUnit.NANOSECONDS);
+        }
+        if (p == null) {
+            throw new NoSuchElementException("Timeout waiting for idle object");
+        }
+        return p;
+    }
+
+    /**
+     * Puts the objects of a batch borrow that could not be completed back
+     * into the pool, without updating the borrow and return statistics.
+     *
+     * @param batch the allocated and activated objects
+     */
+    private void releaseBatch(final List<PooledObject<T>> batch) {
+        for (final PooledObject<T> p : batch) {
+            try {
+                factory.passivateObject(p);
+            } catch (final Exception e) {
+                swallowException(e);
+                try {
+                    destroy(p, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+                } catch (final Exception e1) {
+                    swallowException(e1);
+                }
+                continue;
+            }
+            p.deallocate();
+            if (getLifo()) {
+                idleObjects.addFirst(p);
+            } else {
+                idleObjects.addLast(p);
+            }
+        }
+        if (isClosed()) {
+            clear();
+        }
+        dispatchAsyncWaiters();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each object is validated and passivated as by {@link #returnObject},
+     * then the objects that are kept are added to the idle objects in one
+     * operation, honoring {@link #getMaxIdle() maxIdle}. The thread cache is
+     * bypassed.
+     * </p>
+     *
+     * @since 2.9.1
+     */
+    @Override
+    public void returnObjects(final Collection<T> objs) {
+        final List<PooledObject<T>> pooled = new ArrayList<>(objs.size());
+        for (final T obj : objs) {
+            final PooledObject<T> p = IdentityWrapper.get(allObjects, obj);
+            if (p == null) {
+                if (!isAbandonedConfig()) {
+                    throw new IllegalStateException(
+                            "Returned object not currently part of this pool");
+                }
+                // Object was abandoned and removed
+            } else {
+                pooled.add(p);
+            }
+        }
+
+        final long[] activeTimesNanos = new long[pooled.size()];
+        final List<PooledObject<T>> toIdle = new ArrayList<>(pooled.size());
+        int returned = 0;
+        int destroyed = 0;
+        IllegalStateException failure = null;
+        for (final PooledObject<T> p : pooled) {
+            try {
+                markReturningState(p);
+            } catch (final IllegalStateException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                continue;
+            }
+            activeTimesNanos[returned] = p.getActiveTimeNanos();
+            fireReturn(null, p, activeTimesNanos[returned++]);
+            DestroyCause cause = null;
+            try {
+                if (getTestOnReturn() && !factory.validateObject(p)) {
+                    fireValidationFailure(null, p);
+                    cause = DestroyCause.VALIDATION_FAILED;
+                } else {
+                    factory.passivateObject(p);
+                }
+            } catch (final Exception e) {
+                swallowException(e);
+                cause = DestroyCause.FACTORY_FAILURE;
+            }
+            if (cause != null) {
+                try {
+                    destroy(p, DestroyMode.NORMAL, cause);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+                destroyed++;
+            } else if (!p.deallocate()) {
+                if (failure == null) {
+                    failure = new IllegalStateException(
+                            "Object has already been returned to this pool or is invalid");
+                }
+            } else {
+                toIdle.add(p);
+            }
+        }
+
+        final int maxIdleSave = getEffectiveMaxIdle();
+        final int idleRoom = maxIdleSave < 0 ? toIdle.size() :
+                Math.max(0, Math.min(toIdle.size(), maxIdleSave - idleObjects.size()));
+        returnedOverMaxIdleCount.addAndGet(toIdle.size() - idleRoom);
+        final int room = isClosed() ? 0 : isMaxIdleGracePeriod() ? toIdle.size() : idleRoom;
+        for (final PooledObject<T> p : toIdle.subList(room, toIdle.size())) {
+            try {
+                destroy(p, DestroyMode.NORMAL, isClosed() ? DestroyCause.CLEARED : DestroyCause.MAX_IDLE);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            destroyed++;
+        }
+        if (!isClosed()) {
+            destroyedByMaxIdleCount.addAndGet(toIdle.size() - room);
+        }
+        if (room > 0) {
+            if (getLifo()) {
+                idleObjects.addAllFirst(toIdle.subList(0, room));
+            } else {
+                idleObjects.addAllLast(toIdle.subList(0, room));
+            }
+            if (isClosed()) {
+                // Pool closed while objects were being added to idle objects.
+                // Make sure the returned objects are destroyed rather than
+                // left in the idle object pool (which would effectively be a leak)
+                clear();
+            }
+            dispatchAsyncWaiters();
+        }
+        if (destroyed > 0) {
+            try {
+                ensureIdle(destroyed, false);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+        }
+        updateStatsReturn(returned == activeTimesNanos.length ? activeTimesNanos :
+                Arrays.copyOf(activeTimesNanos, returned));
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits for an idle object when the thread cache is enabled. The waiter
+     * is counted before the caches of other threads are checked, so a thread
+     * that caches an object concurrently sees the waiter and hands the object
+     * over through the idle objects instead, which wakes up the waiter.
+     *
+     * @param borrowMaxWaitMillis The time to wait in milliseconds, negative
+     *                            values wait indefinitely
+     * @return an idle object or {@code null} if the wait time elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private PooledObject<T> pollIdleObjects(final long borrowMaxWaitMillis)
+            throws InterruptedException {
+        threadCacheWaiters.incrementAndGet();
+        try {
+            final PooledObject<T> p = threadCache.steal();
+            if (p != null) {
+                return p;
+            }
+            if (borrowMaxWaitMillis < 0) {
+                return idleObjects.takeFirst();
+            }
+            return idleObjects.pollFirst(borrowMaxWaitMillis, TimeUnit.MILLISECONDS);
+        } finally {
+            threadCacheWaiters.decrementAndGet();
+        }
     }
 
     /**
@@ -524,7 +1264,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      */
     @Override
     public void returnObject(final T obj) {
-        final PooledObject<T> p = allObjects.get(new IdentityWrapper<>(obj));
+        final PooledObject<T> p = IdentityWrapper.get(allObjects, obj);
 
         if (p == null) {
             if (!isAbandonedConfig()) {
@@ -536,11 +1276,12 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
 
         markReturningState(p);
 
-        final long activeTime = p.getActiveTimeMillis();
+        final long activeTimeNanos = p.getActiveTimeNanos();
 
         if (getTestOnReturn() && !factory.validateObject(p)) {
+            fireValidationFailure(null, p);
             try {
-                destroy(p, DestroyMode.NORMAL);
+                destroy(p, DestroyMode.NORMAL, DestroyCause.VALIDATION_FAILED);
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -549,7 +1290,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             } catch (final Exception e) {
                 swallowException(e);
             }
-            updateStatsReturn(activeTime);
+            updateStatsReturn(null, p, activeTimeNanos);
             return;
         }
 
@@ -558,7 +1299,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         } catch (final Exception e1) {
             swallowException(e1);
             try {
-                destroy(p, DestroyMode.NORMAL);
+                destroy(p, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -567,7 +1308,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             } catch (final Exception e) {
                 swallowException(e);
             }
-            updateStatsReturn(activeTime);
+            updateStatsReturn(null, p, activeTimeNanos);
             return;
         }
 
@@ -576,13 +1317,41 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                     "Object has already been returned to this pool or is invalid");
         }
 
-        final int maxIdleSave = getMaxIdle();
-        if (isClosed() || maxIdleSave > -1 && maxIdleSave <= idleObjects.size()) {
+        final int maxIdleSave = getEffectiveMaxIdle();
+        if (threadCache != null && getTimeBetweenEvictionRunsMillis() <= 0 && threadCache.size() > 0) {
+            // Without an evictor, nothing else moves cached objects back
+            threadCache.drain(0, getLifo() ? idleObjects::addLast : idleObjects::addFirst);
+        }
+        if (threadCache != null && getTimeBetweenEvictionRunsMillis() > 0 &&
+                !isClosed() && threadCacheWaiters.get() == 0 &&
+                !idleObjects.hasTakeWaiters() && asyncWaiters.isEmpty() &&
+                (maxIdleSave < 0 || getNumIdle() < maxIdleSave) &&
+                threadCache.offer(p)) {
+            // The pool may have been closed or a borrower may have started
+            // waiting while the object was being cached. If the object can be
+            // claimed back it takes the regular return path below, which
+            // destroys it or wakes up the waiter
+            if (!(isClosed() || threadCacheWaiters.get() > 0) || !threadCache.remove(p)) {
+                // An asynchronous borrower may have started waiting meanwhile
+                dispatchAsyncWaiters();
+                updateStatsReturn(null, p, activeTimeNanos);
+                return;
+            }
+        }
+
+        final boolean overMaxIdle = maxIdleSave > -1 && maxIdleSave <= getNumIdle();
+        if (overMaxIdle) {
+            returnedOverMaxIdleCount.incrementAndGet();
+        }
+        if (isClosed() || overMaxIdle && !isMaxIdleGracePeriod()) {
             try {
-                destroy(p, DestroyMode.NORMAL);
+                destroy(p, DestroyMode.NORMAL, isClosed() ? DestroyCause.CLEARED : DestroyCause.MAX_IDLE);
             } catch (final Exception e) {
                 swallowException(e);
             }
+            if (overMaxIdle && !isClosed()) {
+                destroyedByMaxIdleCount.incrementAndGet();
+            }
             try {
                 ensureIdle(1, false);
             } catch (final Exception e) {
@@ -600,8 +1369,9 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                 // in the idle object pool (which would effectively be a leak)
                 clear();
             }
+            dispatchAsyncWaiters();
         }
-        updateStatsReturn(activeTime);
+        updateStatsReturn(null, p, activeTimeNanos);
     }
 
     /**
@@ -634,7 +1404,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      */
     @Override
     public void invalidateObject(final T obj, final DestroyMode mode) throws Exception {
-        final PooledObject<T> p = allObjects.get(new IdentityWrapper<>(obj));
+        final PooledObject<T> p = IdentityWrapper.get(allObjects, obj);
         if (p == null) {
             if (isAbandonedConfig()) {
                 return;
@@ -642,10 +1412,15 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             throw new IllegalStateException(
                     "Invalidated object not currently part of this pool");
         }
-        synchronized (p) {
-            if (p.getState() != PooledObjectState.INVALID) {
-                destroy(p, mode);
+        final boolean invalidated = withStateLock(p, () -> {
+            if (p.getState() == PooledObjectState.INVALID) {
+                return false;
             }
+            p.invalidate();
+            return true;
+        });
+        if (invalidated) {
+            destroy(p, mode, DestroyCause.INVALIDATED);
         }
         ensureIdle(1, false);
     }
@@ -670,11 +1445,14 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      */
     @Override
     public void clear() {
+        if (threadCache != null) {
+            threadCache.drain(0, idleObjects::addLast);
+        }
         PooledObject<T> p = idleObjects.poll();
 
         while (p != null) {
             try {
-                destroy(p, DestroyMode.NORMAL);
+                destroy(p, DestroyMode.NORMAL, DestroyCause.CLEARED);
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -684,11 +1462,14 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
 
     @Override
     public int getNumActive() {
-        return allObjects.size() - idleObjects.size();
+        return allObjects.size() - getNumIdle();
     }
 
     @Override
     public int getNumIdle() {
+        if (threadCache != null) {
+            return idleObjects.size() + threadCache.size();
+        }
         return idleObjects.size();
     }
 
@@ -707,7 +1488,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             return;
         }
 
-        synchronized (closeLock) {
+        closeLock.lock();
+        try {
             if (isClosed()) {
                 return;
             }
@@ -717,6 +1499,10 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             stopEvictor();
 
             closed = true;
+            if (threadCache != null) {
+                // Release the objects and slots of every thread's cache
+                threadCache.close(idleObjects::addLast);
+            }
             // This clear removes any idle objects
             clear();
 
@@ -724,6 +1510,14 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
 
             // Release any threads that were waiting for an object
             idleObjects.interuptTakeWaiters();
+            asyncWaiters.failAll(new IllegalStateException("Pool not open"));
+            shutdownCreateExecutor();
+            shutdownEvictionValidationExecutor();
+            if (abandonedExecutor != null) {
+                abandonedExecutor.shutdown();
+            }
+        } finally {
+            closeLock.unlock();
         }
     }
 
@@ -731,28 +1525,50 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      * {@inheritDoc}
      * <p>
      * Successive activations of this method examine objects in sequence,
-     * cycling through objects in oldest-to-youngest order.
+     * cycling through objects in oldest-to-youngest order. When
+     * {@link #getEvictExpiredOnly()} applies, each activation instead starts
+     * with the oldest object and stops at the first one that has not expired.
      * </p>
      */
     @Override
     public void evict() throws Exception {
         assertOpen();
 
+        if (threadCache != null) {
+            // Objects not reused by their caching thread since the last run
+            // become regular idle objects, oldest end of the idle objects
+            threadCache.drain(getTimeBetweenEvictionRunsMillis(),
+                    getLifo() ? idleObjects::addLast : idleObjects::addFirst);
+        }
+
+        trimIdleObjects();
+
         if (!idleObjects.isEmpty()) {
 
             PooledObject<T> underTest = null;
             final EvictionPolicy<T> evictionPolicy = getEvictionPolicy();
 
-            synchronized (evictionLock) {
+            evictionLock.lock();
+            try {
                 final EvictionConfig evictionConfig = new EvictionConfig(
                         getMinEvictableIdleTimeMillis(),
                         getSoftMinEvictableIdleTimeMillis(),
-                        getMinIdle());
+                        getEffectiveMinIdle());
 
                 final boolean testWhileIdle = getTestWhileIdle();
+                final boolean expiredOnly = isEvictExpiredOnly(evictionPolicy, testWhileIdle);
+                if (expiredOnly) {
+                    // The idle objects are in the order they were returned, so
+                    // each run starts with the oldest
+                    evictionIterator = null;
+                }
 
                 for (int i = 0, m = getNumTests(); i < m; i++) {
                     if (evictionIterator == null || !evictionIterator.hasNext()) {
+                        if (expiredOnly && evictionIterator != null) {
+                            // All idle objects examined
+                            break;
+                        }
                         evictionIterator = new EvictionIterator(idleObjects);
                     }
                     if (!evictionIterator.hasNext()) {
@@ -794,46 +1610,128 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                     }
 
                     if (evict) {
-                        destroy(underTest, DestroyMode.NORMAL);
+                        fireEvict(null, underTest);
+                        destroy(underTest, DestroyMode.NORMAL, DestroyCause.EVICTED);
                         destroyedByEvictorCount.incrementAndGet();
                     } else {
                         if (testWhileIdle) {
-                            boolean active = false;
-                            try {
-                                factory.activateObject(underTest);
-                                active = true;
-                            } catch (final Exception e) {
-                                destroy(underTest, DestroyMode.NORMAL);
-                                destroyedByEvictorCount.incrementAndGet();
+                            if (!reserveEvictionValidation()) {
+                                // Validation budget used up, later runs
+                                // examine the remaining objects
+                                underTest.endEvictionTest(idleObjects);
+                                break;
                             }
-                            if (active) {
-                                if (!factory.validateObject(underTest)) {
-                                    destroy(underTest, DestroyMode.NORMAL);
-                                    destroyedByEvictorCount.incrementAndGet();
-                                } else {
-                                    try {
-                                        factory.passivateObject(underTest);
-                                    } catch (final Exception e) {
-                                        destroy(underTest, DestroyMode.NORMAL);
-                                        destroyedByEvictorCount.incrementAndGet();
-                                    }
-                                }
+                            if (isAsyncEvictionValidation()) {
+                                final PooledObject<T> validating = underTest;
+                                executeEvictionValidation(() -> validateIdleObjectAsync(validating));
+                                continue;
                             }
+                            validateIdleObject(underTest);
                         }
                         if (!underTest.endEvictionTest(idleObjects)) {
                             // TODO - May need to add code here once additional
                             // states are used
                         }
+                        if (expiredOnly) {
+                            // Younger objects have not expired either
+                            break;
+                        }
                     }
                 }
+            } finally {
+                evictionLock.unlock();
             }
         }
+        // Objects under test may have been skipped by asynchronous borrowers
+        dispatchAsyncWaiters();
         final AbandonedConfig ac = this.abandonedConfig;
         if (ac != null && ac.getRemoveAbandonedOnMaintenance()) {
             removeAbandoned(ac);
         }
     }
 
+    /**
+     * Destroys the oldest idle objects in excess of {@link #getMaxIdle()} once
+     * they have been idle for {@link #getMaxIdleGracePeriodMillis()}.
+     *
+     */
+    private void trimIdleObjects() {
+        if (getMaxIdleGracePeriodMillis() <= 0) {
+            return;
+        }
+        evictionLock.lock();
+        try {
+            for (final PooledObject<T> p : startExcessIdleTest(idleObjects, getEffectiveMaxIdle())) {
+                try {
+                    destroy(p, DestroyMode.NORMAL, DestroyCause.MAX_IDLE);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+                destroyedByEvictorCount.incrementAndGet();
+                destroyedByMaxIdleCount.incrementAndGet();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Activates, validates and passivates an idle object under eviction test,
+     * destroying it if any of these steps fail.
+     *
+     * @param underTest the idle object
+     * @throws Exception if the object cannot be destroyed
+     */
+    private void validateIdleObject(final PooledObject<T> underTest) throws Exception {
+        boolean active = false;
+        try {
+            factory.activateObject(underTest);
+            active = true;
+        } catch (final Exception e) {
+            destroy(underTest, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+            destroyedByEvictorCount.incrementAndGet();
+        }
+        if (active) {
+            if (!factory.validateObject(underTest)) {
+                fireValidationFailure(null, underTest);
+                destroy(underTest, DestroyMode.NORMAL, DestroyCause.VALIDATION_FAILED);
+                destroyedByEvictorCount.incrementAndGet();
+            } else {
+                try {
+                    factory.passivateObject(underTest);
+                } catch (final Exception e) {
+                    destroy(underTest, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+                    destroyedByEvictorCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates an idle object under eviction test on the eviction validation
+     * executor and ends its eviction test.
+     *
+     * @param underTest the idle object
+     */
+    private void validateIdleObjectAsync(final PooledObject<T> underTest) {
+        try {
+            validateIdleObject(underTest);
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+        underTest.endEvictionTest(idleObjects);
+        if (isClosed() && idleObjects.remove(underTest)) {
+            // Missed by clear() while under test
+            try {
+                destroy(underTest, DestroyMode.NORMAL, DestroyCause.CLEARED);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            return;
+        }
+        dispatchAsyncWaiters();
+    }
+
     /**
      * Tries to ensure that {@link #getMinIdle()} idle instances are available
      * in the pool.
@@ -848,6 +1746,40 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         ensureMinIdle();
     }
 
+    /**
+     * Tries to ensure that {@link #getMinIdle()} idle instances are available
+     * in the pool, creating up to {@code concurrency} instances in parallel on
+     * threads dedicated to this warm-up. Unlike {@link #preparePool()}, the
+     * calling thread does not wait for the instances to be created.
+     * <p>
+     * No creation starts once {@code deadline} has passed, but creations
+     * already started are awaited before the returned future completes.
+     * Failures do not stop the warm-up; they are counted and passed to the
+     * {@link #getSwallowedExceptionListener() swallowed exception listener}.
+     * </p>
+     *
+     * @param concurrency the maximum number of instances created in parallel
+     * @param deadline the time after which no creation starts, {@code null} or
+     *        negative for no deadline
+     * @return a future completed with the numbers of instances created, failed
+     *         and not attempted
+     * @throws IllegalArgumentException if {@code concurrency} is not positive
+     * @throws IllegalStateException if the pool is closed
+     * @since 2.9.1
+     */
+    public CompletableFuture<PreparePoolResult> preparePoolAsync(final int concurrency, final Duration deadline) {
+        assertOpen();
+        final Queue<Callable<Boolean>> creations = new ConcurrentLinkedQueue<>();
+        for (int i = getNumIdle(), m = getMinIdle(); i < m; i++) {
+            creations.add(() -> {
+                final PooledObject<T> p = create();
+                addIdleObject(p);
+                return Boolean.valueOf(p != null);
+            });
+        }
+        return prepareAsync(creations, concurrency, deadline);
+    }
+
     /**
      * Attempts to create a new wrapped pooled object.
      * <p>
@@ -866,7 +1798,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             localMaxTotal = Integer.MAX_VALUE;
         }
 
-        final long localStartTimeMillis = System.currentTimeMillis();
+        final long localStartTimeNanos = getClock().nanoTime();
         final long localMaxWaitTimeMillis = Math.max(getMaxWaitMillis(), 0);
 
         // Flag that indicates if create should:
@@ -876,7 +1808,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         //          call the factory
         Boolean create = null;
         while (create == null) {
-            synchronized (makeObjectCountLock) {
+            makeObjectCountLock.lock();
+            try {
                 final long newCreateCount = createCount.incrementAndGet();
                 if (newCreateCount > localMaxTotal) {
                     // The pool is currently at capacity or in the process of
@@ -892,19 +1825,26 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                         // bring the pool to capacity. Those calls might also
                         // fail so wait until they complete and then re-test if
                         // the pool is at capacity or not.
-                        makeObjectCountLock.wait(localMaxWaitTimeMillis);
+                        if (localMaxWaitTimeMillis > 0) {
+                            makeObjectCountChanged.await(localMaxWaitTimeMillis, TimeUnit.MILLISECONDS);
+                        } else {
+                            makeObjectCountChanged.await();
+                        }
                     }
                 } else {
                     // The pool is not at capacity. Create a new object.
                     makeObjectCount++;
                     create = Boolean.TRUE;
                 }
+            } finally {
+                makeObjectCountLock.unlock();
             }
 
             // Do not block more if maxWaitTimeMillis is set.
             if (create == null &&
                 (localMaxWaitTimeMillis > 0 &&
-                 System.currentTimeMillis() - localStartTimeMillis >= localMaxWaitTimeMillis)) {
+                 getClock().nanoTime() - localStartTimeNanos >=
+                         TimeUnit.MILLISECONDS.toNanos(localMaxWaitTimeMillis))) {
                 create = Boolean.FALSE;
             }
         }
@@ -916,7 +1856,9 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         final PooledObject<T> p;
         try {
             p = factory.makeObject();
+            applyClock(p);
             if (getTestOnCreate() && !factory.validateObject(p)) {
+                fireValidationFailure(null, p);
                 createCount.decrementAndGet();
                 return null;
             }
@@ -924,21 +1866,193 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             createCount.decrementAndGet();
             throw e;
         } finally {
-            synchronized (makeObjectCountLock) {
+            makeObjectCountLock.lock();
+            try {
                 makeObjectCount--;
-                makeObjectCountLock.notifyAll();
+                makeObjectCountChanged.signalAll();
+            } finally {
+                makeObjectCountLock.unlock();
             }
         }
 
+        registerCreatedObject(p);
+        return p;
+    }
+
+    /**
+     * Adds a newly created object to the objects managed by this pool.
+     *
+     * @param p The new wrapped pooled object
+     */
+    private void registerCreatedObject(final PooledObject<T> p) {
         final AbandonedConfig ac = this.abandonedConfig;
         if (ac != null && ac.getLogAbandoned()) {
             p.setLogAbandoned(true);
+            p.setStackTraceLimits(ac.getMaxStackTraceDepth(), ac.getStackTraceSampleInterval(),
+                    TimeUnit.MILLISECONDS.toNanos(ac.getUseStackTraceThresholdMillis()));
             p.setRequireFullStackTrace(ac.getRequireFullStackTrace());
         }
 
         createdCount.incrementAndGet();
         allObjects.put(new IdentityWrapper<>(p.getObject()), p);
-        return p;
+        fireCreate(null, p);
+    }
+
+    /**
+     * Starts creating an object asynchronously with
+     * {@link PooledObjectFactory#makeObjectAsync} on behalf of a borrower, if
+     * the pool has the capacity and fewer than {@link #getMaxPendingCreates()}
+     * creations are pending.
+     *
+     * @param waiter the borrower on whose behalf the object is created
+     * @return {@code true} if a creation was started
+     */
+    private boolean startAsyncCreate(final AsyncBorrowWaiters.Waiter<T> waiter) {
+        return reservePendingCreate() && startReservedCreate(waiter);
+    }
+
+    /**
+     * Requests an asynchronous creation on behalf of a borrower that waits
+     * for it. The request is queued while {@link #getMaxPendingCreates()}
+     * creations are pending and started when one of them completes. A request
+     * that has not been started is cancelled when its borrower stops waiting.
+     *
+     * @param waiter the borrower on whose behalf the object is created
+     */
+    private void requestAsyncCreate(final AsyncBorrowWaiters.Waiter<T> waiter) {
+        createRequests.add(waiter);
+        waiter.getFuture().whenComplete((obj, e) -> createRequests.remove(waiter));
+        startQueuedCreates();
+    }
+
+    /**
+     * Starts queued creation requests of borrowers that are still waiting
+     * while fewer than {@link #getMaxPendingCreates()} creations are pending.
+     * Called whenever a request is queued or a creation completes, so no
+     * request is left behind.
+     */
+    private void startQueuedCreates() {
+        while (!createRequests.isEmpty() && reservePendingCreate()) {
+            AsyncBorrowWaiters.Waiter<T> waiter;
+            do {
+                waiter = createRequests.poll();
+            } while (waiter != null && waiter.getFuture().isDone());
+            if (waiter == null) {
+                releasePendingCreate();
+            } else {
+                startReservedCreate(waiter);
+            }
+        }
+    }
+
+    /**
+     * Starts an asynchronous creation for which a pending creation has been
+     * reserved, if the pool has the capacity.
+     *
+     * @param waiter the borrower on whose behalf the object is created
+     * @return {@code true} if a creation was started
+     */
+    private boolean startReservedCreate(final AsyncBorrowWaiters.Waiter<T> waiter) {
+        final int localMaxTotal = getMaxTotal();
+        if (createCount.incrementAndGet() > localMaxTotal && localMaxTotal > -1) {
+            createCount.decrementAndGet();
+            releasePendingCreate();
+            return false;
+        }
+        try {
+            factory.makeObjectAsync(getCreateExecutor()).whenComplete(
+                    (p, failure) -> asyncCreated(waiter, p, failure));
+        } catch (final Throwable t) {
+            asyncCreated(waiter, null, t);
+        }
+        return true;
+    }
+
+    /**
+     * Completes an asynchronous creation. A new object goes directly to the
+     * borrower on whose behalf it was created, or else to the oldest
+     * asynchronous borrower or the idle objects. A failure is reported to the
+     * borrower on whose behalf the object was created.
+     *
+     * @param waiter the borrower on whose behalf the object was created
+     * @param p the new object, {@code null} if the creation failed
+     * @param failure the failure, {@code null} if the creation succeeded
+     */
+    private void asyncCreated(final AsyncBorrowWaiters.Waiter<T> waiter, final PooledObject<T> p,
+            final Throwable failure) {
+        releasePendingCreate();
+        deliverAsyncCreated(waiter, p, failure);
+        if (!isClosed()) {
+            startQueuedCreates();
+        }
+    }
+
+    /**
+     * Delivers the result of an asynchronous creation.
+     *
+     * @param requester the borrower on whose behalf the object was created
+     * @param p the new object, {@code null} if the creation failed
+     * @param failure the failure, {@code null} if the creation succeeded
+     */
+    private void deliverAsyncCreated(final AsyncBorrowWaiters.Waiter<T> requester, final PooledObject<T> p,
+            final Throwable failure) {
+        if (failure != null || p == null) {
+            createCount.decrementAndGet();
+            final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ?
+                    failure.getCause() : failure;
+            if (!requester.getFuture().completeExceptionally(cause != null ? cause :
+                    new NoSuchElementException("Unable to create object")) && cause instanceof Exception) {
+                // The borrower stopped waiting meanwhile
+                swallowException((Exception) cause);
+            }
+            return;
+        }
+        applyClock(p);
+        if (getTestOnCreate() && !factory.validateObject(p)) {
+            fireValidationFailure(null, p);
+            createCount.decrementAndGet();
+            // No object is on its way to the borrower, so it must not wait
+            requester.getFuture().completeExceptionally(new NoSuchElementException("Unable to validate object"));
+            return;
+        }
+        registerCreatedObject(p);
+        if (isClosed()) {
+            try {
+                destroy(p, DestroyMode.NORMAL, DestroyCause.CLEARED);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            return;
+        }
+        // A new object is never under eviction test, so it can be allocated
+        final AsyncBorrowWaiters.Waiter<T> waiter = asyncWaiters.remove(requester) ? requester : asyncWaiters.poll();
+        if (waiter != null && p.allocate()) {
+            try {
+                activateAndValidate(p, true);
+            } catch (final NoSuchElementException e) {
+                waiter.getFuture().completeExceptionally(e);
+                return;
+            }
+            // Accounted before the borrower can see, and return, the object, so a
+            // borrower giving up meanwhile still counts as a borrow
+            trackAbandoned(p);
+            updateStatsBorrow(p, getClock().nanoTime() - waiter.getStartNanos());
+            if (!waiter.getFuture().complete(p.getObject())) {
+                // Timed out or cancelled meanwhile
+                releaseBatch(Collections.singletonList(p));
+            }
+            return;
+        }
+        try {
+            addIdleObject(p);
+        } catch (final Exception e) {
+            swallowException(e);
+            try {
+                destroy(p, DestroyMode.NORMAL, DestroyCause.FACTORY_FAILURE);
+            } catch (final Exception e1) {
+                swallowException(e1);
+            }
+        }
     }
 
     /**
@@ -946,25 +2060,33 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      *
      * @param toDestroy The wrapped pooled object to destroy
      * @param mode DestroyMode context provided to the factory
+     * @param cause the reason the object is destroyed, for the pool listener
      *
      * @throws Exception If the factory fails to destroy the pooled object
      *                   cleanly
      */
-    private void destroy(final PooledObject<T> toDestroy, final DestroyMode mode) throws Exception {
+    private void destroy(final PooledObject<T> toDestroy, final DestroyMode mode, final DestroyCause cause)
+            throws Exception {
         toDestroy.invalidate();
         idleObjects.remove(toDestroy);
-        allObjects.remove(new IdentityWrapper<>(toDestroy.getObject()));
+        IdentityWrapper.remove(allObjects, toDestroy.getObject());
         try {
             factory.destroyObject(toDestroy, mode);
         } finally {
             destroyedCount.incrementAndGet();
             createCount.decrementAndGet();
+            fireDestroy(null, toDestroy, mode, cause);
         }
     }
 
     @Override
     void ensureMinIdle() throws Exception {
-        ensureIdle(getMinIdle(), true);
+        ensureIdle(getEffectiveMinIdle(), true);
+    }
+
+    @Override
+    void adaptIdle() {
+        updateAdaptiveIdle(getNumActive() + getNumWaiters(), 1);
     }
 
     /**
@@ -981,7 +2103,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      * @throws Exception if the factory's makeObject throws
      */
     private void ensureIdle(final int idleCount, final boolean always) throws Exception {
-        if (idleCount < 1 || isClosed() || (!always && !idleObjects.hasTakeWaiters())) {
+        if (idleCount < 1 || isClosed() ||
+                (!always && !idleObjects.hasTakeWaiters() && asyncWaiters.isEmpty())) {
             return;
         }
 
@@ -1004,6 +2127,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             // in the idle object pool (which would effectively be a leak)
             clear();
         }
+        dispatchAsyncWaiters();
     }
 
     /**
@@ -1041,6 +2165,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             } else {
                 idleObjects.addLast(p);
             }
+            dispatchAsyncWaiters();
         }
     }
 
@@ -1062,35 +2187,58 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     /**
      * Recovers abandoned objects which have been checked out but
      * not used since longer than the removeAbandonedTimeout.
+     * <p>
+     * Candidates are taken from the index of borrowed objects, so this costs
+     * time proportional to the number of objects whose timeout has passed.
+     * Each abandoned object is added to the abandoned object report, and is
+     * left to its borrower if the configuration only reports abandoned
+     * objects. A reported object is not reported again until it is borrowed
+     * again.
+     * </p>
      *
      * @param abandonedConfig The configuration to use to identify abandoned objects
      */
     @SuppressWarnings("resource") // PrintWriter is managed elsewhere
     private void removeAbandoned(final AbandonedConfig abandonedConfig) {
+        final AbandonedTimingWheel<T> wheel = abandonedObjects;
+        if (wheel == null) {
+            return;
+        }
         // Generate a list of abandoned objects to remove
-        final long nowMillis = System.currentTimeMillis();
-        final long timeoutMillis =
-                nowMillis - (abandonedConfig.getRemoveAbandonedTimeout() * 1000L);
+        final long timeoutNanos =
+                TimeUnit.SECONDS.toNanos(abandonedConfig.getRemoveAbandonedTimeout());
+        final boolean reportOnly = abandonedConfig.getReportAbandonedOnly();
         final ArrayList<PooledObject<T>> remove = new ArrayList<>();
-        final Iterator<PooledObject<T>> it = allObjects.values().iterator();
-        while (it.hasNext()) {
-            final PooledObject<T> pooledObject = it.next();
-            synchronized (pooledObject) {
+        for (final PooledObject<T> pooledObject : wheel.pollAbandoned()) {
+            final boolean abandoned = withStateLock(pooledObject, () -> {
                 if (pooledObject.getState() == PooledObjectState.ALLOCATED &&
-                        pooledObject.getLastUsedTime() <= timeoutMillis) {
-                    pooledObject.markAbandoned();
-                    remove.add(pooledObject);
+                        pooledObject.getUnusedTimeNanos() >= timeoutNanos) {
+                    if (!reportOnly) {
+                        pooledObject.markAbandoned();
+                    }
+                    return true;
                 }
+                return false;
+            });
+            if (abandoned) {
+                remove.add(pooledObject);
             }
         }
 
-        // Now remove the abandoned objects
+        // Now report and remove the abandoned objects
+        final AbandonedObjectReport report = abandonedReport;
         final Iterator<PooledObject<T>> itr = remove.iterator();
         while (itr.hasNext()) {
             final PooledObject<T> pooledObject = itr.next();
+            if (report != null) {
+                report.add(pooledObject);
+            }
             if (abandonedConfig.getLogAbandoned()) {
                 pooledObject.printStackTrace(abandonedConfig.getLogWriter());
             }
+            if (reportOnly) {
+                continue;
+            }
             try {
                 invalidateObject(pooledObject.getObject(), DestroyMode.ABANDONED);
             } catch (final Exception e) {
@@ -1106,7 +2254,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     public void use(final T pooledObject) {
         final AbandonedConfig abandonedCfg = this.abandonedConfig;
         if (abandonedCfg != null && abandonedCfg.getUseUsageTracking()) {
-            final PooledObject<T> wrapper = allObjects.get(new IdentityWrapper<>(pooledObject));
+            final PooledObject<T> wrapper = IdentityWrapper.get(allObjects, pooledObject);
             wrapper.use();
         }
     }
@@ -1118,8 +2266,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
 
     /**
      * Returns an estimate of the number of threads currently blocked waiting for
-     * an object from the pool. This is intended for monitoring only, not for
-     * synchronization control.
+     * an object from the pool, including asynchronous borrowers. This is
+     * intended for monitoring only, not for synchronization control.
      *
      * @return The estimate of the number of threads currently blocked waiting
      *         for an object from the pool
@@ -1127,7 +2275,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     @Override
     public int getNumWaiters() {
         if (getBlockWhenExhausted()) {
-            return idleObjects.getTakeQueueLength();
+            return idleObjects.getTakeQueueLength() + asyncWaiters.size();
         }
         return 0;
     }
@@ -1181,6 +2329,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     private volatile int maxIdle = GenericObjectPoolConfig.DEFAULT_MAX_IDLE;
     private volatile int minIdle = GenericObjectPoolConfig.DEFAULT_MIN_IDLE;
     private final PooledObjectFactory<T> factory;
+    private final int threadCacheSize;
 
 
     // --- internal attributes -------------------------------------------------
@@ -1202,9 +2351,38 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      * {@link #_maxActive} objects created at any one time.
      */
     private final AtomicLong createCount = new AtomicLong(0);
+    /*
+     * Borrowers on whose behalf asynchronous creations were requested but not
+     * started because getMaxPendingCreates() creations were pending.
+     */
+    private final Queue<AsyncBorrowWaiters.Waiter<T>> createRequests = new ConcurrentLinkedQueue<>();
     private long makeObjectCount = 0;
-    private final Object makeObjectCountLock = new Object();
-    private final LinkedBlockingDeque<PooledObject<T>> idleObjects;
+    private final ReentrantLock makeObjectCountLock = new ReentrantLock();
+    private final Condition makeObjectCountChanged = makeObjectCountLock.newCondition();
+    private final BlockingIdleDeque<PooledObject<T>> idleObjects;
+
+    /*
+     * Idle objects cached by the threads that returned them, {@code null}
+     * unless threadCacheSize is positive.
+     */
+    private final ThreadAffineIdleCache<T> threadCache;
+
+    /*
+     * Serializes all-or-nothing batch borrows so that two batches never wait
+     * while each holds part of the pool.
+     */
+    private final ReentrantLock batchLock = new ReentrantLock(true);
+
+    /*
+     * Asynchronous borrowers waiting for an idle object.
+     */
+    private final AsyncBorrowWaiters<T> asyncWaiters = new AsyncBorrowWaiters<>();
+
+    /*
+     * The number of borrowers waiting for an idle object while the thread
+     * cache is enabled, see pollIdleObjects(long).
+     */
+    private final AtomicInteger threadCacheWaiters = new AtomicInteger();
 
     // JMX specific attributes
     private static final String ONAME_BASE =
@@ -1213,6 +2391,30 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     // Additional configuration properties for abandoned object tracking
     private volatile AbandonedConfig abandonedConfig = null;
 
+    /*
+     * Borrowed objects by the time they become abandoned, null unless
+     * abandoned object removal is configured.
+     */
+    private volatile AbandonedTimingWheel<T> abandonedObjects = null;
+
+    /*
+     * Abandoned objects by borrow stack trace, null unless abandoned object
+     * removal is configured.
+     */
+    private volatile AbandonedObjectReport abandonedReport = null;
+
+    /*
+     * Executor removing abandoned objects on behalf of borrowers, created when
+     * removeAbandonedOnBorrow is first configured and shut down on close.
+     */
+    private volatile ExecutorService abandonedExecutor = null; // @GuardedBy("closeLock") for writes
+
+    /*
+     * Whether a removal of abandoned objects requested by a borrower is
+     * queued or running.
+     */
+    private final AtomicBoolean abandonedRemovalPending = new AtomicBoolean();
+
     @Override
     protected void toStringAppendFields(final StringBuilder builder) {
         super.toStringAppendFields(builder);
@@ -1222,6 +2424,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         builder.append(maxIdle);
         builder.append(", minIdle=");
         builder.append(minIdle);
+        builder.append(", threadCacheSize=");
+        builder.append(threadCacheSize);
         builder.append(", factory=");
         builder.append(factory);
         builder.append(", allObjects=");
@@ -48,6 +48,13 @@ public class GenericObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
      */
     public static final int DEFAULT_MIN_IDLE = 0;
 
+    /**
+     * The default value for the {@code threadCacheSize} configuration attribute.
+     * @see GenericObjectPool#getThreadCacheSize()
+     * @since 2.9.1
+     */
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 0;
+
 
     private int maxTotal = DEFAULT_MAX_TOTAL;
 
@@ -55,6 +62,8 @@ public class GenericObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
 
     private int minIdle = DEFAULT_MIN_IDLE;
 
+    private int threadCacheSize = DEFAULT_THREAD_CACHE_SIZE;
+
     /**
      * Get the value for the {@code maxTotal} configuration attribute
      * for pools created with this configuration instance.
@@ -135,6 +144,34 @@ public class GenericObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         this.minIdle = minIdle;
     }
 
+    /**
+     * Get the value for the {@code threadCacheSize} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code threadCacheSize} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getThreadCacheSize()
+     * @since 2.9.1
+     */
+    public int getThreadCacheSize() {
+        return threadCacheSize;
+    }
+
+    /**
+     * Set the value for the {@code threadCacheSize} configuration attribute for
+     * pools created with this configuration instance.
+     *
+     * @param threadCacheSize The new setting of {@code threadCacheSize}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#getThreadCacheSize()
+     * @since 2.9.1
+     */
+    public void setThreadCacheSize(final int threadCacheSize) {
+        this.threadCacheSize = threadCacheSize;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public GenericObjectPoolConfig<T> clone() {
@@ -154,5 +191,7 @@ public class GenericObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         builder.append(maxIdle);
         builder.append(", minIdle=");
         builder.append(minIdle);
+        builder.append(", threadCacheSize=");
+        builder.append(threadCacheSize);
     }
 }
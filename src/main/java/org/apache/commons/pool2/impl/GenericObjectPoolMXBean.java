@@ -16,6 +16,7 @@
  */
 package org.apache.commons.pool2.impl;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -58,6 +59,27 @@ public interface GenericObjectPoolMXBean {
      */
     int getMaxIdle();
 
+    /**
+     * See {@link GenericObjectPool#getMaxPendingCreates()}
+     * @return See {@link GenericObjectPool#getMaxPendingCreates()}
+     * @since 2.9.1
+     */
+    int getMaxPendingCreates();
+
+    /**
+     * See {@link GenericObjectPool#getMaxEvictionValidations()}
+     * @return See {@link GenericObjectPool#getMaxEvictionValidations()}
+     * @since 2.9.1
+     */
+    int getMaxEvictionValidations();
+
+    /**
+     * See {@link GenericObjectPool#getMaxEvictionValidationsPerSecond()}
+     * @return See {@link GenericObjectPool#getMaxEvictionValidationsPerSecond()}
+     * @since 2.9.1
+     */
+    int getMaxEvictionValidationsPerSecond();
+
     /**
      * See {@link GenericObjectPool#getMaxTotal()}
      * @return See {@link GenericObjectPool#getMaxTotal()}
@@ -125,6 +147,20 @@ public interface GenericObjectPoolMXBean {
      */
     boolean getTestWhileIdle();
 
+    /**
+     * See {@link GenericObjectPool#getEvictExpiredOnly()}
+     * @return See {@link GenericObjectPool#getEvictExpiredOnly()}
+     * @since 2.9.1
+     */
+    boolean getEvictExpiredOnly();
+
+    /**
+     * See {@link GenericObjectPool#getMaxIdleGracePeriodMillis()}
+     * @return See {@link GenericObjectPool#getMaxIdleGracePeriodMillis()}
+     * @since 2.9.1
+     */
+    long getMaxIdleGracePeriodMillis();
+
     /**
      * See {@link GenericObjectPool#getTimeBetweenEvictionRunsMillis()}
      * @return See {@link GenericObjectPool#getTimeBetweenEvictionRunsMillis()}
@@ -169,6 +205,20 @@ public interface GenericObjectPoolMXBean {
      */
     long getDestroyedByEvictorCount();
 
+    /**
+     * See {@link GenericObjectPool#getReturnedOverMaxIdleCount()}
+     * @return See {@link GenericObjectPool#getReturnedOverMaxIdleCount()}
+     * @since 2.9.1
+     */
+    long getReturnedOverMaxIdleCount();
+
+    /**
+     * See {@link GenericObjectPool#getDestroyedByMaxIdleCount()}
+     * @return See {@link GenericObjectPool#getDestroyedByMaxIdleCount()}
+     * @since 2.9.1
+     */
+    long getDestroyedByMaxIdleCount();
+
     /**
      * See {@link GenericObjectPool#getDestroyedByBorrowValidationCount()}
      * @return See {@link GenericObjectPool#getDestroyedByBorrowValidationCount()}
@@ -199,6 +249,47 @@ public interface GenericObjectPoolMXBean {
      */
     long getMaxBorrowWaitTimeMillis();
 
+    /**
+     * See {@link GenericObjectPool#getActiveTimeStatistics()}
+     * @return See {@link GenericObjectPool#getActiveTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getActiveTimeStatistics();
+
+    /**
+     * See {@link GenericObjectPool#getIdleTimeStatistics()}
+     * @return See {@link GenericObjectPool#getIdleTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getIdleTimeStatistics();
+
+    /**
+     * See {@link GenericObjectPool#getBorrowWaitTimeStatistics()}
+     * @return See {@link GenericObjectPool#getBorrowWaitTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getBorrowWaitTimeStatistics();
+
+    /**
+     * See {@link GenericObjectPool#getEvictorLagStatistics()}
+     * @return See {@link GenericObjectPool#getEvictorLagStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getEvictorLagStatistics();
+
+    /**
+     * See {@link GenericObjectPool#getEvictorRunTimeStatistics()}
+     * @return See {@link GenericObjectPool#getEvictorRunTimeStatistics()}
+     * @since 2.9.1
+     */
+    TimingStatistics getEvictorRunTimeStatistics();
+
+    /**
+     * See {@link GenericObjectPool#resetStatistics()}
+     * @since 2.9.1
+     */
+    void resetStatistics();
+
     /**
      * See {@link GenericObjectPool#getCreationStackTrace()}
      * @return See {@link GenericObjectPool#getCreationStackTrace()}
@@ -211,6 +302,13 @@ public interface GenericObjectPoolMXBean {
      */
     int getNumWaiters();
 
+    /**
+     * See {@link GenericObjectPool#getNumPendingCreates()}
+     * @return See {@link GenericObjectPool#getNumPendingCreates()}
+     * @since 2.9.1
+     */
+    int getNumPendingCreates();
+
     // Getters for abandoned object removal configuration
 
     /**
@@ -243,6 +341,27 @@ public interface GenericObjectPoolMXBean {
      */
     int getRemoveAbandonedTimeout();
 
+    /**
+     * See {@link GenericObjectPool#getReportAbandonedOnly()}
+     * @return See {@link GenericObjectPool#getReportAbandonedOnly()}
+     * @since 2.9.1
+     */
+    boolean getReportAbandonedOnly();
+
+    /**
+     * See {@link GenericObjectPool#getAbandonedCount()}
+     * @return See {@link GenericObjectPool#getAbandonedCount()}
+     * @since 2.9.1
+     */
+    long getAbandonedCount();
+
+    /**
+     * See {@link GenericObjectPool#getAbandonedObjectReport()}
+     * @return See {@link GenericObjectPool#getAbandonedObjectReport()}
+     * @since 2.9.1
+     */
+    Map<String, Long> getAbandonedObjectReport();
+
     /**
      * See {@link GenericObjectPool#getFactoryType()}
      * @return See {@link GenericObjectPool#getFactoryType()}
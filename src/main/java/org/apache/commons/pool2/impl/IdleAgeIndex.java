@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectState;
+
+/**
+ * Idle objects of all the keys of a keyed pool, oldest first.
+ * <p>
+ * An entry is appended each time an object becomes idle, so entries are in
+ * the order the objects were returned to the pool. Entries are not removed
+ * when their object is borrowed or destroyed. Instead an entry is
+ * <em>stale</em> once its object has left the idle state or has been borrowed
+ * again since, and stale entries are skipped and dropped lazily. Once stale
+ * entries outnumber the live ones, all entries are swept a few at a time as
+ * objects are added, so that adding an object does a bounded amount of work.
+ * The index stays proportional to the number of objects in the pool and the
+ * oldest idle object is found in amortized constant time.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <K> The type of keys maintained by the pool.
+ * @param <T> Type of element pooled.
+ *
+ * @since 2.9.1
+ */
+final class IdleAgeIndex<K, T> {
+
+    /**
+     * An object that became idle under a key.
+     *
+     * @param <K> The type of keys maintained by the pool.
+     * @param <T> Type of element pooled.
+     */
+    static final class Entry<K, T> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Entry> CLAIMED =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "claimed");
+
+        private final K key;
+        private final PooledObject<T> pooledObject;
+        private final long borrowedCount;
+        private final long lastReturnTime;
+
+        /** 1 once a thread has taken this entry out of the index. */
+        private volatile int claimed;
+
+        Entry(final K key, final PooledObject<T> pooledObject) {
+            this.key = key;
+            this.pooledObject = pooledObject;
+            this.borrowedCount = pooledObject.getBorrowedCount();
+            this.lastReturnTime = pooledObject.getLastReturnTime();
+        }
+
+        /**
+         * Claims this entry for removal from the index, so that only one
+         * thread removes it and counts the removal.
+         *
+         * @return {@code true} if the current thread claimed this entry
+         */
+        boolean claim() {
+            return CLAIMED.compareAndSet(this, 0, 1);
+        }
+
+        K getKey() {
+            return key;
+        }
+
+        PooledObject<T> getPooledObject() {
+            return pooledObject;
+        }
+
+        /**
+         * Tests whether the object is still idle since this entry was added.
+         * Objects under eviction test are idle.
+         *
+         * @return {@code false} if this entry is stale
+         */
+        boolean isCurrent() {
+            final PooledObjectState state = pooledObject.getState();
+            return (state == PooledObjectState.IDLE || state == PooledObjectState.EVICTION ||
+                    state == PooledObjectState.EVICTION_RETURN_TO_HEAD) &&
+                    pooledObject.getBorrowedCount() == borrowedCount &&
+                    pooledObject.getLastReturnTime() == lastReturnTime;
+        }
+    }
+
+    /** Minimum number of entries before a sweep. */
+    private static final int MIN_SWEEP_SIZE = 64;
+
+    /** Maximum number of entries a sweep examines per added entry. */
+    private static final int SWEEP_STEP = 32;
+
+    private final ConcurrentLinkedQueue<Entry<K, T>> entries = new ConcurrentLinkedQueue<>();
+
+    /** Number of entries, live or stale. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** Whether a thread is sweeping the entries. */
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /** Size that triggers the next sweep. */
+    private volatile int sweepSize = MIN_SWEEP_SIZE;
+
+    /** Position of the sweep in progress, {@code null} between sweeps. */
+    private volatile Iterator<Entry<K, T>> sweepPosition; // @GuardedBy("sweeping")
+
+    /** Number of live entries passed by the sweep in progress. */
+    private int sweepLive; // @GuardedBy("sweeping")
+
+    /**
+     * Records that an object became idle under the given key.
+     *
+     * @param key the key of the object
+     * @param pooledObject the idle object
+     */
+    void add(final K key, final PooledObject<T> pooledObject) {
+        entries.add(new Entry<>(key, pooledObject));
+        if ((size.incrementAndGet() > sweepSize || sweepPosition != null) &&
+                sweeping.compareAndSet(false, true)) {
+            try {
+                sweepStep();
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    /**
+     * Continues the sweep in progress, or starts one, removing the entries of
+     * objects that are no longer idle among the next {@link #SWEEP_STEP}
+     * entries. As each added entry advances the sweep by more than one entry,
+     * a sweep reaches the tail of the index.
+     */
+    private void sweepStep() {
+        Iterator<Entry<K, T>> iter = sweepPosition;
+        if (iter == null) {
+            iter = entries.iterator();
+            sweepLive = 0;
+        }
+        for (int i = 0; i < SWEEP_STEP; i++) {
+            if (!iter.hasNext()) {
+                sweepPosition = null;
+                sweepSize = Math.max(MIN_SWEEP_SIZE, 2 * sweepLive);
+                return;
+            }
+            final Entry<K, T> entry = iter.next();
+            if (entry.isCurrent()) {
+                sweepLive++;
+            } else if (entry.claim()) {
+                iter.remove();
+                size.decrementAndGet();
+            }
+        }
+        sweepPosition = iter;
+    }
+
+    /**
+     * Tests whether any object is idle, dropping stale entries at the head of
+     * the index.
+     *
+     * @return {@code true} if an object is idle or under eviction test
+     */
+    boolean hasIdleObjects() {
+        final Iterator<Entry<K, T>> iter = entries.iterator();
+        while (iter.hasNext()) {
+            final Entry<K, T> entry = iter.next();
+            if (entry.isCurrent()) {
+                return true;
+            }
+            if (entry.claim()) {
+                iter.remove();
+                size.decrementAndGet();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes and returns the entry of the object that has been idle the
+     * longest. Objects under eviction test are passed over and stay indexed.
+     *
+     * @return the oldest idle entry or {@code null} if no object is idle
+     */
+    Entry<K, T> pollOldest() {
+        final Iterator<Entry<K, T>> iter = entries.iterator();
+        while (iter.hasNext()) {
+            final Entry<K, T> entry = iter.next();
+            final boolean current = entry.isCurrent();
+            if ((!current || entry.getPooledObject().getState() == PooledObjectState.IDLE) &&
+                    entry.claim()) {
+                iter.remove();
+                size.decrementAndGet();
+                if (current) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an iterator over the entries, oldest first. Stale entries are
+     * included and the caller should skip them.
+     *
+     * @return an iterator over the entries
+     */
+    Iterator<Entry<K, T>> iterator() {
+        return entries.iterator();
+    }
+
+    /**
+     * Returns the number of entries, including stale ones.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("IdleAgeIndex [size=");
+        builder.append(size.get());
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 
 /**
@@ -63,7 +64,7 @@ import java.util.concurrent.locks.Condition;
  * @since 2.0
  */
 class LinkedBlockingDeque<E> extends AbstractQueue<E>
-        implements Deque<E>, Serializable {
+        implements BlockingIdleDeque<E>, Serializable {
 
     /*
      * Implemented as a simple doubly-linked list protected by a
@@ -154,6 +155,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
     /** Maximum number of items in the deque */
     private final int capacity;
 
+    /** Number of items in this and other deques, {@code null} if not shared */
+    private final transient LongAdder sharedCount;
+
     /** Main lock guarding all access */
     private final InterruptibleReentrantLock lock;
 
@@ -201,15 +205,45 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      * @throws IllegalArgumentException if {@code capacity} is less than 1
      */
     public LinkedBlockingDeque(final int capacity, final boolean fairness) {
+        this(capacity, fairness, null);
+    }
+
+    /**
+     * Creates a {@code LinkedBlockingDeque} with a capacity of
+     * {@link Integer#MAX_VALUE} and the given fairness policy, that keeps a
+     * count of the items it holds together with other deques.
+     *
+     * @param fairness true means threads waiting on the deque should be served
+     * as if waiting in a FIFO request queue
+     * @param sharedCount the count of items in this and other deques
+     * @since 2.9.1
+     */
+    LinkedBlockingDeque(final boolean fairness, final LongAdder sharedCount) {
+        this(Integer.MAX_VALUE, fairness, sharedCount);
+    }
+
+    private LinkedBlockingDeque(final int capacity, final boolean fairness, final LongAdder sharedCount) {
         if (capacity <= 0) {
             throw new IllegalArgumentException();
         }
         this.capacity = capacity;
+        this.sharedCount = sharedCount;
         lock = new InterruptibleReentrantLock(fairness);
         notEmpty = lock.newCondition();
         notFull = lock.newCondition();
     }
 
+    /**
+     * Adds to the count shared with other deques, if any.
+     *
+     * @param delta the change in the number of items
+     */
+    private void addSharedCount(final int delta) {
+        if (sharedCount != null) {
+            sharedCount.add(delta);
+        }
+    }
+
     /**
      * Creates a {@code LinkedBlockingDeque} with a capacity of
      * {@link Integer#MAX_VALUE}, initially containing the elements of
@@ -259,6 +293,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             f.prev = x;
         }
         ++count;
+        addSharedCount(1);
         notEmpty.signal();
         return true;
     }
@@ -284,6 +319,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             l.next = x;
         }
         ++count;
+        addSharedCount(1);
         notEmpty.signal();
         return true;
     }
@@ -310,6 +346,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             n.prev = null;
         }
         --count;
+        addSharedCount(-1);
         notFull.signal();
         return item;
     }
@@ -336,6 +373,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             p.next = null;
         }
         --count;
+        addSharedCount(-1);
         notFull.signal();
         return item;
     }
@@ -360,6 +398,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             // Don't mess with x's links.  They may still be in use by
             // an iterator.
         --count;
+        addSharedCount(-1);
             notFull.signal();
         }
     }
@@ -414,6 +453,58 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The elements are linked under a single acquisition of the lock.
+     * </p>
+     *
+     * @throws IllegalStateException if the deque does not have room for all
+     *         of the elements, in which case none are added
+     * @throws NullPointerException if c or any of its elements is null
+     */
+    @Override
+    public void addAllFirst(final Collection<? extends E> c) {
+        addAll(c, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The elements are linked under a single acquisition of the lock.
+     * </p>
+     *
+     * @throws IllegalStateException if the deque does not have room for all
+     *         of the elements, in which case none are added
+     * @throws NullPointerException if c or any of its elements is null
+     */
+    @Override
+    public void addAllLast(final Collection<? extends E> c) {
+        addAll(c, false);
+    }
+
+    private void addAll(final Collection<? extends E> c, final boolean first) {
+        Objects.requireNonNull(c, "c");
+        for (final E e : c) {
+            Objects.requireNonNull(e, "e");
+        }
+        lock.lock();
+        try {
+            if (capacity - count < c.size()) {
+                throw new IllegalStateException("Deque full");
+            }
+            for (final E e : c) {
+                if (first) {
+                    linkFirst(e);
+                } else {
+                    linkLast(e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Links the provided element as the first in the queue, waiting until there
      * is space to do so if the queue is full.
@@ -926,6 +1017,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      * @throws NullPointerException if c is null
      * @throws IllegalArgumentException if c is this instance
      */
+    @Override
     public int drainTo(final Collection<? super E> c, final int maxElements) {
         Objects.requireNonNull(c, "c");
         if (c == this) {
@@ -1144,6 +1236,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
                 f = n;
             }
             first = last = null;
+            addSharedCount(-count);
             count = 0;
             notFull.signalAll();
         } finally {
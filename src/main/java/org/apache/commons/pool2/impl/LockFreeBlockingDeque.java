@@ -0,0 +1,610 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An unbounded blocking deque whose non-blocking operations are lock-free.
+ * <p>
+ * Elements are held in a {@link ConcurrentLinkedDeque} so that
+ * {@code addFirst}, {@code addLast} and {@code pollFirst} - the operations on
+ * the borrow / return path of the pools - never take a lock. Threads that have
+ * to wait for an element are parked in a separate queue of waiters and are
+ * only touched when a waiter is actually present.
+ * </p>
+ * <p>
+ * When {@code fairness} is {@code true}, an element added while threads are
+ * waiting is handed directly to the longest waiting thread so that waiting
+ * threads are served in arrival order. Otherwise the element is published to
+ * the deque and a waiter is woken to compete for it, which favors throughput
+ * over ordering in the same way as a non-fair {@link LinkedBlockingDeque}.
+ * </p>
+ * <p>
+ * Unlike {@link LinkedBlockingDeque}, this deque has no capacity bound.
+ * Iterators are weakly consistent.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <E> the type of elements held in this collection
+ *
+ * @since 2.9.1
+ */
+class LockFreeBlockingDeque<E> extends AbstractQueue<E>
+        implements BlockingIdleDeque<E> {
+
+    /**
+     * Weakly consistent iterator that keeps the element count in step when
+     * elements are removed through it.
+     */
+    private class Itr implements Iterator<E> {
+
+        private final Iterator<E> delegate;
+        private E lastRet;
+
+        /**
+         * Create an iterator wrapping the given deque iterator.
+         *
+         * @param delegate the iterator of the underlying deque
+         */
+        Itr(final Iterator<E> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public E next() {
+            lastRet = delegate.next();
+            return lastRet;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet == null) {
+                throw new IllegalStateException();
+            }
+            removeFirstOccurrence(lastRet);
+            lastRet = null;
+        }
+    }
+
+    /**
+     * A thread waiting for an element. The referenced value is {@code null}
+     * while the thread is waiting, the element handed to it in fair mode, or
+     * {@link #CANCELLED} once the thread has given up.
+     */
+    private static final class Waiter extends AtomicReference<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Thread thread = Thread.currentThread();
+    }
+
+    /** Marker value for a waiter that has timed out or been interrupted. */
+    private static final Object CANCELLED = new Object();
+
+    /** The elements of this deque. */
+    private final ConcurrentLinkedDeque<E> items = new ConcurrentLinkedDeque<>();
+
+    /** Number of elements, maintained separately since counting the deque is O(n). */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /** Number of elements in this and other deques, {@code null} if not shared. */
+    private final LongAdder sharedCount;
+
+    /** Threads waiting for an element, oldest first. */
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /** Whether added elements are handed directly to the longest waiting thread. */
+    private final boolean fairness;
+
+    /**
+     * Creates a {@code LockFreeBlockingDeque} with the given fairness policy.
+     *
+     * @param fairness true means threads waiting to take an element are
+     *        served in arrival order
+     */
+    public LockFreeBlockingDeque(final boolean fairness) {
+        this(fairness, null);
+    }
+
+    /**
+     * Creates a {@code LockFreeBlockingDeque} with the given fairness policy
+     * that keeps a count of the elements it holds together with other deques.
+     *
+     * @param fairness true means threads waiting to take an element are
+     *        served in arrival order
+     * @param sharedCount the count of elements in this and other deques,
+     *        {@code null} if not shared
+     */
+    LockFreeBlockingDeque(final boolean fairness, final LongAdder sharedCount) {
+        this.fairness = fairness;
+        this.sharedCount = sharedCount;
+    }
+
+    /**
+     * Counts an element added to the deque.
+     */
+    private void incrementCount() {
+        count.incrementAndGet();
+        if (sharedCount != null) {
+            sharedCount.increment();
+        }
+    }
+
+    /**
+     * Counts an element removed from the deque.
+     */
+    private void decrementCount() {
+        count.decrementAndGet();
+        if (sharedCount != null) {
+            sharedCount.decrement();
+        }
+    }
+
+    /**
+     * Hands an element to the longest waiting thread, if any.
+     *
+     * @param e the element to hand off
+     * @return {@code true} if a waiting thread accepted the element
+     */
+    private boolean handOff(final E e) {
+        Waiter w;
+        while ((w = waiters.poll()) != null) {
+            if (w.compareAndSet(null, e)) {
+                LockSupport.unpark(w.thread);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wakes the longest waiting thread so that it re-checks the deque.
+     */
+    private void signalWaiter() {
+        final Waiter w = waiters.peek();
+        if (w != null) {
+            LockSupport.unpark(w.thread);
+        }
+    }
+
+    /**
+     * Links the element at the front or back of the deque, handing it
+     * directly to a waiting thread instead when fairness is enabled.
+     *
+     * @param e the element to add
+     * @param first whether to add the element at the front
+     */
+    private void link(final E e, final boolean first) {
+        Objects.requireNonNull(e, "e");
+        if (fairness && !waiters.isEmpty() && handOff(e)) {
+            return;
+        }
+        if (first) {
+            items.addFirst(e);
+        } else {
+            items.addLast(e);
+        }
+        incrementCount();
+        // A thread may have started waiting after the hand off was attempted
+        if (!waiters.isEmpty()) {
+            signalWaiter();
+        }
+    }
+
+    /**
+     * Waits for an element, up to the given deadline.
+     *
+     * @param timed whether the wait is bounded
+     * @param nanos the maximum time to wait, if timed
+     * @return the element taken or {@code null} if the wait timed out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @SuppressWarnings("unchecked")
+    private E awaitFirst(final boolean timed, long nanos) throws InterruptedException {
+        final Waiter w = new Waiter();
+        waiters.add(w);
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        boolean interrupted = false;
+        E e = null;
+        for (;;) {
+            final Object handed = w.get();
+            if (handed != null) {
+                e = (E) handed;
+                break;
+            }
+            e = pollFirst();
+            if (e != null) {
+                break;
+            }
+            if (Thread.interrupted()) {
+                interrupted = true;
+                break;
+            }
+            if (timed) {
+                nanos = deadline - System.nanoTime();
+                if (nanos <= 0L) {
+                    break;
+                }
+                LockSupport.parkNanos(this, nanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        if (!w.compareAndSet(null, CANCELLED)) {
+            final E handed = (E) w.get();
+            if (e == null) {
+                e = handed;
+            } else if (handed != e) {
+                // Received a hand off after taking an element from the deque
+                items.addFirst(handed);
+                incrementCount();
+            }
+        }
+        waiters.remove(w);
+        if (interrupted && e != null) {
+            items.addFirst(e);
+            incrementCount();
+            e = null;
+        }
+        // Pass on any wake up this thread consumed but did not act upon
+        if (!items.isEmpty()) {
+            signalWaiter();
+        }
+        if (interrupted) {
+            throw new InterruptedException();
+        }
+        return e;
+    }
+
+    // BlockingIdleDeque methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addFirst(final E e) {
+        link(e, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addLast(final E e) {
+        link(e, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAllFirst(final Collection<? extends E> c) {
+        for (final E e : c) {
+            link(e, true);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAllLast(final Collection<? extends E> c) {
+        for (final E e : c) {
+            link(e, false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(final Collection<? super E> c, final int maxElements) {
+        Objects.requireNonNull(c, "c");
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = pollFirst()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offerFirst(final E e) {
+        link(e, true);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offerLast(final E e) {
+        link(e, false);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E removeFirst() {
+        final E x = pollFirst();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E removeLast() {
+        final E x = pollLast();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    @Override
+    public E pollFirst() {
+        final E e = items.pollFirst();
+        if (e != null) {
+            decrementCount();
+        }
+        return e;
+    }
+
+    @Override
+    public E pollLast() {
+        final E e = items.pollLast();
+        if (e != null) {
+            decrementCount();
+        }
+        return e;
+    }
+
+    @Override
+    public E takeFirst() throws InterruptedException {
+        final E e = pollFirst();
+        if (e != null) {
+            return e;
+        }
+        return awaitFirst(false, 0L);
+    }
+
+    @Override
+    public E pollFirst(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final E e = pollFirst();
+        if (e != null) {
+            return e;
+        }
+        final long nanos = unit.toNanos(timeout);
+        if (nanos <= 0L) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return null;
+        }
+        return awaitFirst(true, nanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E getFirst() {
+        final E x = peekFirst();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E getLast() {
+        final E x = peekLast();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    @Override
+    public E peekFirst() {
+        return items.peekFirst();
+    }
+
+    @Override
+    public E peekLast() {
+        return items.peekLast();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(final Object o) {
+        if (o != null && items.removeFirstOccurrence(o)) {
+            decrementCount();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(final Object o) {
+        if (o != null && items.removeLastOccurrence(o)) {
+            decrementCount();
+            return true;
+        }
+        return false;
+    }
+
+    // Queue and stack methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(final E e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void push(final E e) {
+        addFirst(e);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    /**
+     * Removes the first occurrence of the specified element from this deque.
+     *
+     * @param o element to be removed from this deque, if present
+     * @return {@code true} if this deque changed as a result of the call
+     */
+    @Override
+    public boolean remove(final Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    /**
+     * Returns the number of elements in this deque. Unlike
+     * {@link ConcurrentLinkedDeque#size()}, this is a constant time operation.
+     *
+     * @return the number of elements in this deque
+     */
+    @Override
+    public int size() {
+        return Math.max(0, count.get());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return items.contains(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return items.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(final T[] a) {
+        return items.toArray(a);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(items.iterator());
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new Itr(items.descendingIterator());
+    }
+
+    @Override
+    public String toString() {
+        return items.toString();
+    }
+
+    // Monitoring methods
+
+    /**
+     * Returns true if there are threads waiting to take instances from this deque.
+     *
+     * @return true if there is at least one thread waiting on this deque
+     */
+    @Override
+    public boolean hasTakeWaiters() {
+        return !waiters.isEmpty();
+    }
+
+    /**
+     * Returns an estimate of the number of threads waiting to take instances
+     * from this deque. This is a linear time operation.
+     *
+     * @return number of threads waiting on this deque
+     */
+    @Override
+    public int getTakeQueueLength() {
+        return waiters.size();
+    }
+
+    /**
+     * Interrupts the threads currently waiting to take an object from the pool.
+     */
+    @Override
+    public void interuptTakeWaiters() {
+        for (final Waiter w : waiters) {
+            w.thread.interrupt();
+        }
+    }
+}
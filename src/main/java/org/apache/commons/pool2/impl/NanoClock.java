@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * A monotonic clock with nanosecond resolution used by pools and
+ * {@link DefaultPooledObject} to measure durations such as idle, active and
+ * borrow wait times. Values are only meaningful relative to other values of
+ * the same clock, like those of {@link System#nanoTime()}.
+ * <p>
+ * Replacing {@link #SYSTEM} is intended for tests, which can advance a clock
+ * explicitly rather than sleeping. Objects and the pool that holds them should
+ * use the same clock.
+ * </p>
+ *
+ * @see BaseObjectPoolConfig#setClock(NanoClock)
+ * @see DefaultPooledObject#DefaultPooledObject(Object, NanoClock)
+ * @since 2.9.1
+ */
+@FunctionalInterface
+public interface NanoClock {
+
+    /**
+     * The clock backed by {@link System#nanoTime()}.
+     */
+    NanoClock SYSTEM = System::nanoTime;
+
+    /**
+     * Returns the current value of this clock.
+     *
+     * @return the current value in nanoseconds
+     */
+    long nanoTime();
+}
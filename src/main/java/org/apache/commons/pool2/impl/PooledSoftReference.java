@@ -65,9 +65,7 @@ public class PooledSoftReference<T> extends DefaultPooledObject<T> {
         result.append("Referenced Object: ");
         result.append(getObject().toString());
         result.append(", State: ");
-        synchronized (this) {
-            result.append(getState().toString());
-        }
+        result.append(getState().toString());
         return result.toString();
         // TODO add other attributes
         // TODO encapsulate state and other attribute display in parent
@@ -78,7 +76,7 @@ public class PooledSoftReference<T> extends DefaultPooledObject<T> {
      *
      * @return underlying SoftReference
      */
-    public synchronized SoftReference<T> getReference() {
+    public SoftReference<T> getReference() {
         return reference;
     }
 
@@ -92,7 +90,7 @@ public class PooledSoftReference<T> extends DefaultPooledObject<T> {
      *
      * @param reference new reference
      */
-    public synchronized void setReference(final SoftReference<T> reference) {
+    public void setReference(final SoftReference<T> reference) {
         this.reference = reference;
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * An immutable summary of a parallel warm-up of a pool.
+ *
+ * @see GenericObjectPool#preparePoolAsync(int, java.time.Duration)
+ * @see GenericKeyedObjectPool#preparePoolAsync(java.util.Collection, int, java.time.Duration)
+ * @since 2.9.1
+ */
+public final class PreparePoolResult {
+
+    private final int createdCount;
+    private final int failedCount;
+    private final int skippedCount;
+    private final boolean deadlineExceeded;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param createdCount the number of objects created
+     * @param failedCount the number of objects that could not be created
+     * @param skippedCount the number of objects not attempted
+     * @param deadlineExceeded whether the deadline passed before all objects
+     *        were attempted
+     */
+    PreparePoolResult(final int createdCount, final int failedCount, final int skippedCount,
+            final boolean deadlineExceeded) {
+        this.createdCount = createdCount;
+        this.failedCount = failedCount;
+        this.skippedCount = skippedCount;
+        this.deadlineExceeded = deadlineExceeded;
+    }
+
+    /**
+     * Gets the number of objects created and added to the idle objects.
+     *
+     * @return the number of objects created
+     */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * Gets the number of objects whose creation or passivation failed. The
+     * failures are passed to the pool's
+     * {@link org.apache.commons.pool2.SwallowedExceptionListener
+     * SwallowedExceptionListener}.
+     *
+     * @return the number of failed objects
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Gets the number of objects not created, because the pool reached its
+     * maximum number of objects, was closed or the deadline passed.
+     *
+     * @return the number of objects not created
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Tests whether the deadline passed before all objects were attempted.
+     *
+     * @return {@code true} if the warm-up stopped at the deadline
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("PreparePoolResult [createdCount=");
+        builder.append(createdCount);
+        builder.append(", failedCount=");
+        builder.append(failedCount);
+        builder.append(", skippedCount=");
+        builder.append(skippedCount);
+        builder.append(", deadlineExceeded=");
+        builder.append(deadlineExceeded);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * CallStack decorator that takes a snapshot for one call of {@link #fillInStackTrace()} in a given number, chosen at
+ * random, and clears the snapshot for the other calls, so that the cost of recording stack traces is divided by that
+ * number. Sampling keeps abandoned object logging affordable while a leak is tracked down in production: a leak that
+ * happens repeatedly is still reported with its stack trace.
+ *
+ * @since 2.9.1
+ */
+final class SamplingCallStack implements CallStack {
+
+    private final CallStack callStack;
+    private final int sampleInterval;
+
+    /**
+     * Create a new instance.
+     *
+     * @param callStack the strategy taking the sampled snapshots
+     * @param sampleInterval the average number of calls per snapshot, greater than one
+     */
+    SamplingCallStack(final CallStack callStack, final int sampleInterval) {
+        this.callStack = callStack;
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public boolean printStackTrace(final PrintWriter writer) {
+        return callStack.printStackTrace(writer);
+    }
+
+    @Override
+    public void fillInStackTrace() {
+        if (ThreadLocalRandom.current().nextInt(sampleInterval) == 0) {
+            callStack.fillInStackTrace();
+        } else {
+            // Do not report the stack of an earlier call
+            callStack.clear();
+        }
+    }
+
+    @Override
+    public void clear() {
+        callStack.clear();
+    }
+}
@@ -22,6 +22,7 @@ import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.pool2.BaseObjectPool;
 import org.apache.commons.pool2.ObjectPool;
@@ -44,6 +45,12 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
     /** Factory to source pooled objects */
     private final PooledObjectFactory<T> factory;
 
+    /**
+     * Guards the pool state. A j.u.c. lock rather than this object's monitor so
+     * that threads blocked on it do not pin virtual threads.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
     /**
      * Queue of broken references that might be able to be removed from
      * {@code _pool}. This is used to help {@link #getNumIdle()} be more
@@ -52,14 +59,14 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
     private final ReferenceQueue<T> refQueue = new ReferenceQueue<>();
 
     /** Count of instances that have been checkout out to pool clients */
-    private int numActive = 0; // @GuardedBy("this")
+    private int numActive = 0; // @GuardedBy("lock")
 
     /** Total number of instances that have been destroyed */
-    private long destroyCount = 0; // @GuardedBy("this")
+    private long destroyCount = 0; // @GuardedBy("lock")
 
 
     /** Total number of instances that have been created */
-    private long createCount = 0; // @GuardedBy("this")
+    private long createCount = 0; // @GuardedBy("lock")
 
     /** Idle references - waiting to be borrowed */
     private final LinkedBlockingDeque<PooledSoftReference<T>> idleReferences =
@@ -114,58 +121,63 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
      */
     @SuppressWarnings("null") // ref cannot be null
     @Override
-    public synchronized T borrowObject() throws Exception {
-        assertOpen();
-        T obj = null;
-        boolean newlyCreated = false;
-        PooledSoftReference<T> ref = null;
-        while (null == obj) {
-            if (idleReferences.isEmpty()) {
-                if (null == factory) {
-                    throw new NoSuchElementException();
-                }
-                newlyCreated = true;
-                obj = factory.makeObject().getObject();
-                createCount++;
-                // Do not register with the queue
-                ref = new PooledSoftReference<>(new SoftReference<>(obj));
-                allReferences.add(ref);
-            } else {
-                ref = idleReferences.pollFirst();
-                obj = ref.getObject();
-                // Clear the reference so it will not be queued, but replace with a
-                // a new, non-registered reference so we can still track this object
-                // in allReferences
-                ref.getReference().clear();
-                ref.setReference(new SoftReference<>(obj));
-            }
-            if (null != factory && null != obj) {
-                try {
-                    factory.activateObject(ref);
-                    if (!factory.validateObject(ref)) {
-                        throw new Exception("ValidateObject failed");
+    public T borrowObject() throws Exception {
+        lock.lock();
+        try {
+            assertOpen();
+            T obj = null;
+            boolean newlyCreated = false;
+            PooledSoftReference<T> ref = null;
+            while (null == obj) {
+                if (idleReferences.isEmpty()) {
+                    if (null == factory) {
+                        throw new NoSuchElementException();
                     }
-                } catch (final Throwable t) {
-                    PoolUtils.checkRethrow(t);
+                    newlyCreated = true;
+                    obj = factory.makeObject().getObject();
+                    createCount++;
+                    // Do not register with the queue
+                    ref = new PooledSoftReference<>(new SoftReference<>(obj));
+                    allReferences.add(ref);
+                } else {
+                    ref = idleReferences.pollFirst();
+                    obj = ref.getObject();
+                    // Clear the reference so it will not be queued, but replace with a
+                    // a new, non-registered reference so we can still track this object
+                    // in allReferences
+                    ref.getReference().clear();
+                    ref.setReference(new SoftReference<>(obj));
+                }
+                if (null != factory && null != obj) {
                     try {
-                        destroy(ref);
-                    } catch (final Throwable t2) {
-                        PoolUtils.checkRethrow(t2);
-                        // Swallowed
-                    } finally {
-                        obj = null;
-                    }
-                    if (newlyCreated) {
-                        throw new NoSuchElementException(
-                                "Could not create a validated object, cause: " +
-                                        t.getMessage());
+                        factory.activateObject(ref);
+                        if (!factory.validateObject(ref)) {
+                            throw new Exception("ValidateObject failed");
+                        }
+                    } catch (final Throwable t) {
+                        PoolUtils.checkRethrow(t);
+                        try {
+                            destroy(ref);
+                        } catch (final Throwable t2) {
+                            PoolUtils.checkRethrow(t2);
+                            // Swallowed
+                        } finally {
+                            obj = null;
+                        }
+                        if (newlyCreated) {
+                            throw new NoSuchElementException(
+                                    "Could not create a validated object, cause: " +
+                                            t.getMessage());
+                        }
                     }
                 }
             }
+            numActive++;
+            ref.allocate();
+            return obj;
+        } finally {
+            lock.unlock();
         }
-        numActive++;
-        ref.allocate();
-        return obj;
     }
 
     /**
@@ -190,41 +202,45 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
      *            if obj is not currently part of this pool
      */
     @Override
-    public synchronized void returnObject(final T obj) throws Exception {
-        boolean success = !isClosed();
-        final PooledSoftReference<T> ref = findReference(obj);
-        if (ref == null) {
-            throw new IllegalStateException(
-                "Returned object not currently part of this pool");
-        }
-        if (factory != null) {
-            if (!factory.validateObject(ref)) {
-                success = false;
-            } else {
-                try {
-                    factory.passivateObject(ref);
-                } catch (final Exception e) {
+    public void returnObject(final T obj) throws Exception {
+        lock.lock();
+        try {
+            boolean success = !isClosed();
+            final PooledSoftReference<T> ref = findReference(obj);
+            if (ref == null) {
+                throw new IllegalStateException(
+                    "Returned object not currently part of this pool");
+            }
+            if (factory != null) {
+                if (!factory.validateObject(ref)) {
                     success = false;
+                } else {
+                    try {
+                        factory.passivateObject(ref);
+                    } catch (final Exception e) {
+                        success = false;
+                    }
                 }
             }
-        }
 
-        final boolean shouldDestroy = !success;
-        numActive--;
-        if (success) {
+            final boolean shouldDestroy = !success;
+            numActive--;
+            if (success) {
 
-            // Deallocate and add to the idle instance pool
-            ref.deallocate();
-            idleReferences.add(ref);
-        }
-        notifyAll(); // numActive has changed
+                // Deallocate and add to the idle instance pool
+                ref.deallocate();
+                idleReferences.add(ref);
+            }
 
-        if (shouldDestroy && factory != null) {
-            try {
-                destroy(ref);
-            } catch (final Exception e) {
-                // ignored
+            if (shouldDestroy && factory != null) {
+                try {
+                    destroy(ref);
+                } catch (final Exception e) {
+                    // ignored
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -232,17 +248,21 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
      * {@inheritDoc}
      */
     @Override
-    public synchronized void invalidateObject(final T obj) throws Exception {
-        final PooledSoftReference<T> ref = findReference(obj);
-        if (ref == null) {
-            throw new IllegalStateException(
-                "Object to invalidate is not currently part of this pool");
-        }
-        if (factory != null) {
-            destroy(ref);
+    public void invalidateObject(final T obj) throws Exception {
+        lock.lock();
+        try {
+            final PooledSoftReference<T> ref = findReference(obj);
+            if (ref == null) {
+                throw new IllegalStateException(
+                    "Object to invalidate is not currently part of this pool");
+            }
+            if (factory != null) {
+                destroy(ref);
+            }
+            numActive--;
+        } finally {
+            lock.unlock();
         }
-        numActive--;
-        notifyAll(); // numActive has changed
     }
 
     /**
@@ -268,38 +288,42 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
      *             or passivating an object.
      */
     @Override
-    public synchronized void addObject() throws Exception {
-        assertOpen();
-        if (factory == null) {
-            throw new IllegalStateException(
-                    "Cannot add objects without a factory.");
-        }
-        final T obj = factory.makeObject().getObject();
-        createCount++;
-        // Create and register with the queue
-        final PooledSoftReference<T> ref = new PooledSoftReference<>(
-                new SoftReference<>(obj, refQueue));
-        allReferences.add(ref);
-
-        boolean success = true;
-        if (!factory.validateObject(ref)) {
-            success = false;
-        } else {
-            factory.passivateObject(ref);
-        }
+    public void addObject() throws Exception {
+        lock.lock();
+        try {
+            assertOpen();
+            if (factory == null) {
+                throw new IllegalStateException(
+                        "Cannot add objects without a factory.");
+            }
+            final T obj = factory.makeObject().getObject();
+            createCount++;
+            // Create and register with the queue
+            final PooledSoftReference<T> ref = new PooledSoftReference<>(
+                    new SoftReference<>(obj, refQueue));
+            allReferences.add(ref);
+
+            boolean success = true;
+            if (!factory.validateObject(ref)) {
+                success = false;
+            } else {
+                factory.passivateObject(ref);
+            }
 
-        final boolean shouldDestroy = !success;
-        if (success) {
-            idleReferences.add(ref);
-            notifyAll(); // numActive has changed
-        }
+            final boolean shouldDestroy = !success;
+            if (success) {
+                idleReferences.add(ref);
+                }
 
-        if (shouldDestroy) {
-            try {
-                destroy(ref);
-            } catch (final Exception e) {
-                // ignored
+            if (shouldDestroy) {
+                try {
+                    destroy(ref);
+                } catch (final Exception e) {
+                    // ignored
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -310,9 +334,14 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
      * @return estimated number of idle instances in the pool
      */
     @Override
-    public synchronized int getNumIdle() {
-        pruneClearedReferences();
-        return idleReferences.size();
+    public int getNumIdle() {
+        lock.lock();
+        try {
+            pruneClearedReferences();
+            return idleReferences.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -321,30 +350,40 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
      * @return the number of instances currently borrowed from this pool
      */
     @Override
-    public synchronized int getNumActive() {
-        return numActive;
+    public int getNumActive() {
+        lock.lock();
+        try {
+            return numActive;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Clears any objects sitting idle in the pool.
      */
     @Override
-    public synchronized void clear() {
-        if (null != factory) {
-            final Iterator<PooledSoftReference<T>> iter = idleReferences.iterator();
-            while (iter.hasNext()) {
-                try {
-                    final PooledSoftReference<T> ref = iter.next();
-                    if (null != ref.getObject()) {
-                        factory.destroyObject(ref);
+    public void clear() {
+        lock.lock();
+        try {
+            if (null != factory) {
+                final Iterator<PooledSoftReference<T>> iter = idleReferences.iterator();
+                while (iter.hasNext()) {
+                    try {
+                        final PooledSoftReference<T> ref = iter.next();
+                        if (null != ref.getObject()) {
+                            factory.destroyObject(ref);
+                        }
+                    } catch (final Exception e) {
+                        // ignore error, keep destroying the rest
                     }
-                } catch (final Exception e) {
-                    // ignore error, keep destroying the rest
                 }
             }
+            idleReferences.clear();
+            pruneClearedReferences();
+        } finally {
+            lock.unlock();
         }
-        idleReferences.clear();
-        pruneClearedReferences();
     }
 
     /**
@@ -367,7 +406,7 @@ public class SoftReferenceObjectPool<T> extends BaseObjectPool<T> {
      *
      * @return the factory
      */
-    public synchronized PooledObjectFactory<T> getFactory() {
+    public PooledObjectFactory<T> getFactory() {
         return factory;
     }
 
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * CallStack strategy using the {@code java.lang.StackWalker} of Java 9 and later. It provides the same method names
+ * and line numbers as {@link ThrowableCallStack} but walks at most the given number of frames and keeps the frames
+ * unresolved until the stack trace is printed, so taking a snapshot is much cheaper, in particular with a bounded
+ * depth. On Java 8 this strategy is not {@linkplain #isAvailable() available}.
+ *
+ * @since 2.9.1
+ */
+public class StackWalkerCallStack implements CallStack {
+
+    /** A {@code StackWalker} with the default options, null before Java 9. */
+    private static final Object WALKER;
+
+    /** {@code StackWalker.walk(Function)}, null before Java 9. */
+    private static final Method WALK;
+
+    static {
+        Object walker = null;
+        Method walk = null;
+        try {
+            final Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            walker = walkerClass.getMethod("getInstance").invoke(null);
+            walk = walkerClass.getMethod("walk", Function.class);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+            walker = null;
+            walk = null;
+        }
+        WALKER = walker;
+        WALK = walk;
+    }
+
+    /**
+     * Tests whether this strategy is available in the running JVM.
+     *
+     * @return {@code true} on Java 9 and later
+     */
+    public static boolean isAvailable() {
+        return WALK != null;
+    }
+
+    private final String messageFormat;
+    //@GuardedBy("dateFormat")
+    private final DateFormat dateFormat;
+    /** Collects the frames of the caller of {@link #fillInStackTrace()} and its callers. */
+    private final Function<Stream<?>, Object[]> collector;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Create a new instance.
+     *
+     * @param messageFormat message format
+     * @param useTimestamp whether to format the dates in the output message or not
+     * @param maxDepth the maximum number of frames to record, zero or negative for all frames
+     * @throws UnsupportedOperationException if this strategy is not {@linkplain #isAvailable() available}
+     */
+    public StackWalkerCallStack(final String messageFormat, final boolean useTimestamp, final int maxDepth) {
+        if (WALK == null) {
+            throw new UnsupportedOperationException("StackWalker requires Java 9 or later");
+        }
+        this.messageFormat = messageFormat;
+        this.dateFormat = useTimestamp ? new SimpleDateFormat(messageFormat) : null;
+        final long limit = maxDepth > 0 ? maxDepth : Long.MAX_VALUE;
+        // Skip the frame of fillInStackTrace()
+        this.collector = frames -> frames.skip(1).limit(limit).toArray();
+    }
+
+    @Override
+    public boolean printStackTrace(final PrintWriter writer) {
+        final Snapshot snapshotRef = this.snapshot;
+        if (snapshotRef == null) {
+            return false;
+        }
+        final String message;
+        if (dateFormat == null) {
+            message = messageFormat;
+        } else {
+            synchronized (dateFormat) {
+                message = dateFormat.format(Long.valueOf(snapshotRef.timestampMillis));
+            }
+        }
+        writer.println(message);
+        for (final Object frame : snapshotRef.frames) {
+            // StackFrame.toString() resolves the frame
+            writer.print("\tat ");
+            writer.println(frame);
+        }
+        return true;
+    }
+
+    @Override
+    public void fillInStackTrace() {
+        final Object[] frames;
+        try {
+            // The default walker does not show the reflection frames
+            frames = (Object[]) WALK.invoke(WALKER, collector);
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        snapshot = new Snapshot(frames);
+    }
+
+    @Override
+    public void clear() {
+        snapshot = null;
+    }
+
+    /**
+     * A snapshot of unresolved stack frames.
+     */
+    private static class Snapshot {
+        private final long timestampMillis = System.currentTimeMillis();
+        private final Object[] frames;
+
+        /**
+         * Create a new snapshot with stack frames.
+         *
+         * @param frames the {@code StackWalker.StackFrame}s, innermost first
+         */
+        private Snapshot(final Object[] frames) {
+            this.frames = frames;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import org.apache.commons.pool2.PooledObject;
+
+/**
+ * Per-thread caches of idle objects recently returned by each thread.
+ * <p>
+ * Each thread that returns an object to the pool gets a small array of slots.
+ * A returned object is parked in a free slot of the returning thread and that
+ * thread claims it back on its next borrow, so a thread that repeatedly
+ * borrows and returns only touches memory it owns. An object is in at most
+ * one slot at any time and a slot is claimed by atomically clearing it, so
+ * other threads can <em>steal</em> cached objects when the pool is otherwise
+ * exhausted, and the evictor can move objects that are no longer being reused
+ * back to the shared idle objects.
+ * </p>
+ * <p>
+ * Cached objects stay in the {@link org.apache.commons.pool2.PooledObjectState#IDLE
+ * IDLE} state, so the pool's {@code maxTotal} and abandoned object tracking
+ * are unaffected.
+ * </p>
+ * <p>
+ * Once {@link #close() closed}, the cache refuses new objects and no longer
+ * references the slots of any thread, so threads that outlive the pool do not
+ * keep pooled objects reachable.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <T> Type of element pooled.
+ *
+ * @since 2.9.1
+ */
+class ThreadAffineIdleCache<T> {
+
+    /**
+     * The cache slots of one thread.
+     *
+     * @param <T> Type of element pooled.
+     */
+    private static final class Slots<T> extends AtomicReferenceArray<PooledObject<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final WeakReference<Thread> owner;
+
+        /**
+         * Creates the slots for the current thread.
+         *
+         * @param size the number of slots
+         */
+        Slots(final int size) {
+            super(size);
+            owner = new WeakReference<>(Thread.currentThread());
+        }
+
+        /**
+         * Tests whether the owning thread has terminated.
+         *
+         * @return {@code true} if the owner is no longer alive
+         */
+        boolean isOwnerDead() {
+            final Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
+    private final int size;
+
+    /** Slots of every thread that has used this cache. */
+    private final CopyOnWriteArrayList<Slots<T>> allSlots = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<Slots<T>> localSlots;
+
+    /** The number of objects currently cached by all threads. */
+    private final AtomicInteger count = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param size the maximum number of objects cached per thread
+     */
+    ThreadAffineIdleCache(final int size) {
+        this.size = size;
+        this.localSlots = ThreadLocal.withInitial(() -> {
+            final Slots<T> slots = new Slots<>(this.size);
+            allSlots.add(slots);
+            return slots;
+        });
+    }
+
+    /**
+     * Claims the most recently cached object of the current thread.
+     *
+     * @return a cached object or {@code null} if the current thread has none
+     */
+    PooledObject<T> take() {
+        final Slots<T> slots = localSlots.get();
+        for (int i = size - 1; i >= 0; i--) {
+            if (slots.get(i) != null) {
+                final PooledObject<T> p = slots.getAndSet(i, null);
+                if (p != null) {
+                    count.decrementAndGet();
+                    return p;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches an idle object for the current thread.
+     *
+     * @param p the idle object
+     * @return {@code true} if the object was cached, {@code false} if all of
+     *         the current thread's slots are in use or the cache is closed
+     */
+    boolean offer(final PooledObject<T> p) {
+        if (closed) {
+            return false;
+        }
+        final Slots<T> slots = localSlots.get();
+        for (int i = 0; i < size; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, p)) {
+                count.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Claims the given object back from the current thread's slots.
+     *
+     * @param p the object cached by the current thread
+     * @return {@code true} if the object was claimed, {@code false} if it has
+     *         been claimed by another thread in the meantime
+     */
+    boolean remove(final PooledObject<T> p) {
+        final Slots<T> slots = localSlots.get();
+        for (int i = 0; i < size; i++) {
+            if (slots.get(i) == p && slots.compareAndSet(i, p, null)) {
+                count.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Claims an object cached by any other thread.
+     *
+     * @return a cached object or {@code null} if no thread has one
+     */
+    PooledObject<T> steal() {
+        for (final Slots<T> slots : allSlots) {
+            for (int i = 0; i < size; i++) {
+                if (slots.get(i) != null) {
+                    final PooledObject<T> p = slots.getAndSet(i, null);
+                    if (p != null) {
+                        count.decrementAndGet();
+                        return p;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Claims the cached objects that have been idle for at least the given
+     * time, as well as all objects cached by threads that have terminated.
+     * Slots of terminated threads are discarded.
+     *
+     * @param minIdleTimeMillis the idle time after which an object is drained,
+     *        non-positive values drain all objects
+     * @param sink receives the drained objects
+     */
+    void drain(final long minIdleTimeMillis, final Consumer<PooledObject<T>> sink) {
+        for (final Slots<T> slots : allSlots) {
+            final boolean dead = slots.isOwnerDead();
+            for (int i = 0; i < size; i++) {
+                final PooledObject<T> p = slots.get(i);
+                if (p != null && (dead || p.getIdleTimeMillis() >= minIdleTimeMillis) &&
+                        slots.compareAndSet(i, p, null)) {
+                    count.decrementAndGet();
+                    sink.accept(p);
+                }
+            }
+            if (dead) {
+                allSlots.remove(slots);
+            }
+        }
+    }
+
+    /**
+     * Closes the cache. Objects cached by any thread are handed to the given
+     * sink, later offers are refused and the slots of all threads are
+     * released.
+     *
+     * @param sink receives the cached objects
+     */
+    void close(final Consumer<PooledObject<T>> sink) {
+        closed = true;
+        // Objects offered concurrently with setting the flag are drained here
+        drain(0, sink);
+        allSlots.clear();
+        localSlots.remove();
+    }
+
+    /**
+     * Returns the number of objects currently cached by all threads.
+     *
+     * @return the number of cached objects
+     */
+    int size() {
+        return count.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("ThreadAffineIdleCache [size=");
+        builder.append(size);
+        builder.append(", threads=");
+        builder.append(allSlots.size());
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records a distribution of durations in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets: values below 64 have a bucket
+ * each, larger values share a bucket with values that have the same five
+ * most significant bits after the leading one, which bounds the error of
+ * reported percentiles to about 3%. The count, sum and maximum are exact.
+ * </p>
+ * <p>
+ * Recording is lock-free and does not allocate. Snapshots copy the buckets
+ * and are not atomic with respect to concurrent recording.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+final class TimingHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Number of buckets needed to cover all non-negative long values. */
+    static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+    /**
+     * Gets the index of the bucket that counts the given value.
+     *
+     * @param value a non-negative value
+     * @return the bucket index
+     */
+    static int indexOf(final long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the highest value counted by the given bucket.
+     *
+     * @param index the bucket index
+     * @return the highest value of the bucket
+     */
+    static long highestValueOf(final int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long lowest = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /** Bucket counts at the previous interval snapshot, guarded by this. */
+    private long[] intervalCounts = new long[BUCKET_COUNT];
+
+    /** Sum at the previous interval snapshot, guarded by this. */
+    private long intervalSum;
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, negative values are recorded
+     *        as zero
+     */
+    void record(final long nanos) {
+        record(nanos, 1);
+    }
+
+    /**
+     * Records the same duration several times.
+     *
+     * @param nanos the duration in nanoseconds, negative values are recorded
+     *        as zero
+     * @param count the number of times to record the duration
+     */
+    void record(final long nanos, final int count) {
+        final long value = Math.max(0, nanos);
+        counts.addAndGet(indexOf(value), count);
+        sum.addAndGet(value * count);
+        // lock-free optimistic-locking maximum
+        long currentMax;
+        do {
+            currentMax = max.get();
+            if (currentMax >= value) {
+                break;
+            }
+        } while (!max.compareAndSet(currentMax, value));
+    }
+
+    /**
+     * Gets the largest duration recorded since creation or the last reset.
+     *
+     * @return the maximum in nanoseconds
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    private long[] copyCounts() {
+        final long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Takes a snapshot of all durations recorded since creation or the last
+     * reset.
+     *
+     * @return a new snapshot
+     */
+    TimingStatistics snapshot() {
+        return new TimingStatistics(copyCounts(), sum.get(), max.get());
+    }
+
+    /**
+     * Takes a snapshot of the durations recorded since the previous call of
+     * this method, creation or the last reset.
+     *
+     * @return a new snapshot
+     */
+    synchronized TimingStatistics intervalSnapshot() {
+        final long[] current = copyCounts();
+        final long currentSum = sum.get();
+        final long[] interval = new long[BUCKET_COUNT];
+        int highest = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            interval[i] = current[i] - intervalCounts[i];
+            if (interval[i] > 0) {
+                highest = i;
+            }
+        }
+        final long intervalMax = highest < 0 ? 0 : Math.min(highestValueOf(highest), max.get());
+        final TimingStatistics result = new TimingStatistics(interval, currentSum - intervalSum, intervalMax);
+        intervalCounts = current;
+        intervalSum = currentSum;
+        return result;
+    }
+
+    /**
+     * Discards all recorded durations. Durations recorded concurrently may or
+     * may not be discarded.
+     */
+    synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+        intervalCounts = new long[BUCKET_COUNT];
+        intervalSum = 0;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
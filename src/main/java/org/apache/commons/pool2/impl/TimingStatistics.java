@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * An immutable summary of durations recorded by a pool, for example the time
+ * threads waited to borrow objects. All values are in nanoseconds.
+ * <p>
+ * Percentiles are accurate to about 3% of the reported value and never
+ * exceed {@link #getMax()}; the count, mean and maximum are exact.
+ * </p>
+ *
+ * @see GenericObjectPool#getBorrowWaitTimeStatistics()
+ * @see GenericKeyedObjectPool#getBorrowWaitTimeStatistics()
+ * @since 2.9.1
+ */
+public final class TimingStatistics {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param counts the bucket counts of a {@link TimingHistogram}, not copied
+     * @param sum the sum of the recorded durations
+     * @param max the largest recorded duration
+     */
+    TimingStatistics(final long[] counts, final long sum, final long max) {
+        this.counts = counts;
+        long total = 0;
+        for (final long c : counts) {
+            total += c;
+        }
+        this.count = total;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean duration.
+     *
+     * @return the mean in nanoseconds, {@code 0} if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / (double) count;
+    }
+
+    /**
+     * Gets the largest duration.
+     *
+     * @return the maximum in nanoseconds, {@code 0} if nothing was recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the median duration.
+     *
+     * @return the 50th percentile in nanoseconds
+     */
+    public long getP50() {
+        return getValueAtPercentile(50);
+    }
+
+    /**
+     * Gets the 99th percentile of the durations.
+     *
+     * @return the 99th percentile in nanoseconds
+     */
+    public long getP99() {
+        return getValueAtPercentile(99);
+    }
+
+    /**
+     * Gets the 99.9th percentile of the durations.
+     *
+     * @return the 99.9th percentile in nanoseconds
+     */
+    public long getP999() {
+        return getValueAtPercentile(99.9);
+    }
+
+    /**
+     * Gets the duration below or at which the given percentage of the
+     * recorded durations fall.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the duration in nanoseconds, {@code 0} if nothing was recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final double p = Math.min(Math.max(percentile, 0), 100);
+        final long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(TimingHistogram.highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("TimingStatistics [count=");
+        builder.append(count);
+        builder.append(", mean=");
+        builder.append(getMean());
+        builder.append(", p50=");
+        builder.append(getP50());
+        builder.append(", p99=");
+        builder.append(getP99());
+        builder.append(", p999=");
+        builder.append(getP999());
+        builder.append(", max=");
+        builder.append(max);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.pool2.impl.BaseGenericObjectPool;
+
+/**
+ * Base class that binds the meters common to {@link GenericObjectPoolMetrics}
+ * and {@link GenericKeyedObjectPoolMetrics} to a {@link PoolMetricsRegistry}.
+ * <p>
+ * Meters read the pool's counters when they are polled; binding a pool adds
+ * no work to its borrow and return paths. The percentile gauges copy the
+ * pool's timing histograms each time they are read, so they cover all the
+ * objects borrowed and returned since the pool's statistics were last reset. Binding does not depend on JMX, so
+ * pools exported through this class may be configured with
+ * {@link org.apache.commons.pool2.impl.BaseObjectPoolConfig#setJmxEnabled(boolean)
+ * jmxEnabled} set to false.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+public abstract class BasePoolMetrics implements AutoCloseable {
+
+    /** The prefix of the names of all the pool meters. */
+    public static final String PREFIX = "commons.pool.";
+
+    /** Gauge of the number of objects borrowed from the pool. */
+    public static final String ACTIVE = PREFIX + "active";
+
+    /** Gauge of the number of objects idle in the pool. */
+    public static final String IDLE = PREFIX + "idle";
+
+    /** Gauge of the number of borrowers waiting for an object. */
+    public static final String WAITERS = PREFIX + "waiters";
+
+    /** Gauge of the number of object creations in flight. */
+    public static final String PENDING_CREATES = PREFIX + "pending.creates";
+
+    /** Gauge of the maximum number of objects of the pool. */
+    public static final String MAX_TOTAL = PREFIX + "max.total";
+
+    /** Counter of the objects borrowed. */
+    public static final String BORROWED = PREFIX + "borrowed";
+
+    /** Counter of the objects returned. */
+    public static final String RETURNED = PREFIX + "returned";
+
+    /** Counter of the objects created. */
+    public static final String CREATED = PREFIX + "created";
+
+    /** Counter of the objects destroyed. */
+    public static final String DESTROYED = PREFIX + "destroyed";
+
+    /** Counter of the objects destroyed by the evictor. */
+    public static final String DESTROYED_BY_EVICTOR = PREFIX + "destroyed.evictor";
+
+    /** Counter of the objects destroyed because they failed validation on borrow. */
+    public static final String DESTROYED_BY_BORROW_VALIDATION = PREFIX + "destroyed.validation";
+
+    /** Counter of the objects destroyed because the idle objects exceeded maxIdle. */
+    public static final String DESTROYED_BY_MAX_IDLE = PREFIX + "destroyed.maxidle";
+
+    /** Gauge of the mean time, in milliseconds, objects are borrowed for. */
+    public static final String ACTIVE_TIME_MEAN = PREFIX + "active.time.mean";
+
+    /** Gauge of the median time, in milliseconds, objects are borrowed for. */
+    public static final String ACTIVE_TIME_P50 = PREFIX + "active.time.p50";
+
+    /** Gauge of the 99th percentile of the time, in milliseconds, objects are borrowed for. */
+    public static final String ACTIVE_TIME_P99 = PREFIX + "active.time.p99";
+
+    /** Gauge of the mean time, in milliseconds, objects are idle for. */
+    public static final String IDLE_TIME_MEAN = PREFIX + "idle.time.mean";
+
+    /** Gauge of the mean time, in milliseconds, borrowers wait for an object. */
+    public static final String WAIT_TIME_MEAN = PREFIX + "wait.time.mean";
+
+    /** Gauge of the median time, in milliseconds, borrowers wait for an object. */
+    public static final String WAIT_TIME_P50 = PREFIX + "wait.time.p50";
+
+    /** Gauge of the 99th percentile of the time, in milliseconds, borrowers wait for an object. */
+    public static final String WAIT_TIME_P99 = PREFIX + "wait.time.p99";
+
+    /** Gauge of the maximum time, in milliseconds, a borrower waited for an object. */
+    public static final String WAIT_TIME_MAX = PREFIX + "wait.time.max";
+
+    /** The registry the meters are bound to. */
+    final PoolMetricsRegistry registry;
+
+    /** The tags of the meters of the whole pool. */
+    final Map<String, String> tags;
+
+    /** Names of the meters of the whole pool, removed on close. */
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Binds the meters common to all the generic pools.
+     *
+     * @param pool     The pool to bind
+     * @param registry The registry to bind the meters to
+     * @param tags     The tags identifying the pool, for example its name
+     */
+    BasePoolMetrics(final BaseGenericObjectPool<?> pool, final PoolMetricsRegistry registry,
+            final Map<String, String> tags) {
+        if (registry == null) {
+            throw new IllegalArgumentException("registry must not be null");
+        }
+        this.registry = registry;
+        this.tags = Collections.unmodifiableMap(new HashMap<>(tags));
+        gauge(IDLE, pool::getNumIdle);
+        gauge(PENDING_CREATES, pool::getNumPendingCreates);
+        gauge(MAX_TOTAL, pool::getMaxTotal);
+        counter(BORROWED, pool::getBorrowedCount);
+        counter(RETURNED, pool::getReturnedCount);
+        counter(CREATED, pool::getCreatedCount);
+        counter(DESTROYED, pool::getDestroyedCount);
+        counter(DESTROYED_BY_EVICTOR, pool::getDestroyedByEvictorCount);
+        counter(DESTROYED_BY_BORROW_VALIDATION, pool::getDestroyedByBorrowValidationCount);
+        counter(DESTROYED_BY_MAX_IDLE, pool::getDestroyedByMaxIdleCount);
+        gauge(ACTIVE_TIME_MEAN, pool::getMeanActiveTimeMillis);
+        gauge(ACTIVE_TIME_P50, () -> millis(pool.getActiveTimeStatistics().getP50()));
+        gauge(ACTIVE_TIME_P99, () -> millis(pool.getActiveTimeStatistics().getP99()));
+        gauge(IDLE_TIME_MEAN, pool::getMeanIdleTimeMillis);
+        gauge(WAIT_TIME_MEAN, pool::getMeanBorrowWaitTimeMillis);
+        gauge(WAIT_TIME_P50, () -> millis(pool.getBorrowWaitTimeStatistics().getP50()));
+        gauge(WAIT_TIME_P99, () -> millis(pool.getBorrowWaitTimeStatistics().getP99()));
+        gauge(WAIT_TIME_MAX, pool::getMaxBorrowWaitTimeMillis);
+    }
+
+    /**
+     * Converts a duration reported by the pool's timing statistics.
+     *
+     * @param nanos The duration in nanoseconds
+     * @return The duration in milliseconds
+     */
+    private static double millis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Removes all the meters of the pool from the registry.
+     */
+    @Override
+    public void close() {
+        synchronized (names) {
+            for (final String name : names) {
+                registry.remove(name, tags);
+            }
+            names.clear();
+        }
+    }
+
+    /**
+     * Registers a counter of the whole pool.
+     *
+     * @param name  The name of the counter
+     * @param value Supplies the total of the counter
+     */
+    final void counter(final String name, final LongSupplier value) {
+        registry.counter(name, tags, value);
+        synchronized (names) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * Registers a gauge of the whole pool.
+     *
+     * @param name  The name of the gauge
+     * @param value Supplies the value of the gauge
+     */
+    final void gauge(final String name, final DoubleSupplier value) {
+        registry.gauge(name, tags, value);
+        synchronized (names) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * Gets the tags identifying the pool.
+     *
+     * @return The unmodifiable tags of the pool's meters
+     */
+    public Map<String, String> getTags() {
+        return tags;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+
+/**
+ * Binds the gauges and counters of a {@link GenericKeyedObjectPool} to a
+ * {@link PoolMetricsRegistry}, with per key gauges of the active, idle and
+ * waiting counts.
+ * <p>
+ * The per key gauges carry the pool's tags and a {@value #KEY_TAG} tag holding
+ * the key's {@code toString()}. Keys come and go, so the per key gauges are
+ * synchronized with the pool's keys by {@link #refreshKeys()}, which should
+ * be called periodically, for example before each scrape. At most
+ * {@code maxKeys} keys are tracked to bound the cardinality of the exported
+ * metrics; the keys that are not tracked are counted by the
+ * {@link #KEYS_UNTRACKED} gauge.
+ * </p>
+ * <p>
+ * Unlike {@link GenericKeyedObjectPool#getNumActivePerKey()} and
+ * {@link GenericKeyedObjectPool#getNumWaitersByKey()}, reading a per key gauge
+ * looks up a single key and allocates nothing.
+ * </p>
+ *
+ * @param <K> The type of keys of the pool
+ *
+ * @since 2.9.1
+ */
+public class GenericKeyedObjectPoolMetrics<K> extends BasePoolMetrics {
+
+    /** The name of the tag holding the key of the per key gauges. */
+    public static final String KEY_TAG = "key";
+
+    /** Gauge of the number of objects borrowed under a key. */
+    public static final String KEY_ACTIVE = PREFIX + "key.active";
+
+    /** Gauge of the number of objects idle under a key. */
+    public static final String KEY_IDLE = PREFIX + "key.idle";
+
+    /** Gauge of the number of borrowers waiting for an object under a key. */
+    public static final String KEY_WAITERS = PREFIX + "key.waiters";
+
+    /** Gauge of the number of keys of the pool without per key gauges. */
+    public static final String KEYS_UNTRACKED = PREFIX + "keys.untracked";
+
+    /** The default maximum number of keys with per key gauges. */
+    public static final int DEFAULT_MAX_KEYS = 100;
+
+    private final GenericKeyedObjectPool<K, ?> pool;
+
+    private final int maxKeys;
+
+    /** The tracked keys, in the order they were first seen, mapped to the tags of their gauges. */
+    private final Map<K, Map<String, String>> keyTags = new LinkedHashMap<>();
+
+    private final ReentrantLock keysLock = new ReentrantLock();
+
+    private volatile int untrackedKeys;
+
+    /**
+     * Binds the meters of a pool with no tags, tracking at most
+     * {@link #DEFAULT_MAX_KEYS} keys.
+     *
+     * @param pool     The pool to bind
+     * @param registry The registry to bind the meters to
+     */
+    public GenericKeyedObjectPoolMetrics(final GenericKeyedObjectPool<K, ?> pool,
+            final PoolMetricsRegistry registry) {
+        this(pool, registry, Collections.<String, String>emptyMap(), DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Binds the meters of a pool.
+     *
+     * @param pool     The pool to bind
+     * @param registry The registry to bind the meters to
+     * @param tags     The tags identifying the pool, for example its name
+     * @param maxKeys  The maximum number of keys with per key gauges, 0 for none
+     */
+    public GenericKeyedObjectPoolMetrics(final GenericKeyedObjectPool<K, ?> pool,
+            final PoolMetricsRegistry registry, final Map<String, String> tags, final int maxKeys) {
+        super(pool, registry, tags);
+        if (maxKeys < 0) {
+            throw new IllegalArgumentException("maxKeys must not be negative");
+        }
+        this.pool = pool;
+        this.maxKeys = maxKeys;
+        gauge(ACTIVE, pool::getNumActive);
+        gauge(WAITERS, pool::getNumWaiters);
+        gauge(KEYS_UNTRACKED, () -> untrackedKeys);
+        refreshKeys();
+    }
+
+    /**
+     * Removes all the meters of the pool, including the per key gauges, from
+     * the registry.
+     */
+    @Override
+    public void close() {
+        keysLock.lock();
+        try {
+            for (final Map<String, String> t : keyTags.values()) {
+                removeKeyGauges(t);
+            }
+            keyTags.clear();
+        } finally {
+            keysLock.unlock();
+        }
+        super.close();
+    }
+
+    /**
+     * Gets the maximum number of keys with per key gauges.
+     *
+     * @return The maximum number of tracked keys
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Gets the number of keys with per key gauges.
+     *
+     * @return The number of tracked keys
+     */
+    public int getNumTrackedKeys() {
+        keysLock.lock();
+        try {
+            return keyTags.size();
+        } finally {
+            keysLock.unlock();
+        }
+    }
+
+    /**
+     * Synchronizes the per key gauges with the keys of the pool: removes the
+     * gauges of the keys the pool no longer has, and registers gauges for new
+     * keys while fewer than {@code maxKeys} keys are tracked.
+     */
+    public void refreshKeys() {
+        final List<K> keys = pool.getKeys();
+        keysLock.lock();
+        try {
+            final Set<K> current = new HashSet<>(keys);
+            final Iterator<Map.Entry<K, Map<String, String>>> iter = keyTags.entrySet().iterator();
+            while (iter.hasNext()) {
+                final Map.Entry<K, Map<String, String>> entry = iter.next();
+                if (!current.contains(entry.getKey())) {
+                    removeKeyGauges(entry.getValue());
+                    iter.remove();
+                }
+            }
+            int untracked = 0;
+            for (final K key : keys) {
+                if (keyTags.containsKey(key)) {
+                    continue;
+                }
+                if (keyTags.size() >= maxKeys) {
+                    untracked++;
+                    continue;
+                }
+                final Map<String, String> t = new HashMap<>(tags);
+                t.put(KEY_TAG, String.valueOf(key));
+                final Map<String, String> unmodifiableTags = Collections.unmodifiableMap(t);
+                keyTags.put(key, unmodifiableTags);
+                registry.gauge(KEY_ACTIVE, unmodifiableTags, () -> pool.getNumActive(key));
+                registry.gauge(KEY_IDLE, unmodifiableTags, () -> pool.getNumIdle(key));
+                registry.gauge(KEY_WAITERS, unmodifiableTags, () -> pool.getNumWaiters(key));
+            }
+            untrackedKeys = untracked;
+        } finally {
+            keysLock.unlock();
+        }
+    }
+
+    private void removeKeyGauges(final Map<String, String> t) {
+        registry.remove(KEY_ACTIVE, t);
+        registry.remove(KEY_IDLE, t);
+        registry.remove(KEY_WAITERS, t);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+/**
+ * Binds the gauges and counters of a {@link GenericObjectPool} to a
+ * {@link PoolMetricsRegistry}.
+ * <p>
+ * The meters are registered on construction and removed by {@link #close()}.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+public class GenericObjectPoolMetrics extends BasePoolMetrics {
+
+    /**
+     * Binds the meters of a pool with no tags.
+     *
+     * @param pool     The pool to bind
+     * @param registry The registry to bind the meters to
+     */
+    public GenericObjectPoolMetrics(final GenericObjectPool<?> pool, final PoolMetricsRegistry registry) {
+        this(pool, registry, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Binds the meters of a pool.
+     *
+     * @param pool     The pool to bind
+     * @param registry The registry to bind the meters to
+     * @param tags     The tags identifying the pool, for example its name
+     */
+    public GenericObjectPoolMetrics(final GenericObjectPool<?> pool, final PoolMetricsRegistry registry,
+            final Map<String, String> tags) {
+        super(pool, registry, tags);
+        gauge(ACTIVE, pool::getNumActive);
+        gauge(WAITERS, pool::getNumWaiters);
+    }
+}
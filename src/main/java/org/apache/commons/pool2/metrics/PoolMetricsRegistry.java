@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.metrics;
+
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * The adapter through which the pool metrics binders publish their meters to
+ * a metrics library.
+ * <p>
+ * The binders register each meter once and the metrics library polls the
+ * given supplier whenever it reads the meter, so an implementation must not
+ * call the suppliers on registration only. Suppliers read the pool's counters
+ * directly and may be called from any thread.
+ * </p>
+ * <p>
+ * A meter is identified by its name and its tags; the binders never register
+ * the same name and tags twice without removing them in between.
+ * </p>
+ *
+ * @see GenericObjectPoolMetrics
+ * @see GenericKeyedObjectPoolMetrics
+ * @since 2.9.1
+ */
+public interface PoolMetricsRegistry {
+
+    /**
+     * Registers a gauge, a value that may go up and down.
+     *
+     * @param name  The name of the gauge
+     * @param tags  The dimensions of the gauge, unmodifiable
+     * @param value Supplies the current value of the gauge
+     */
+    void gauge(String name, Map<String, String> tags, DoubleSupplier value);
+
+    /**
+     * Registers a counter, a value that only increases while the pool is
+     * open. The pool's counters are reset by
+     * {@link org.apache.commons.pool2.impl.BaseGenericObjectPool#resetStatistics()}.
+     *
+     * @param name  The name of the counter
+     * @param tags  The dimensions of the counter, unmodifiable
+     * @param value Supplies the current total of the counter
+     */
+    void counter(String name, Map<String, String> tags, LongSupplier value);
+
+    /**
+     * Removes a gauge or counter registered earlier.
+     *
+     * @param name The name of the meter
+     * @param tags The dimensions of the meter
+     */
+    void remove(String name, Map<String, String> tags);
+}
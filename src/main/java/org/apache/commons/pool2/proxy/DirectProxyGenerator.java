@@ -0,0 +1,523 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Generates the proxy classes of {@link DirectProxySource}.
+ * <p>
+ * A generated class implements the proxied interfaces and holds its handler in
+ * a private {@link Supplier} field, which only {@link DirectProxySource} reads.
+ * Each method of the interfaces, and {@code equals}, {@code hashCode} and
+ * {@code toString}, gets the pooled object from the handler and calls the same
+ * method on it, without reflection, so that the calls can be inlined by the
+ * JIT compiler.
+ * </p>
+ * <p>
+ * The class file is written directly, so that no bytecode library is needed.
+ * The methods are straight-line code, so they need no stack map frames.
+ * </p>
+ *
+ * @since 2.9.1
+ */
+final class DirectProxyGenerator {
+
+    /**
+     * Implemented by the generated proxy classes for {@link DirectProxySource}.
+     * It is public so that the proxy classes, which are defined by another
+     * class loader, can implement it, but it cannot be named outside this
+     * package.
+     */
+    public interface Proxy {
+
+        /**
+         * Creates a proxy of the same class.
+         *
+         * @param handler the handler supplying the pooled object
+         * @return the new proxy
+         */
+        Object newProxy$(Supplier<?> handler);
+    }
+
+    /**
+     * Class loader defining one proxy class. It delegates to the class loader
+     * of the proxied interfaces, except for {@link Proxy}, which it takes from
+     * this library, so that the proxy class links even if this library is not
+     * visible from the class loader of the interfaces, or visible in another
+     * copy.
+     */
+    private static final class ProxyClassLoader extends ClassLoader {
+
+        ProxyClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (name.equals(Proxy.class.getName())) {
+                return Proxy.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        Class<?> define(final String name, final byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /** Name of the private field holding the handler of a proxy. */
+    static final String HANDLER_FIELD = "handler$";
+
+    private static final String PROXY = Proxy.class.getName().replace('.', '/');
+    private static final String NEW_PROXY_METHOD = "newProxy$";
+    private static final String NEW_PROXY_METHOD_DESCRIPTOR = "(Ljava/util/function/Supplier;)Ljava/lang/Object;";
+
+    private static final String PROXY_CLASS_PREFIX = "org.apache.commons.pool2.proxy.DirectProxy$";
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String SUPPLIER = "java/util/function/Supplier";
+    private static final String SUPPLIER_DESCRIPTOR = "Ljava/util/function/Supplier;";
+
+    private static final int CLASS_FILE_VERSION = 52; // Java 8
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ILOAD = 0x15;
+    private static final int LLOAD = 0x16;
+    private static final int FLOAD = 0x17;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DUP = 0x59;
+    private static final int IRETURN = 0xac;
+    private static final int LRETURN = 0xad;
+    private static final int FRETURN = 0xae;
+    private static final int DRETURN = 0xaf;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int NEW = 0xbb;
+    private static final int CHECKCAST = 0xc0;
+
+    private static final AtomicLong PROXY_CLASS_COUNTER = new AtomicLong();
+
+    /**
+     * Generates and defines a proxy class for the given interfaces. The class
+     * has a public constructor taking the {@code Supplier} of the pooled
+     * object, and implements {@link Proxy}.
+     *
+     * @param classLoader the class loader of the interfaces
+     * @param interfaces  the public interfaces to implement
+     * @return the proxy class
+     * @throws IllegalArgumentException if the interfaces cannot be implemented
+     *                                  by a class of another package
+     */
+    static Class<?> generate(final ClassLoader classLoader, final Class<?>[] interfaces) {
+        final Set<Class<?>> distinct = new LinkedHashSet<>();
+        for (final Class<?> iface : interfaces) {
+            if (!iface.isInterface()) {
+                throw new IllegalArgumentException(iface.getName() + " is not an interface");
+            }
+            // Protected member interfaces are public in their class files
+            if ((iface.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED)) == 0) {
+                throw new IllegalArgumentException(iface.getName() + " is not public");
+            }
+            final Class<?> visible;
+            try {
+                visible = Class.forName(iface.getName(), false, classLoader);
+            } catch (final ClassNotFoundException e) {
+                throw new IllegalArgumentException(iface.getName() + " is not visible from class loader", e);
+            }
+            if (visible != iface) {
+                throw new IllegalArgumentException(iface.getName() + " is not visible from class loader");
+            }
+            distinct.add(iface);
+        }
+        final String name = PROXY_CLASS_PREFIX + PROXY_CLASS_COUNTER.incrementAndGet();
+        final byte[] bytes;
+        try {
+            bytes = new DirectProxyGenerator(name.replace('.', '/')).toByteArray(distinct);
+        } catch (final IOException e) {
+            // Not thrown by in-memory streams
+            throw new UncheckedIOException(e);
+        }
+        try {
+            return new ProxyClassLoader(classLoader).define(name, bytes);
+        } catch (final LinkageError e) {
+            throw new IllegalArgumentException("Cannot implement " + distinct + " in a proxy class", e);
+        }
+    }
+
+    /**
+     * Returns the descriptor of a type.
+     *
+     * @param type the type
+     * @return the descriptor
+     */
+    private static String descriptor(final Class<?> type) {
+        if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        }
+        if (type == void.class) {
+            return "V";
+        } else if (type == boolean.class) {
+            return "Z";
+        } else if (type == byte.class) {
+            return "B";
+        } else if (type == char.class) {
+            return "C";
+        } else if (type == short.class) {
+            return "S";
+        } else if (type == int.class) {
+            return "I";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == float.class) {
+            return "F";
+        } else if (type == double.class) {
+            return "D";
+        }
+        return "L" + type.getName().replace('.', '/') + ";";
+    }
+
+    /**
+     * Returns the descriptor of a method.
+     *
+     * @param method the method
+     * @return the descriptor
+     */
+    private static String descriptor(final Method method) {
+        final StringBuilder builder = new StringBuilder("(");
+        for (final Class<?> type : method.getParameterTypes()) {
+            builder.append(descriptor(type));
+        }
+        builder.append(')');
+        builder.append(descriptor(method.getReturnType()));
+        return builder.toString();
+    }
+
+    private static int loadOpcode(final Class<?> type) {
+        if (!type.isPrimitive()) {
+            return ALOAD;
+        } else if (type == long.class) {
+            return LLOAD;
+        } else if (type == float.class) {
+            return FLOAD;
+        } else if (type == double.class) {
+            return DLOAD;
+        }
+        return ILOAD;
+    }
+
+    private static int returnOpcode(final Class<?> type) {
+        if (type == void.class) {
+            return RETURN;
+        } else if (!type.isPrimitive()) {
+            return ARETURN;
+        } else if (type == long.class) {
+            return LRETURN;
+        } else if (type == float.class) {
+            return FRETURN;
+        } else if (type == double.class) {
+            return DRETURN;
+        }
+        return IRETURN;
+    }
+
+    private static int slots(final Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private final String className;
+
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+    private int constantCount = 1;
+
+    private DirectProxyGenerator(final String className) {
+        this.className = className;
+    }
+
+    /**
+     * Writes the class file of the proxy class.
+     *
+     * @param interfaces the interfaces to implement
+     * @return the class file
+     * @throws IOException never
+     */
+    private byte[] toByteArray(final Set<Class<?>> interfaces) throws IOException {
+        // Methods by name and descriptor, with the type they are invoked on
+        final Map<String, Method> methods = new LinkedHashMap<>();
+        final Map<String, Class<?>> owners = new HashMap<>();
+        for (final String name : new String[] {"equals", "hashCode", "toString"}) {
+            for (final Method method : Object.class.getMethods()) {
+                if (method.getName().equals(name)) {
+                    final String key = name + descriptor(method);
+                    methods.put(key, method);
+                    owners.put(key, Object.class);
+                }
+            }
+        }
+        for (final Class<?> iface : interfaces) {
+            for (final Method method : iface.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                final String key = method.getName() + descriptor(method);
+                if (key.equals(NEW_PROXY_METHOD + NEW_PROXY_METHOD_DESCRIPTOR)) {
+                    throw new IllegalArgumentException(iface.getName() + " declares " + method.getName() +
+                            ", which is reserved for the proxy class");
+                }
+                if (!methods.containsKey(key)) {
+                    methods.put(key, method);
+                    // Invoke on the proxied interface, which is public
+                    owners.put(key, iface);
+                }
+            }
+        }
+
+        final int thisClass = classConstant(className);
+        final int superClass = classConstant(OBJECT);
+        final int[] interfaceIndexes = new int[interfaces.size() + 1];
+        int i = 0;
+        for (final Class<?> iface : interfaces) {
+            interfaceIndexes[i++] = classConstant(iface.getName().replace('.', '/'));
+        }
+        interfaceIndexes[i] = classConstant(PROXY);
+        final int fieldName = utf8Constant(HANDLER_FIELD);
+        final int fieldDescriptor = utf8Constant(SUPPLIER_DESCRIPTOR);
+
+        final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        final DataOutputStream methodOut = new DataOutputStream(methodBytes);
+        writeConstructor(methodOut);
+        writeNewProxyMethod(methodOut);
+        for (final Map.Entry<String, Method> entry : methods.entrySet()) {
+            writeMethod(methodOut, entry.getValue(), owners.get(entry.getKey()));
+        }
+
+        final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(CLASS_FILE_VERSION);
+        out.writeShort(constantCount);
+        constantPool.flush();
+        constantPoolBytes.writeTo(out);
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(interfaceIndexes.length);
+        for (final int index : interfaceIndexes) {
+            out.writeShort(index);
+        }
+        // The handler field
+        out.writeShort(1);
+        out.writeShort(ACC_PRIVATE | ACC_FINAL | ACC_SYNTHETIC);
+        out.writeShort(fieldName);
+        out.writeShort(fieldDescriptor);
+        out.writeShort(0);
+        // The constructor, the method of Proxy and the proxied methods
+        out.writeShort(2 + methods.size());
+        methodOut.flush();
+        methodBytes.writeTo(out);
+        // No class attributes
+        out.writeShort(0);
+        out.flush();
+        return classBytes.toByteArray();
+    }
+
+    /**
+     * Writes the constructor, which stores its argument in the handler field.
+     */
+    private void writeConstructor(final DataOutputStream out) throws IOException {
+        final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        final DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(ALOAD_0);
+        code.writeByte(INVOKESPECIAL);
+        code.writeShort(memberConstant(CONSTANT_METHODREF, OBJECT, "<init>", "()V"));
+        code.writeByte(ALOAD_0);
+        code.writeByte(ALOAD_1);
+        code.writeByte(PUTFIELD);
+        code.writeShort(memberConstant(CONSTANT_FIELDREF, className, HANDLER_FIELD, SUPPLIER_DESCRIPTOR));
+        code.writeByte(RETURN);
+        writeMethodInfo(out, ACC_PUBLIC, "<init>", "(" + SUPPLIER_DESCRIPTOR + ")V", 2, 2, codeBytes);
+    }
+
+    /**
+     * Writes {@link Proxy#newProxy$(Supplier)}, which calls the constructor.
+     */
+    private void writeNewProxyMethod(final DataOutputStream out) throws IOException {
+        final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        final DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(NEW);
+        code.writeShort(classConstant(className));
+        code.writeByte(DUP);
+        code.writeByte(ALOAD_1);
+        code.writeByte(INVOKESPECIAL);
+        code.writeShort(memberConstant(CONSTANT_METHODREF, className, "<init>", "(" + SUPPLIER_DESCRIPTOR + ")V"));
+        code.writeByte(ARETURN);
+        writeMethodInfo(out, ACC_PUBLIC | ACC_FINAL, NEW_PROXY_METHOD, NEW_PROXY_METHOD_DESCRIPTOR, 3, 2, codeBytes);
+    }
+
+    /**
+     * Writes a method calling the same method on the object supplied by the
+     * handler.
+     */
+    private void writeMethod(final DataOutputStream out, final Method method, final Class<?> owner)
+            throws IOException {
+        final String descriptor = descriptor(method);
+        final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        final DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(ALOAD_0);
+        code.writeByte(GETFIELD);
+        code.writeShort(memberConstant(CONSTANT_FIELDREF, className, HANDLER_FIELD, SUPPLIER_DESCRIPTOR));
+        code.writeByte(INVOKEINTERFACE);
+        code.writeShort(memberConstant(CONSTANT_INTERFACE_METHODREF, SUPPLIER, "get", "()Ljava/lang/Object;"));
+        code.writeByte(1);
+        code.writeByte(0);
+        final String ownerName = owner.getName().replace('.', '/');
+        if (owner != Object.class) {
+            code.writeByte(CHECKCAST);
+            code.writeShort(classConstant(ownerName));
+        }
+        int slot = 1;
+        for (final Class<?> type : method.getParameterTypes()) {
+            code.writeByte(loadOpcode(type));
+            code.writeByte(slot);
+            slot += slots(type);
+        }
+        if (owner == Object.class) {
+            code.writeByte(INVOKEVIRTUAL);
+            code.writeShort(memberConstant(CONSTANT_METHODREF, ownerName, method.getName(), descriptor));
+        } else {
+            code.writeByte(INVOKEINTERFACE);
+            code.writeShort(memberConstant(CONSTANT_INTERFACE_METHODREF, ownerName, method.getName(), descriptor));
+            code.writeByte(slot);
+            code.writeByte(0);
+        }
+        code.writeByte(returnOpcode(method.getReturnType()));
+        writeMethodInfo(out, ACC_PUBLIC | ACC_FINAL, method.getName(), descriptor,
+                Math.max(slot, 2), slot, codeBytes);
+    }
+
+    private void writeMethodInfo(final DataOutputStream out, final int access, final String name,
+            final String descriptor, final int maxStack, final int maxLocals,
+            final ByteArrayOutputStream codeBytes) throws IOException {
+        out.writeShort(access);
+        out.writeShort(utf8Constant(name));
+        out.writeShort(utf8Constant(descriptor));
+        // The Code attribute only
+        out.writeShort(1);
+        out.writeShort(utf8Constant("Code"));
+        out.writeInt(12 + codeBytes.size());
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(codeBytes.size());
+        codeBytes.writeTo(out);
+        // No exception table, no attributes
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private int utf8Constant(final String value) throws IOException {
+        final String key = CONSTANT_UTF8 + ":" + value;
+        final Integer index = constantIndexes.get(key);
+        if (index != null) {
+            return index.intValue();
+        }
+        constantPool.writeByte(CONSTANT_UTF8);
+        constantPool.writeUTF(value);
+        return addConstant(key);
+    }
+
+    private int classConstant(final String internalName) throws IOException {
+        final String key = CONSTANT_CLASS + ":" + internalName;
+        final Integer index = constantIndexes.get(key);
+        if (index != null) {
+            return index.intValue();
+        }
+        final int nameIndex = utf8Constant(internalName);
+        constantPool.writeByte(CONSTANT_CLASS);
+        constantPool.writeShort(nameIndex);
+        return addConstant(key);
+    }
+
+    private int memberConstant(final int tag, final String owner, final String name, final String descriptor)
+            throws IOException {
+        final String key = tag + ":" + owner + "." + name + descriptor;
+        final Integer index = constantIndexes.get(key);
+        if (index != null) {
+            return index.intValue();
+        }
+        final int classIndex = classConstant(owner);
+        final int nameAndType = nameAndTypeConstant(name, descriptor);
+        constantPool.writeByte(tag);
+        constantPool.writeShort(classIndex);
+        constantPool.writeShort(nameAndType);
+        return addConstant(key);
+    }
+
+    private int nameAndTypeConstant(final String name, final String descriptor) throws IOException {
+        final String key = CONSTANT_NAME_AND_TYPE + ":" + name + ":" + descriptor;
+        final Integer index = constantIndexes.get(key);
+        if (index != null) {
+            return index.intValue();
+        }
+        final int nameIndex = utf8Constant(name);
+        final int descriptorIndex = utf8Constant(descriptor);
+        constantPool.writeByte(CONSTANT_NAME_AND_TYPE);
+        constantPool.writeShort(nameIndex);
+        constantPool.writeShort(descriptorIndex);
+        return addConstant(key);
+    }
+
+    private int addConstant(final String key) {
+        final int index = constantCount++;
+        constantIndexes.put(key, Integer.valueOf(index));
+        return index;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.proxy;
+
+import java.util.function.Supplier;
+
+import org.apache.commons.pool2.UsageTracking;
+
+/**
+ * Proxy handler of the proxies generated by {@link DirectProxySource}. Every
+ * method of a proxy obtains the pooled object from {@link #get()} and calls
+ * the same method on it directly.
+ *
+ * @param <T> type of the wrapped pooled object
+ *
+ * @since 2.9.1
+ */
+final class DirectProxyHandler<T> extends BaseProxyHandler<T>
+        implements Supplier<T> {
+
+    private final UsageTracking<T> usageTracking;
+
+    /**
+     * Create a direct proxy handler.
+     *
+     * @param pooledObject  The object to wrap
+     * @param usageTracking The instance, if any (usually the object pool) to
+     *                      be provided with usage tracking information for this
+     *                      wrapped object
+     */
+    DirectProxyHandler(final T pooledObject, final UsageTracking<T> usageTracking) {
+        super(pooledObject, usageTracking);
+        this.usageTracking = usageTracking;
+    }
+
+
+    /**
+     * Obtain the wrapped object for a method call, recording its use.
+     *
+     * @return the wrapped object
+     * @throws IllegalStateException if the proxy has been disabled
+     */
+    @Override
+    public T get() {
+        validateProxiedObject();
+        final T object = getPooledObject();
+        if (usageTracking != null) {
+            usageTracking.use(object);
+        }
+        return object;
+    }
+}
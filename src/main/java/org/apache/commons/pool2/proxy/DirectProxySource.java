@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.proxy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.apache.commons.pool2.UsageTracking;
+
+/**
+ * Provides proxy objects whose methods call the pooled object directly.
+ * <p>
+ * A proxy class implementing the interfaces is generated once, when the proxy
+ * source is created. Unlike the proxies of {@link JdkProxySource}, its methods
+ * call the methods of the pooled object without reflection, so that the JIT
+ * compiler can inline them. As with the other proxy sources, a proxy fails
+ * with an {@link IllegalStateException} once its object has been returned to
+ * the pool.
+ * </p>
+ * <p>
+ * The interfaces must be public and visible from the class loader, which may
+ * be the bootstrap class loader or a loader to which this library is not
+ * visible.
+ * </p>
+ *
+ * @param <T> type of the pooled object to be proxied
+ *
+ * @since 2.9.1
+ */
+public class DirectProxySource<T> implements ProxySource<T> {
+
+    private final ClassLoader classLoader;
+    private final Class<?>[] interfaces;
+    private final Class<?> proxyClass;
+    /** A proxy without a handler, creating the proxies of the same class. */
+    private final DirectProxyGenerator.Proxy prototype;
+    /** The private handler field of the proxy class. */
+    private final Field handlerField;
+
+
+    /**
+     * Create a new proxy source for the given interfaces, generating the
+     * proxy class.
+     *
+     * @param classLoader The class loader with which to create the proxy
+     * @param interfaces  The interfaces to proxy
+     * @throws IllegalArgumentException if the interfaces are not public
+     *                                  interfaces visible from the class loader
+     */
+    public DirectProxySource(final ClassLoader classLoader, final Class<?>[] interfaces) {
+        this.classLoader = classLoader;
+        // Defensive copy
+        this.interfaces = new Class<?>[interfaces.length];
+        System.arraycopy(interfaces, 0, this.interfaces, 0, interfaces.length);
+        this.proxyClass = DirectProxyGenerator.generate(classLoader, this.interfaces);
+        try {
+            this.prototype = (DirectProxyGenerator.Proxy) proxyClass.getConstructor(Supplier.class)
+                    .newInstance((Supplier<?>) null);
+            this.handlerField = proxyClass.getDeclaredField(DirectProxyGenerator.HANDLER_FIELD);
+        } catch (final NoSuchMethodException | NoSuchFieldException | InstantiationException |
+                IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+        AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+            handlerField.setAccessible(true);
+            return null;
+        });
+    }
+
+
+    @Override
+    public T createProxy(final T pooledObject, final UsageTracking<T> usageTracking) {
+        @SuppressWarnings("unchecked")
+        final T proxy = (T) prototype.newProxy$(new DirectProxyHandler<>(pooledObject, usageTracking));
+        return proxy;
+    }
+
+
+    @Override
+    public T resolveProxy(final T proxy) {
+        return getProxyHandler(proxy).disableProxy();
+    }
+
+
+    private DirectProxyHandler<T> getProxyHandler(final T proxy) {
+        try {
+            @SuppressWarnings("unchecked")
+            final DirectProxyHandler<T> handler = (DirectProxyHandler<T>) handlerField.get(proxy);
+            return handler;
+        } catch (final IllegalAccessException e) {
+            // Made accessible by the constructor
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /**
+     * @since 2.9.1
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("DirectProxySource [classLoader=");
+        builder.append(classLoader);
+        builder.append(", interfaces=");
+        builder.append(Arrays.toString(interfaces));
+        builder.append(", proxyClass=");
+        builder.append(proxyClass);
+        builder.append("]");
+        return builder.toString();
+    }
+}
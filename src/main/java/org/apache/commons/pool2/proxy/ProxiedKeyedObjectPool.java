@@ -26,6 +26,13 @@ import org.apache.commons.pool2.UsageTracking;
  * proxies allowing better control of pooled objects and in particular the
  * prevention of the continued use of an object by a client after that client
  * returns the object to the pool.
+ * <p>
+ * Each borrow wraps the object in a new proxy, which is disabled when it is
+ * returned. Proxies are not reused: a reused proxy would be the same reference
+ * for the next borrower, so a reference kept after the return would work
+ * again. {@link DirectProxySource} keeps the cost of a new proxy to two small
+ * objects.
+ * </p>
  *
  * @param <K> type of the key
  * @param <V> type of the pooled object
@@ -33,10 +33,17 @@ public class CallStackTest {
     private final StringWriter writer = new StringWriter();
 
     public static Stream<Arguments> data() {
-        return Stream.of(
+        final Stream<Arguments> data = Stream.of(
                 Arguments.arguments( new ThrowableCallStack("Test", false)),
                 Arguments.arguments( new SecurityManagerCallStack("Test", false))
         );
+        if (!StackWalkerCallStack.isAvailable()) {
+            return data;
+        }
+        return Stream.concat(data, Stream.of(
+                Arguments.arguments( new StackWalkerCallStack("Test", false, 0)),
+                Arguments.arguments( new StackWalkerCallStack("Test", false, 10))
+        ));
     }
 
     @ParameterizedTest
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+public class StackWalkerCallStackTest {
+
+    private static int countFrames(final String stackTrace) {
+        int frames = 0;
+        for (final String line : stackTrace.split("\\R")) {
+            if (line.startsWith("\tat ")) {
+                frames++;
+            }
+        }
+        return frames;
+    }
+
+    private static String fillInNested(final CallStack stack, final int depth) {
+        if (depth > 0) {
+            return fillInNested(stack, depth - 1);
+        }
+        stack.fillInStackTrace();
+        final StringWriter writer = new StringWriter();
+        stack.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    @Test
+    public void testMaxDepth() {
+        assumeTrue(StackWalkerCallStack.isAvailable());
+        final String stackTrace = fillInNested(new StackWalkerCallStack("Test", false, 5), 20);
+        assertEquals(5, countFrames(stackTrace));
+        // The first frame is the caller of fillInStackTrace()
+        assertTrue(stackTrace.split("\\R")[1].contains("fillInNested"), stackTrace);
+    }
+
+    @Test
+    public void testNewCallStack() {
+        final CallStack stack = CallStackUtils.newCallStack("Test", false, true, 5);
+        if (StackWalkerCallStack.isAvailable()) {
+            assertTrue(stack instanceof StackWalkerCallStack);
+        } else {
+            assertTrue(stack instanceof ThrowableCallStack);
+        }
+        assertTrue(CallStackUtils.newCallStack("Test", false, true, 5, 10) instanceof SamplingCallStack);
+        assertFalse(CallStackUtils.newCallStack("Test", false, true, 5, 1) instanceof SamplingCallStack);
+    }
+
+    @Test
+    public void testNewCallStackWithoutBound() {
+        // Without a bound or sampling, the strategies are those of 2.5
+        assertTrue(CallStackUtils.newCallStack("Test", false, true) instanceof ThrowableCallStack);
+        assertTrue(CallStackUtils.newCallStack("Test", false, true, 0) instanceof ThrowableCallStack);
+        assertTrue(CallStackUtils.newCallStack("Test", false, true, 0, 1) instanceof ThrowableCallStack);
+        assertFalse(CallStackUtils.newCallStack("Test", false, false, 0) instanceof StackWalkerCallStack);
+    }
+
+    @Test
+    public void testSampling() {
+        final CallStack stack = new SamplingCallStack(new ThrowableCallStack("Test", false), 4);
+        int sampled = 0;
+        for (int i = 0; i < 4000; i++) {
+            stack.fillInStackTrace();
+            if (stack.printStackTrace(new PrintWriter(new StringWriter()))) {
+                sampled++;
+            }
+        }
+        // One in four on average
+        assertTrue(sampled > 700 && sampled < 1300, "sampled " + sampled);
+    }
+
+    @Test
+    public void testUnboundedDepth() {
+        assumeTrue(StackWalkerCallStack.isAvailable());
+        final String stackTrace = fillInNested(new StackWalkerCallStack("Test", false, 0), 20);
+        assertTrue(countFrames(stackTrace) > 20, stackTrace);
+        assertTrue(stackTrace.contains(getClass().getName()), stackTrace);
+    }
+}
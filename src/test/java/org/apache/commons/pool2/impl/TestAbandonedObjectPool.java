@@ -22,8 +22,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.MBeanServer;
@@ -173,6 +178,98 @@ public class TestAbandonedObjectPool {
         assertEquals(1, pool.getNumActive());
     }
 
+    /**
+     * Verify that borrowObject does not wait for the abandoned objects it
+     * finds to be destroyed while the pool has room and it may block.
+     *
+     * @throws Exception May occur in some failure modes
+     */
+    @Test
+    public void testRemoveAbandonedOnBorrowInBackground() throws Exception {
+        final ManualNanoClock clock = new ManualNanoClock();
+        final int n = 5;
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch destroyed = new CountDownLatch(n - 2);
+        pool.close();  // Unregister pool created by setup
+        pool = newClockPool(clock, new SimpleFactory(clock) {
+            @Override
+            public void destroyObject(final PooledObject<PooledTestObject> obj, final DestroyMode mode)
+                    throws Exception {
+                release.await(10, TimeUnit.SECONDS);
+                super.destroyObject(obj, mode);
+                destroyed.countDown();
+            }
+        });
+        pool.setMaxTotal(n);
+        final List<PooledTestObject> abandoned = new ArrayList<>();
+        for (int i = 0; i < n - 2; i++) {
+            abandoned.add(pool.borrowObject());
+        }
+        clock.advance(2, TimeUnit.SECONDS);  // abandon checked out instances
+        pool.borrowObject();
+        // The destruction of the abandoned objects is still blocked
+        assertEquals(0, pool.getDestroyedCount());
+        release.countDown();
+        assertTrue(destroyed.await(10, TimeUnit.SECONDS));
+        for (final PooledTestObject obj : abandoned) {
+            assertTrue(obj.isDestroyed());
+        }
+        assertEquals(1, pool.getNumActive());
+    }
+
+    /**
+     * Verify that a borrower that cannot block removes the abandoned objects
+     * it finds itself.
+     *
+     * @throws Exception May occur in some failure modes
+     */
+    @Test
+    public void testRemoveAbandonedOnBorrowWithoutBlocking() throws Exception {
+        final ManualNanoClock clock = new ManualNanoClock();
+        pool.close();  // Unregister pool created by setup
+        pool = newClockPool(clock, new SimpleFactory(clock));
+        final int n = 5;
+        pool.setMaxTotal(n);
+        pool.setBlockWhenExhausted(false);
+        for (int i = 0; i < n - 2; i++) {
+            pool.borrowObject();
+        }
+        clock.advance(2, TimeUnit.SECONDS);  // abandon checked out instances
+        pool.borrowObject();
+        assertEquals(n - 2, pool.getDestroyedCount());
+        assertEquals(1, pool.getNumActive());
+    }
+
+    /**
+     * Verify that an object used through usage tracking since it was borrowed
+     * is not removed until it has not been used for the timeout.
+     *
+     * @throws Exception May occur in some failure modes
+     */
+    @Test
+    public void testRemoveAbandonedUsageTracking() throws Exception {
+        final ManualNanoClock clock = new ManualNanoClock();
+        abandonedConfig = new AbandonedConfig();
+        abandonedConfig.setRemoveAbandonedOnMaintenance(true);
+        abandonedConfig.setRemoveAbandonedTimeout(1);
+        abandonedConfig.setUseUsageTracking(true);
+        pool.close();  // Unregister pool created by setup
+        pool = newClockPool(clock, new SimpleFactory(clock));
+        final PooledTestObject unused = pool.borrowObject();
+        final PooledTestObject used = pool.borrowObject();
+        clock.advance(700, TimeUnit.MILLISECONDS);
+        pool.use(used);
+        clock.advance(700, TimeUnit.MILLISECONDS);
+        pool.evict();
+        assertTrue(unused.isDestroyed());
+        assertFalse(used.isDestroyed());
+        assertEquals(1, pool.getNumActive());
+        clock.advance(700, TimeUnit.MILLISECONDS);
+        pool.evict();
+        assertTrue(used.isDestroyed());
+        assertEquals(0, pool.getNumActive());
+    }
+
     /**
      * Verify that an object that gets flagged as abandoned and is subsequently
      * invalidated is only destroyed (and pool counter decremented) once.
@@ -313,6 +410,78 @@ public class TestAbandonedObjectPool {
         assertTrue(baos.toString().indexOf("Pooled object") >= 0);
     }
 
+    @Test
+    public void testReportAbandonedOnly() throws Exception {
+        abandonedConfig.setRemoveAbandonedOnMaintenance(true);
+        abandonedConfig.setRemoveAbandonedTimeout(1);
+        abandonedConfig.setLogAbandoned(true);
+        abandonedConfig.setLogWriter(new PrintWriter(new ByteArrayOutputStream()));
+        abandonedConfig.setReportAbandonedOnly(true);
+        abandonedConfig.setAbandonedReportSize(2);
+        pool.setAbandonedConfig(abandonedConfig);
+        // The same stack trace borrows twice
+        final PooledTestObject[] first = new PooledTestObject[2];
+        for (int i = 0; i < first.length; i++) {
+            first[i] = borrowFromFirstSite();
+        }
+        borrowFromSecondSite();
+        final PooledTestObject returned = pool.borrowObject();
+        Thread.sleep(500);
+        pool.returnObject(returned);
+        Thread.sleep(700);
+        pool.evict();
+        assertEquals(3, pool.getNumActive());
+        assertEquals(0, pool.getDestroyedCount());
+        assertFalse(first[0].isDestroyed());
+        assertEquals(3, pool.getAbandonedCount());
+        final Map<String, Long> report = pool.getAbandonedObjectReport();
+        assertEquals(2, report.size());
+        final Iterator<Map.Entry<String, Long>> entries = report.entrySet().iterator();
+        Map.Entry<String, Long> entry = entries.next();
+        assertTrue(entry.getKey().contains("borrowFromFirstSite"));
+        assertEquals(2, entry.getValue().longValue());
+        entry = entries.next();
+        assertTrue(entry.getKey().contains("borrowFromSecondSite"));
+        assertEquals(1, entry.getValue().longValue());
+
+        // Each borrow is reported once
+        pool.evict();
+        assertEquals(3, pool.getAbandonedCount());
+
+        // A full report replaces its least counted stack trace
+        borrowFromThirdSite();
+        Thread.sleep(1200);
+        pool.evict();
+        assertEquals(4, pool.getAbandonedCount());
+        final Map<String, Long> full = pool.getAbandonedObjectReport();
+        assertEquals(2, full.size());
+        assertTrue(full.keySet().stream().anyMatch(origin -> origin.contains("borrowFromThirdSite")));
+        assertFalse(full.keySet().stream().anyMatch(origin -> origin.contains("borrowFromSecondSite")));
+
+        // The objects are still usable by their borrower
+        pool.returnObject(first[0]);
+        assertEquals(3, pool.getNumActive());
+    }
+
+    private PooledTestObject borrowFromFirstSite() throws Exception {
+        return pool.borrowObject();
+    }
+
+    private PooledTestObject borrowFromSecondSite() throws Exception {
+        return pool.borrowObject();
+    }
+
+    private PooledTestObject borrowFromThirdSite() throws Exception {
+        return pool.borrowObject();
+    }
+
+    private GenericObjectPool<PooledTestObject> newClockPool(final ManualNanoClock clock,
+            final SimpleFactory factory) {
+        final GenericObjectPoolConfig<PooledTestObject> config = new GenericObjectPoolConfig<>();
+        config.setClock(clock);
+        return new GenericObjectPool<>(factory, config, abandonedConfig);
+    }
+
     class ConcurrentBorrower extends Thread {
         private final ArrayList<PooledTestObject> _borrowed;
 
@@ -350,20 +519,27 @@ public class TestAbandonedObjectPool {
 
         private final long destroyLatency;
         private final long validateLatency;
+        private final NanoClock clock;
 
         public SimpleFactory() {
+            this(NanoClock.SYSTEM);
+        }
+
+        public SimpleFactory(final NanoClock clock) {
             destroyLatency = 0;
             validateLatency = 0;
+            this.clock = clock;
         }
 
         public SimpleFactory(final long destroyLatency, final long validateLatency) {
             this.destroyLatency = destroyLatency;
             this.validateLatency = validateLatency;
+            this.clock = NanoClock.SYSTEM;
         }
 
         @Override
         public PooledObject<PooledTestObject> makeObject() {
-            return new DefaultPooledObject<>(new PooledTestObject());
+            return new DefaultPooledObject<>(new PooledTestObject(), clock);
         }
 
         @Override
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AdaptiveIdleController}.
+ */
+public class TestAdaptiveIdleController {
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private AdaptiveIdleConfig config;
+    private TimingHistogram activeTimes;
+    private TimingHistogram waitTimes;
+    private long nowNanos;
+    private long borrowed;
+    private long created;
+    private long destroyed;
+
+    @BeforeEach
+    public void setUp() {
+        config = new AdaptiveIdleConfig();
+        config.setMinIdleCeiling(20);
+        config.setMaxIdleCeiling(30);
+        config.setShrinkDelayRuns(3);
+        activeTimes = new TimingHistogram();
+        waitTimes = new TimingHistogram();
+        // Objects are checked out for 100 ms
+        activeTimes.record(TimeUnit.MILLISECONDS.toNanos(100), 1000);
+    }
+
+    private boolean update(final AdaptiveIdleController controller, final long borrowsPerSecond, final int demand) {
+        nowNanos += SECOND_NANOS;
+        borrowed += borrowsPerSecond;
+        return controller.update(nowNanos, borrowed, created, destroyed, activeTimes.snapshot(),
+                waitTimes.snapshot(), demand, 1);
+    }
+
+    @Test
+    public void testGrowImmediately() {
+        final AdaptiveIdleController controller = new AdaptiveIdleController(config);
+        assertFalse(update(controller, 0, 0));
+        // 100 borrows per second of 100 ms each keep 10 objects in use
+        assertTrue(update(controller, 100, 4));
+        assertEquals(12.5, controller.getCapacity(), 0.01);
+        assertEquals(9, controller.getMinIdle());
+        assertEquals(13, controller.getMaxIdle());
+    }
+
+    @Test
+    public void testShrinkWithHysteresis() {
+        final AdaptiveIdleController controller = new AdaptiveIdleController(config);
+        update(controller, 0, 0);
+        update(controller, 100, 0);
+        assertEquals(13, controller.getMinIdle());
+        // A short lull keeps the capacity
+        update(controller, 0, 0);
+        update(controller, 0, 0);
+        assertEquals(13, controller.getMinIdle());
+        // Demand rising again restarts the delay
+        update(controller, 100, 0);
+        update(controller, 0, 0);
+        update(controller, 0, 0);
+        assertEquals(13, controller.getMinIdle());
+        // A sustained lull halves the capacity at each run
+        update(controller, 0, 0);
+        assertEquals(7, controller.getMinIdle());
+        update(controller, 0, 0);
+        assertEquals(4, controller.getMinIdle());
+        update(controller, 0, 0);
+        update(controller, 0, 0);
+        update(controller, 0, 0);
+        assertEquals(0, controller.getMinIdle());
+        assertEquals(0, controller.getCapacity(), 0);
+    }
+
+    @Test
+    public void testBounds() {
+        config.setMinIdleFloor(2);
+        config.setMinIdleCeiling(5);
+        config.setMaxIdleCeiling(8);
+        final AdaptiveIdleController controller = new AdaptiveIdleController(config);
+        update(controller, 0, 0);
+        update(controller, 0, 0);
+        assertEquals(2, controller.getMinIdle());
+        assertEquals(2, controller.getMaxIdle());
+        update(controller, 1000, 0);
+        assertEquals(5, controller.getMinIdle());
+        assertEquals(8, controller.getMaxIdle());
+    }
+
+    @Test
+    public void testGrowWhenBorrowersWait() {
+        final AdaptiveIdleController controller = new AdaptiveIdleController(config);
+        update(controller, 0, 0);
+        update(controller, 0, 2);
+        assertEquals(3, controller.getMaxIdle());
+        waitTimes.record(TimeUnit.MILLISECONDS.toNanos(20), 10);
+        update(controller, 0, 2);
+        assertEquals(4, controller.getMaxIdle());
+        waitTimes.record(TimeUnit.MILLISECONDS.toNanos(20), 10);
+        update(controller, 0, 2);
+        assertEquals(5, controller.getMaxIdle());
+    }
+
+    @Test
+    public void testChurnRaisesMaxIdle() {
+        final AdaptiveIdleController controller = new AdaptiveIdleController(config);
+        update(controller, 0, 0);
+        created += 6;
+        destroyed += 4;
+        update(controller, 100, 0);
+        assertEquals(17, controller.getMaxIdle());
+        update(controller, 100, 0);
+        assertEquals(13, controller.getMaxIdle());
+    }
+
+    @Test
+    public void testPartitions() {
+        final AdaptiveIdleController controller = new AdaptiveIdleController(config);
+        controller.update(0, 0, 0, 0, activeTimes.snapshot(), waitTimes.snapshot(), 0, 4);
+        assertTrue(controller.update(SECOND_NANOS, 100, 0, 0, activeTimes.snapshot(), waitTimes.snapshot(), 4, 4));
+        // 10 objects in use over 4 keys
+        assertEquals(3.125, controller.getCapacity(), 0.01);
+        assertEquals(3, controller.getMinIdle());
+        assertEquals(4, controller.getMaxIdle());
+    }
+}
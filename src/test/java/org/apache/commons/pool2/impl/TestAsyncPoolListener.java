@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.DestroyMode;
+import org.apache.commons.pool2.PoolListener;
+import org.apache.commons.pool2.PoolListener.DestroyCause;
+import org.apache.commons.pool2.PooledObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests for {@link AsyncPoolListener}.
+ */
+public class TestAsyncPoolListener {
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testDispatchesInOrder() throws Exception {
+        final List<String> events = new ArrayList<>();
+        final PooledObject<String> p = new DefaultPooledObject<>("a");
+        final AsyncPoolListener listener = new AsyncPoolListener(new PoolListener() {
+            @Override
+            public void onBorrow(final Object key, final PooledObject<?> pooledObject, final long waitTimeNanos) {
+                assertSame(p, pooledObject);
+                events.add("borrow " + key + " " + waitTimeNanos);
+            }
+
+            @Override
+            public void onDestroy(final Object key, final PooledObject<?> pooledObject,
+                    final DestroyMode destroyMode, final DestroyCause cause) {
+                events.add("destroy " + key + " " + destroyMode + " " + cause);
+            }
+
+            @Override
+            public void onReturn(final Object key, final PooledObject<?> pooledObject, final long activeTimeNanos) {
+                events.add("return " + key + " " + activeTimeNanos);
+            }
+        });
+        for (int i = 0; i < 3000; i++) {
+            listener.onBorrow("k", p, i);
+            listener.onReturn(null, p, i);
+            while (listener.getPendingCount() > 100) {
+                Thread.sleep(1);
+            }
+        }
+        listener.onDestroy("k", p, DestroyMode.ABANDONED, DestroyCause.INVALIDATED);
+        listener.close();
+        assertEquals(0, listener.getDroppedCount());
+        assertEquals(6001, events.size());
+        assertEquals("borrow k 2999", events.get(5998));
+        assertEquals("return null 2999", events.get(5999));
+        assertEquals("destroy k ABANDONED INVALIDATED", events.get(6000));
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testDropsWhenFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Object> created = new ArrayList<>();
+        final AsyncPoolListener listener = new AsyncPoolListener(new PoolListener() {
+            @Override
+            public void onCreate(final Object key, final PooledObject<?> pooledObject) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    // Dispatch anyway
+                }
+                created.add(key);
+            }
+        }, 3);
+        listener.onCreate(Integer.valueOf(0), null);
+        started.await();
+        // The capacity is rounded up to 4, including the event being dispatched
+        for (int i = 1; i < 10; i++) {
+            listener.onCreate(Integer.valueOf(i), null);
+        }
+        assertEquals(6, listener.getDroppedCount());
+        assertEquals(4, listener.getPendingCount());
+        release.countDown();
+        listener.close();
+        assertEquals(Arrays.asList(0, 1, 2, 3), created);
+        listener.onCreate("closed", null);
+        assertEquals(7, listener.getDroppedCount());
+        assertThrows(IllegalArgumentException.class, () -> new AsyncPoolListener(null));
+    }
+}
@@ -17,14 +17,21 @@
 
 package org.apache.commons.pool2.impl;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.pool2.impl.BaseGenericObjectPool.IdentityWrapper;
+
 import org.apache.commons.pool2.impl.TestGenericObjectPool.SimpleFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  */
@@ -49,10 +56,10 @@ public class TestBaseGenericObjectPool {
     @Test
     public void testBorrowWaitStatistics() {
         final DefaultPooledObject<String> p = (DefaultPooledObject<String>) factory.makeObject();
-        pool.updateStatsBorrow(p, 10);
-        pool.updateStatsBorrow(p, 20);
-        pool.updateStatsBorrow(p, 20);
-        pool.updateStatsBorrow(p, 30);
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(10));
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(20));
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(20));
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(30));
         assertEquals(20, pool.getMeanBorrowWaitTimeMillis(), Double.MIN_VALUE);
         assertEquals(30, pool.getMaxBorrowWaitTimeMillis(), 0);
     }
@@ -60,24 +67,55 @@ public class TestBaseGenericObjectPool {
     public void testBorrowWaitStatisticsMax() {
         final DefaultPooledObject<String> p = (DefaultPooledObject<String>) factory.makeObject();
         assertEquals(0, pool.getMaxBorrowWaitTimeMillis(), Double.MIN_VALUE);
-        pool.updateStatsBorrow(p, 0);
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(0));
         assertEquals(0, pool.getMaxBorrowWaitTimeMillis(), Double.MIN_VALUE);
-        pool.updateStatsBorrow(p, 20);
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(20));
         assertEquals(20, pool.getMaxBorrowWaitTimeMillis(), Double.MIN_VALUE);
-        pool.updateStatsBorrow(p, 20);
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(20));
         assertEquals(20, pool.getMaxBorrowWaitTimeMillis(), Double.MIN_VALUE);
-        pool.updateStatsBorrow(p, 10);
+        pool.updateStatsBorrow(p, TimeUnit.MILLISECONDS.toNanos(10));
         assertEquals(20, pool.getMaxBorrowWaitTimeMillis(), Double.MIN_VALUE);
     }
 
     @Test
     public void testActiveTimeStatistics() {
-        for (int i = 0; i < 99; i++) { // must be < MEAN_TIMING_STATS_CACHE_SIZE
-            pool.updateStatsReturn(i);
+        for (int i = 0; i < 99; i++) {
+            pool.updateStatsReturn(TimeUnit.MILLISECONDS.toNanos(i));
         }
         assertEquals(49, pool.getMeanActiveTimeMillis(), Double.MIN_VALUE);
     }
 
+    @Test
+    public void testTimingStatistics() {
+        final DefaultPooledObject<String> p = (DefaultPooledObject<String>) factory.makeObject();
+        for (int i = 1; i <= 1000; i++) {
+            pool.updateStatsBorrow(p, TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        TimingStatistics stats = pool.getBorrowWaitTimeStatistics();
+        assertEquals(1000, stats.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), stats.getMax());
+        assertEquals(500500, stats.getMean(), 0);
+        assertEquals(500000, stats.getP50(), 500000 * 0.04);
+        assertEquals(990000, stats.getP99(), 990000 * 0.04);
+        assertEquals(999000, stats.getP999(), 999000 * 0.04);
+        assertEquals(1000, pool.getIdleTimeStatistics().getCount());
+
+        assertEquals(1000, pool.getBorrowWaitTimeIntervalStatistics().getCount());
+        pool.updateStatsBorrow(p, 5);
+        stats = pool.getBorrowWaitTimeIntervalStatistics();
+        assertEquals(1, stats.getCount());
+        assertEquals(5, stats.getMax());
+        assertEquals(1001, pool.getBorrowWaitTimeStatistics().getCount());
+
+        pool.resetStatistics();
+        stats = pool.getBorrowWaitTimeStatistics();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMax());
+        assertEquals(0, stats.getP99());
+        assertEquals(0, pool.getMaxBorrowWaitTimeMillis());
+        assertEquals(0, pool.getBorrowWaitTimeIntervalStatistics().getCount());
+    }
+
     @Test
     public void testEvictionTimerMultiplePools() throws InterruptedException {
         final AtomicIntegerFactory factory = new AtomicIntegerFactory();
@@ -105,4 +143,19 @@ public class TestBaseGenericObjectPool {
             assertEquals(0, evictingPool.getNumIdle());
         }
     }
+
+    @Test
+    public void testIdentityWrapperLookup() {
+        final Map<IdentityWrapper<String>, String> map = new ConcurrentHashMap<>();
+        final String instance = new String("instance");
+        final String equalInstance = new String("instance");
+        map.put(new IdentityWrapper<>(instance), "value");
+        assertSame("value", IdentityWrapper.get(map, instance));
+        assertNull(IdentityWrapper.get(map, equalInstance));
+        assertNull(IdentityWrapper.remove(map, equalInstance));
+        assertEquals(1, map.size());
+        assertSame("value", IdentityWrapper.remove(map, instance));
+        assertEquals(0, map.size());
+        assertNull(IdentityWrapper.get(map, instance));
+    }
 }
@@ -23,13 +23,59 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
 
 public class TestDefaultPooledObject {
 
+    @Test
+    public void testClock() {
+        final ManualNanoClock clock = new ManualNanoClock();
+        final DefaultPooledObject<Object> dpo = new DefaultPooledObject<>(new Object(), clock);
+        final long createTime = dpo.getCreateTime();
+        clock.advance(5, TimeUnit.SECONDS);
+        assertEquals(5000, dpo.getIdleTimeMillis());
+        assertEquals(TimeUnit.SECONDS.toNanos(5), dpo.getIdleTimeNanos());
+
+        dpo.allocate();
+        assertEquals(createTime + 5000, dpo.getLastBorrowTime());
+        clock.advance(250, TimeUnit.MICROSECONDS);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(250), dpo.getActiveTimeNanos());
+        assertEquals(0, dpo.getActiveTimeMillis());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(250), dpo.getUnusedTimeNanos());
+        dpo.use();
+        assertEquals(0, dpo.getUnusedTimeNanos());
+        clock.advance(2, TimeUnit.MILLISECONDS);
+        dpo.deallocate();
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(2250), dpo.getActiveTimeNanos());
+        assertEquals(createTime + 5002, dpo.getLastReturnTime());
+        assertEquals(0, dpo.getIdleTimeNanos());
+        clock.advance(1, TimeUnit.HOURS);
+        // Returned objects keep their last active time
+        assertEquals(2, dpo.getActiveTimeMillis());
+        assertEquals(TimeUnit.HOURS.toMillis(1), dpo.getIdleTimeMillis());
+    }
+
+    @Test
+    public void testPoolClock() {
+        final ManualNanoClock poolClock = new ManualNanoClock();
+        final DefaultPooledObject<Object> dpo = new DefaultPooledObject<>(new Object());
+        dpo.setPoolClock(poolClock);
+        poolClock.advance(5, TimeUnit.SECONDS);
+        assertEquals(5000, dpo.getIdleTimeMillis());
+
+        // A clock given to the constructor is kept
+        final ManualNanoClock clock = new ManualNanoClock();
+        final DefaultPooledObject<Object> withClock = new DefaultPooledObject<>(new Object(), clock);
+        withClock.setPoolClock(poolClock);
+        poolClock.advance(5, TimeUnit.SECONDS);
+        assertEquals(0, withClock.getIdleTimeMillis());
+    }
+
     /**
      * JIRA: POOL-279
      * @throws Exception May occur in some failure modes
@@ -21,14 +21,19 @@ package org.apache.commons.pool2.impl;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -36,6 +41,7 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -206,6 +212,76 @@ public class TestGenericKeyedObjectPool extends TestKeyedObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testPreparePoolAsync() throws Exception {
+        gkoPool.setMinIdlePerKey(5);
+        gkoPool.setMaxTotalPerKey(10);
+        simpleFactory.setMakeLatency(200);
+        final long startMillis = System.currentTimeMillis();
+        PreparePoolResult result = gkoPool.preparePoolAsync(Arrays.asList("a", "b", "c", "d"), 20, null).get();
+        assertTrue(System.currentTimeMillis() - startMillis < 20 * simpleFactory.makeLatency);
+        assertEquals(20, result.getCreatedCount());
+        assertEquals(0, result.getFailedCount());
+        for (final String key : new String[] { "a", "b", "c", "d" }) {
+            assertEquals(5, gkoPool.getNumIdle(key));
+        }
+
+        // Failures are counted rather than stopping the warm-up
+        simpleFactory.exceptionOnCreate = true;
+        result = gkoPool.preparePoolAsync(Arrays.asList("a", "e"), 2, null).get();
+        assertEquals(0, result.getCreatedCount());
+        assertEquals(5, result.getFailedCount());
+        assertEquals(0, gkoPool.getNumIdle("e"));
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testMaxIdleGracePeriod() throws Exception {
+        gkoPool.setMaxTotalPerKey(20);
+        gkoPool.setMaxIdlePerKey(4);
+        gkoPool.setMaxIdleGracePeriodMillis(50);
+        // Only trimmed by explicit evict() calls below
+        gkoPool.setTimeBetweenEvictionRunsMillis(3_600_000);
+        final String[] active = new String[10];
+        for (final String key : new String[] { "a", "b" }) {
+            for (int i = 0; i < 10; i++) {
+                active[i] = gkoPool.borrowObject(key);
+            }
+            for (int i = 0; i < 10; i++) {
+                gkoPool.returnObject(key, active[i]);
+            }
+        }
+        // Objects over maxIdlePerKey are kept for the grace period
+        gkoPool.evict();
+        assertEquals(10, gkoPool.getNumIdle("a"));
+        assertEquals(10, gkoPool.getNumIdle("b"));
+        assertEquals(12, gkoPool.getReturnedOverMaxIdleCount());
+
+        active[0] = gkoPool.borrowObject("a");
+        active[1] = gkoPool.borrowObject("a");
+        gkoPool.returnObjects("a", Arrays.asList(active[0], active[1]));
+        assertEquals(14, gkoPool.getReturnedOverMaxIdleCount());
+        assertEquals(20, gkoPool.getCreatedCount());
+        assertEquals(0, gkoPool.getDestroyedByMaxIdleCount());
+
+        Thread.sleep(100);
+        gkoPool.evict();
+        assertEquals(4, gkoPool.getNumIdle("a"));
+        assertEquals(4, gkoPool.getNumIdle("b"));
+        assertEquals(12, gkoPool.getDestroyedByMaxIdleCount());
+
+        // Without an evictor to trim them, objects over maxIdlePerKey are destroyed on return
+        gkoPool.setTimeBetweenEvictionRunsMillis(-1);
+        for (int i = 0; i < 10; i++) {
+            active[i] = gkoPool.borrowObject("a");
+        }
+        gkoPool.returnObject("a", active[0]);
+        gkoPool.returnObjects("a", Arrays.asList(active).subList(1, 10));
+        assertEquals(4, gkoPool.getNumIdle("a"));
+        assertEquals(18, gkoPool.getDestroyedByMaxIdleCount());
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     public void testMaxIdle() throws Exception {
@@ -464,6 +540,56 @@ public class TestGenericKeyedObjectPool extends TestKeyedObjectPool {
     }
 
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictionValidationAsync() throws Exception {
+        final SimpleFactory<String> factory = new SimpleFactory<>(false);
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxEvictionValidations(2);
+        config.setTestWhileIdle(true);
+        config.setNumTestsPerEvictionRun(8);
+        try (final GenericKeyedObjectPool<String, String> pool = new GenericKeyedObjectPool<>(factory, config)) {
+            pool.addObject("a");
+            pool.addObject("a");
+            pool.addObject("b");
+            pool.addObject("b");
+            factory.setValidateLatency(500);
+            final long startMillis = System.currentTimeMillis();
+            pool.evict();
+            // The evictor does not wait for slow validations
+            assertTrue(System.currentTimeMillis() - startMillis < 500);
+            assertEquals(4, pool.getNumIdle());
+            Thread.sleep(1000);
+            // Only two validations were started, both failed
+            assertEquals(2, pool.getDestroyedByEvictorCount());
+            assertEquals(2, pool.getNumIdle());
+            factory.setValidateLatency(0);
+            pool.evict();
+            Thread.sleep(200);
+            assertEquals(4, pool.getDestroyedByEvictorCount());
+            assertEquals(0, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictionExpiredOnly() throws Exception {
+        gkoPool.setEvictExpiredOnly(true);
+        gkoPool.setSoftMinEvictableIdleTimeMillis(200);
+        gkoPool.setMinIdlePerKey(1);
+        gkoPool.setNumTestsPerEvictionRun(Integer.MAX_VALUE);
+        gkoPool.addObject("a");
+        gkoPool.addObjects("b", 3);
+        Thread.sleep(400);
+        gkoPool.addObjects("c", 3);
+        gkoPool.evict();
+        // The minimum idle objects of a key do not end the run
+        assertEquals(1, gkoPool.getNumIdle("a"));
+        assertEquals(1, gkoPool.getNumIdle("b"));
+        assertEquals(3, gkoPool.getNumIdle("c"));
+        assertEquals(2, gkoPool.getDestroyedByEvictorCount());
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     public void testEviction() throws Exception {
@@ -1147,6 +1273,226 @@ public class TestGenericKeyedObjectPool extends TestKeyedObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAdaptiveIdle() throws Exception {
+        gkoPool.setAdaptiveIdleConfig(new AdaptiveIdleConfig());
+        assertTrue(gkoPool.isAdaptiveIdleConfig());
+        final String o1 = gkoPool.borrowObject("a");
+        final String o2 = gkoPool.borrowObject("a");
+        final String o3 = gkoPool.borrowObject("a");
+        gkoPool.setTimeBetweenEvictionRunsMillis(50);
+        Thread.sleep(500);
+        // Three objects in use with the default headroom of 1.25
+        assertEquals(4, gkoPool.getEffectiveMaxIdlePerKey());
+        assertEquals(1, gkoPool.getEffectiveMinIdlePerKey());
+        assertEquals(1, gkoPool.getNumIdle("a"));
+        // The configured limits are left alone
+        assertEquals(GenericKeyedObjectPoolConfig.DEFAULT_MAX_IDLE_PER_KEY, gkoPool.getMaxIdlePerKey());
+        assertEquals(GenericKeyedObjectPoolConfig.DEFAULT_MIN_IDLE_PER_KEY, gkoPool.getMinIdlePerKey());
+        gkoPool.returnObject("a", o1);
+        gkoPool.returnObject("a", o2);
+        gkoPool.returnObject("a", o3);
+        gkoPool.setAdaptiveIdleConfig(null);
+        assertFalse(gkoPool.isAdaptiveIdleConfig());
+        assertEquals(GenericKeyedObjectPoolConfig.DEFAULT_MAX_IDLE_PER_KEY, gkoPool.getEffectiveMaxIdlePerKey());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreate() throws Exception {
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxTotalPerKey(2);
+        config.setMaxPendingCreates(1);
+        try (final GenericKeyedObjectPool<String, String> pool = new GenericKeyedObjectPool<>(simpleFactory, config)) {
+            final String a = pool.borrowObject("a");
+            final String b = pool.borrowObjectAsync("b").get(5, TimeUnit.SECONDS);
+            assertNotSame(a, b);
+            assertEquals(2, pool.getCreatedCount());
+            assertEquals(0, pool.getNumPendingCreates());
+            assertNotNull(pool.borrowObject("a"));
+            assertEquals(2, pool.getNumActive("a"));
+            assertThrows(NoSuchElementException.class, () -> pool.borrowObject("a", 50));
+            assertEquals(3, pool.getNumActive());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreateCancelledWithWaiter() throws Exception {
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxTotal(3);
+        config.setMaxPendingCreates(1);
+        try (final GenericKeyedObjectPool<String, String> pool = new GenericKeyedObjectPool<>(simpleFactory, config)) {
+            pool.addObject("b");
+            pool.addObject("b");
+            simpleFactory.makeLatency = 300;
+            final CompletableFuture<String> c = pool.borrowObjectAsync("c", Duration.ofSeconds(30));
+            // The request for "a" is queued behind the creation for "c" and
+            // cancelled when its borrower times out, so it does not clear the
+            // idle objects of "b" once the creation for "c" completes
+            final CompletableFuture<String> a = pool.borrowObjectAsync("a", Duration.ofMillis(20));
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> a.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+            assertNotNull(c.get(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(0, pool.getNumPendingCreates());
+            assertEquals(2, pool.getNumIdle("b"));
+            assertEquals(0, pool.getDestroyedCount());
+            assertEquals(3, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreateFailureToBlockedBorrower() throws Exception {
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxPendingCreates(1);
+        try (final GenericKeyedObjectPool<String, String> pool = new GenericKeyedObjectPool<>(simpleFactory, config)) {
+            simpleFactory.exceptionOnCreate = true;
+            // The blocked borrower fails with the factory's exception rather
+            // than waiting for its timeout
+            final long startNanos = System.nanoTime();
+            final Exception e = assertThrows(Exception.class, () -> pool.borrowObject("a", 30000));
+            assertEquals(Exception.class, e.getClass());
+            assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(10));
+            assertEquals(0, pool.getNumWaiters());
+            assertEquals(0, pool.getNumPendingCreates());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreateValidationFailure() throws Exception {
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxPendingCreates(1);
+        config.setTestOnCreate(true);
+        try (final GenericKeyedObjectPool<String, String> pool =
+                new GenericKeyedObjectPool<>(new SimpleFactory<>(false), config)) {
+            // Borrowers without a timeout fail rather than waiting forever
+            final CompletableFuture<String> future = pool.borrowObjectAsync("a", null);
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+            assertThrows(NoSuchElementException.class, () -> pool.borrowObject("a", -1));
+            assertEquals(0, pool.getNumWaiters());
+            assertEquals(0, pool.getNumPendingCreates());
+            assertEquals(0, pool.getNumActive() + pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjectAsync() throws Exception {
+        gkoPool.setMaxTotalPerKey(1);
+        final String obj = gkoPool.borrowObjectAsync("a").get(5, TimeUnit.SECONDS);
+        assertEquals(1, gkoPool.getNumActive("a"));
+        final String other = gkoPool.borrowObjectAsync("b").get(5, TimeUnit.SECONDS);
+        assertNotSame(obj, other);
+
+        final CompletableFuture<String> waiting = gkoPool.borrowObjectAsync("a", Duration.ofSeconds(30));
+        final CompletableFuture<String> cancelled = gkoPool.borrowObjectAsync("b", null);
+        assertFalse(waiting.isDone());
+        assertEquals(2, gkoPool.getNumWaiters());
+        assertEquals(Integer.valueOf(1), gkoPool.getNumWaitersByKey().get("a"));
+        assertTrue(cancelled.cancel(false));
+        assertEquals(1, gkoPool.getNumWaiters());
+
+        gkoPool.returnObject("a", obj);
+        assertEquals(obj, waiting.getNow(null));
+        gkoPool.returnObject("b", other);
+        assertEquals(1, gkoPool.getNumIdle("b"));
+
+        final CompletableFuture<String> timedOut = gkoPool.borrowObjectAsync("a", Duration.ofMillis(50));
+        final ExecutionException e = assertThrows(ExecutionException.class,
+                () -> timedOut.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof NoSuchElementException);
+
+        final CompletableFuture<String> closed = gkoPool.borrowObjectAsync("a", null);
+        gkoPool.close();
+        assertTrue(closed.isCompletedExceptionally());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjectAsyncCreateExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor(
+                runnable -> new Thread(runnable, "configured-create-thread"));
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setCreateExecutor(executor);
+        final AtomicReference<String> makeThread = new AtomicReference<>();
+        final SimpleFactory<String> factory = new SimpleFactory<String>() {
+            @Override
+            public PooledObject<String> makeObject(final String key) throws Exception {
+                makeThread.set(Thread.currentThread().getName());
+                return super.makeObject(key);
+            }
+        };
+        // Objects for asynchronous borrowers are created on the create executor
+        try (final GenericKeyedObjectPool<String, String> pool = new GenericKeyedObjectPool<>(factory, config)) {
+            assertNotNull(pool.borrowObjectAsync("a").get(5, TimeUnit.SECONDS));
+            assertEquals("configured-create-thread", makeThread.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjects() throws Exception {
+        gkoPool.setMaxTotalPerKey(6);
+        gkoPool.setMaxTotal(10);
+        gkoPool.addObjects("a", 2);
+        final List<String> objs = gkoPool.borrowObjects("a", 5, Duration.ofMillis(100));
+        assertEquals(5, objs.size());
+        assertEquals(5, new HashSet<>(objs).size());
+        assertEquals(5, gkoPool.getNumActive("a"));
+        assertEquals(5, gkoPool.getBorrowedCount());
+
+        // All or nothing: the objects obtained are put back on timeout
+        assertThrows(NoSuchElementException.class, () -> gkoPool.borrowObjects("a", 2, Duration.ofMillis(50)));
+        assertEquals(5, gkoPool.getNumActive("a"));
+        assertEquals(1, gkoPool.getNumIdle("a"));
+        assertThrows(IllegalArgumentException.class, () -> gkoPool.borrowObjects("a", 7, null));
+
+        // Partial batches take what is available
+        final List<String> partial = gkoPool.borrowObjects("a", 3, Duration.ofMillis(50), false);
+        assertEquals(1, partial.size());
+        final List<String> other = gkoPool.borrowObjects("b", 4, null);
+        assertEquals(4, other.size());
+        assertEquals(10, gkoPool.getBorrowedCount());
+
+        gkoPool.returnObjects("a", objs);
+        gkoPool.returnObjects("a", partial);
+        gkoPool.returnObjects("b", other);
+        assertEquals(0, gkoPool.getNumActive());
+        assertEquals(6, gkoPool.getNumIdle("a"));
+        assertEquals(4, gkoPool.getNumIdle("b"));
+        assertEquals(10, gkoPool.getReturnedCount());
+        assertThrows(IllegalStateException.class, () -> gkoPool.returnObjects("b", objs));
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjectsCreateExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AtomicInteger executed = new AtomicInteger();
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setCreateExecutor(runnable -> {
+            executed.incrementAndGet();
+            executor.execute(runnable);
+        });
+        try (final GenericKeyedObjectPool<String, String> pool = new GenericKeyedObjectPool<>(simpleFactory, config)) {
+            // The borrowing thread creates one object, the executor the others
+            assertEquals(3, pool.borrowObjects("a", 3, null).size());
+            assertEquals(2, executed.get());
+            assertEquals(3, pool.getCreatedCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     public void testConstructors() throws Exception {
@@ -1600,6 +1946,26 @@ public class TestGenericKeyedObjectPool extends TestKeyedObjectPool {
         assertEquals(nIterations, gkoPool.getDestroyedCount());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testClockAppliedToNewObjects() throws Exception {
+        final ManualNanoClock clock = new ManualNanoClock();
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setClock(clock);
+        config.setMinEvictableIdleTimeMillis(60000);
+        config.setNumTestsPerEvictionRun(10);
+        // The factory wraps its objects without giving them a clock
+        try (final GenericKeyedObjectPool<String, String> pool = new GenericKeyedObjectPool<>(simpleFactory, config)) {
+            pool.addObjects("a", 2);
+            clock.advance(59, TimeUnit.SECONDS);
+            pool.evict();
+            assertEquals(2, pool.getNumIdle());
+            clock.advance(2, TimeUnit.SECONDS);
+            pool.evict();
+            assertEquals(0, pool.getNumIdle());
+        }
+    }
+
     // POOL-259
     @Test
     public void testClientWaitStats() throws Exception {
@@ -2341,6 +2707,70 @@ public class TestGenericKeyedObjectPool extends TestKeyedObjectPool {
         assertEquals(1, gkoPool.getNumActive());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testClearOldestManyKeys() throws Exception {
+        gkoPool.setMaxTotal(100);
+        for (int i = 0; i < 100; i++) {
+            final String key = String.valueOf(i);
+            gkoPool.returnObject(key, gkoPool.borrowObject(key));
+        }
+        // Key 0 becomes the most recently used one
+        for (int i = 0; i < 1000; i++) {
+            gkoPool.returnObject("0", gkoPool.borrowObject("0"));
+        }
+        assertEquals(100, gkoPool.getNumIdle());
+
+        // Destroys the 16 oldest idle objects to make room
+        gkoPool.returnObject("new", gkoPool.borrowObject("new"));
+        assertEquals(85, gkoPool.getNumIdle());
+        assertEquals(1, gkoPool.getNumIdle("0"));
+        for (int i = 1; i <= 16; i++) {
+            assertEquals(0, gkoPool.getNumIdle(String.valueOf(i)));
+        }
+        assertEquals(1, gkoPool.getNumIdle("17"));
+        assertEquals(1, gkoPool.getNumIdle("new"));
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testKeyRegistryConcurrentChurn() throws Exception {
+        gkoPool.setMaxTotalPerKey(2);
+        final int numThreads = 16;
+        final int numKeys = 500;
+        final AtomicInteger failures = new AtomicInteger();
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int seed = i;
+            threads[i] = new Thread(() -> {
+                final Random random = new Random(seed);
+                for (int j = 0; j < 2000; j++) {
+                    final String key = String.valueOf(random.nextInt(numKeys));
+                    try {
+                        final String obj = gkoPool.borrowObject(key);
+                        if (random.nextBoolean()) {
+                            gkoPool.invalidateObject(key, obj);
+                        } else {
+                            gkoPool.returnObject(key, obj);
+                        }
+                    } catch (final Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+        assertEquals(0, gkoPool.getNumActive());
+        // Keys without objects are removed
+        gkoPool.clear();
+        assertEquals(0, gkoPool.getNumIdle());
+        assertTrue(gkoPool.getNumActivePerKey().isEmpty());
+    }
+
     // POOL-326
     @Test
     public void testEvictorClearOldestRace() throws Exception {
@@ -22,7 +22,10 @@ import java.lang.management.ManagementFactory;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -30,15 +33,23 @@ import java.util.Random;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.DestroyMode;
 import org.apache.commons.pool2.ObjectPool;
+import org.apache.commons.pool2.PoolListener;
 import org.apache.commons.pool2.PoolUtils;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectFactory;
@@ -57,6 +68,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -936,6 +948,55 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         assertNull(evictorExecutorField.get(null));
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAdaptiveIdle() throws Exception {
+        genericObjectPool.setAdaptiveIdleConfig(new AdaptiveIdleConfig());
+        assertTrue(genericObjectPool.isAdaptiveIdleConfig());
+        final String o1 = genericObjectPool.borrowObject();
+        final String o2 = genericObjectPool.borrowObject();
+        final String o3 = genericObjectPool.borrowObject();
+        genericObjectPool.setTimeBetweenEvictionRunsMillis(50);
+        Thread.sleep(500);
+        // Three objects in use with the default headroom of 1.25
+        assertEquals(4, genericObjectPool.getEffectiveMaxIdle());
+        assertEquals(1, genericObjectPool.getEffectiveMinIdle());
+        assertEquals(1, genericObjectPool.getNumIdle());
+        // The configured limits are left alone
+        assertEquals(GenericObjectPoolConfig.DEFAULT_MAX_IDLE, genericObjectPool.getMaxIdle());
+        assertEquals(GenericObjectPoolConfig.DEFAULT_MIN_IDLE, genericObjectPool.getMinIdle());
+        genericObjectPool.returnObject(o1);
+        genericObjectPool.returnObject(o2);
+        genericObjectPool.returnObject(o3);
+        genericObjectPool.setAdaptiveIdleConfig(null);
+        assertFalse(genericObjectPool.isAdaptiveIdleConfig());
+        assertEquals(GenericObjectPoolConfig.DEFAULT_MAX_IDLE, genericObjectPool.getEffectiveMaxIdle());
+        assertEquals(GenericObjectPoolConfig.DEFAULT_MIN_IDLE, genericObjectPool.getEffectiveMinIdle());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAdaptiveIdleWithinConfiguredLimits() throws Exception {
+        genericObjectPool.setMaxIdle(3);
+        genericObjectPool.setMinIdle(2);
+        genericObjectPool.setAdaptiveIdleConfig(new AdaptiveIdleConfig());
+        final String o1 = genericObjectPool.borrowObject();
+        final String o2 = genericObjectPool.borrowObject();
+        final String o3 = genericObjectPool.borrowObject();
+        genericObjectPool.setTimeBetweenEvictionRunsMillis(50);
+        Thread.sleep(500);
+        // Targets of 4 and 1, clamped to the configured 3 and 2
+        assertEquals(3, genericObjectPool.getEffectiveMaxIdle());
+        assertEquals(2, genericObjectPool.getEffectiveMinIdle());
+        assertEquals(2, genericObjectPool.getNumIdle());
+        assertEquals(3, genericObjectPool.getMaxIdle());
+        assertEquals(2, genericObjectPool.getMinIdle());
+        genericObjectPool.returnObject(o1);
+        genericObjectPool.returnObject(o2);
+        genericObjectPool.returnObject(o3);
+        assertEquals(3, genericObjectPool.getNumIdle());
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     public void testAddObject() throws Exception {
@@ -1015,6 +1076,294 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreate() throws Exception {
+        final SimpleFactory factory = new SimpleFactory();
+        factory.setMakeLatency(100);
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(6);
+        config.setMaxPendingCreates(2);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(factory, config)) {
+            assertEquals(2, pool.getMaxPendingCreates());
+            assertNotNull(pool.getCreateExecutor());
+            final int numThreads = 4;
+            final AtomicInteger maxPending = new AtomicInteger();
+            final List<Thread> threads = new ArrayList<>();
+            final List<String> borrowed = Collections.synchronizedList(new ArrayList<>());
+            for (int i = 0; i < numThreads; i++) {
+                final Thread t = new Thread(() -> {
+                    try {
+                        borrowed.add(pool.borrowObject(10000));
+                    } catch (final Exception e) {
+                        // Leaves borrowed short
+                    }
+                });
+                threads.add(t);
+                t.start();
+            }
+            while (threads.stream().anyMatch(Thread::isAlive)) {
+                maxPending.accumulateAndGet(pool.getNumPendingCreates(), Math::max);
+                Thread.sleep(5);
+            }
+            for (final Thread t : threads) {
+                t.join();
+            }
+            assertTrue(maxPending.get() <= 2, () -> "Pending creates: " + maxPending.get());
+            assertEquals(numThreads, new HashSet<>(borrowed).size());
+            assertEquals(numThreads, pool.getNumActive());
+            assertEquals(numThreads, pool.getCreatedCount());
+
+            // Asynchronous borrowers receive new objects directly
+            assertNotNull(pool.borrowObjectAsync().get(5, TimeUnit.SECONDS));
+
+            // Creation failures are reported to the asynchronous borrower
+            factory.setMaxTotal(5);
+            final CompletableFuture<String> failed = pool.borrowObjectAsync();
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> failed.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(5, pool.getNumActive());
+            assertEquals(0, pool.getNumPendingCreates());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreateCancelledWithWaiter() throws Exception {
+        final SimpleFactory factory = new SimpleFactory();
+        factory.setMakeLatency(300);
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxPendingCreates(1);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(factory, config)) {
+            final CompletableFuture<String> first = pool.borrowObjectAsync(Duration.ofSeconds(30));
+            // Requests queued behind the pending creation are cancelled when
+            // their borrowers time out
+            final List<CompletableFuture<String>> timedOut = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                timedOut.add(pool.borrowObjectAsync(Duration.ofMillis(20)));
+            }
+            for (final CompletableFuture<String> future : timedOut) {
+                final ExecutionException e = assertThrows(ExecutionException.class,
+                        () -> future.get(5, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof NoSuchElementException);
+            }
+            assertNotNull(first.get(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(0, pool.getNumPendingCreates());
+            assertEquals(1, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreateFailureToBlockedBorrower() throws Exception {
+        final SimpleFactory factory = new SimpleFactory();
+        factory.setMaxTotal(0);
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxPendingCreates(1);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(factory, config)) {
+            // The blocked borrower fails with the factory's exception rather
+            // than waiting for its timeout
+            final long startNanos = System.nanoTime();
+            assertThrows(IllegalStateException.class, () -> pool.borrowObject(30000));
+            assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(10));
+            assertEquals(0, pool.getNumWaiters());
+            assertEquals(0, pool.getNumPendingCreates());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncCreateValidationFailure() throws Exception {
+        final SimpleFactory factory = new SimpleFactory();
+        factory.setValid(false);
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxPendingCreates(1);
+        config.setTestOnCreate(true);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(factory, config)) {
+            // Borrowers without a timeout fail rather than waiting forever
+            final CompletableFuture<String> future = pool.borrowObjectAsync((Duration) null);
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+            assertThrows(NoSuchElementException.class, () -> pool.borrowObject(-1));
+            assertEquals(0, pool.getNumWaiters());
+            assertEquals(0, pool.getNumPendingCreates());
+            assertEquals(0, pool.getNumActive() + pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjectAsync() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(1);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            final String obj = pool.borrowObjectAsync().get(5, TimeUnit.SECONDS);
+            assertEquals(1, pool.getNumActive());
+
+            // Waiters are queued and served when an object is returned
+            final CompletableFuture<String> waiting = pool.borrowObjectAsync(Duration.ofSeconds(30));
+            assertFalse(waiting.isDone());
+            assertEquals(1, pool.getNumWaiters());
+            pool.returnObject(obj);
+            assertEquals(obj, waiting.getNow(null));
+            assertEquals(2, pool.getBorrowedCount());
+
+            // Timeout
+            final CompletableFuture<String> timedOut = pool.borrowObjectAsync(Duration.ofMillis(50));
+            final ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> timedOut.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+            assertEquals(0, pool.getNumWaiters());
+
+            // Cancelled waiters are removed and not served
+            final CompletableFuture<String> cancelled = pool.borrowObjectAsync((Duration) null);
+            assertEquals(1, pool.getNumWaiters());
+            assertTrue(cancelled.cancel(false));
+            assertEquals(0, pool.getNumWaiters());
+            pool.returnObject(obj);
+            assertEquals(1, pool.getNumIdle());
+            assertEquals(2, pool.getBorrowedCount());
+
+            // Closing the pool fails the waiters
+            assertEquals(obj, pool.borrowObject());
+            final CompletableFuture<String> closed = pool.borrowObjectAsync((Duration) null);
+            pool.close();
+            assertTrue(closed.isCompletedExceptionally());
+            assertTrue(pool.borrowObjectAsync().isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjectAsyncCreateExecutor() throws Exception {
+        final AtomicReference<String> makeThread = new AtomicReference<>();
+        final SimpleFactory factory = new SimpleFactory() {
+            @Override
+            public PooledObject<String> makeObject() {
+                makeThread.set(Thread.currentThread().getName());
+                return super.makeObject();
+            }
+        };
+        // Objects for asynchronous borrowers are created by the pool's threads
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(factory)) {
+            assertNotNull(pool.getCreateExecutor());
+            assertNotNull(pool.borrowObjectAsync().get(5, TimeUnit.SECONDS));
+            assertEquals("commons-pool-create-thread", makeThread.get());
+        }
+        final ExecutorService executor = Executors.newSingleThreadExecutor(
+                runnable -> new Thread(runnable, "configured-create-thread"));
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setCreateExecutor(executor);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(factory, config)) {
+            assertSame(executor, pool.getCreateExecutor());
+            assertNotNull(pool.borrowObjectAsync().get(5, TimeUnit.SECONDS));
+            assertEquals("configured-create-thread", makeThread.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjects() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(8);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            pool.addObjects(3);
+            final List<String> objs = pool.borrowObjects(5, Duration.ofMillis(100));
+            assertEquals(5, objs.size());
+            assertEquals(5, new HashSet<>(objs).size());
+            assertEquals(5, pool.getNumActive());
+            assertEquals(0, pool.getNumIdle());
+            assertEquals(5, pool.getCreatedCount());
+            assertEquals(5, pool.getBorrowedCount());
+
+            // All or nothing: the objects obtained are put back on timeout
+            assertThrows(NoSuchElementException.class, () -> pool.borrowObjects(4, Duration.ofMillis(50)));
+            assertEquals(5, pool.getNumActive());
+            assertEquals(3, pool.getNumIdle());
+            assertEquals(5, pool.getBorrowedCount());
+            assertThrows(IllegalArgumentException.class, () -> pool.borrowObjects(9, null));
+
+            // Partial batches take what is available
+            final List<String> partial = pool.borrowObjects(4, Duration.ofMillis(50), false);
+            assertEquals(3, partial.size());
+            assertEquals(8, pool.getBorrowedCount());
+
+            pool.returnObjects(objs);
+            pool.returnObjects(partial);
+            assertEquals(0, pool.getNumActive());
+            assertEquals(8, pool.getNumIdle());
+            assertEquals(8, pool.getReturnedCount());
+            assertThrows(IllegalStateException.class, () -> pool.returnObjects(partial));
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjectsCreateExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AtomicInteger executed = new AtomicInteger();
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setCreateExecutor(runnable -> {
+            executed.incrementAndGet();
+            executor.execute(runnable);
+        });
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            // The borrowing thread creates one object, the executor the others
+            assertEquals(5, pool.borrowObjects(5, null).size());
+            assertEquals(4, executed.get());
+            assertEquals(5, pool.getCreatedCount());
+
+            // Creations the executor rejects are left to the borrowing thread
+            executor.shutdown();
+            assertEquals(3, pool.borrowObjects(3, null).size());
+            assertEquals(8, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testBorrowObjectsConcurrentBatches() throws Exception {
+        final int numThreads = 4;
+        final int iterations = 50;
+        final int batchSize = 8;
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(10);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            final AtomicInteger failures = new AtomicInteger();
+            final Thread[] threads = new Thread[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        for (int j = 0; j < iterations; j++) {
+                            // Batches larger than half the pool would deadlock
+                            // if each could hold part of the pool while waiting
+                            final List<String> objs = pool.borrowObjects(batchSize, null);
+                            if (objs.size() != batchSize) {
+                                failures.incrementAndGet();
+                            }
+                            pool.returnObjects(objs);
+                        }
+                    } catch (final Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+                threads[i].start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(0, failures.get());
+            assertEquals(0, pool.getNumActive());
+            assertEquals(numThreads * iterations * batchSize, pool.getBorrowedCount());
+            assertEquals(numThreads * iterations * batchSize, pool.getReturnedCount());
+        }
+    }
+
     /**
      * On first borrow, first object fails validation, second object is OK.
      * Subsequent borrows are OK. This was POOL-152.
@@ -1547,6 +1896,115 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         assertEquals( 0, genericObjectPool.getNumIdle(),"Should be 0 idle");
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictionExpiredOnly() throws Exception {
+        genericObjectPool.setEvictExpiredOnly(true);
+        genericObjectPool.setMaxTotal(-1);
+        genericObjectPool.setMinEvictableIdleTimeMillis(200);
+        genericObjectPool.setNumTestsPerEvictionRun(Integer.MAX_VALUE);
+        genericObjectPool.addObjects(10);
+        Thread.sleep(400);
+        genericObjectPool.addObjects(1000);
+        genericObjectPool.evict();
+        assertEquals(10, genericObjectPool.getDestroyedByEvictorCount());
+        assertEquals(1000, genericObjectPool.getNumIdle());
+        // Younger objects are not examined, so they are not tested either
+        genericObjectPool.evict();
+        assertEquals(10, genericObjectPool.getDestroyedByEvictorCount());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictionValidationAsync() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxEvictionValidations(3);
+        config.setTestWhileIdle(true);
+        config.setNumTestsPerEvictionRun(8);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(simpleFactory, config)) {
+            pool.addObjects(8);
+            simpleFactory.setValidateLatency(500);
+            final long startMillis = System.currentTimeMillis();
+            pool.evict();
+            // The evictor does not wait for slow validations
+            assertTrue(System.currentTimeMillis() - startMillis < 500);
+            // Objects under test stay in the pool
+            assertEquals(8, pool.getNumIdle());
+            Thread.sleep(1000);
+            // No more than three validations were started
+            assertEquals(3, simpleFactory.validateCounter);
+            assertEquals(8, pool.getNumIdle());
+            // Later runs continue with the remaining objects
+            simpleFactory.setValidateLatency(0);
+            pool.evict();
+            Thread.sleep(100);
+            assertTrue(simpleFactory.validateCounter > 3);
+            assertEquals(8, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictionValidationRateLimit() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxEvictionValidationsPerSecond(1);
+        config.setTestWhileIdle(true);
+        config.setNumTestsPerEvictionRun(8);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(simpleFactory, config)) {
+            pool.addObjects(8);
+            pool.evict();
+            assertEquals(1, simpleFactory.validateCounter);
+            // The budget of one validation per second is used up
+            pool.evict();
+            assertEquals(1, simpleFactory.validateCounter);
+            Thread.sleep(1100);
+            pool.evict();
+            assertEquals(2, simpleFactory.validateCounter);
+            assertEquals(8, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictorDedicated() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setDedicatedEvictor(true);
+        config.setTimeBetweenEvictionRunsMillis(50);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(simpleFactory, config)) {
+            // The shared timer is not used
+            assertEquals(0, EvictionTimer.getNumTasks());
+            Thread.sleep(500);
+            assertTrue(pool.getEvictorRunTimeStatistics().getCount() > 0);
+            assertTrue(pool.getEvictorLagStatistics().getCount() > 0);
+            pool.resetStatistics();
+            assertEquals(0, pool.getEvictorRunTimeStatistics().getCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictorExecutor() throws Exception {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+            config.setEvictorExecutor(executor);
+            config.setTimeBetweenEvictionRunsMillis(50);
+            config.setMinEvictableIdleTimeMillis(100);
+            try (final GenericObjectPool<String> pool = new GenericObjectPool<>(simpleFactory, config)) {
+                assertSame(executor, pool.getEvictorExecutor());
+                assertEquals(0, EvictionTimer.getNumTasks());
+                pool.addObjects(2);
+                Thread.sleep(500);
+                assertEquals(0, pool.getNumIdle());
+                assertEquals(2, pool.getDestroyedByEvictorCount());
+            }
+            // The pool does not shut down a supplied executor
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     public void testEvictionSoftMinIdle() throws Exception {
@@ -1914,6 +2372,53 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         assertEquals( "4", genericObjectPool.borrowObject(),"new-4");
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testLockFreeIdleObjects() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setLockFreeIdleObjects(true);
+        config.setLifo(false);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            assertTrue(pool.getLockFreeIdleObjects());
+            pool.addObject(); // "0"
+            pool.addObject(); // "1"
+            assertEquals(2, pool.getNumIdle());
+            assertEquals("0", pool.borrowObject(), "Oldest");
+            pool.setLifo(true);
+            pool.addObject(); // "2"
+            assertEquals("2", pool.borrowObject(), "Youngest");
+            assertEquals("1", pool.borrowObject(), "Remaining");
+            assertEquals(3, pool.getNumActive());
+            assertEquals(0, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testLockFreeIdleObjectsBlockingBorrow() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setLockFreeIdleObjects(true);
+        config.setFairness(true);
+        config.setMaxTotal(1);
+        config.setMaxWaitMillis(50);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            final String obj = pool.borrowObject();
+            assertThrows(NoSuchElementException.class, () -> pool.borrowObject());
+
+            pool.setMaxWaitMillis(5000);
+            final WaitingTestThread thread = new WaitingTestThread(pool, 0);
+            thread.start();
+            while (pool.getNumWaiters() == 0) {
+                Thread.sleep(5);
+            }
+            pool.returnObject(obj);
+            thread.join();
+            assertNull(thread._thrown);
+            assertEquals(obj, thread.objectId);
+            assertEquals(0, pool.getNumWaiters());
+        }
+    }
+
     /**
      * Test the following scenario:
      *   Thread 1 borrows an instance
@@ -1959,6 +2464,62 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testMaxIdleGracePeriod() throws Exception {
+        genericObjectPool.setMaxTotal(20);
+        genericObjectPool.setMaxIdle(4);
+        genericObjectPool.setMaxIdleGracePeriodMillis(50);
+        // Only trimmed by explicit evict() calls below
+        genericObjectPool.setTimeBetweenEvictionRunsMillis(3_600_000);
+        final String[] active = new String[10];
+        for (int j = 0; j < 2; j++) {
+            for (int i = 0; i < 10; i++) {
+                active[i] = genericObjectPool.borrowObject();
+            }
+            for (int i = 0; i < 10; i++) {
+                genericObjectPool.returnObject(active[i]);
+            }
+            // Objects over maxIdle are kept for the grace period
+            assertEquals(10, genericObjectPool.getNumIdle());
+            genericObjectPool.evict();
+            assertEquals(10, genericObjectPool.getNumIdle());
+        }
+        assertEquals(10, genericObjectPool.getCreatedCount());
+        assertEquals(12, genericObjectPool.getReturnedOverMaxIdleCount());
+        assertEquals(0, genericObjectPool.getDestroyedByMaxIdleCount());
+
+        Thread.sleep(100);
+        genericObjectPool.evict();
+        assertEquals(4, genericObjectPool.getNumIdle());
+        assertEquals(6, genericObjectPool.getDestroyedByMaxIdleCount());
+        assertEquals(6, genericObjectPool.getDestroyedByEvictorCount());
+
+        // Without a grace period, objects over maxIdle are destroyed on return
+        genericObjectPool.setMaxIdleGracePeriodMillis(-1);
+        for (int i = 0; i < 10; i++) {
+            active[i] = genericObjectPool.borrowObject();
+        }
+        for (int i = 0; i < 10; i++) {
+            genericObjectPool.returnObject(active[i]);
+        }
+        assertEquals(4, genericObjectPool.getNumIdle());
+        assertEquals(18, genericObjectPool.getReturnedOverMaxIdleCount());
+        assertEquals(12, genericObjectPool.getDestroyedByMaxIdleCount());
+
+        // Without an evictor to trim them, objects over maxIdle are destroyed on return
+        genericObjectPool.setMaxIdleGracePeriodMillis(50);
+        genericObjectPool.setTimeBetweenEvictionRunsMillis(-1);
+        for (int i = 0; i < 10; i++) {
+            active[i] = genericObjectPool.borrowObject();
+        }
+        genericObjectPool.returnObject(active[0]);
+        genericObjectPool.returnObjects(Arrays.asList(active).subList(1, 10));
+        assertEquals(4, genericObjectPool.getNumIdle());
+        assertEquals(24, genericObjectPool.getReturnedOverMaxIdleCount());
+        assertEquals(18, genericObjectPool.getDestroyedByMaxIdleCount());
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     public void testMaxIdleZero() throws Exception {
@@ -2472,6 +3033,93 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         assertEquals(0, genericObjectPool.getNumIdle());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testPoolListener() throws Exception {
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        genericObjectPool.setPoolListener(new PoolListener() {
+            @Override
+            public void onBorrow(final Object key, final PooledObject<?> pooledObject, final long waitTimeNanos) {
+                events.add("borrow " + pooledObject.getObject());
+            }
+
+            @Override
+            public void onCreate(final Object key, final PooledObject<?> pooledObject) {
+                events.add("create " + pooledObject.getObject());
+            }
+
+            @Override
+            public void onDestroy(final Object key, final PooledObject<?> pooledObject,
+                    final DestroyMode destroyMode, final DestroyCause cause) {
+                events.add("destroy " + pooledObject.getObject() + " " + cause);
+            }
+
+            @Override
+            public void onEvict(final Object key, final PooledObject<?> pooledObject) {
+                events.add("evict " + pooledObject.getObject());
+            }
+
+            @Override
+            public void onReturn(final Object key, final PooledObject<?> pooledObject, final long activeTimeNanos) {
+                events.add("return " + pooledObject.getObject());
+            }
+
+            @Override
+            public void onValidationFailure(final Object key, final PooledObject<?> pooledObject) {
+                events.add("validationFailure " + pooledObject.getObject());
+            }
+        });
+
+        final String obj = genericObjectPool.borrowObject();
+        genericObjectPool.returnObject(obj);
+        genericObjectPool.invalidateObject(genericObjectPool.borrowObject());
+        assertEquals(Arrays.asList("create 0", "borrow 0", "return 0", "borrow 0", "destroy 0 INVALIDATED"), events);
+
+        events.clear();
+        genericObjectPool.setTestOnBorrow(true);
+        simpleFactory.setValid(false);
+        assertThrows(NoSuchElementException.class, () -> genericObjectPool.borrowObject());
+        assertEquals(Arrays.asList("create 1", "validationFailure 1", "destroy 1 VALIDATION_FAILED"), events);
+
+        events.clear();
+        genericObjectPool.setMinEvictableIdleTimeMillis(1);
+        genericObjectPool.addObject();
+        Thread.sleep(10);
+        genericObjectPool.evict();
+        assertEquals(Arrays.asList("create 2", "evict 2", "destroy 2 EVICTED"), events);
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testPreparePoolAsync() throws Exception {
+        genericObjectPool.setMinIdle(10);
+        genericObjectPool.setMaxIdle(10);
+        genericObjectPool.setMaxTotal(20);
+        simpleFactory.makeLatency = 200;
+        final long startMillis = System.currentTimeMillis();
+        PreparePoolResult result = genericObjectPool.preparePoolAsync(10, null).get();
+        assertTrue(System.currentTimeMillis() - startMillis < 10 * simpleFactory.makeLatency);
+        assertEquals(10, result.getCreatedCount());
+        assertEquals(0, result.getFailedCount());
+        assertEquals(0, result.getSkippedCount());
+        assertFalse(result.isDeadlineExceeded());
+        assertEquals(10, genericObjectPool.getNumIdle());
+
+        // Nothing to do once minIdle objects are idle
+        result = genericObjectPool.preparePoolAsync(10, null).get();
+        assertEquals(0, result.getCreatedCount());
+
+        // Creations do not start after the deadline
+        genericObjectPool.clear();
+        result = genericObjectPool.preparePoolAsync(1, Duration.ofMillis(300)).get();
+        assertTrue(result.isDeadlineExceeded());
+        assertTrue(result.getCreatedCount() < 10);
+        assertEquals(10, result.getCreatedCount() + result.getSkippedCount());
+        assertEquals(result.getCreatedCount(), genericObjectPool.getNumIdle());
+
+        assertThrows(IllegalArgumentException.class, () -> genericObjectPool.preparePoolAsync(0, null));
+    }
+
     @Test/* maxWaitMillis x2 + padding */
     @Timeout(value = 1200, unit = TimeUnit.MILLISECONDS)
     public void testReturnBorrowObjectWithingMaxWaitMillis() throws Exception {
@@ -2733,6 +3381,248 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         runTestThreads(20, 100, 50, genericObjectPool);
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testClockAppliedToNewObjects() throws Exception {
+        final ManualNanoClock clock = new ManualNanoClock();
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setClock(clock);
+        config.setMinEvictableIdleTimeMillis(60000);
+        config.setNumTestsPerEvictionRun(10);
+        // The factory wraps its objects without giving them a clock
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            pool.addObjects(2);
+            clock.advance(59, TimeUnit.SECONDS);
+            pool.evict();
+            assertEquals(2, pool.getNumIdle());
+            clock.advance(2, TimeUnit.SECONDS);
+            pool.evict();
+            assertEquals(0, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testClock() throws Exception {
+        final ManualNanoClock clock = new ManualNanoClock();
+        final BasePooledObjectFactory<String> factory = new BasePooledObjectFactory<String>() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public String create() {
+                return String.valueOf(counter.getAndIncrement());
+            }
+
+            @Override
+            public PooledObject<String> wrap(final String obj) {
+                return new DefaultPooledObject<>(obj, clock);
+            }
+        };
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setClock(clock);
+        config.setMinEvictableIdleTimeMillis(60000);
+        config.setNumTestsPerEvictionRun(10);
+        final AbandonedConfig abandonedConfig = new AbandonedConfig();
+        abandonedConfig.setRemoveAbandonedOnMaintenance(true);
+        abandonedConfig.setRemoveAbandonedTimeout(120);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(factory, config, abandonedConfig)) {
+            assertSame(clock, pool.getClock());
+            pool.addObjects(2);
+            final String borrowed = pool.borrowObject();
+
+            clock.advance(59, TimeUnit.SECONDS);
+            pool.evict();
+            assertEquals(1, pool.getNumIdle());
+            assertEquals(1, pool.getNumActive());
+
+            clock.advance(2, TimeUnit.SECONDS);
+            pool.evict();
+            assertEquals(0, pool.getNumIdle());
+            assertEquals(1, pool.getNumActive());
+
+            clock.advance(60, TimeUnit.SECONDS);
+            pool.evict();
+            assertEquals(0, pool.getNumActive());
+            assertEquals(2, pool.getDestroyedCount());
+            assertEquals(0, pool.getBorrowWaitTimeStatistics().getMax());
+            assertNotNull(borrowed);
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testThreadCache() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setThreadCacheSize(2);
+        config.setMaxTotal(2);
+        config.setMaxWaitMillis(100);
+        config.setTimeBetweenEvictionRunsMillis(3_600_000);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            assertEquals(2, pool.getThreadCacheSize());
+            final String obj0 = pool.borrowObject();
+            final String obj1 = pool.borrowObject();
+            pool.returnObject(obj0);
+            pool.returnObject(obj1);
+            assertEquals(2, pool.getNumIdle());
+            assertEquals(0, pool.getNumActive());
+
+            // The returning thread gets its most recently cached object back
+            assertEquals(obj1, pool.borrowObject());
+            assertEquals(1, pool.getNumIdle());
+            pool.returnObject(obj1);
+
+            // Other threads steal cached objects when the pool is exhausted
+            final AtomicReference<String> stolen = new AtomicReference<>();
+            final Thread thread = new Thread(() -> {
+                try {
+                    stolen.set(pool.borrowObject());
+                } catch (final Exception e) {
+                    // Leaves stolen unset
+                }
+            });
+            thread.start();
+            thread.join();
+            assertEquals(obj0, stolen.get());
+            assertEquals(1, pool.getNumActive());
+            assertEquals(1, pool.getNumIdle());
+            pool.returnObject(stolen.get());
+            assertEquals(2, pool.getNumIdle());
+
+            // The evictor moves cached objects back to the idle objects
+            pool.setTimeBetweenEvictionRunsMillis(1);
+            pool.setMinEvictableIdleTimeMillis(1);
+            pool.setNumTestsPerEvictionRun(2);
+            Thread.sleep(10);
+            pool.evict();
+            assertEquals(0, pool.getNumIdle());
+            assertEquals(2, pool.getDestroyedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testThreadCacheMaxIdleAndClose() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setThreadCacheSize(2);
+        config.setMaxTotal(3);
+        config.setMaxIdle(1);
+        config.setTimeBetweenEvictionRunsMillis(3_600_000);
+        final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config);
+        final String obj0 = pool.borrowObject();
+        final String obj1 = pool.borrowObject();
+        pool.returnObject(obj0);
+        pool.returnObject(obj1);
+        // The cache does not keep objects over maxIdle
+        assertEquals(1, pool.getNumIdle());
+        assertEquals(1, pool.getDestroyedCount());
+
+        // Closing the pool destroys the objects cached by every thread
+        pool.close();
+        assertEquals(0, pool.getNumIdle());
+        assertEquals(2, pool.getDestroyedCount());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testThreadCacheReusedBeforeCreate() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setThreadCacheSize(1);
+        config.setTimeBetweenEvictionRunsMillis(3_600_000);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            final String obj = pool.borrowObject();
+            pool.returnObject(obj);
+            // Another thread takes the cached object rather than creating one
+            final AtomicReference<String> borrowed = new AtomicReference<>();
+            final Thread thread = new Thread(() -> {
+                try {
+                    borrowed.set(pool.borrowObject());
+                } catch (final Exception e) {
+                    // Leaves borrowed unset
+                }
+            });
+            thread.start();
+            thread.join();
+            assertEquals(obj, borrowed.get());
+            assertEquals(1, pool.getCreatedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testThreadCacheWithoutEvictor() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setThreadCacheSize(2);
+        config.setTimeBetweenEvictionRunsMillis(3_600_000);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            final String obj0 = pool.borrowObject();
+            final String obj1 = pool.borrowObject();
+            pool.returnObject(obj0);
+            // Once the evictor stops, objects are no longer cached and the
+            // cached objects are moved back with the next return
+            pool.setTimeBetweenEvictionRunsMillis(-1);
+            pool.returnObject(obj1);
+            assertEquals(2, pool.getNumIdle());
+            // Both are regular idle objects, which the evictor examines
+            // although they were returned recently
+            pool.setTimeBetweenEvictionRunsMillis(3_600_000);
+            pool.setMinEvictableIdleTimeMillis(1);
+            pool.setNumTestsPerEvictionRun(2);
+            Thread.sleep(10);
+            pool.evict();
+            assertEquals(0, pool.getNumIdle());
+            assertEquals(2, pool.getDestroyedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testThreadCacheSignalsWaiter() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setThreadCacheSize(1);
+        config.setMaxTotal(1);
+        config.setMaxWaitMillis(-1);
+        config.setTimeBetweenEvictionRunsMillis(3_600_000);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            final String obj = pool.borrowObject();
+            final AtomicReference<String> borrowed = new AtomicReference<>();
+            final Thread thread = new Thread(() -> {
+                try {
+                    borrowed.set(pool.borrowObject());
+                } catch (final Exception e) {
+                    // Leaves borrowed unset
+                }
+            });
+            thread.start();
+            while (pool.getNumWaiters() == 0) {
+                Thread.sleep(1);
+            }
+            // The returned object is handed to the waiter, not cached
+            pool.returnObject(obj);
+            thread.join();
+            assertEquals(obj, borrowed.get());
+            assertEquals(0, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testThreadCacheThreaded() throws Exception {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setThreadCacheSize(1);
+        config.setMaxTotal(5);
+        config.setMaxIdle(5);
+        config.setMaxWaitMillis(1000L);
+        config.setTimeBetweenEvictionRunsMillis(3_600_000);
+        try (final GenericObjectPool<String> pool = new GenericObjectPool<>(new SimpleFactory(), config)) {
+            runTestThreads(20, 100, 50, pool);
+            assertEquals(0, pool.getNumActive());
+            assertTrue(pool.getCreatedCount() <= 5);
+            pool.clear();
+            assertEquals(0, pool.getNumIdle());
+            assertEquals(pool.getCreatedCount(), pool.getDestroyedCount());
+        }
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     public void testTimeoutNoLeak() throws Exception {
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IdleAgeIndex}.
+ */
+public class TestIdleAgeIndex {
+
+    @Test
+    public void testPollOldest() {
+        final IdleAgeIndex<String, Object> index = new IdleAgeIndex<>();
+        final List<DefaultPooledObject<Object>> objects = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final DefaultPooledObject<Object> p = new DefaultPooledObject<>(new Object());
+            objects.add(p);
+            index.add(String.valueOf(i), p);
+        }
+        // Borrowed objects are skipped
+        objects.get(0).allocate();
+        final IdleAgeIndex.Entry<String, Object> oldest = index.pollOldest();
+        assertSame(objects.get(1), oldest.getPooledObject());
+        assertEquals("1", oldest.getKey());
+        assertSame(objects.get(2), index.pollOldest().getPooledObject());
+        assertNull(index.pollOldest());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testStaleEntriesSwept() {
+        final IdleAgeIndex<String, Object> index = new IdleAgeIndex<>();
+        final List<DefaultPooledObject<Object>> live = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            final DefaultPooledObject<Object> p = new DefaultPooledObject<>(new Object());
+            index.add("a", p);
+            if (i % 100 == 0) {
+                live.add(p);
+            } else {
+                p.allocate();
+            }
+            // Sweeping in steps keeps the stale entries in check
+            assertTrue(index.size() <= Math.max(200, 3 * live.size()), () -> "Size: " + index.size());
+        }
+        assertTrue(index.hasIdleObjects());
+        for (final DefaultPooledObject<Object> p : live) {
+            assertSame(p, index.pollOldest().getPooledObject());
+        }
+        assertNull(index.pollOldest());
+    }
+}
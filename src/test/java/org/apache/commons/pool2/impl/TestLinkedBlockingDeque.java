@@ -27,10 +27,12 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -375,6 +377,20 @@ public class TestLinkedBlockingDeque {
         assertEquals(Integer.valueOf(1), deque.peek());
     }
 
+    @Test
+    public void testAddAllFirstAddAllLast() {
+        deque.addAllFirst(Arrays.asList(ONE, TWO));
+        assertEquals(2, deque.size());
+        assertEquals(TWO, deque.peekFirst());
+        assertThrows(IllegalStateException.class, () -> deque.addAllLast(Arrays.asList(THREE)));
+        deque.clear();
+        assertThrows(NullPointerException.class, () -> deque.addAllLast(Arrays.asList(ONE, null)));
+        assertEquals(0, deque.size());
+        deque.addAllLast(Arrays.asList(ONE, TWO));
+        assertEquals(ONE, deque.peekFirst());
+        assertEquals(TWO, deque.peekLast());
+    }
+
     @Test
     public void testDrainTo() {
         Collection<Integer> c = new ArrayList<>();
@@ -511,4 +527,32 @@ public class TestLinkedBlockingDeque {
 
         iter.next();
     }
+
+    @Test
+    public void testSharedCount() throws InterruptedException {
+        final LongAdder count = new LongAdder();
+        final LinkedBlockingDeque<Integer> first = new LinkedBlockingDeque<>(false, count);
+        final LinkedBlockingDeque<Integer> second = new LinkedBlockingDeque<>(true, count);
+        first.addFirst(ONE);
+        first.addLast(TWO);
+        second.addAllLast(Arrays.asList(ONE, TWO, THREE));
+        assertEquals(5, count.sum());
+        assertEquals(ONE, first.pollFirst());
+        assertEquals(THREE, second.pollLast());
+        assertTrue(second.remove(ONE));
+        assertEquals(2, count.sum());
+        final Iterator<Integer> iter = second.iterator();
+        iter.next();
+        iter.remove();
+        assertEquals(1, count.sum());
+        second.addLast(THREE);
+        assertEquals(THREE, second.pollFirst(0, TimeUnit.MILLISECONDS));
+        first.drainTo(new ArrayList<>(), 1);
+        assertEquals(0, count.sum());
+        first.addLast(ONE);
+        second.addLast(TWO);
+        first.clear();
+        second.clear();
+        assertEquals(0, count.sum());
+    }
 }
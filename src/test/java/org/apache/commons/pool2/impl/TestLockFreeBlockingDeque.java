@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests for {@link LockFreeBlockingDeque}.
+ */
+public class TestLockFreeBlockingDeque {
+
+    private static final Integer ONE = Integer.valueOf(1);
+    private static final Integer TWO = Integer.valueOf(2);
+    private static final Integer THREE = Integer.valueOf(3);
+
+    LockFreeBlockingDeque<Integer> deque;
+
+    @BeforeEach
+    public void setUp() {
+        deque = new LockFreeBlockingDeque<>(false);
+    }
+
+    /**
+     * Waits until the given number of threads are parked in the deque.
+     */
+    private void awaitWaiters(final LockFreeBlockingDeque<?> d, final int n) throws InterruptedException {
+        while (d.getTakeQueueLength() < n) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testAddFirstAddLast() {
+        deque.addFirst(ONE);
+        deque.addLast(TWO);
+        deque.addFirst(THREE);
+        assertEquals(3, deque.size());
+        assertEquals(THREE, deque.peekFirst());
+        assertEquals(TWO, deque.peekLast());
+        assertEquals(THREE, deque.pollFirst());
+        assertEquals(TWO, deque.pollLast());
+        assertEquals(ONE, deque.pop());
+        assertEquals(0, deque.size());
+        assertTrue(deque.isEmpty());
+        assertThrows(NullPointerException.class, () -> deque.addFirst(null));
+        assertThrows(NoSuchElementException.class, () -> deque.removeFirst());
+    }
+
+    @Test
+    public void testBulkOperations() {
+        deque.addAllFirst(Arrays.asList(ONE, TWO));
+        deque.addAllLast(Arrays.asList(THREE));
+        assertEquals(3, deque.size());
+        assertEquals(TWO, deque.peekFirst());
+        assertEquals(THREE, deque.peekLast());
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(2, deque.drainTo(drained, 2));
+        assertEquals(Arrays.asList(TWO, ONE), drained);
+        assertEquals(1, deque.drainTo(drained, 2));
+        assertEquals(0, deque.size());
+    }
+
+    @Test
+    public void testRemoveAndIterator() {
+        deque.addLast(ONE);
+        deque.addLast(TWO);
+        deque.addLast(THREE);
+        assertTrue(deque.remove(TWO));
+        assertFalse(deque.remove(TWO));
+        assertEquals(2, deque.size());
+
+        final Iterator<Integer> iter = deque.descendingIterator();
+        assertEquals(THREE, iter.next());
+        iter.remove();
+        assertEquals(ONE, iter.next());
+        assertFalse(iter.hasNext());
+        assertEquals(1, deque.size());
+
+        deque.clear();
+        assertEquals(0, deque.size());
+        assertNull(deque.pollFirst());
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testPollFirstWithTimeout() throws InterruptedException {
+        assertNull(deque.pollFirst(0, TimeUnit.MILLISECONDS));
+        final long start = System.nanoTime();
+        assertNull(deque.pollFirst(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertFalse(deque.hasTakeWaiters());
+        deque.addFirst(ONE);
+        assertEquals(ONE, deque.pollFirst(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testTakeFirstWakesUpWaiter() throws Exception {
+        final AtomicReference<Integer> taken = new AtomicReference<>();
+        final Thread t = new Thread(() -> {
+            try {
+                taken.set(deque.takeFirst());
+            } catch (final InterruptedException e) {
+                // Leaves taken unset
+            }
+        });
+        t.start();
+        awaitWaiters(deque, 1);
+        assertTrue(deque.hasTakeWaiters());
+        deque.addLast(ONE);
+        t.join();
+        assertEquals(ONE, taken.get());
+        assertEquals(0, deque.size());
+        assertFalse(deque.hasTakeWaiters());
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testFairHandOffServesWaitersInOrder() throws Exception {
+        final LockFreeBlockingDeque<Integer> fairDeque = new LockFreeBlockingDeque<>(true);
+        final int numThreads = 5;
+        final Integer[] results = new Integer[numThreads];
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    results[index] = fairDeque.takeFirst();
+                } catch (final InterruptedException e) {
+                    // Leaves result unset
+                }
+            });
+            threads[i].start();
+            awaitWaiters(fairDeque, i + 1);
+        }
+        for (int i = 0; i < numThreads; i++) {
+            fairDeque.addLast(Integer.valueOf(i));
+        }
+        for (int i = 0; i < numThreads; i++) {
+            threads[i].join();
+            assertEquals(Integer.valueOf(i), results[i]);
+        }
+        assertEquals(0, fairDeque.size());
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testInterruptTakeWaiters() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Thread t = new Thread(() -> {
+            try {
+                deque.takeFirst();
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        t.start();
+        awaitWaiters(deque, 1);
+        deque.interuptTakeWaiters();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        t.join();
+        assertFalse(deque.hasTakeWaiters());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testConcurrentProducersAndConsumers() throws Exception {
+        final int numThreads = 8;
+        final int perThread = 10000;
+        final AtomicInteger taken = new AtomicInteger();
+        final Thread[] threads = new Thread[numThreads * 2];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    if (j % 2 == 0) {
+                        deque.addFirst(ONE);
+                    } else {
+                        deque.addLast(TWO);
+                    }
+                }
+            });
+            threads[numThreads + i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < perThread; j++) {
+                        if (deque.pollFirst(5, TimeUnit.SECONDS) != null) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    // Leaves count short
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(numThreads * perThread, taken.get());
+        assertEquals(0, deque.size());
+        assertFalse(deque.hasTakeWaiters());
+    }
+
+    @Test
+    public void testSharedCount() throws InterruptedException {
+        final LongAdder count = new LongAdder();
+        final LockFreeBlockingDeque<Integer> first = new LockFreeBlockingDeque<>(false, count);
+        final LockFreeBlockingDeque<Integer> second = new LockFreeBlockingDeque<>(true, count);
+        first.addFirst(ONE);
+        first.addLast(TWO);
+        second.addAllLast(Arrays.asList(ONE, TWO, THREE));
+        assertEquals(5, count.sum());
+        assertEquals(ONE, first.pollFirst());
+        assertEquals(THREE, second.pollLast());
+        assertTrue(second.remove(ONE));
+        assertEquals(2, count.sum());
+        final Iterator<Integer> iter = second.iterator();
+        iter.next();
+        iter.remove();
+        assertEquals(1, count.sum());
+        second.addLast(THREE);
+        assertEquals(THREE, second.pollFirst(0, TimeUnit.MILLISECONDS));
+        first.drainTo(new ArrayList<>(), 1);
+        assertEquals(0, count.sum());
+        first.addLast(ONE);
+        second.addLast(TWO);
+        first.clear();
+        second.clear();
+        assertEquals(0, count.sum());
+    }
+}
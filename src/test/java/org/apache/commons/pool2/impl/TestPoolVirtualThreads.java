@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.ObjectPool;
+import org.apache.commons.pool2.PooledObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Stress tests running the pools under a virtual thread per task executor,
+ * which requires Java 21 or later. Factory methods sleep to simulate I/O while
+ * borrowers are blocked in the pool. The tests fail if a virtual thread blocks
+ * while pinned to its carrier thread, as reported by
+ * {@code jdk.VirtualThreadPinned} flight recorder events.
+ */
+public class TestPoolVirtualThreads {
+
+    /**
+     * Flight recording of the pinned virtual thread events. Like the virtual
+     * threads, the flight recorder is used through reflection, so that this
+     * class only links against the Java 8 API.
+     */
+    private static final class PinnedRecording implements AutoCloseable {
+
+        private final Object recording;
+
+        PinnedRecording() throws ReflectiveOperationException {
+            final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+            final Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+            recording = recordingClass.getConstructor().newInstance();
+            final Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, PINNED_EVENT);
+            // Report every block while pinned, however short
+            settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+            settingsClass.getMethod("withStackTrace").invoke(settings);
+            recordingClass.getMethod("start").invoke(recording);
+        }
+
+        @Override
+        public void close() throws ReflectiveOperationException {
+            recording.getClass().getMethod("close").invoke(recording);
+        }
+
+        /**
+         * Stops the recording and returns the pinned events.
+         *
+         * @return the descriptions of the pinned events
+         */
+        List<String> stop() throws Exception {
+            recording.getClass().getMethod("stop").invoke(recording);
+            final Path file = Files.createTempFile("pool-pinned", ".jfr");
+            try {
+                recording.getClass().getMethod("dump", Path.class).invoke(recording, file);
+                final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                        .getMethod("readAllEvents", Path.class).invoke(null, file);
+                final Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+                final Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+                final List<String> pinned = new ArrayList<>();
+                for (final Object event : events) {
+                    if (PINNED_EVENT.equals(getName.invoke(getEventType.invoke(event)))) {
+                        pinned.add(event.toString());
+                    }
+                }
+                return pinned;
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static final class SleepingFactory extends BasePooledObjectFactory<Object> {
+        @Override
+        public Object create() throws Exception {
+            Thread.sleep(5);
+            return new Object();
+        }
+
+        @Override
+        public boolean validateObject(final PooledObject<Object> p) {
+            sleep(1);
+            return true;
+        }
+
+        @Override
+        public PooledObject<Object> wrap(final Object obj) {
+            return new DefaultPooledObject<>(obj);
+        }
+    }
+
+    private static final class SleepingKeyedFactory extends BaseKeyedPooledObjectFactory<Integer, Object> {
+        @Override
+        public Object create(final Integer key) throws Exception {
+            Thread.sleep(5);
+            return new Object();
+        }
+
+        @Override
+        public boolean validateObject(final Integer key, final PooledObject<Object> p) {
+            sleep(1);
+            return true;
+        }
+
+        @Override
+        public PooledObject<Object> wrap(final Object obj) {
+            return new DefaultPooledObject<>(obj);
+        }
+    }
+
+    private static final int TASKS = 2000;
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Creates a virtual thread per task executor, skipping the test if the
+     * runtime does not support virtual threads.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            assumeTrue(false, "Virtual threads are not supported");
+            return null;
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runTasks(final Task task) throws Exception {
+        final ExecutorService executor = newExecutor();
+        final List<String> pinned;
+        try (final PinnedRecording recording = new PinnedRecording()) {
+            try {
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    final int index = i;
+                    futures.add(executor.submit(() -> {
+                        task.run(index);
+                        return null;
+                    }));
+                }
+                for (final Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+            }
+            pinned = recording.stop();
+        }
+        assertTrue(pinned.isEmpty(), () -> "Virtual threads blocked while pinned: " + pinned);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(int index) throws Exception;
+    }
+
+    @Test
+    @Timeout(value = 120000, unit = TimeUnit.MILLISECONDS)
+    public void testGenericKeyedObjectPool() throws Exception {
+        final GenericKeyedObjectPoolConfig<Object> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxTotalPerKey(4);
+        config.setMaxTotal(12);
+        config.setTestOnBorrow(true);
+        try (final GenericKeyedObjectPool<Integer, Object> pool =
+                new GenericKeyedObjectPool<>(new SleepingKeyedFactory(), config)) {
+            runTasks(i -> {
+                final Integer key = Integer.valueOf(i % 4);
+                final Object obj = pool.borrowObject(key);
+                sleep(1);
+                if (i % 100 == 0) {
+                    pool.invalidateObject(key, obj);
+                } else {
+                    pool.returnObject(key, obj);
+                }
+            });
+            assertEquals(0, pool.getNumActive());
+            assertEquals(0, pool.getNumWaiters());
+            assertTrue(pool.getNumIdle() <= 12);
+            assertEquals(TASKS, pool.getBorrowedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 120000, unit = TimeUnit.MILLISECONDS)
+    public void testGenericObjectPool() throws Exception {
+        final GenericObjectPoolConfig<Object> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(8);
+        config.setTestOnBorrow(true);
+        try (final GenericObjectPool<Object> pool = new GenericObjectPool<>(new SleepingFactory(), config)) {
+            runTasks(i -> {
+                final Object obj = pool.borrowObject();
+                sleep(1);
+                if (i % 100 == 0) {
+                    pool.invalidateObject(obj);
+                } else {
+                    pool.returnObject(obj);
+                }
+            });
+            assertEquals(0, pool.getNumActive());
+            assertEquals(0, pool.getNumWaiters());
+            assertTrue(pool.getNumIdle() <= 8);
+            assertEquals(TASKS, pool.getBorrowedCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 120000, unit = TimeUnit.MILLISECONDS)
+    public void testSoftReferenceObjectPool() throws Exception {
+        try (final ObjectPool<Object> pool = new SoftReferenceObjectPool<>(new SleepingFactory())) {
+            runTasks(i -> {
+                final Object obj = pool.borrowObject();
+                pool.returnObject(obj);
+            });
+            assertEquals(0, pool.getNumActive());
+        }
+    }
+}
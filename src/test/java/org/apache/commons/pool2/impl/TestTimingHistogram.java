@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TimingHistogram}.
+ */
+public class TestTimingHistogram {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(0, TimingHistogram.indexOf(0));
+        assertEquals(TimingHistogram.BUCKET_COUNT - 1, TimingHistogram.indexOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, TimingHistogram.highestValueOf(TimingHistogram.BUCKET_COUNT - 1));
+        // Buckets are contiguous and each value is in the bucket it maps to
+        for (int i = 1; i < TimingHistogram.BUCKET_COUNT; i++) {
+            final long lowest = TimingHistogram.highestValueOf(i - 1) + 1;
+            assertEquals(i, TimingHistogram.indexOf(lowest));
+            assertEquals(i, TimingHistogram.indexOf(TimingHistogram.highestValueOf(i)));
+        }
+        // Relative error is bounded
+        for (int i = 0; i < 10000; i++) {
+            final long value = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+            final long highest = TimingHistogram.highestValueOf(TimingHistogram.indexOf(value));
+            assertTrue(highest >= value);
+            assertTrue((highest - value) / (double) value <= 1.0 / 32);
+        }
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final TimingHistogram histogram = new TimingHistogram();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 1; j <= 10000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final TimingStatistics stats = histogram.snapshot();
+        assertEquals(40000, stats.getCount());
+        assertEquals(10000, stats.getMax());
+        assertEquals(5000.5, stats.getMean(), 0);
+        assertEquals(10000, stats.getValueAtPercentile(100));
+        assertEquals(1, stats.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testNegativeValues() {
+        final TimingHistogram histogram = new TimingHistogram();
+        histogram.record(-10);
+        final TimingStatistics stats = histogram.snapshot();
+        assertEquals(1, stats.getCount());
+        assertEquals(0, stats.getMax());
+        assertEquals(0, stats.getP50());
+    }
+}
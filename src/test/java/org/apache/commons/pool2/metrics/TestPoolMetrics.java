@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.TimingStatistics;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link GenericObjectPoolMetrics} and
+ * {@link GenericKeyedObjectPoolMetrics}.
+ */
+public class TestPoolMetrics {
+
+    /**
+     * Registry keeping the meters in a map keyed by name and tags.
+     */
+    private static class MapRegistry implements PoolMetricsRegistry {
+
+        private final Map<String, DoubleSupplier> meters = new HashMap<>();
+
+        @Override
+        public void counter(final String name, final Map<String, String> tags, final LongSupplier value) {
+            assertFalse(meters.containsKey(id(name, tags)), name + tags);
+            meters.put(id(name, tags), value::getAsLong);
+        }
+
+        @Override
+        public void gauge(final String name, final Map<String, String> tags, final DoubleSupplier value) {
+            assertFalse(meters.containsKey(id(name, tags)), name + tags);
+            meters.put(id(name, tags), value);
+        }
+
+        private String id(final String name, final Map<String, String> tags) {
+            return name + tags;
+        }
+
+        @Override
+        public void remove(final String name, final Map<String, String> tags) {
+            meters.remove(id(name, tags));
+        }
+
+        double read(final String name, final Map<String, String> tags) {
+            final DoubleSupplier value = meters.get(id(name, tags));
+            assertTrue(value != null, name + tags);
+            return value.getAsDouble();
+        }
+    }
+
+    private static class ObjectFactory extends BasePooledObjectFactory<Object> {
+        @Override
+        public Object create() {
+            return new Object();
+        }
+
+        @Override
+        public PooledObject<Object> wrap(final Object obj) {
+            return new DefaultPooledObject<>(obj);
+        }
+    }
+
+    private static class KeyedObjectFactory extends BaseKeyedPooledObjectFactory<String, Object> {
+        @Override
+        public Object create(final String key) {
+            return new Object();
+        }
+
+        @Override
+        public PooledObject<Object> wrap(final Object obj) {
+            return new DefaultPooledObject<>(obj);
+        }
+    }
+
+    private static Map<String, String> tags(final String... keyValues) {
+        final Map<String, String> tags = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            tags.put(keyValues[i], keyValues[i + 1]);
+        }
+        return tags;
+    }
+
+    @Test
+    public void testKeyedPoolMetrics() throws Exception {
+        final MapRegistry registry = new MapRegistry();
+        try (final GenericKeyedObjectPool<String, Object> pool = new GenericKeyedObjectPool<>(new KeyedObjectFactory())) {
+            final Map<String, String> poolTags = tags("pool", "keyed");
+            final GenericKeyedObjectPoolMetrics<String> metrics =
+                    new GenericKeyedObjectPoolMetrics<>(pool, registry, poolTags, 2);
+            final Object a = pool.borrowObject("a");
+            pool.borrowObject("a");
+            final Object b = pool.borrowObject("b");
+            pool.returnObject("b", b);
+            pool.borrowObject("c");
+            metrics.refreshKeys();
+
+            assertEquals(2, metrics.getNumTrackedKeys());
+            assertEquals(1, registry.read(GenericKeyedObjectPoolMetrics.KEYS_UNTRACKED, poolTags));
+            assertEquals(3, registry.read(BasePoolMetrics.ACTIVE, poolTags));
+            assertEquals(4, registry.read(BasePoolMetrics.CREATED, poolTags));
+            final Map<String, String> aTags = tags("pool", "keyed", GenericKeyedObjectPoolMetrics.KEY_TAG, "a");
+            final Map<String, String> bTags = tags("pool", "keyed", GenericKeyedObjectPoolMetrics.KEY_TAG, "b");
+            assertEquals(2, registry.read(GenericKeyedObjectPoolMetrics.KEY_ACTIVE, aTags));
+            assertEquals(0, registry.read(GenericKeyedObjectPoolMetrics.KEY_IDLE, aTags));
+            assertEquals(0, registry.read(GenericKeyedObjectPoolMetrics.KEY_ACTIVE, bTags));
+            assertEquals(1, registry.read(GenericKeyedObjectPoolMetrics.KEY_IDLE, bTags));
+            assertEquals(0, registry.read(GenericKeyedObjectPoolMetrics.KEY_WAITERS, bTags));
+
+            // Key "b" goes away, making room for "c"
+            pool.clear("b");
+            metrics.refreshKeys();
+            assertEquals(2, metrics.getNumTrackedKeys());
+            assertEquals(0, registry.read(GenericKeyedObjectPoolMetrics.KEYS_UNTRACKED, poolTags));
+            assertFalse(registry.meters.containsKey(GenericKeyedObjectPoolMetrics.KEY_ACTIVE + bTags));
+            assertEquals(1, registry.read(GenericKeyedObjectPoolMetrics.KEY_ACTIVE,
+                    tags("pool", "keyed", GenericKeyedObjectPoolMetrics.KEY_TAG, "c")));
+
+            pool.returnObject("a", a);
+            assertEquals(1, registry.read(GenericKeyedObjectPoolMetrics.KEY_IDLE, aTags));
+
+            metrics.close();
+            assertTrue(registry.meters.isEmpty());
+        }
+    }
+
+    @Test
+    public void testPoolMetrics() throws Exception {
+        final MapRegistry registry = new MapRegistry();
+        try (final GenericObjectPool<Object> pool = new GenericObjectPool<>(new ObjectFactory())) {
+            final Map<String, String> poolTags = tags("pool", "test");
+            final GenericObjectPoolMetrics metrics = new GenericObjectPoolMetrics(pool, registry, poolTags);
+            final Object o1 = pool.borrowObject();
+            pool.borrowObject();
+            pool.returnObject(o1);
+
+            assertEquals(1, registry.read(BasePoolMetrics.ACTIVE, poolTags));
+            assertEquals(1, registry.read(BasePoolMetrics.IDLE, poolTags));
+            assertEquals(0, registry.read(BasePoolMetrics.WAITERS, poolTags));
+            assertEquals(2, registry.read(BasePoolMetrics.BORROWED, poolTags));
+            assertEquals(1, registry.read(BasePoolMetrics.RETURNED, poolTags));
+            assertEquals(2, registry.read(BasePoolMetrics.CREATED, poolTags));
+            assertEquals(pool.getMaxTotal(), registry.read(BasePoolMetrics.MAX_TOTAL, poolTags));
+
+            final TimingStatistics waitTimes = pool.getBorrowWaitTimeStatistics();
+            assertEquals(waitTimes.getP50() / 1_000_000.0, registry.read(BasePoolMetrics.WAIT_TIME_P50, poolTags));
+            assertEquals(waitTimes.getP99() / 1_000_000.0, registry.read(BasePoolMetrics.WAIT_TIME_P99, poolTags));
+            final TimingStatistics activeTimes = pool.getActiveTimeStatistics();
+            assertEquals(1, activeTimes.getCount());
+            assertEquals(activeTimes.getP50() / 1_000_000.0, registry.read(BasePoolMetrics.ACTIVE_TIME_P50, poolTags));
+            assertEquals(activeTimes.getP99() / 1_000_000.0, registry.read(BasePoolMetrics.ACTIVE_TIME_P99, poolTags));
+
+            pool.clear();
+            assertEquals(1, registry.read(BasePoolMetrics.DESTROYED, poolTags));
+
+            metrics.close();
+            assertTrue(registry.meters.isEmpty());
+        }
+    }
+
+    @Test
+    public void testZeroMaxKeys() throws Exception {
+        final MapRegistry registry = new MapRegistry();
+        try (final GenericKeyedObjectPool<String, Object> pool = new GenericKeyedObjectPool<>(new KeyedObjectFactory())) {
+            final GenericKeyedObjectPoolMetrics<String> metrics =
+                    new GenericKeyedObjectPoolMetrics<>(pool, registry, Collections.<String, String>emptyMap(), 0);
+            pool.borrowObject("a");
+            metrics.refreshKeys();
+            assertEquals(0, metrics.getNumTrackedKeys());
+            assertEquals(1, registry.read(GenericKeyedObjectPoolMetrics.KEYS_UNTRACKED, metrics.getTags()));
+            metrics.close();
+        }
+    }
+}
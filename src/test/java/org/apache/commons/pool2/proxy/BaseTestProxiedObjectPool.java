@@ -135,7 +135,12 @@ public abstract class BaseTestProxiedObjectPool {
         // Borrow another object to trigger the abandoned object processing
         pool.borrowObject();
 
-        final String logOutput = log.getBuffer().toString();
+        // Abandoned objects are removed in the background
+        String logOutput = log.getBuffer().toString();
+        for (int i = 0; i < 50 && !logOutput.contains("The last code to use this object was"); i++) {
+            Thread.sleep(100);
+            logOutput = log.getBuffer().toString();
+        }
 
         assertTrue(logOutput.contains("Pooled object created"));
         assertTrue(logOutput.contains("The last code to use this object was"));
@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.proxy;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.apache.commons.pool2.UsageTracking;
+import org.junit.jupiter.api.Test;
+
+public class TestDirectProxySource {
+
+    public interface Calculator {
+        long add(int a, long b, double c, float d);
+        double scale(double value, short factor, byte offset);
+        boolean test(boolean flag, char c);
+        String[] split(String value, char separator);
+        void fail(String message) throws IOException;
+        default String name() {
+            return "calculator";
+        }
+    }
+
+    public interface Named {
+        String name();
+    }
+
+    public interface Overloaded {
+        String describe();
+        String describe(int value);
+        String describe(long value);
+        String describe(Object value);
+        String describe(int[] values);
+        String describe(String prefix, Object... values);
+    }
+
+    public interface Primitives {
+        byte toByte(int value);
+        char toChar(int value);
+        short toShort(int value);
+        int toInt(long value);
+        float toFloat(double value);
+        int[] toArray(int length);
+        Object[][] toMatrix(int rows, int columns);
+        default long twice(final long value) {
+            return 2 * value;
+        }
+    }
+
+    public interface Failing {
+        void ioFailure() throws IOException;
+        Object checkedFailure() throws Exception;
+        int uncheckedFailure();
+    }
+
+    public interface Reserved {
+        Object newProxy$(Supplier<?> handler);
+    }
+
+    interface PackagePrivate {
+        void run();
+    }
+
+    private static class CalculatorImpl implements Calculator, Named {
+
+        @Override
+        public long add(final int a, final long b, final double c, final float d) {
+            return a + b + (long) c + (long) d;
+        }
+
+        @Override
+        public double scale(final double value, final short factor, final byte offset) {
+            return value * factor + offset;
+        }
+
+        @Override
+        public boolean test(final boolean flag, final char c) {
+            return flag && c == 'x';
+        }
+
+        @Override
+        public String[] split(final String value, final char separator) {
+            return value.split(String.valueOf(separator));
+        }
+
+        @Override
+        public void fail(final String message) throws IOException {
+            throw new IOException(message);
+        }
+
+        @Override
+        public String name() {
+            return "impl";
+        }
+
+        @Override
+        public String toString() {
+            return "CalculatorImpl";
+        }
+    }
+
+    private static class RecordingUsageTracking implements UsageTracking<Calculator> {
+
+        private final List<Calculator> used = new ArrayList<>();
+
+        @Override
+        public void use(final Calculator pooledObject) {
+            used.add(pooledObject);
+        }
+    }
+
+    private static class OverloadedImpl implements Overloaded {
+
+        @Override
+        public String describe() {
+            return "none";
+        }
+
+        @Override
+        public String describe(final int value) {
+            return "int " + value;
+        }
+
+        @Override
+        public String describe(final long value) {
+            return "long " + value;
+        }
+
+        @Override
+        public String describe(final Object value) {
+            return "Object " + value;
+        }
+
+        @Override
+        public String describe(final int[] values) {
+            return "int[] " + Arrays.toString(values);
+        }
+
+        @Override
+        public String describe(final String prefix, final Object... values) {
+            return prefix + Arrays.toString(values);
+        }
+    }
+
+    private static class PrimitivesImpl implements Primitives {
+
+        @Override
+        public byte toByte(final int value) {
+            return (byte) value;
+        }
+
+        @Override
+        public char toChar(final int value) {
+            return (char) value;
+        }
+
+        @Override
+        public short toShort(final int value) {
+            return (short) value;
+        }
+
+        @Override
+        public int toInt(final long value) {
+            return (int) value;
+        }
+
+        @Override
+        public float toFloat(final double value) {
+            return (float) value;
+        }
+
+        @Override
+        public int[] toArray(final int length) {
+            return new int[length];
+        }
+
+        @Override
+        public Object[][] toMatrix(final int rows, final int columns) {
+            return new Object[rows][columns];
+        }
+    }
+
+    private static class FailingImpl implements Failing {
+
+        @Override
+        public void ioFailure() throws IOException {
+            throw new IOException("io");
+        }
+
+        @Override
+        public Object checkedFailure() throws Exception {
+            throw new TimeoutException("checked");
+        }
+
+        @Override
+        public int uncheckedFailure() {
+            throw new UnsupportedOperationException("unchecked");
+        }
+    }
+
+    private final DirectProxySource<Calculator> proxySource = new DirectProxySource<>(
+            getClass().getClassLoader(), new Class<?>[] { Calculator.class, Named.class });
+
+    @Test
+    public void testCalls() throws Exception {
+        final Calculator calculator = new CalculatorImpl();
+        final Calculator proxy = proxySource.createProxy(calculator, null);
+        assertEquals(10, proxy.add(1, 2, 3.5, 4.5f));
+        assertEquals(7.0, proxy.scale(1.5, (short) 4, (byte) 1));
+        assertTrue(proxy.test(true, 'x'));
+        assertArrayEquals(new String[] {"a", "b"}, proxy.split("a,b", ','));
+        assertEquals("impl", proxy.name());
+        assertEquals("impl", ((Named) proxy).name());
+        final IOException e = assertThrows(IOException.class, () -> proxy.fail("checked"));
+        assertEquals("checked", e.getMessage());
+    }
+
+    @Test
+    public void testObjectMethods() {
+        final Calculator calculator = new CalculatorImpl();
+        final Calculator proxy = proxySource.createProxy(calculator, null);
+        assertEquals("CalculatorImpl", proxy.toString());
+        assertEquals(calculator.hashCode(), proxy.hashCode());
+        assertTrue(proxy.equals(calculator));
+    }
+
+    @Test
+    public void testResolveProxy() {
+        final Calculator calculator = new CalculatorImpl();
+        final RecordingUsageTracking usageTracking = new RecordingUsageTracking();
+        final Calculator proxy = proxySource.createProxy(calculator, usageTracking);
+        proxy.name();
+        assertEquals(1, usageTracking.used.size());
+        assertSame(calculator, usageTracking.used.get(0));
+        assertSame(calculator, proxySource.resolveProxy(proxy));
+        assertThrows(IllegalStateException.class, () -> proxy.name());
+        assertThrows(IllegalStateException.class, () -> proxy.toString());
+    }
+
+    @Test
+    public void testBootstrapInterfaces() {
+        // The proxy class links although this library is not visible from
+        // the bootstrap class loader
+        final DirectProxySource<IntSupplier> source = new DirectProxySource<>(
+                null, new Class<?>[] { IntSupplier.class, Runnable.class });
+        final AtomicInteger counter = new AtomicInteger();
+        final class Counter implements IntSupplier, Runnable {
+            @Override
+            public int getAsInt() {
+                return counter.get();
+            }
+
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        }
+        final Counter pooled = new Counter();
+        final IntSupplier proxy = source.createProxy(pooled, null);
+        ((Runnable) proxy).run();
+        assertEquals(1, proxy.getAsInt());
+        assertSame(pooled, source.resolveProxy(proxy));
+        assertThrows(IllegalStateException.class, proxy::getAsInt);
+    }
+
+    @Test
+    public void testCheckedExceptions() {
+        final DirectProxySource<Failing> source = new DirectProxySource<>(
+                getClass().getClassLoader(), new Class<?>[] { Failing.class });
+        final Failing proxy = source.createProxy(new FailingImpl(), null);
+        assertEquals("io", assertThrows(IOException.class, proxy::ioFailure).getMessage());
+        assertEquals("checked", assertThrows(TimeoutException.class, proxy::checkedFailure).getMessage());
+        assertEquals("unchecked",
+                assertThrows(UnsupportedOperationException.class, proxy::uncheckedFailure).getMessage());
+    }
+
+    @Test
+    public void testHandlerNotAccessible() {
+        final Calculator proxy = proxySource.createProxy(new CalculatorImpl(), null);
+        for (final Field field : proxy.getClass().getDeclaredFields()) {
+            assertTrue(Modifier.isPrivate(field.getModifiers()), field.toString());
+        }
+        for (final Method method : proxy.getClass().getMethods()) {
+            assertFalse(Supplier.class.isAssignableFrom(method.getReturnType()), method.toString());
+        }
+    }
+
+    @Test
+    public void testNotAnInterface() {
+        assertThrows(IllegalArgumentException.class, () -> new DirectProxySource<>(
+                getClass().getClassLoader(), new Class<?>[] { CalculatorImpl.class }));
+    }
+
+    @Test
+    public void testNotPublic() {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new DirectProxySource<>(getClass().getClassLoader(), new Class<?>[] { PackagePrivate.class }));
+        assertTrue(e.getMessage().contains("not public"), e.getMessage());
+    }
+
+    @Test
+    public void testOverloads() {
+        final DirectProxySource<Overloaded> source = new DirectProxySource<>(
+                getClass().getClassLoader(), new Class<?>[] { Overloaded.class });
+        final Overloaded proxy = source.createProxy(new OverloadedImpl(), null);
+        assertEquals("none", proxy.describe());
+        assertEquals("int 1", proxy.describe(1));
+        assertEquals("long 2", proxy.describe(2L));
+        assertEquals("Object x", proxy.describe("x"));
+        assertEquals("int[] [1, 2]", proxy.describe(new int[] {1, 2}));
+        assertEquals("p[a, 3]", proxy.describe("p", "a", 3));
+    }
+
+    @Test
+    public void testPrimitivesAndArrays() {
+        final DirectProxySource<Primitives> source = new DirectProxySource<>(
+                getClass().getClassLoader(), new Class<?>[] { Primitives.class });
+        final Primitives proxy = source.createProxy(new PrimitivesImpl(), null);
+        assertEquals((byte) -1, proxy.toByte(255));
+        assertEquals('A', proxy.toChar(65));
+        assertEquals((short) -32768, proxy.toShort(32768));
+        assertEquals(-1, proxy.toInt(0xFFFFFFFFL));
+        assertEquals(0.5f, proxy.toFloat(0.5));
+        assertEquals(3, proxy.toArray(3).length);
+        final Object[][] matrix = proxy.toMatrix(2, 3);
+        assertEquals(2, matrix.length);
+        assertEquals(3, matrix[1].length);
+        // Not overridden by the pooled object
+        assertEquals(42L, proxy.twice(21L));
+    }
+
+    @Test
+    public void testReservedMethod() {
+        assertThrows(IllegalArgumentException.class, () -> new DirectProxySource<>(
+                getClass().getClassLoader(), new Class<?>[] { Reserved.class }));
+    }
+}